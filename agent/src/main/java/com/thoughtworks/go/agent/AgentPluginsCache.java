@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Keeps the extracted agent plugins folder keyed by the MD5 of the agent plugins zip served by the server, so that an
+ * agent restarting against the same server does not have to extract (and later explode) every plugin again.
+ * <p>
+ * A pre-baked cache folder, e.g. one which is part of a container image and hence read-only, can be used as the source
+ * of the plugins when its checksum matches the one advertised by the server.
+ */
+class AgentPluginsCache {
+    static final String CHECKSUM_FILE = ".agent-plugins.md5";
+    private static final Logger LOG = LoggerFactory.getLogger(AgentPluginsCache.class);
+
+    private final File pluginsFolder;
+    private final File prebakedFolder;
+
+    AgentPluginsCache(File pluginsFolder, File prebakedFolder) {
+        this.pluginsFolder = pluginsFolder;
+        this.prebakedFolder = prebakedFolder;
+    }
+
+    boolean isUpToDate(String pluginsZipMd5) throws IOException {
+        return pluginsZipMd5.equals(checksumOf(pluginsFolder));
+    }
+
+    boolean restoreFromPrebakedCache(String pluginsZipMd5) throws IOException {
+        if (prebakedFolder == null || !pluginsZipMd5.equals(checksumOf(prebakedFolder))) {
+            return false;
+        }
+
+        if (pluginsFolder.exists()) {
+            FileUtils.forceDelete(pluginsFolder);
+        }
+        Path source = prebakedFolder.toPath();
+        Path destination = pluginsFolder.toPath();
+        for (File file : FileUtils.listFiles(prebakedFolder, null, true)) {
+            if (file.equals(new File(prebakedFolder, CHECKSUM_FILE))) {
+                continue;
+            }
+            Path target = destination.resolve(source.relativize(file.toPath()));
+            Files.createDirectories(target.getParent());
+            linkOrCopy(file.toPath(), target);
+        }
+        return true;
+    }
+
+    /**
+     * Brings the plugins folder in line with the given zip, writing only the entries whose size or CRC differ from the
+     * file already on disk and removing files which are no longer part of the zip.
+     */
+    void extractChangedPlugins(File pluginsZip, String pluginsZipMd5) throws IOException {
+        File checksumFile = new File(pluginsFolder, CHECKSUM_FILE);
+        FileUtils.deleteQuietly(checksumFile);
+
+        Set<File> filesInZip = new HashSet<>();
+        int extracted = 0;
+        try (ZipFile zipFile = new ZipFile(pluginsZip)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().contains("..")) {
+                    throw new IOException(String.format("File %s is outside extraction target directory", entry.getName()));
+                }
+                File target = new File(pluginsFolder, entry.getName());
+                if (entry.isDirectory()) {
+                    target.mkdirs();
+                    continue;
+                }
+
+                filesInZip.add(target.getAbsoluteFile());
+                if (!isSameContent(target, entry)) {
+                    // never write through an existing file, it could be a hard link into the pre-baked cache
+                    Files.deleteIfExists(target.toPath());
+                    target.getParentFile().mkdirs();
+                    try (InputStream inputStream = zipFile.getInputStream(entry); OutputStream outputStream = new FileOutputStream(target)) {
+                        IOUtils.copyLarge(inputStream, outputStream);
+                    }
+                    extracted++;
+                }
+            }
+        }
+
+        int removed = 0;
+        for (File file : FileUtils.listFiles(pluginsFolder, null, true)) {
+            if (!filesInZip.contains(file.getAbsoluteFile())) {
+                FileUtils.deleteQuietly(file);
+                removed++;
+            }
+        }
+
+        FileUtils.writeStringToFile(checksumFile, pluginsZipMd5, UTF_8);
+        LOG.info("Updated agent plugins in {}: {} file(s) extracted, {} file(s) removed, {} file(s) unchanged.", pluginsFolder, extracted, removed, filesInZip.size() - extracted);
+    }
+
+    void markAsExtracted(String pluginsZipMd5) throws IOException {
+        FileUtils.writeStringToFile(new File(pluginsFolder, CHECKSUM_FILE), pluginsZipMd5, UTF_8);
+    }
+
+    private boolean isSameContent(File file, ZipEntry entry) throws IOException {
+        if (!file.isFile() || entry.getSize() < 0 || entry.getCrc() < 0 || file.length() != entry.getSize()) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            Files.copy(source, target);
+        }
+    }
+
+    private static String checksumOf(File folder) throws IOException {
+        File checksumFile = new File(folder, CHECKSUM_FILE);
+        if (!checksumFile.isFile()) {
+            return null;
+        }
+        String checksum = FileUtils.readFileToString(checksumFile, UTF_8).trim();
+        return isNotBlank(checksum) ? checksum : null;
+    }
+}
@@ -31,6 +31,8 @@ import org.springframework.stereotype.Component;
 import java.io.File;
 import java.io.IOException;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
 @Component
 public class AgentPluginsInitializer implements ApplicationListener<ContextRefreshedEvent> {
     private static final Logger LOG = LoggerFactory.getLogger(AgentPluginsInitializer.class);
@@ -52,11 +54,13 @@ public class AgentPluginsInitializer implements ApplicationListener<ContextRefre
     public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
         try {
             File pluginsFolder = new File(systemEnvironment.get(SystemEnvironment.AGENT_PLUGINS_PATH));
+            String pluginsZipMd5 = systemEnvironment.getAgentPluginsMd5();
 
-            if (pluginsFolder.exists()) {
-                FileUtils.forceDelete(pluginsFolder);
+            if (isBlank(pluginsZipMd5)) {
+                extractAllPlugins(pluginsFolder);
+            } else {
+                extractChangedPlugins(pluginsFolder, pluginsZipMd5);
             }
-            zipUtil.unzip(DownloadableFile.AGENT_PLUGINS.getLocalFile(), pluginsFolder);
             defaultPluginJarLocationMonitor.initialize();
             pluginManager.startInfrastructure(false);
         } catch (IOException e) {
@@ -65,4 +69,28 @@ public class AgentPluginsInitializer implements ApplicationListener<ContextRefre
             LOG.warn("error while initializing agent plugins", e);
         }
     }
+
+    private void extractAllPlugins(File pluginsFolder) throws IOException {
+        if (pluginsFolder.exists()) {
+            FileUtils.forceDelete(pluginsFolder);
+        }
+        zipUtil.unzip(DownloadableFile.AGENT_PLUGINS.getLocalFile(), pluginsFolder);
+    }
+
+    private void extractChangedPlugins(File pluginsFolder, String pluginsZipMd5) throws IOException {
+        String prebakedCachePath = systemEnvironment.get(SystemEnvironment.AGENT_PLUGINS_CACHE_PATH);
+        AgentPluginsCache cache = new AgentPluginsCache(pluginsFolder, isBlank(prebakedCachePath) ? null : new File(prebakedCachePath));
+
+        if (cache.isUpToDate(pluginsZipMd5)) {
+            LOG.info("Agent plugins in {} are up to date with the server, skipping extraction.", pluginsFolder);
+        } else if (cache.restoreFromPrebakedCache(pluginsZipMd5)) {
+            LOG.info("Agent plugins in {} restored from pre-baked cache {}.", pluginsFolder, prebakedCachePath);
+            cache.markAsExtracted(pluginsZipMd5);
+        } else if (pluginsFolder.exists()) {
+            cache.extractChangedPlugins(DownloadableFile.AGENT_PLUGINS.getLocalFile(), pluginsZipMd5);
+        } else {
+            extractAllPlugins(pluginsFolder);
+            cache.markAsExtracted(pluginsZipMd5);
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgentPluginsCacheTest {
+    private File pluginsFolder;
+    private File prebakedFolder;
+    private File pluginsZip;
+
+    @BeforeEach
+    void setUp(@TempDir File tempDir) {
+        pluginsFolder = new File(tempDir, "plugins");
+        prebakedFolder = new File(tempDir, "prebaked");
+        pluginsZip = new File(tempDir, "agent-plugins.zip");
+    }
+
+    @Test
+    void shouldExtractOnlyChangedPluginsAndRemovePluginsNoLongerInTheZip() throws IOException {
+        createZip(Map.of("bundled/unchanged.jar", "same", "bundled/changed.jar", "new content", "external/added.jar", "added"));
+        writeFile(new File(pluginsFolder, "bundled/unchanged.jar"), "same");
+        writeFile(new File(pluginsFolder, "bundled/changed.jar"), "old content");
+        writeFile(new File(pluginsFolder, "external/removed.jar"), "removed");
+        File unchanged = new File(pluginsFolder, "bundled/unchanged.jar");
+        unchanged.setLastModified(1000L);
+
+        AgentPluginsCache cache = new AgentPluginsCache(pluginsFolder, null);
+        cache.extractChangedPlugins(pluginsZip, "md5-1");
+
+        assertThat(unchanged.lastModified()).isEqualTo(1000L);
+        assertThat(FileUtils.readFileToString(new File(pluginsFolder, "bundled/changed.jar"), UTF_8)).isEqualTo("new content");
+        assertThat(new File(pluginsFolder, "external/added.jar")).exists();
+        assertThat(new File(pluginsFolder, "external/removed.jar")).doesNotExist();
+        assertThat(cache.isUpToDate("md5-1")).isTrue();
+        assertThat(cache.isUpToDate("md5-2")).isFalse();
+    }
+
+    @Test
+    void shouldRestorePluginsFromPrebakedCacheWhenItsChecksumMatches() throws IOException {
+        writeFile(new File(prebakedFolder, "bundled/plugin.jar"), "plugin");
+        writeFile(new File(prebakedFolder, AgentPluginsCache.CHECKSUM_FILE), "md5-1");
+        writeFile(new File(pluginsFolder, "bundled/stale.jar"), "stale");
+
+        AgentPluginsCache cache = new AgentPluginsCache(pluginsFolder, prebakedFolder);
+
+        assertThat(cache.restoreFromPrebakedCache("md5-2")).isFalse();
+        assertThat(cache.restoreFromPrebakedCache("md5-1")).isTrue();
+        assertThat(FileUtils.readFileToString(new File(pluginsFolder, "bundled/plugin.jar"), UTF_8)).isEqualTo("plugin");
+        assertThat(new File(pluginsFolder, "bundled/stale.jar")).doesNotExist();
+        assertThat(cache.isUpToDate("md5-1")).isFalse();
+    }
+
+    @Test
+    void shouldNotWriteThroughFilesRestoredFromPrebakedCache() throws IOException {
+        writeFile(new File(prebakedFolder, "bundled/plugin.jar"), "plugin");
+        writeFile(new File(prebakedFolder, AgentPluginsCache.CHECKSUM_FILE), "md5-1");
+        createZip(Map.of("bundled/plugin.jar", "upgraded plugin"));
+
+        AgentPluginsCache cache = new AgentPluginsCache(pluginsFolder, prebakedFolder);
+        cache.restoreFromPrebakedCache("md5-1");
+        cache.extractChangedPlugins(pluginsZip, "md5-2");
+
+        assertThat(FileUtils.readFileToString(new File(pluginsFolder, "bundled/plugin.jar"), UTF_8)).isEqualTo("upgraded plugin");
+        assertThat(FileUtils.readFileToString(new File(prebakedFolder, "bundled/plugin.jar"), UTF_8)).isEqualTo("plugin");
+    }
+
+    private void createZip(Map<String, String> entries) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(pluginsZip))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+                zipOutputStream.write(entry.getValue().getBytes(UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    private void writeFile(File file, String content) throws IOException {
+        FileUtils.writeStringToFile(file, content, UTF_8);
+    }
+}
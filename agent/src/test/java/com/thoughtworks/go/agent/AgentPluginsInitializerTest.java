@@ -20,9 +20,11 @@ import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.monitor.DefaultPluginJarLocationMonitor;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -30,6 +32,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.File;
 import java.io.IOException;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
@@ -82,4 +85,17 @@ class AgentPluginsInitializerTest {
         doThrow(new IOException()).when(zipUtil).unzip(DownloadableFile.AGENT_PLUGINS.getLocalFile(), new File(SystemEnvironment.PLUGINS_PATH));
         agentPluginsInitializer.onApplicationEvent(null);
     }
+
+    @Test
+    void shouldNotExtractPluginZipWhenPluginsExtractedEarlierMatchTheChecksumAdvertisedByTheServer(@TempDir File pluginsFolder) throws Exception {
+        FileUtils.writeStringToFile(new File(pluginsFolder, AgentPluginsCache.CHECKSUM_FILE), "plugins-md5", UTF_8);
+        when(systemEnvironment.get(SystemEnvironment.AGENT_PLUGINS_PATH)).thenReturn(pluginsFolder.getAbsolutePath());
+        when(systemEnvironment.getAgentPluginsMd5()).thenReturn("plugins-md5");
+
+        agentPluginsInitializer.onApplicationEvent(null);
+
+        verifyNoInteractions(zipUtil);
+        verify(pluginJarLocationMonitor).initialize();
+        verify(pluginManager).startInfrastructure(false);
+    }
 }
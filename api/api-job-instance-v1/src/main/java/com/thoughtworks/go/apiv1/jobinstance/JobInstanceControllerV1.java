@@ -18,13 +18,16 @@ package com.thoughtworks.go.apiv1.jobinstance;
 import com.thoughtworks.go.api.ApiController;
 import com.thoughtworks.go.api.ApiVersion;
 import com.thoughtworks.go.api.spring.ApiAuthenticationHelper;
+import com.thoughtworks.go.apiv1.jobinstance.representers.FlakyTestsRepresenter;
 import com.thoughtworks.go.apiv1.jobinstance.representers.JobInstanceRepresenter;
 import com.thoughtworks.go.apiv1.jobinstance.representers.JobInstancesRepresenter;
+import com.thoughtworks.go.apiv1.jobinstance.representers.TestResultsRepresenter;
 import com.thoughtworks.go.config.exceptions.BadRequestException;
 import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.domain.JobInstance;
 import com.thoughtworks.go.domain.JobInstances;
 import com.thoughtworks.go.domain.PipelineRunIdInfo;
+import com.thoughtworks.go.server.persistence.TestResultStore;
 import com.thoughtworks.go.server.service.JobInstanceService;
 import com.thoughtworks.go.spark.Routes;
 import com.thoughtworks.go.spark.spring.SparkSpringController;
@@ -40,14 +43,20 @@ import static spark.Spark.*;
 
 @Component
 public class JobInstanceControllerV1 extends ApiController implements SparkSpringController {
+    private static final String BAD_OFFSET_MSG = "The query parameter 'offset', if specified must be a number greater or equal to 0.";
+    private static final String BAD_RUNS_MSG = "The query parameter 'runs', if specified must be a number between 1 and 1000.";
+    private static final String DEFAULT_FLAKY_TEST_RUNS = "100";
+
     private final ApiAuthenticationHelper apiAuthenticationHelper;
     private final JobInstanceService jobInstanceService;
+    private final TestResultStore testResultStore;
 
     @Autowired
-    public JobInstanceControllerV1(ApiAuthenticationHelper apiAuthenticationHelper, JobInstanceService jobInstanceService) {
+    public JobInstanceControllerV1(ApiAuthenticationHelper apiAuthenticationHelper, JobInstanceService jobInstanceService, TestResultStore testResultStore) {
         super(ApiVersion.v1);
         this.apiAuthenticationHelper = apiAuthenticationHelper;
         this.jobInstanceService = jobInstanceService;
+        this.testResultStore = testResultStore;
     }
 
     @Override
@@ -63,9 +72,13 @@ public class JobInstanceControllerV1 extends ApiController implements SparkSprin
 
             before(Routes.Job.JOB_HISTORY, mimeType, this.apiAuthenticationHelper::checkPipelineViewPermissionsAnd403);
             before(Routes.Job.JOB_INSTANCE, mimeType, this.apiAuthenticationHelper::checkPipelineViewPermissionsAnd403);
+            before(Routes.Job.JOB_TEST_RESULTS, mimeType, this.apiAuthenticationHelper::checkPipelineViewPermissionsAnd403);
+            before(Routes.Job.JOB_FLAKY_TESTS, mimeType, this.apiAuthenticationHelper::checkPipelineViewPermissionsAnd403);
 
             get(Routes.Job.JOB_HISTORY, mimeType, this::getHistoryInfo);
             get(Routes.Job.JOB_INSTANCE, mimeType, this::getInstanceInfo);
+            get(Routes.Job.JOB_TEST_RESULTS, mimeType, this::getTestResults);
+            get(Routes.Job.JOB_FLAKY_TESTS, mimeType, this::getFlakyTests);
         });
     }
 
@@ -84,6 +97,28 @@ public class JobInstanceControllerV1 extends ApiController implements SparkSprin
     }
 
     String getInstanceInfo(Request request, Response response) throws IOException {
+        JobInstance jobInstance = findJobInstance(request);
+        return writerForTopLevelObject(request, response, writer -> JobInstanceRepresenter.toJSON(writer, jobInstance));
+    }
+
+    String getTestResults(Request request, Response response) throws IOException {
+        JobInstance jobInstance = findJobInstance(request);
+        TestResultStore.TestResults testResults = testResultStore.resultsOf(jobInstance.getIdentifier(), getOffset(request), getPageSize(request));
+        if (testResults == null) {
+            throw new RecordNotFoundException(format("No test results were found for '%s'.", jobInstance.getIdentifier().buildLocator()));
+        }
+        return writerForTopLevelObject(request, response, writer -> TestResultsRepresenter.toJSON(writer, testResults));
+    }
+
+    String getFlakyTests(Request request, Response response) throws IOException {
+        String pipelineName = request.params("pipeline_name");
+        String stageName = request.params("stage_name");
+        String jobName = request.params("job_name");
+        TestResultStore.FlakyTests flakyTests = testResultStore.flakyTests(pipelineName, stageName, jobName, getRuns(request), getOffset(request), getPageSize(request));
+        return writerForTopLevelObject(request, response, writer -> FlakyTestsRepresenter.toJSON(writer, flakyTests));
+    }
+
+    private JobInstance findJobInstance(Request request) {
         String pipelineName = request.params("pipeline_name");
         String stageName = request.params("stage_name");
         String jobName = request.params("job_name");
@@ -93,7 +128,33 @@ public class JobInstanceControllerV1 extends ApiController implements SparkSprin
         if (jobInstance.isNull()) {
             throw new RecordNotFoundException(format("No job instance was found for '%s/%s/%s/%s/%s'.", pipelineName, pipelineCounter, stageName, stageCounter, jobName));
         }
-        return writerForTopLevelObject(request, response, writer -> JobInstanceRepresenter.toJSON(writer, jobInstance));
+        return jobInstance;
+    }
+
+    private Integer getOffset(Request request) {
+        Integer offset;
+        try {
+            offset = Integer.valueOf(request.queryParamOrDefault("offset", "0"));
+            if (offset < 0) {
+                throw new BadRequestException(BAD_OFFSET_MSG);
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(BAD_OFFSET_MSG);
+        }
+        return offset;
+    }
+
+    private Integer getRuns(Request request) {
+        Integer runs;
+        try {
+            runs = Integer.valueOf(request.queryParamOrDefault("runs", DEFAULT_FLAKY_TEST_RUNS));
+            if (runs < 1 || runs > 1000) {
+                throw new BadRequestException(BAD_RUNS_MSG);
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(BAD_RUNS_MSG);
+        }
+        return runs;
     }
 
     private Integer getValue(Request request, String paramKey) {
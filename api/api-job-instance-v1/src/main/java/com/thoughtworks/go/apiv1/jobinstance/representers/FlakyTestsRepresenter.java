@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv1.jobinstance.representers;
+
+import com.thoughtworks.go.api.base.OutputWriter;
+import com.thoughtworks.go.api.representers.PaginationRepresenter;
+import com.thoughtworks.go.server.persistence.TestResultStore;
+
+public class FlakyTestsRepresenter {
+    public static void toJSON(OutputWriter outputWriter, TestResultStore.FlakyTests flakyTests) {
+        outputWriter
+                .add("runs", flakyTests.getRuns())
+                .addChildList("flaky_tests", testsWriter -> flakyTests.getTests().forEach(test -> testsWriter.addChild(testWriter -> toJSON(testWriter, test))))
+                .addChild("pagination", PaginationRepresenter.toJSON(flakyTests.getPagination()));
+    }
+
+    private static void toJSON(OutputWriter outputWriter, TestResultStore.FlakyTest test) {
+        outputWriter
+                .add("suite", test.getSuite())
+                .add("name", test.getName())
+                .add("runs", test.getRuns())
+                .add("failures", test.getFailures())
+                .add("flips", test.getFlips());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv1.jobinstance.representers;
+
+import com.thoughtworks.go.api.base.OutputWriter;
+import com.thoughtworks.go.api.representers.PaginationRepresenter;
+import com.thoughtworks.go.domain.TestCaseResult;
+import com.thoughtworks.go.server.persistence.TestResultStore;
+
+public class TestResultsRepresenter {
+    public static void toJSON(OutputWriter outputWriter, TestResultStore.TestResults testResults) {
+        outputWriter
+                .addChildList("test_results", resultsWriter -> testResults.getResults().forEach(result -> resultsWriter.addChild(resultWriter -> toJSON(resultWriter, result))))
+                .addChild("pagination", PaginationRepresenter.toJSON(testResults.getPagination()));
+    }
+
+    private static void toJSON(OutputWriter outputWriter, TestCaseResult result) {
+        outputWriter
+                .add("suite", result.getSuite())
+                .add("name", result.getName())
+                .add("outcome", result.getOutcome().name().toLowerCase())
+                .add("duration_millis", result.getDurationMillis());
+    }
+}
@@ -17,18 +17,24 @@ package com.thoughtworks.go.apiv1.jobinstance
 
 import com.thoughtworks.go.api.SecurityTestTrait
 import com.thoughtworks.go.api.spring.ApiAuthenticationHelper
+import com.thoughtworks.go.apiv1.jobinstance.representers.FlakyTestsRepresenter
 import com.thoughtworks.go.apiv1.jobinstance.representers.JobInstanceRepresenter
 import com.thoughtworks.go.apiv1.jobinstance.representers.JobInstancesRepresenter
+import com.thoughtworks.go.apiv1.jobinstance.representers.TestResultsRepresenter
 import com.thoughtworks.go.config.CaseInsensitiveString
 import com.thoughtworks.go.config.exceptions.EntityType
 import com.thoughtworks.go.config.exceptions.NotAuthorizedException
 import com.thoughtworks.go.config.exceptions.RecordNotFoundException
+import com.thoughtworks.go.domain.JobIdentifier
 import com.thoughtworks.go.domain.JobInstances
 import com.thoughtworks.go.domain.NullJobInstance
 import com.thoughtworks.go.domain.PipelineRunIdInfo
+import com.thoughtworks.go.domain.TestCaseResult
 import com.thoughtworks.go.helper.JobInstanceMother
 import com.thoughtworks.go.server.domain.Username
+import com.thoughtworks.go.server.persistence.TestResultStore
 import com.thoughtworks.go.server.service.JobInstanceService
+import com.thoughtworks.go.server.util.Pagination
 import com.thoughtworks.go.spark.ControllerTrait
 import com.thoughtworks.go.spark.PipelineAccessSecurity
 import com.thoughtworks.go.spark.SecurityServiceTrait
@@ -54,10 +60,12 @@ class JobInstanceControllerV1Test implements SecurityServiceTrait, ControllerTra
   @Mock
   private JobInstanceService jobInstanceService
 
+  @Mock
+  private TestResultStore testResultStore
 
   @Override
   JobInstanceControllerV1 createControllerInstance() {
-    new JobInstanceControllerV1(new ApiAuthenticationHelper(securityService, goConfigService), jobInstanceService)
+    new JobInstanceControllerV1(new ApiAuthenticationHelper(securityService, goConfigService), jobInstanceService, testResultStore)
   }
 
   @Nested
@@ -349,4 +357,175 @@ class JobInstanceControllerV1Test implements SecurityServiceTrait, ControllerTra
       }
     }
   }
+
+  @Nested
+  class TestResults {
+    String pipelineName = "up42"
+    String stageName = "run-tests"
+    String jobName = "java"
+
+    @BeforeEach
+    void setUp() {
+      when(goConfigService.hasPipelineNamed(new CaseInsensitiveString(pipelineName))).thenReturn(true)
+    }
+
+    @Nested
+    class Security implements SecurityTestTrait, PipelineAccessSecurity {
+
+      @Override
+      String getControllerMethodUnderTest() {
+        return "getTestResults"
+      }
+
+      @Override
+      void makeHttpCall() {
+        getWithApiHeader(controller.controllerPath(pipelineName, 1, stageName, 1, jobName, 'test_results'), [:])
+      }
+
+      @Override
+      String getPipelineName() {
+        return TestResults.this.pipelineName
+      }
+    }
+
+    @Nested
+    class AsAuthorizedUser {
+      def jobInstance
+
+      @BeforeEach
+      void setUp() {
+        loginAsAdmin()
+        jobInstance = JobInstanceMother.completed(jobName)
+        jobInstance.setIdentifier(new JobIdentifier(pipelineName, 1, "1", stageName, "1", jobName, 42L))
+        when(jobInstanceService.findJobInstance(eq(pipelineName), eq(stageName), eq(jobName), eq(1), eq(1), eq(currentUsername()))).thenReturn(jobInstance)
+      }
+
+      @Test
+      void 'should return a page of test results for the job run'() {
+        def testResults = new TestResultStore.TestResults(Pagination.pageStartingAt(10, 12, 10), [
+          new TestCaseResult("com.example.FooTest", "passes", TestCaseResult.Outcome.PASSED, 12),
+          new TestCaseResult("com.example.FooTest", "fails", TestCaseResult.Outcome.FAILED, 3)
+        ])
+        when(testResultStore.resultsOf(jobInstance.getIdentifier(), 10, 10)).thenReturn(testResults)
+
+        getWithApiHeader(controller.controllerPath([offset: '10'], pipelineName, 1, stageName, 1, jobName, 'test_results'))
+
+        assertThatResponse()
+          .isOk()
+          .hasBody(toObjectString({ TestResultsRepresenter.toJSON(it, testResults) }))
+      }
+
+      @Test
+      void 'should render not found if no test results were recorded for the job run'() {
+        when(testResultStore.resultsOf(jobInstance.getIdentifier(), 0, 10)).thenReturn(null)
+
+        getWithApiHeader(controller.controllerPath(pipelineName, 1, stageName, 1, jobName, 'test_results'))
+
+        assertThatResponse()
+          .isNotFound()
+          .hasJsonMessage("No test results were found for 'up42/1/run-tests/1/java'.")
+      }
+
+      @Test
+      void 'should render not found if the job has not been run for the given counters'() {
+        when(jobInstanceService.findJobInstance(eq(pipelineName), eq(stageName), eq(jobName), eq(10), eq(10), eq(currentUsername()))).thenReturn(new NullJobInstance(jobName))
+
+        getWithApiHeader(controller.controllerPath(pipelineName, 10, stageName, 10, jobName, 'test_results'))
+
+        assertThatResponse()
+          .isNotFound()
+          .hasJsonMessage("No job instance was found for 'up42/10/run-tests/10/java'.")
+        verifyNoInteractions(testResultStore)
+      }
+
+      @Test
+      void 'should render bad request if offset is negative'() {
+        getWithApiHeader(controller.controllerPath([offset: '-1'], pipelineName, 1, stageName, 1, jobName, 'test_results'))
+
+        assertThatResponse()
+          .isBadRequest()
+          .hasJsonMessage("The query parameter 'offset', if specified must be a number greater or equal to 0.")
+      }
+    }
+  }
+
+  @Nested
+  class FlakyTests {
+    String pipelineName = "up42"
+    String stageName = "run-tests"
+    String jobName = "java"
+
+    @BeforeEach
+    void setUp() {
+      when(goConfigService.hasPipelineNamed(new CaseInsensitiveString(pipelineName))).thenReturn(true)
+    }
+
+    @Nested
+    class Security implements SecurityTestTrait, PipelineAccessSecurity {
+
+      @Override
+      String getControllerMethodUnderTest() {
+        return "getFlakyTests"
+      }
+
+      @Override
+      void makeHttpCall() {
+        getWithApiHeader(controller.controllerPath(pipelineName, stageName, jobName, 'flaky_tests'), [:])
+      }
+
+      @Override
+      String getPipelineName() {
+        return FlakyTests.this.pipelineName
+      }
+    }
+
+    @Nested
+    class AsAuthorizedUser {
+      @BeforeEach
+      void setUp() {
+        loginAsAdmin()
+      }
+
+      @Test
+      void 'should return flaky tests over the latest hundred runs by default'() {
+        def flakyTests = new TestResultStore.FlakyTests(Pagination.pageStartingAt(0, 1, 10), 100, [
+          new TestResultStore.FlakyTest("com.example.FooTest", "sometimes", 100, 7, 12)
+        ])
+        when(testResultStore.flakyTests(pipelineName, stageName, jobName, 100, 0, 10)).thenReturn(flakyTests)
+
+        getWithApiHeader(controller.controllerPath(pipelineName, stageName, jobName, 'flaky_tests'))
+
+        assertThatResponse()
+          .isOk()
+          .hasBody(toObjectString({ FlakyTestsRepresenter.toJSON(it, flakyTests) }))
+      }
+
+      @Test
+      void 'should look at the number of runs requested'() {
+        def flakyTests = new TestResultStore.FlakyTests(Pagination.pageStartingAt(20, 0, 20), 0, [])
+        when(testResultStore.flakyTests(pipelineName, stageName, jobName, 500, 20, 20)).thenReturn(flakyTests)
+
+        getWithApiHeader(controller.controllerPath([runs: '500', offset: '20', page_size: '20'], pipelineName, stageName, jobName, 'flaky_tests'))
+
+        assertThatResponse()
+          .isOk()
+          .hasBody(toObjectString({ FlakyTestsRepresenter.toJSON(it, flakyTests) }))
+      }
+
+      @ParameterizedTest
+      @MethodSource("badRuns")
+      void 'should render bad request if runs is not within range'(String runs) {
+        getWithApiHeader(controller.controllerPath([runs: runs], pipelineName, stageName, jobName, 'flaky_tests'))
+
+        assertThatResponse()
+          .isBadRequest()
+          .hasJsonMessage("The query parameter 'runs', if specified must be a number between 1 and 1000.")
+        verifyNoInteractions(testResultStore)
+      }
+
+      static Stream<Arguments> badRuns() {
+        return Stream.of(Arguments.of("0"), Arguments.of("1001"), Arguments.of("abc"))
+      }
+    }
+  }
 }
@@ -18,6 +18,8 @@ package com.thoughtworks.go.api.support;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.thoughtworks.go.api.ControllerMethods;
+import com.thoughtworks.go.server.persistence.ModificationSearchIndex;
+import com.thoughtworks.go.server.security.HeaderConstraint;
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
 import com.thoughtworks.go.server.service.support.ServerStatusService;
 import com.thoughtworks.go.spark.Routes;
@@ -25,6 +27,7 @@ import com.thoughtworks.go.spark.SparkController;
 import com.thoughtworks.go.spark.spring.SparkSpringController;
 import com.thoughtworks.go.util.ProcessManager;
 import com.thoughtworks.go.util.ProcessWrapper;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import spark.Request;
@@ -35,18 +38,22 @@ import java.util.Collection;
 import java.util.Map;
 
 import static com.thoughtworks.go.api.support.representers.ProcessListRepresenter.toJSON;
-import static spark.Spark.get;
-import static spark.Spark.path;
+import static com.thoughtworks.go.api.util.HaltApiResponses.haltBecauseConfirmHeaderMissing;
+import static spark.Spark.*;
 
 @Component
 public class ApiSupportController implements SparkController, ControllerMethods, SparkSpringController {
+    private static final HeaderConstraint HEADER_CONSTRAINT = new HeaderConstraint(new SystemEnvironment());
+
     private ServerStatusService serverStatusService;
+    private ModificationSearchIndex modificationSearchIndex;
 
     private Gson gson = new GsonBuilder().setPrettyPrinting().serializeNulls().create();
 
     @Autowired
-    public ApiSupportController(ServerStatusService serverStatusService) {
+    public ApiSupportController(ServerStatusService serverStatusService, ModificationSearchIndex modificationSearchIndex) {
         this.serverStatusService = serverStatusService;
+        this.modificationSearchIndex = modificationSearchIndex;
     }
 
     @Override
@@ -59,6 +66,7 @@ public class ApiSupportController implements SparkController, ControllerMethods,
         path(controllerBasePath(), () -> {
             get("", this::show);
             get(Routes.Support.PROCESS_LIST, this::processList);
+            delete(Routes.Support.MODIFICATION_SEARCH_INDEX, this::clearModificationSearchIndex);
         });
     }
 
@@ -79,4 +87,14 @@ public class ApiSupportController implements SparkController, ControllerMethods,
         response.type("application/json");
         return writerForTopLevelObject(request, response, outputWriter -> toJSON(outputWriter, processList));
     }
+
+    public String clearModificationSearchIndex(Request request, Response response) throws IOException {
+        if (!HEADER_CONSTRAINT.isSatisfied(request.raw())) {
+            throw haltBecauseConfirmHeaderMissing();
+        }
+        modificationSearchIndex.clear();
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+        result.setMessage("The modification search index has been cleared. Each material will be indexed again on its next search.");
+        return renderHTTPOperationResult(result, request, response);
+    }
 }
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.api.support
 
 import com.thoughtworks.go.server.domain.Username
+import com.thoughtworks.go.server.persistence.ModificationSearchIndex
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult
 import com.thoughtworks.go.server.service.support.ServerStatusService
 import com.thoughtworks.go.spark.ControllerTrait
@@ -31,6 +32,7 @@ import org.mockito.quality.Strictness
 import static org.mockito.ArgumentMatchers.any
 import static org.mockito.ArgumentMatchers.eq
 import static org.mockito.Mockito.doAnswer
+import static org.mockito.Mockito.verify
 import static org.mockito.Mockito.when
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -38,10 +40,12 @@ class ApiSupportControllerV1Test implements SecurityServiceTrait, ControllerTrai
   @Mock
   private ServerStatusService serverStatusService
 
+  @Mock
+  private ModificationSearchIndex modificationSearchIndex
 
   @Override
   ApiSupportController createControllerInstance() {
-    new ApiSupportController(serverStatusService)
+    new ApiSupportController(serverStatusService, modificationSearchIndex)
   }
 
   @Nested
@@ -90,4 +94,19 @@ class ApiSupportControllerV1Test implements SecurityServiceTrait, ControllerTrai
         .hasContentType("application/json")
     }
   }
+
+  @Nested
+  class ClearModificationSearchIndex {
+    @Test
+    void 'should clear the modification search index'() {
+      loginAsAdmin()
+
+      sendRequest('delete', controller.controllerPath(Routes.Support.MODIFICATION_SEARCH_INDEX), ['X-GoCD-Confirm': 'true'], null)
+
+      assertThatResponse()
+        .isOk()
+        .hasJsonMessage("The modification search index has been cleared. Each material will be indexed again on its next search.")
+      verify(modificationSearchIndex).clear()
+    }
+  }
 }
@@ -103,6 +103,8 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static final String MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY = "material.update.idle.interval";
     private static GoSystemProperty<Long> MATERIAL_UPDATE_IDLE_INTERVAL = new GoLongSystemProperty(MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, 60000L);
+    public static final String MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY = "material.update.max.idle.interval";
+    private static GoSystemProperty<Long> MATERIAL_UPDATE_MAX_IDLE_INTERVAL = new GoLongSystemProperty(MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, 0L);
 
     public static GoSystemProperty<Integer> PLUGIN_LOCATION_MONITOR_INTERVAL_IN_SECONDS = new GoIntSystemProperty("pluginLocationMonitor.sleepTimeInSecs", -1);
     public static final String PLUGINS_PATH = "plugins";
@@ -110,6 +112,13 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static GoSystemProperty<String> PLUGIN_EXTERNAL_PROVIDED_PATH = new GoStringSystemProperty("plugins.external.provided.path", PLUGINS_PATH + System.getProperty("file.separator") + "external");
     public static GoSystemProperty<String> PLUGIN_WORK_DIR = new CachedProperty<>(new GoStringSystemProperty("plugins.work.path", "plugins_work"));
     public static GoSystemProperty<String> PLUGIN_ACTIVATOR_JAR_PATH = new CachedProperty<>(new GoStringSystemProperty("plugins.activator.jar.path", "lib/go-plugin-activator.jar"));
+    public static GoIntSystemProperty PLUGIN_LOAD_THREADS = new GoIntSystemProperty("plugins.load.threads", 1);
+    public static GoBooleanSystemProperty PLUGIN_REUSE_EXPLODED_BUNDLES = new GoBooleanSystemProperty("plugins.reuse.exploded.bundles", false);
+    public static GoIntSystemProperty PLUGIN_REQUESTS_MAX_CONCURRENT = new GoIntSystemProperty("plugins.requests.max.concurrent", 0);
+    public static GoSystemProperty<String> PLUGIN_REQUESTS_MAX_CONCURRENT_OVERRIDES = new GoStringSystemProperty("plugins.requests.max.concurrent.overrides", "");
+    public static GoIntSystemProperty PLUGIN_REQUESTS_QUEUE_TIMEOUT_IN_SECONDS = new GoIntSystemProperty("plugins.requests.queue.timeout.seconds", 60);
+    public static GoIntSystemProperty PLUGIN_REQUESTS_TIMEOUT_IN_SECONDS = new GoIntSystemProperty("plugins.requests.timeout.seconds", 0);
+    public static GoIntSystemProperty PLUGIN_REQUESTS_TIMEOUT_THREADS = new GoIntSystemProperty("plugins.requests.timeout.threads", 50);
     public static GoSystemProperty<String> ALL_PLUGINS_ZIP_PATH = new GoStringSystemProperty("plugins.all.zip.path", new File(PLUGINS_PATH, "go-plugins-all.zip").getAbsolutePath());
     public static GoSystemProperty<String> ADDONS_PATH = new GoStringSystemProperty("addons.path", "addons");
     public static GoSystemProperty<String> AVAILABLE_FEATURE_TOGGLES_FILE_PATH = new GoStringSystemProperty("available.toggles.path", "/available.toggles");
@@ -118,6 +127,7 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static GoSystemProperty<String> DEFAULT_PLUGINS_ZIP = new CachedProperty<>(
             new GoStringSystemProperty("default.plugins.zip.location", "/defaultFiles/plugins.zip"));
     public static final GoSystemProperty<String> AGENT_PLUGINS_PATH = new CachedProperty<>(new GoStringSystemProperty("agent.plugins.path", PLUGINS_PATH));
+    public static final GoSystemProperty<String> AGENT_PLUGINS_CACHE_PATH = new GoStringSystemProperty("agent.plugins.cache.path", "");
     public static GoSystemProperty<Integer> IDLE_TIMEOUT = new GoIntSystemProperty("idle.timeout", 30000);
     public static GoSystemProperty<Integer> RESPONSE_BUFFER_SIZE = new GoIntSystemProperty("response.buffer.size", 32768);
     public static final GoSystemProperty<Integer> API_REQUEST_IDLE_TIMEOUT_IN_SECONDS = new GoIntSystemProperty("api.request.idle.timeout.seconds", 300);
@@ -151,12 +161,15 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static GoSystemProperty<Integer> GO_ELASTIC_PLUGIN_CREATE_AGENT_THREADS = new GoIntSystemProperty("go.elasticplugin.createagent.threads", 5);
     public static GoSystemProperty<Integer> GO_ELASTIC_PLUGIN_SERVER_PING_THREADS = new GoIntSystemProperty("go.elasticplugin.serverping.threads", 1);
+    public static GoSystemProperty<Boolean> GO_ELASTIC_PLUGIN_ASSIGN_WORK_OUTSIDE_LOCK = new GoBooleanSystemProperty("go.elasticplugin.assignwork.outside.lock", false);
+    public static GoSystemProperty<Long> GO_ELASTIC_PLUGIN_DECLINED_ASSIGNMENT_TTL = new GoLongSystemProperty("go.elasticplugin.assignwork.declined.ttl.millis", 30 * 1000L);
     public static GoSystemProperty<Integer> GO_ENCRYPTION_API_MAX_REQUESTS = new GoIntSystemProperty("go.encryption.api.max.requests", 30);
 
     public static GoSystemProperty<String> GO_ANALYTICS_PLUGIN_EXTERNAL_ASSETS = new GoStringSystemProperty("go.analytics.plugin.external.assets", "./analytics-assets");
     public static GoSystemProperty<Boolean> AUTO_REGISTER_LOCAL_AGENT_ENABLED = new GoBooleanSystemProperty("go.auto.register.local.agent.enabled", true);
 
     public static GoSystemProperty<Boolean> GO_SERVER_SHALLOW_CLONE = new GoBooleanSystemProperty("go.server.shallowClone", false);
+    public static GoSystemProperty<Boolean> GO_SERVER_GIT_PROBE_REMOTE_REF = new GoBooleanSystemProperty("go.server.git.probe.remote.ref", true);
     public static GoSystemProperty<Boolean> GO_SERVER_SCHEDULED_PIPELINE_LOADER_GLOBAL_MATERIAL_LOOKUP = new GoBooleanSystemProperty("go.server.scheduledPipelineLoader.globalMaterialLookup", false);
 
     public static GoSystemProperty<Boolean> GO_API_WITH_SAFE_MODE = new GoBooleanSystemProperty("go.api.with.safe.mode", true);
@@ -167,8 +180,17 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> GO_DIAGNOSTICS_MODE = new GoBooleanSystemProperty("go.diagnostics.mode", false);
 
     public static GoIntSystemProperty DEPENDENCY_MATERIAL_UPDATE_LISTENERS = new GoIntSystemProperty("dependency.material.check.threads", 3);
+    public static GoIntSystemProperty MATERIAL_BOOTSTRAP_LISTENERS = new GoIntSystemProperty("material.bootstrap.threads", 2);
 
     public static GoIntSystemProperty CONFIG_MATERIAL_POST_UPDATE_LISTENERS = new GoIntSystemProperty("config.material.post.update.threads", 2);
+    public static GoIntSystemProperty CONFIG_REPO_PARSE_THREADS = new GoIntSystemProperty("config.repo.parse.threads", 4);
+    public static GoIntSystemProperty CONFIG_REPO_PARSE_THREADS_PER_PLUGIN = new GoIntSystemProperty("config.repo.parse.threads.per.plugin", 2);
+    public static GoIntSystemProperty RESOLVED_SECRETS_CACHE_TTL_IN_SECONDS = new GoIntSystemProperty("go.secrets.resolved.cache.ttl.seconds", 5);
+    public static GoBooleanSystemProperty BACKUP_DATABASE_IN_PARALLEL = new GoBooleanSystemProperty("go.backup.database.in.parallel", false);
+    public static GoBooleanSystemProperty MODIFICATION_SEARCH_INDEX_ENABLED = new GoBooleanSystemProperty("go.modification.search.index.enabled", false);
+    public static GoIntSystemProperty MODIFICATION_SEARCH_INDEX_MAX_MODIFICATIONS = new GoIntSystemProperty("go.modification.search.index.max.modifications", 1000000);
+    public static GoBooleanSystemProperty TEST_RESULT_STORE_ENABLED = new GoBooleanSystemProperty("go.test.result.store.enabled", false);
+    public static GoIntSystemProperty TEST_RESULT_STORE_MAX_RUNS_PER_JOB = new GoIntSystemProperty("go.test.result.store.max.runs.per.job", 1000);
 
     public static GoSystemProperty<String> GO_SERVER_MODE = new GoStringSystemProperty("go.server.mode", "production");
     public static GoBooleanSystemProperty REAUTHENTICATION_ENABLED = new GoBooleanSystemProperty("go.security.reauthentication.enabled", true);
@@ -189,6 +211,9 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     private static GoSystemProperty<Boolean> GO_PLUGIN_CLASSLOADER_OLD = new GoBooleanSystemProperty("gocd.plugins.classloader.old", false);
     public static final GoSystemProperty<String> LOADING_PAGE = new GoStringSystemProperty("loading.page.resource.path", "/loading_pages/new.loading.page.html");
     public static GoSystemProperty<Long> NOTIFICATION_PLUGIN_MESSAGES_TTL = new GoLongSystemProperty("plugins.notification.message.ttl.millis", 2 * 60 * 1000L);
+    public static GoSystemProperty<Boolean> NOTIFICATION_PLUGIN_BATCHING_ENABLED = new GoBooleanSystemProperty("plugins.notification.batching.enabled", true);
+    public static GoSystemProperty<Long> NOTIFICATION_PLUGIN_BATCH_WINDOW = new GoLongSystemProperty("plugins.notification.batch.window.millis", 1000L);
+    public static GoSystemProperty<Integer> NOTIFICATION_PLUGIN_BATCH_SIZE = new GoIntSystemProperty("plugins.notification.batch.size", 100);
     public static final GoSystemProperty<Boolean> ALLOW_EVERYONE_TO_VIEW_OPERATE_GROUPS_WITH_NO_GROUP_AUTHORIZATION_SETUP = new GoBooleanSystemProperty("allow.everyone.to.view.operate.groups.with.no.authorization.setup", false);
 
     public static GoSystemProperty<Boolean> ENABLE_HSTS_HEADER = new GoBooleanSystemProperty("gocd.enable.hsts.header", false);
@@ -396,10 +421,74 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return DEPENDENCY_MATERIAL_UPDATE_LISTENERS.getValue();
     }
 
+    public int getNumberOfMaterialBootstrapListeners() {
+        return MATERIAL_BOOTSTRAP_LISTENERS.getValue();
+    }
+
     public int getNumberOfConfigMaterialPostUpdateListeners() {
         return CONFIG_MATERIAL_POST_UPDATE_LISTENERS.getValue();
     }
 
+    public int getNumberOfConfigRepoParseThreads() {
+        return CONFIG_REPO_PARSE_THREADS.getValue();
+    }
+
+    public int getNumberOfConfigRepoParseThreadsPerPlugin() {
+        return CONFIG_REPO_PARSE_THREADS_PER_PLUGIN.getValue();
+    }
+
+    public int getResolvedSecretsCacheTtlInSeconds() {
+        return RESOLVED_SECRETS_CACHE_TTL_IN_SECONDS.getValue();
+    }
+
+    public boolean shouldBackupDatabaseInParallel() {
+        return BACKUP_DATABASE_IN_PARALLEL.getValue();
+    }
+
+    public boolean isModificationSearchIndexEnabled() {
+        return MODIFICATION_SEARCH_INDEX_ENABLED.getValue();
+    }
+
+    public int getModificationSearchIndexMaxModifications() {
+        return MODIFICATION_SEARCH_INDEX_MAX_MODIFICATIONS.getValue();
+    }
+
+    public boolean isTestResultStoreEnabled() {
+        return TEST_RESULT_STORE_ENABLED.getValue();
+    }
+
+    public int getTestResultStoreMaxRunsPerJob() {
+        return TEST_RESULT_STORE_MAX_RUNS_PER_JOB.getValue();
+    }
+
+    public int getNumberOfPluginLoadThreads() {
+        return PLUGIN_LOAD_THREADS.getValue();
+    }
+
+    public boolean shouldReuseExplodedPluginBundles() {
+        return PLUGIN_REUSE_EXPLODED_BUNDLES.getValue();
+    }
+
+    public int getMaxConcurrentRequestsPerPlugin() {
+        return PLUGIN_REQUESTS_MAX_CONCURRENT.getValue();
+    }
+
+    public String getMaxConcurrentRequestsPerPluginOverrides() {
+        return PLUGIN_REQUESTS_MAX_CONCURRENT_OVERRIDES.getValue();
+    }
+
+    public int getPluginRequestQueueTimeoutInSeconds() {
+        return PLUGIN_REQUESTS_QUEUE_TIMEOUT_IN_SECONDS.getValue();
+    }
+
+    public int getPluginRequestTimeoutInSeconds() {
+        return PLUGIN_REQUESTS_TIMEOUT_IN_SECONDS.getValue();
+    }
+
+    public int getPluginRequestTimeoutThreads() {
+        return PLUGIN_REQUESTS_TIMEOUT_THREADS.getValue();
+    }
+
     public String getAgentMd5() {
         return getPropertyImpl(GoConstants.AGENT_JAR_MD5, BLANK_STRING);
     }
@@ -615,6 +704,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return MATERIAL_UPDATE_IDLE_INTERVAL.getValue();
     }
 
+    public long getMaterialUpdateMaxIdleInterval() {
+        return MATERIAL_UPDATE_MAX_IDLE_INTERVAL.getValue();
+    }
+
     public String landingPage() {
         return GO_LANDING_PAGE.getValue();
     }
@@ -46,6 +46,16 @@ public class AgentSubprocessExecutionContext implements SubprocessExecutionConte
         throw new UnsupportedOperationException("This is an unexpected call. Perform this action only on the server.");
     }
 
+    @Override
+    public boolean shouldProbeGitRemoteRef() {
+        throw new UnsupportedOperationException("This is an unexpected call. Perform this action only on the server.");
+    }
+
+    @Override
+    public boolean isBootstrapCheckout() {
+        return false;
+    }
+
     @Override
     public boolean isServer() {
         return false;
@@ -17,10 +17,15 @@ package com.thoughtworks.go.serverhealth;
 
 import com.thoughtworks.go.config.CruiseConfig;
 
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.Set;
 
 public class HealthStateType implements Comparable<HealthStateType> {
+    private static final Comparator<HealthStateType> ORDER = Comparator.comparing((HealthStateType type) -> type.scope)
+            .thenComparing(type -> type.name)
+            .thenComparing(type -> type.subkey, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(type -> type.httpCode);
 
     private String name;
     private final int httpCode;
@@ -123,7 +128,7 @@ public class HealthStateType implements Comparable<HealthStateType> {
 
     @Override
     public int compareTo(HealthStateType o) {
-        return scope.compareTo(o.scope);
+        return ORDER.compare(this, o);
     }
 
     public Set<String> getPipelineNames(CruiseConfig cruiseConfig) {
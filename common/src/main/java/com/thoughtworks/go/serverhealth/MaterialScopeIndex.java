@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.serverhealth;
+
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+
+import java.util.*;
+
+/**
+ * @understands which pipelines use the material behind a material health state scope, for one version of the config
+ */
+class MaterialScopeIndex {
+    private final CruiseConfig config;
+    private final Map<HealthStateScope, Set<String>> pipelinesByMaterialScope = new HashMap<>();
+    private final Set<HealthStateScope> materialScopesInConfig = new HashSet<>();
+
+    MaterialScopeIndex(CruiseConfig config) {
+        this.config = config;
+        for (PipelineConfig pipelineConfig : config.getAllPipelineConfigs()) {
+            String pipelineName = pipelineConfig.name().toString();
+            for (MaterialConfig materialConfig : pipelineConfig.materialConfigs()) {
+                pipelinesByMaterialScope.computeIfAbsent(HealthStateScope.forMaterialConfig(materialConfig), scope -> new HashSet<>()).add(pipelineName);
+                pipelinesByMaterialScope.computeIfAbsent(HealthStateScope.forMaterialConfigUpdate(materialConfig), scope -> new HashSet<>()).add(pipelineName);
+            }
+        }
+        for (MaterialConfig materialConfig : config.getAllUniqueMaterialsOfPipelinesAndConfigRepos()) {
+            materialScopesInConfig.add(HealthStateScope.forMaterialConfig(materialConfig));
+            materialScopesInConfig.add(HealthStateScope.forMaterialConfigUpdate(materialConfig));
+        }
+    }
+
+    boolean isFor(CruiseConfig config) {
+        return this.config == config;
+    }
+
+    Set<String> getPipelineNames(HealthStateScope scope) {
+        if (isMaterialScope(scope)) {
+            return new HashSet<>(pipelinesByMaterialScope.getOrDefault(scope, Collections.emptySet()));
+        }
+        return scope.getPipelineNames(config);
+    }
+
+    boolean isRemovedFromConfig(HealthStateScope scope) {
+        if (isMaterialScope(scope)) {
+            return !materialScopesInConfig.contains(scope);
+        }
+        return scope.isRemovedFromConfig(config);
+    }
+
+    private boolean isMaterialScope(HealthStateScope scope) {
+        return scope.getType() == HealthStateScope.ScopeType.MATERIAL || scope.getType() == HealthStateScope.ScopeType.MATERIAL_UPDATE;
+    }
+}
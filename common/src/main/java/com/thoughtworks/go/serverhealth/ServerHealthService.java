@@ -32,32 +32,34 @@ public class ServerHealthService implements ApplicationContextAware {
     private static final Logger LOG = LoggerFactory.getLogger(ServerHealthService.class);
 
     private HashMap<ServerHealthState, Set<String>> pipelinesWithErrors;
-    private Map<HealthStateType, ServerHealthState> serverHealth;
+    private final Map<HealthStateType, ServerHealthState> serverHealth;
+    private final Map<HealthStateScope, Set<HealthStateType>> typesByScope;
+    private volatile MaterialScopeIndex materialScopeIndex;
     private ApplicationContext applicationContext;
 
     public ServerHealthService() {
         this.serverHealth = new ConcurrentHashMap<>();
+        this.typesByScope = new ConcurrentHashMap<>();
         this.pipelinesWithErrors = new HashMap<>();
     }
 
     public void removeByScope(HealthStateScope scope) {
-        for (HealthStateType healthStateType : entryKeys()) {
-            if (healthStateType.isSameScope(scope)) {
-                serverHealth.remove(healthStateType);
+        synchronized (typesByScope) {
+            Set<HealthStateType> types = typesByScope.remove(scope);
+            if (types != null) {
+                types.forEach(serverHealth::remove);
             }
         }
     }
 
-    private Set<HealthStateType> entryKeys() {
-        return new HashSet<>(serverHealth.keySet());
-    }
-
     public List<ServerHealthState> filterByScope(HealthStateScope scope) {
+        List<HealthStateType> types = new ArrayList<>(typesByScope.getOrDefault(scope, Collections.emptySet()));
+        Collections.sort(types);
         List<ServerHealthState> filtered = new ArrayList<>();
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : sortedEntries()) {
-            HealthStateType type = entry.getKey();
-            if (type.isSameScope(scope)) {
-                filtered.add(entry.getValue());
+        for (HealthStateType type : types) {
+            ServerHealthState state = serverHealth.get(type);
+            if (state != null) {
+                filtered.add(state);
             }
         }
         return filtered;
@@ -66,26 +68,43 @@ public class ServerHealthService implements ApplicationContextAware {
     public HealthStateType update(ServerHealthState serverHealthState) {
         HealthStateType type = serverHealthState.getType();
         if (serverHealthState.getLogLevel() == HealthStateLevel.OK) {
-            if (serverHealth.containsKey(type)) {
-                serverHealth.remove(type);
-            }
+            remove(type);
             return null;
         } else {
-            serverHealth.put(type, serverHealthState);
+            synchronized (typesByScope) {
+                typesByScope.computeIfAbsent(type.getScope(), scope -> ConcurrentHashMap.newKeySet()).add(type);
+                serverHealth.put(type, serverHealthState);
+            }
             return type;
         }
     }
 
+    private void remove(HealthStateType type) {
+        synchronized (typesByScope) {
+            if (serverHealth.remove(type) == null) {
+                return;
+            }
+            Set<HealthStateType> typesInScope = typesByScope.get(type.getScope());
+            if (typesInScope != null) {
+                typesInScope.remove(type);
+                if (typesInScope.isEmpty()) {
+                    typesByScope.remove(type.getScope());
+                }
+            }
+        }
+    }
+
     // called from spring timer
     public synchronized void onTimer() {
         CruiseConfig currentConfig = applicationContext.getBean(CruiseConfigProvider.class).getCurrentConfig();
         purgeStaleHealthMessages(currentConfig);
         LOG.debug("Recomputing material to pipeline mappings.");
 
+        MaterialScopeIndex index = materialScopeIndexFor(currentConfig);
         HashMap<ServerHealthState, Set<String>> erroredPipelines = new HashMap<>();
 
         for (Map.Entry<HealthStateType, ServerHealthState> entry : serverHealth.entrySet()) {
-            erroredPipelines.put(entry.getValue(), entry.getValue().getPipelineNames(currentConfig));
+            erroredPipelines.put(entry.getValue(), index.getPipelineNames(entry.getKey().getScope()));
         }
         pipelinesWithErrors = erroredPipelines;
         LOG.debug("Done recomputing material to pipeline mappings.");
@@ -102,13 +121,17 @@ public class ServerHealthService implements ApplicationContextAware {
 
     @Deprecated(forRemoval = true) // Remove once we get rid of SpringJUnitTestRunner
     public void removeAllLogs() {
-        serverHealth.clear();
+        synchronized (typesByScope) {
+            serverHealth.clear();
+            typesByScope.clear();
+        }
     }
 
     private void removeMessagesForElementsNoLongerInConfig(CruiseConfig cruiseConfig) {
-        for (HealthStateType type : entryKeys()) {
-            if (type.isRemovedFromConfig(cruiseConfig)) {
-                this.removeByScope(type);
+        MaterialScopeIndex index = materialScopeIndexFor(cruiseConfig);
+        for (HealthStateScope scope : new HashSet<>(typesByScope.keySet())) {
+            if (index.isRemovedFromConfig(scope)) {
+                this.removeByScope(scope);
             }
         }
     }
@@ -117,13 +140,18 @@ public class ServerHealthService implements ApplicationContextAware {
         for (Map.Entry<HealthStateType, ServerHealthState> entry : new HashSet<>(serverHealth.entrySet())) {
             ServerHealthState value = entry.getValue();
             if (value.hasExpired()) {
-                serverHealth.remove(entry.getKey());
+                remove(entry.getKey());
             }
         }
     }
 
-    private void removeByScope(HealthStateType type) {
-        removeByScope(type.getScope());
+    private MaterialScopeIndex materialScopeIndexFor(CruiseConfig cruiseConfig) {
+        MaterialScopeIndex index = materialScopeIndex;
+        if (index == null || !index.isFor(cruiseConfig)) {
+            index = new MaterialScopeIndex(cruiseConfig);
+            materialScopeIndex = index;
+        }
+        return index;
     }
 
     public ServerHealthStates logs() {
@@ -152,13 +180,8 @@ public class ServerHealthService implements ApplicationContextAware {
     }
 
     public boolean containsError(HealthStateType type, HealthStateLevel level) {
-        ServerHealthStates allLogs = logs();
-        for (ServerHealthState log : allLogs) {
-            if (log.getType().equals(type) && log.getLogLevel() == level) {
-                return true;
-            }
-        }
-        return false;
+        ServerHealthState state = serverHealth.get(type);
+        return state != null && state.getLogLevel() == level;
     }
 
     @Override
@@ -26,11 +26,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.springframework.core.io.ClassPathResource;
 
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.util.TestUtils.copyAndClose;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -58,7 +66,8 @@ public class UnitTestReportGeneratorTest {
     public void shouldGenerateReportForNUnit() throws IOException, ArtifactPublishingException {
         copyAndClose(source("TestResult.xml"), target("test-result.xml"));
         generator.generate(testFolder.listFiles(), "testoutput");
-        assertThat(testFolder.listFiles().length, is(2));
+        assertThat(testFolder.listFiles().length, is(3));
+        assertThat(new File(testFolder, TestReportGenerator.TEST_CASES_FILE).exists(), is(true));
         verify(publisher).upload(any(File.class), any(String.class));
     }
 
@@ -148,6 +157,90 @@ public class UnitTestReportGeneratorTest {
         verify(publisher).upload(any(File.class), any(String.class));
     }
 
+    @Test
+    public void shouldSummariseTestCasesFailuresAndErrors() throws IOException {
+        FileUtils.writeStringToFile(new File(testFolder, "junit.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<testsuite name=\"suite\">" +
+                "<testcase name=\"passes\" time=\"1.5\"/>" +
+                "<testcase name=\"fails &lt;badly&gt;\" time=\"0.25\"><failure message=\"expected true\">at Foo.java:10</failure></testcase>" +
+                "<testcase name=\"errors\"><error message=\"boom\">at Bar.java:20</error></testcase>" +
+                "</testsuite>", UTF_8);
+
+        generator.generate(testFolder.listFiles(), "testoutput");
+
+        String report = FileUtils.readFileToString(new File(testFolder, TestReportGenerator.TEST_RESULTS_FILE), UTF_8);
+        assertThat(report, containsString("<span class=\"tests_total_count\">3</span>"));
+        assertThat(report, containsString("<span class=\"tests_failed_count\">2</span>"));
+        assertThat(report, containsString("<span class=\"tests_ignored_count\">0</span>"));
+        assertThat(report, containsString("<span class=\"tests_total_duration\">1.750</span>"));
+        assertThat(report, containsString("<td class=\"section-data\">fails &lt;badly&gt;</td>"));
+        assertThat(report, containsString("<pre>at Bar.java:20</pre>"));
+    }
+
+    @Test
+    public void shouldWriteTheOutcomeOfEachTestCase() throws IOException {
+        FileUtils.writeStringToFile(new File(testFolder, "junit.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<testsuite name=\"suite\">" +
+                "<testcase classname=\"com.example.FooTest\" name=\"passes\" time=\"1.5\"/>" +
+                "<testcase name=\"fails\" time=\"0.25\"><failure message=\"expected true\">at Foo.java:10</failure></testcase>" +
+                "<testcase name=\"errors\"><error message=\"boom\">at Bar.java:20</error></testcase>" +
+                "<testcase name=\"is skipped\"><skipped/></testcase>" +
+                "</testsuite>", UTF_8);
+
+        generator.generate(testFolder.listFiles(), "testoutput");
+
+        List<String> lines = FileUtils.readLines(new File(testFolder, TestReportGenerator.TEST_CASES_FILE), UTF_8);
+        assertThat(lines.stream().map(TestCaseResult::fromLine).collect(Collectors.toList()), contains(
+                new TestCaseResult("com.example.FooTest", "passes", TestCaseResult.Outcome.PASSED, 1500),
+                new TestCaseResult("suite", "fails", TestCaseResult.Outcome.FAILED, 250),
+                new TestCaseResult("suite", "errors", TestCaseResult.Outcome.ERRORED, 0),
+                new TestCaseResult("suite", "is skipped", TestCaseResult.Outcome.SKIPPED, 0)));
+    }
+
+    @Test
+    public void shouldNotCountTestCasesReadFromAFileBeforeItTurnedOutToBeInvalid() throws IOException {
+        copyAndClose(source("SerializableProjectConfigUtilTest.xml"), target("AgentTest.xml"));
+        FileUtils.writeStringToFile(new File(testFolder, "truncated.xml"),
+                "<testsuite name=\"suite\"><testcase name=\"passes\" time=\"100\"/><testcase name=\"cut", UTF_8);
+        File[] testFiles = testFolder.listFiles();
+
+        generator.generate(new File[]{new File(testFolder, "AgentTest.xml")}, "testoutput");
+        String reportOfValidFile = FileUtils.readFileToString(new File(testFolder, TestReportGenerator.TEST_RESULTS_FILE), UTF_8);
+        generator.generate(testFiles, "testoutput");
+
+        verify(publisher).consumeLine("Ignoring file truncated.xml - it is not a recognised test file.");
+        assertThat(FileUtils.readFileToString(new File(testFolder, TestReportGenerator.TEST_RESULTS_FILE), UTF_8), is(reportOfValidFile));
+    }
+
+    @Test
+    public void shouldRenderTheSameReportAsTheStylesheetItReplaced() throws Exception {
+        String[] sources = {"TestResult.xml", "SerializableProjectConfigUtilTest.xml", "UnitTestReportGeneratorTest.xml",
+                "TestReport-Integration.xml", "TestReport-Unit.xml", "NunitTestResultWithByteOrderMark.xml"};
+        File[] testFiles = new File[sources.length];
+        StringBuilder merged = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<all-results>\n");
+        for (int i = 0; i < sources.length; i++) {
+            testFiles[i] = new File(testFolder, "result" + i + ".xml");
+            copyAndClose(source(sources[i]), new FileOutputStream(testFiles[i]));
+            String content = FileUtils.readFileToString(testFiles[i], UTF_8);
+            merged.append(content.replaceFirst("^\\uFEFF?<\\?xml[^>]*\\?>", "")).append("\n");
+        }
+        merged.append("</all-results>\n");
+
+        generator.generate(testFiles, "testoutput");
+
+        StringWriter expected = new StringWriter();
+        try (InputStream xslt = getClass().getResourceAsStream("unittests.xsl")) {
+            TransformerFactory.newInstance().newTemplates(new StreamSource(xslt)).newTransformer()
+                    .transform(new StreamSource(new StringReader(merged.toString())), new StreamResult(expected));
+        }
+        String actual = FileUtils.readFileToString(new File(testFolder, TestReportGenerator.TEST_RESULTS_FILE), UTF_8);
+        assertThat(withoutFormatting(actual), is(withoutFormatting(expected.toString())));
+    }
+
+    private String withoutFormatting(String html) {
+        return html.replaceAll(">\\s+", ">").replaceAll("\\s+<", "<").replaceAll("\\s+", " ");
+    }
+
     private OutputStream target(String targetFile) throws FileNotFoundException {
         return new FileOutputStream(testFolder.getAbsolutePath() + FileUtil.fileseparator() + targetFile);
     }
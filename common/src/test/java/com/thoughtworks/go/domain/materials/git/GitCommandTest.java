@@ -649,6 +649,14 @@ public class GitCommandTest {
             assertThrows(Exception.class, () -> gitCommand.checkConnection(new UrlArgument("git://does.not.exist")));
         }
 
+        @Test
+        void shouldFindTheRevisionOfTheUpstreamRefOnTheRemote() {
+            String latestRevision = git.latestModification().get(0).getRevision();
+
+            assertEquals(Optional.of(latestRevision), withBranch("master").remoteRevision(new UrlArgument(repoUrl)));
+            assertEquals(Optional.empty(), withBranch("Invalid_Branch").remoteRevision(new UrlArgument(repoUrl)));
+        }
+
         @Test
         void shouldThrowExceptionWhenRemoteBranchDoesNotExist() {
             GitCommand gitCommand = withBranch("Invalid_Branch");
@@ -32,20 +32,26 @@ import org.joda.time.DateTime;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.serverhealth.HealthStateScope.*;
 import static com.thoughtworks.go.serverhealth.ServerHealthMatcher.doesNotContainState;
 import static com.thoughtworks.go.serverhealth.ServerHealthState.warning;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ServerHealthServiceTest {
     private ServerHealthService serverHealthService;
@@ -264,4 +270,76 @@ public class ServerHealthServiceTest {
         Set<String> pipelines = (serverHealthService.logs().get(0)).getPipelineNames(config);
         assertEquals(Sets.newHashSet("pipeline2"), pipelines);
     }
+
+    @Test
+    public void shouldFilterByScopeAndAllowReAddingStatesToARemovedScope() {
+        HealthStateScope scope = forPipeline(PIPELINE_NAME);
+        ServerHealthState pipelineError = ServerHealthState.error("message", "description", HealthStateType.general(scope));
+        ServerHealthState pipelineWarning = ServerHealthState.warning("message", "description", HealthStateType.withSubkey(scope, "subkey"));
+        serverHealthService.update(pipelineError);
+        serverHealthService.update(pipelineWarning);
+        serverHealthService.update(ServerHealthState.error("message", "description", globalId));
+
+        assertThat(serverHealthService.filterByScope(scope), containsInAnyOrder(pipelineError, pipelineWarning));
+        assertThat(serverHealthService.filterByScope(forPipeline("other")).isEmpty(), is(true));
+
+        serverHealthService.update(ServerHealthState.success(HealthStateType.general(scope)));
+        assertThat(serverHealthService.filterByScope(scope), contains(pipelineWarning));
+
+        serverHealthService.removeByScope(scope);
+        assertThat(serverHealthService.filterByScope(scope).isEmpty(), is(true));
+
+        serverHealthService.update(pipelineError);
+        assertThat(serverHealthService.filterByScope(scope), contains(pipelineError));
+    }
+
+    @Test
+    public void shouldFilterByScopeInTheSameOrderAsAllLogs() {
+        HealthStateScope scope = forPipeline(PIPELINE_NAME);
+        ServerHealthState secondSubkey = ServerHealthState.warning("message", "description", HealthStateType.withSubkey(scope, "b"));
+        ServerHealthState general = ServerHealthState.error("message", "description", HealthStateType.general(scope));
+        ServerHealthState firstSubkey = ServerHealthState.warning("message", "description", HealthStateType.withSubkey(scope, "a"));
+        serverHealthService.update(secondSubkey);
+        serverHealthService.update(ServerHealthState.error("message", "description", globalId));
+        serverHealthService.update(general);
+        serverHealthService.update(firstSubkey);
+
+        assertThat(serverHealthService.filterByScope(scope), contains(general, firstSubkey, secondSubkey));
+        assertThat(serverHealthService.logs().stream().filter(state -> state.getType().isSameScope(scope)).collect(Collectors.toList()),
+                contains(general, firstSubkey, secondSubkey));
+    }
+
+    @Test
+    public void shouldCheckForErrorOfAGivenTypeAndLevel() {
+        serverHealthService.update(ServerHealthState.warning("message", "description", globalId));
+
+        assertThat(serverHealthService.containsError(globalId, HealthStateLevel.WARNING), is(true));
+        assertThat(serverHealthService.containsError(globalId, HealthStateLevel.ERROR), is(false));
+        assertThat(serverHealthService.containsError(pipelineId, HealthStateLevel.WARNING), is(false));
+    }
+
+    @Test
+    public void shouldRecomputePipelinesOfMaterialStatesWhenConfigChanges() {
+        HgMaterial hgMaterial = MaterialsMother.hgMaterial();
+        CruiseConfig config = new BasicCruiseConfig();
+        config.addPipeline("group", PipelineConfigMother.pipelineConfig(PIPELINE_NAME, new MaterialConfigs(hgMaterial.config())));
+        CruiseConfig changedConfig = new BasicCruiseConfig();
+        changedConfig.addPipeline("group", PipelineConfigMother.pipelineConfig(PIPELINE_NAME, new MaterialConfigs(hgMaterial.config())));
+        changedConfig.addPipeline("group", PipelineConfigMother.pipelineConfig("pipeline2", new MaterialConfigs(hgMaterial.config())));
+
+        CruiseConfigProvider configProvider = mock(CruiseConfigProvider.class);
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(CruiseConfigProvider.class)).thenReturn(configProvider);
+        serverHealthService.setApplicationContext(applicationContext);
+        ServerHealthState materialError = ServerHealthState.error("message", "description", HealthStateType.general(forMaterialUpdate(hgMaterial)));
+        serverHealthService.update(materialError);
+
+        when(configProvider.getCurrentConfig()).thenReturn(config);
+        serverHealthService.onTimer();
+        assertEquals(Sets.newHashSet(PIPELINE_NAME), serverHealthService.getPipelinesWithErrors(materialError));
+
+        when(configProvider.getCurrentConfig()).thenReturn(changedConfig);
+        serverHealthService.onTimer();
+        assertEquals(Sets.newHashSet(PIPELINE_NAME, "pipeline2"), serverHealthService.getPipelinesWithErrors(materialError));
+    }
 }
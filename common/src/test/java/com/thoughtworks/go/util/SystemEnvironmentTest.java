@@ -166,6 +166,13 @@ class SystemEnvironmentTest {
         assertThat(systemEnvironment.getActivemqUseJmx()).isTrue();
     }
 
+    @Test
+    void shouldCacheResolvedSecretsForAFewSecondsByDefault() {
+        assertThat(systemEnvironment.getResolvedSecretsCacheTtlInSeconds()).isEqualTo(5);
+        System.setProperty("go.secrets.resolved.cache.ttl.seconds", "0");
+        assertThat(systemEnvironment.getResolvedSecretsCacheTtlInSeconds()).isEqualTo(0);
+    }
+
     @Test
     void shouldResolveRevisionsForDependencyGraph_byDefault() {
         assertThat(System.getProperty(SystemEnvironment.RESOLVE_FANIN_REVISIONS)).isNull();
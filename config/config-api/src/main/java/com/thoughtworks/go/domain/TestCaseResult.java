@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import java.util.Objects;
+
+/**
+ * The outcome of a single test case, as summarised by the agent into {@link TestReportGenerator#TEST_CASES_FILE}
+ * with one tab separated line per test case.
+ */
+public class TestCaseResult {
+    public enum Outcome {
+        PASSED, FAILED, ERRORED, SKIPPED;
+
+        public boolean isFailure() {
+            return this == FAILED || this == ERRORED;
+        }
+    }
+
+    private final String suite;
+    private final String name;
+    private final Outcome outcome;
+    private final long durationMillis;
+
+    public TestCaseResult(String suite, String name, Outcome outcome, long durationMillis) {
+        this.suite = suite == null ? "" : suite;
+        this.name = name == null ? "" : name;
+        this.outcome = outcome;
+        this.durationMillis = durationMillis;
+    }
+
+    public static TestCaseResult fromLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Expected 4 tab separated fields in a test case result, but got: " + line);
+        }
+        return new TestCaseResult(unescape(fields[2]), unescape(fields[3]), Outcome.valueOf(fields[0]), Long.parseLong(fields[1]));
+    }
+
+    public String toLine() {
+        return outcome + "\t" + durationMillis + "\t" + escape(suite) + "\t" + escape(name);
+    }
+
+    public String getSuite() {
+        return suite;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TestCaseResult that = (TestCaseResult) o;
+        return durationMillis == that.durationMillis &&
+                suite.equals(that.suite) &&
+                name.equals(that.name) &&
+                outcome == that.outcome;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(suite, name, outcome, durationMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "TestCaseResult{" +
+                "suite='" + suite + '\'' +
+                ", name='" + name + '\'' +
+                ", outcome=" + outcome +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+
+    public static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    public static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                unescaped.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
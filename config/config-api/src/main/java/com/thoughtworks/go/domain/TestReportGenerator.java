@@ -19,6 +19,7 @@ import java.io.File;
 
 public interface TestReportGenerator {
     String TEST_RESULTS_FILE = "index.html";
+    String TEST_CASES_FILE = "test-cases.tsv";
     String TOTAL_TEST_COUNT = "tests_total_count";
     String FAILED_TEST_COUNT = "tests_failed_count";
     String IGNORED_TEST_COUNT = "tests_ignored_count";
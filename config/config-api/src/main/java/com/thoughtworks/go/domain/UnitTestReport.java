@@ -0,0 +1,626 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.file.Files;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Understands how to summarise JUnit and NUnit result files into the html test report. Each result file is read
+ * once with a streaming parser; the failure and warning details are spilled to temporary files as they are read
+ * and stitched together under the summary when the report is written. Memory use therefore depends on the size of
+ * a single test case, not on the number of test cases. The outcome of every test case is spilled the same way, for
+ * the server to keep a history of them.
+ * <p>
+ * The report has the same content as the one the <code>unittests.xsl</code> stylesheet used to render.
+ */
+class UnitTestReport implements Closeable {
+    private static final XMLInputFactory XML_INPUT_FACTORY = xmlInputFactory();
+    private static final Pattern XPATH_NUMBER = Pattern.compile("\\s*-?(\\d+(\\.\\d*)?|\\.\\d+)\\s*");
+
+    private final Totals totals = new Totals();
+    private Totals markedTotals = new Totals();
+    private final Section errorRows = new Section();
+    private final Section failureRows = new Section();
+    private final Section warningRows = new Section();
+    private final Section junitErrorDetails = new Section();
+    private final Section junitFailureDetails = new Section();
+    private final Section nunitFailureDetails = new Section();
+    private final Section nunitWarningDetails = new Section();
+    private final Section testCases = new Section();
+    private final Section[] sections = {errorRows, failureRows, warningRows, junitErrorDetails, junitFailureDetails, nunitFailureDetails, nunitWarningDetails, testCases};
+
+    UnitTestReport() throws IOException {
+    }
+
+    /**
+     * @return false, leaving the report untouched, if the file is not a JUnit or NUnit result file or cannot be parsed
+     */
+    boolean add(File file) throws IOException {
+        mark();
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(stream);
+            try {
+                if (read(reader)) {
+                    return true;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            //fall through and discard whatever was read before the file turned out to be invalid
+        }
+        reset();
+        return false;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+        long failureCount = totals.junitFailures + totals.junitErrors + totals.nunitFailures;
+        long runCount = totals.nunitCases + totals.junitCases - totals.nunitNotRun;
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+        out.write("<table class=\"section-table\" cellpadding=\"2\" cellspacing=\"0\" border=\"0\" width=\"98%\">\n");
+        out.write("    <div class=\"tests\">\n");
+        out.write("        <p>\n");
+        out.write("            Tests run:\n");
+        out.write("                    <span class=\"tests_total_count\">" + runCount + "</span>\n");
+        out.write("                    , Failures:\n");
+        out.write("                    <span class=\"tests_failed_count\">" + failureCount + "</span>\n");
+        out.write("                    , Not run:\n");
+        out.write("                    <span class=\"tests_ignored_count\">" + totals.nunitNotRun + "</span>\n");
+        out.write("                    , Time:\n");
+        out.write("                    <span class=\"tests_total_duration\">" + formatTime(totals.time) + "</span>\n");
+        out.write("                    seconds.\n");
+        out.write("        </p>\n");
+        out.write("    </div>\n");
+
+        if (runCount == 0) {
+            out.write(row("<td colspan=\"2\" class=\"section-data\">No Tests Run</td>"));
+            out.write(row("<td colspan=\"2\" class=\"section-error\">This project doesn't have any tests</td>"));
+        } else if (failureCount == 0) {
+            out.write(row("<td colspan=\"2\" class=\"section-data\">All Tests Passed</td>"));
+        }
+
+        writeRows(out, errorRows, "Error", 0);
+        writeRows(out, failureRows, "Failure", totals.junitErrors);
+        writeRows(out, warningRows, "Warning", failureCount);
+        out.write(row("<td colspan=\"2\"></td>"));
+
+        if (failureCount > 0) {
+            out.write(row("<td class=\"sectionheader\" colspan=\"2\">Unit Test Failure and Error Details (" + failureCount + ")</td>"));
+            junitErrorDetails.copyTo(out);
+            junitFailureDetails.copyTo(out);
+            nunitFailureDetails.copyTo(out);
+            out.write(row("<td colspan=\"2\"></td>"));
+        }
+
+        if (totals.nunitNotRun > 0) {
+            out.write(row("<td class=\"sectionheader\" colspan=\"2\">Warning Details (" + totals.nunitNotRun + ")</td>"));
+            nunitWarningDetails.copyTo(out);
+            out.write(row("<td colspan=\"2\"></td>"));
+        }
+        out.write("</table>\n");
+        out.flush();
+    }
+
+    void writeTestCasesTo(OutputStream outputStream) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+        testCases.copyTo(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        for (Section section : sections) {
+            section.delete();
+        }
+    }
+
+    private boolean read(XMLStreamReader reader) throws XMLStreamException, IOException {
+        Deque<Element> open = new ArrayDeque<>();
+        TestCase testCase = null;
+        boolean recognised = false;
+        int openTestResults = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case START_ELEMENT:
+                    Element parent = open.peek();
+                    Element element = new Element(nameOf(reader), parent, open.size() + 1);
+                    open.push(element);
+
+                    if (element.is("testsuite") || element.is("test-suite")) {
+                        element.label = reader.getAttributeValue(null, "name");
+                    }
+                    if (element.is("testsuite")) {
+                        recognised = true;
+                    } else if (element.is("test-results")) {
+                        recognised = true;
+                        openTestResults++;
+                    }
+
+                    if (testCase != null) {
+                        testCase.startElement(reader, element);
+                    } else if (element.is("testcase") && element.parentIs("testsuite")) {
+                        String className = reader.getAttributeValue(null, "classname");
+                        String time = reader.getAttributeValue(null, "time");
+                        testCase = new JUnitTestCase(className == null ? parent.label : className, reader.getAttributeValue(null, "name"), time, element.depth);
+                        totals.junitCases++;
+                        if (time != null) {
+                            totals.time += parseXPathNumber(time);
+                        }
+                    } else if (element.is("test-case") && element.parentIs("results") && parent.parentIs("test-suite") && openTestResults > 0) {
+                        testCase = new NUnitTestCase(parent.parent.label, reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "time"), element.depth);
+                        totals.nunitCases++;
+                    } else if (element.is("test-suite") && element.parentIs("test-results") && !parent.hasSeenTestSuite) {
+                        parent.hasSeenTestSuite = true;
+                        String time = reader.getAttributeValue(null, "time");
+                        if (time != null) {
+                            totals.time += parseXPathNumber(time);
+                        }
+                    }
+                    break;
+                case END_ELEMENT:
+                    Element closed = open.pop();
+                    if (closed.is("test-results")) {
+                        openTestResults--;
+                    }
+                    if (testCase != null) {
+                        if (closed.depth == testCase.depth) {
+                            testCase.finish();
+                            testCase = null;
+                        } else {
+                            testCase.endElement(closed);
+                        }
+                    }
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case ENTITY_REFERENCE:
+                    if (testCase != null) {
+                        testCase.text(reader.getText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return recognised;
+    }
+
+    private void mark() throws IOException {
+        markedTotals = totals.copy();
+        for (Section section : sections) {
+            section.mark();
+        }
+    }
+
+    private void reset() throws IOException {
+        totals.restore(markedTotals);
+        for (Section section : sections) {
+            section.reset();
+        }
+    }
+
+    private void writeRows(Writer out, Section rows, String type, long positionOffset) throws IOException {
+        rows.flush();
+        try (BufferedReader names = new BufferedReader(new InputStreamReader(new FileInputStream(rows.file), UTF_8))) {
+            long position = positionOffset;
+            String name;
+            while ((name = names.readLine()) != null) {
+                position++;
+                out.write(position % 2 == 0 ? "    <tr class=\"section-oddrow\">\n" : "    <tr>\n");
+                out.write("        <td class=\"section-data\">" + type + "</td><td class=\"section-data\">" + name + "</td>\n");
+                out.write("    </tr>\n");
+            }
+        }
+    }
+
+    private static String nameOf(XMLStreamReader reader) {
+        String namespace = reader.getNamespaceURI();
+        //the stylesheet only ever matched elements that are not in a namespace
+        return namespace == null || namespace.isEmpty() ? reader.getLocalName() : "{" + namespace + "}" + reader.getLocalName();
+    }
+
+    private static String row(String cells) {
+        return "    <tr>\n        " + cells + "\n    </tr>\n";
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    static double parseXPathNumber(String value) {
+        return XPATH_NUMBER.matcher(value).matches() ? Double.parseDouble(value.trim()) : Double.NaN;
+    }
+
+    static String formatTime(double time) {
+        if (Double.isNaN(time)) {
+            return "NaN";
+        }
+        return new DecimalFormat("##.000", DecimalFormatSymbols.getInstance(Locale.US)).format(time);
+    }
+
+    private static XMLInputFactory xmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    private static class Element {
+        private final String name;
+        private final Element parent;
+        private final int depth;
+        private boolean hasSeenTestSuite;
+        private String label;
+
+        private Element(String name, Element parent, int depth) {
+            this.name = name;
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        private boolean is(String name) {
+            return this.name.equals(name);
+        }
+
+        private boolean parentIs(String name) {
+            return parent != null && parent.is(name);
+        }
+    }
+
+    private abstract class TestCase {
+        private final String suite;
+        private final String rawName;
+        protected final String name;
+        private final String time;
+        private final int depth;
+        private StringBuilder capture;
+        private int captureDepth;
+
+        private TestCase(String suite, String name, String time, int depth) {
+            this.suite = suite;
+            this.rawName = name;
+            this.name = escape(name);
+            this.time = time;
+            this.depth = depth;
+        }
+
+        abstract void startElement(XMLStreamReader reader, Element element) throws IOException;
+
+        abstract TestCaseResult.Outcome outcome();
+
+        abstract void addDetails() throws IOException;
+
+        void finish() throws IOException {
+            double seconds = time == null ? Double.NaN : parseXPathNumber(time);
+            long durationMillis = Double.isNaN(seconds) ? 0 : Math.round(seconds * 1000);
+            testCases.addLine(new TestCaseResult(suite, rawName, outcome(), durationMillis).toLine());
+            addDetails();
+        }
+
+        protected boolean isChild(Element element) {
+            return element.depth == depth + 1;
+        }
+
+        protected void captureTextOf(Element element, StringBuilder into) {
+            if (capture == null) {
+                capture = into;
+                captureDepth = element.depth;
+            }
+        }
+
+        void endElement(Element element) {
+            if (capture != null && element.depth == captureDepth) {
+                capture = null;
+            }
+        }
+
+        void text(String text) {
+            if (capture != null) {
+                capture.append(text);
+            }
+        }
+
+        protected String detailRow(String label, String value) {
+            return row("<td class=\"section-data\">" + label + "</td><td class=\"section-data\">" + value + "</td>");
+        }
+
+        protected String errorRow(StringBuilder text) {
+            return "    <tr>\n        <td></td><td class=\"section-error\">\n            <pre>" + escape(text.toString()) + "</pre>\n        </td>\n    </tr>\n";
+        }
+    }
+
+    private class JUnitTestCase extends TestCase {
+        private boolean hasError;
+        private String errorMessage;
+        private StringBuilder errorText;
+        private boolean hasFailure;
+        private String failureMessage;
+        private StringBuilder failureText;
+        private boolean skipped;
+
+        private JUnitTestCase(String suite, String name, String time, int depth) {
+            super(suite, name, time, depth);
+        }
+
+        @Override
+        void startElement(XMLStreamReader reader, Element element) throws IOException {
+            if (!isChild(element)) {
+                return;
+            }
+            if (element.is("error")) {
+                totals.junitErrors++;
+                errorRows.addLine(name);
+                if (errorMessage == null) {
+                    errorMessage = reader.getAttributeValue(null, "message");
+                }
+                if (!hasError) {
+                    hasError = true;
+                    errorText = new StringBuilder();
+                    captureTextOf(element, errorText);
+                }
+            } else if (element.is("failure")) {
+                totals.junitFailures++;
+                failureRows.addLine(name);
+                if (failureMessage == null) {
+                    failureMessage = reader.getAttributeValue(null, "message");
+                }
+                if (!hasFailure) {
+                    hasFailure = true;
+                    failureText = new StringBuilder();
+                    captureTextOf(element, failureText);
+                }
+            } else if (element.is("skipped")) {
+                skipped = true;
+            }
+        }
+
+        @Override
+        TestCaseResult.Outcome outcome() {
+            if (hasError) {
+                return TestCaseResult.Outcome.ERRORED;
+            }
+            if (hasFailure) {
+                return TestCaseResult.Outcome.FAILED;
+            }
+            return skipped ? TestCaseResult.Outcome.SKIPPED : TestCaseResult.Outcome.PASSED;
+        }
+
+        @Override
+        void addDetails() throws IOException {
+            if (!hasError && !hasFailure) {
+                return;
+            }
+            StringBuilder detail = new StringBuilder(detailRow("Test:", name));
+            if (hasError) {
+                detail.append(detailRow("Type:", "Error"));
+                detail.append(detailRow("Message:", escape(errorMessage)));
+                detail.append(errorRow(errorText));
+            }
+            if (hasFailure) {
+                detail.append(detailRow("Type:", "Failure"));
+                detail.append(detailRow("Message:", escape(failureMessage)));
+                detail.append(errorRow(failureText));
+            }
+            detail.append(row("<td colspan=\"2\"></td>"));
+
+            if (hasError) {
+                junitErrorDetails.add(detail);
+            }
+            if (hasFailure) {
+                junitFailureDetails.add(detail);
+            }
+        }
+    }
+
+    private class NUnitTestCase extends TestCase {
+        private Element failure;
+        private final StringBuilder failureMessage = new StringBuilder();
+        private final StringBuilder stackTrace = new StringBuilder();
+        private boolean hasFailureMessage;
+        private boolean hasStackTrace;
+        private Element reason;
+        private final StringBuilder reasonMessage = new StringBuilder();
+        private boolean hasReasonMessage;
+
+        private NUnitTestCase(String suite, String name, String time, int depth) {
+            super(suite, name, time, depth);
+        }
+
+        @Override
+        void startElement(XMLStreamReader reader, Element element) throws IOException {
+            if (isChild(element) && element.is("failure")) {
+                totals.nunitFailures++;
+                failureRows.addLine(name);
+                failure = element;
+            } else if (isChild(element) && element.is("reason")) {
+                totals.nunitNotRun++;
+                warningRows.addLine(name);
+                reason = element;
+            } else if (element.is("message") && within(element, failure) && !hasFailureMessage) {
+                hasFailureMessage = true;
+                captureTextOf(element, failureMessage);
+            } else if (element.is("stack-trace") && within(element, failure) && !hasStackTrace) {
+                hasStackTrace = true;
+                captureTextOf(element, stackTrace);
+            } else if (element.is("message") && within(element, reason) && !hasReasonMessage) {
+                hasReasonMessage = true;
+                captureTextOf(element, reasonMessage);
+            }
+        }
+
+        private boolean within(Element element, Element ancestor) {
+            for (Element current = element.parent; current != null; current = current.parent) {
+                if (current == ancestor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        TestCaseResult.Outcome outcome() {
+            if (failure != null) {
+                return TestCaseResult.Outcome.FAILED;
+            }
+            return reason != null ? TestCaseResult.Outcome.SKIPPED : TestCaseResult.Outcome.PASSED;
+        }
+
+        @Override
+        void addDetails() throws IOException {
+            if (failure == null && reason == null) {
+                return;
+            }
+            StringBuilder detail = new StringBuilder();
+            if (failure != null) {
+                detail.append(detailRow("Test:", name));
+                detail.append(detailRow("Type:", "Failure"));
+                detail.append(detailRow("Message:", escape(failureMessage.toString())));
+                detail.append(errorRow(stackTrace));
+            }
+            if (reason != null) {
+                detail.append(detailRow("Test:", name));
+                detail.append(detailRow("Type:", "Warning"));
+                detail.append(detailRow("Message:", escape(reasonMessage.toString())));
+            }
+            detail.append(row("<td colspan=\"2\"></td>"));
+
+            if (failure != null) {
+                nunitFailureDetails.add(detail);
+            }
+            if (reason != null) {
+                nunitWarningDetails.add(detail);
+            }
+        }
+    }
+
+    private static class Totals {
+        private long junitCases;
+        private long junitFailures;
+        private long junitErrors;
+        private long nunitCases;
+        private long nunitFailures;
+        private long nunitNotRun;
+        private double time;
+
+        private Totals copy() {
+            Totals copy = new Totals();
+            copy.restore(this);
+            return copy;
+        }
+
+        private void restore(Totals other) {
+            junitCases = other.junitCases;
+            junitFailures = other.junitFailures;
+            junitErrors = other.junitErrors;
+            nunitCases = other.nunitCases;
+            nunitFailures = other.nunitFailures;
+            nunitNotRun = other.nunitNotRun;
+            time = other.time;
+        }
+    }
+
+    /**
+     * A part of the report which is appended to a temporary file while the result files are read, and which can be
+     * rolled back to the start of the current result file if that file turns out to be invalid.
+     */
+    private static class Section {
+        private final File file;
+        private final FileOutputStream stream;
+        private final Writer writer;
+        private long markedLength;
+
+        private Section() throws IOException {
+            this.file = Files.createTempFile("test-report", ".html").toFile();
+            this.stream = new FileOutputStream(file);
+            this.writer = new BufferedWriter(new OutputStreamWriter(stream, UTF_8));
+        }
+
+        private void add(CharSequence content) throws IOException {
+            writer.append(content);
+        }
+
+        private void addLine(String escapedText) throws IOException {
+            writer.write(escapedText.replace("\r", "&#13;").replace("\n", "&#10;"));
+            writer.write('\n');
+        }
+
+        private void mark() throws IOException {
+            writer.flush();
+            markedLength = stream.getChannel().position();
+        }
+
+        private void reset() throws IOException {
+            writer.flush();
+            stream.getChannel().truncate(markedLength);
+        }
+
+        private void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void copyTo(Writer out) throws IOException {
+            writer.flush();
+            try (Reader content = new InputStreamReader(new FileInputStream(file), UTF_8)) {
+                content.transferTo(out);
+            }
+        }
+
+        private void delete() {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+            file.delete();
+        }
+    }
+}
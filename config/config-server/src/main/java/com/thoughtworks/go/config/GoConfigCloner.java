@@ -18,6 +18,9 @@ package com.thoughtworks.go.config;
 import com.rits.cloning.Cloner;
 import com.thoughtworks.go.util.ClonerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 // Cloner to handle nullification of specific classes in config objects.
 // A specific field can be ignored from being cloned by setting `cloner.setNullTransient(true)` and marking the field as 'transient',
 // but if the object being cloned has other fields which have transient fields internally,
@@ -32,4 +35,21 @@ public class GoConfigCloner extends Cloner {
         nullInsteadOfClone(BasicCruiseConfig.DO_NOT_CLONE_CLASSES);
         ClonerFactory.applyFixes(this);
     }
+
+    // Clones a config which is about to be edited by an update confined to a single pipeline.
+    // Every other pipeline is shared with the original instead of being copied, so the clone only allocates the
+    // config skeleton (groups, environments, templates etc.) and the pipeline being edited.
+    // Callers must replace, and never mutate, the shared pipelines. This includes MagicalGoConfigXmlLoader.preprocessAndValidate,
+    // which encrypts secure properties of the config it is given, so such a clone has to be deep cloned before being validated.
+    public <T extends CruiseConfig> T deepCloneForPipelineEdit(T config, CaseInsensitiveString pipelineName) {
+        List<PipelineConfig> shared = new ArrayList<>();
+        for (PipelineConfigs group : config.getGroups()) {
+            for (PipelineConfig pipelineConfig : group.getPipelines()) {
+                if (!pipelineConfig.name().equals(pipelineName)) {
+                    shared.add(pipelineConfig);
+                }
+            }
+        }
+        return deepCloneDontCloneInstances(config, shared.toArray());
+    }
 }
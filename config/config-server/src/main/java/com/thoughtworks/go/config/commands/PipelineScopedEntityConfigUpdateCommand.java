@@ -0,0 +1,26 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config.commands;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+
+/**
+ * An entity update which only adds or changes a single pipeline. Such an update replaces that pipeline in its group
+ * and leaves every other pipeline alone, so those can be shared with the config it is applied to.
+ */
+public interface PipelineScopedEntityConfigUpdateCommand<T> extends EntityConfigUpdateCommand<T> {
+    CaseInsensitiveString pipelineName();
+}
@@ -116,4 +116,20 @@ public class GoConfigClonerTest {
         assertThat(cloned.getGroups().size(), is(1));
         assertThat(cloned.getGroups().get(0).getPipelines().size(), is(2));
     }
+
+    @Test
+    public void shouldShareAllPipelinesExceptTheOneBeingEditedWhenCloningForPipelineEdit() {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines("p1", "p2");
+
+        BasicCruiseConfig cloned = new GoConfigCloner().deepCloneForPipelineEdit(config, new CaseInsensitiveString("p1"));
+
+        assertThat(cloned, is(not(sameInstance(config))));
+        assertThat(cloned.findGroup("defaultGroup"), is(not(sameInstance(config.findGroup("defaultGroup")))));
+        assertThat(cloned.pipelineConfigByName(new CaseInsensitiveString("p1")), is(not(sameInstance(config.pipelineConfigByName(new CaseInsensitiveString("p1"))))));
+        assertThat(cloned.pipelineConfigByName(new CaseInsensitiveString("p1")), is(config.pipelineConfigByName(new CaseInsensitiveString("p1"))));
+        assertThat(cloned.pipelineConfigByName(new CaseInsensitiveString("p2")), is(sameInstance(config.pipelineConfigByName(new CaseInsensitiveString("p2")))));
+
+        cloned.findGroup("defaultGroup").remove(1);
+        assertThat(config.getAllPipelineNames().size(), is(2));
+    }
 }
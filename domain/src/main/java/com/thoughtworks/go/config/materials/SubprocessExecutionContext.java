@@ -24,6 +24,8 @@ public interface SubprocessExecutionContext {
     String getProcessNamespace(String fingerprint);
     Map<String, String> getDefaultEnvironmentVariables();
     Boolean isGitShallowClone();
+    boolean shouldProbeGitRemoteRef();
+    boolean isBootstrapCheckout();
     boolean isServer();
     void setGitShallowClone(boolean value);
 }
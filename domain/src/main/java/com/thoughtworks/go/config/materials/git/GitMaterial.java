@@ -125,6 +125,9 @@ public class GitMaterial extends ScmMaterial implements PasswordAwareMaterial {
     }
 
     public List<Modification> modificationsSince(File baseDir, Revision revision, final SubprocessExecutionContext execCtx) {
+        if (isRemoteRefStillAt(revision, baseDir, execCtx)) {
+            return new ArrayList<>();
+        }
         GitCommand gitCommand = getGit(baseDir, execCtx);
         if (!execCtx.isGitShallowClone()) {
             fullyUnshallow(gitCommand, inMemoryConsumer());
@@ -373,18 +376,29 @@ public class GitMaterial extends ScmMaterial implements PasswordAwareMaterial {
                     }
                 });
             }
-            int cloneDepth = shallowClone ? preferredCloneDepth : Integer.MAX_VALUE;
             int returnValue;
             if (executionContext.isServer()) {
-                returnValue = gitCommand.cloneWithNoCheckout(outputStreamConsumer, urlForCommandLine());
+                // Only first checkouts on the bootstrap lane start shallow on the server; they are deepened once their revisions are saved
+                boolean shallow = executionContext.isBootstrapCheckout() && (shallowClone || executionContext.isGitShallowClone());
+                returnValue = gitCommand.cloneWithNoCheckout(outputStreamConsumer, urlForCommandLine(), shallow ? preferredCloneDepth : Integer.MAX_VALUE);
             } else {
-                returnValue = gitCommand.clone(outputStreamConsumer, urlForCommandLine(), cloneDepth);
+                returnValue = gitCommand.clone(outputStreamConsumer, urlForCommandLine(), shallowClone ? preferredCloneDepth : Integer.MAX_VALUE);
             }
             bombIfFailedToRunCommandLine(returnValue, "Failed to run git clone command");
         }
         return gitCommand;
     }
 
+    // A working copy cloned shallow on the server is fetched to its full history, so that later updates do not
+    // mistake it for a changed repository and clone it all over again.
+    public void deepen(File baseDir, SubprocessExecutionContext execCtx) {
+        File workingFolder = execCtx.isServer() ? baseDir : workingdir(baseDir);
+        if (isSubmoduleFolder() || !isGitRepository(workingFolder)) {
+            return;
+        }
+        fullyUnshallow(new GitCommand(getFingerprint(), workingFolder, refSpecOrBranch, false, secrets()), inMemoryConsumer());
+    }
+
     private List<SecretString> secrets() {
         SecretString secretSubstitution = line -> line.replace(urlForCommandLine(), getUriForDisplay());
         return Collections.singletonList(secretSubstitution);
@@ -409,6 +423,23 @@ public class GitMaterial extends ScmMaterial implements PasswordAwareMaterial {
         }
     }
 
+    // Polling on the server mostly finds nothing new. When the upstream ref still points at the last known revision,
+    // one ls-remote round trip says so without fetching into the flyweight working copy and running git log on it.
+    private boolean isRemoteRefStillAt(Revision revision, File workingFolder, SubprocessExecutionContext execCtx) {
+        if (!execCtx.isServer() || isSubmoduleFolder() || !isGitRepository(workingFolder)
+                || !execCtx.shouldProbeGitRemoteRef()) {
+            return false;
+        }
+        try {
+            GitCommand gitCommand = new GitCommand(getFingerprint(), workingFolder, refSpecOrBranch, false, secrets());
+            Optional<String> remoteRevision = gitCommand.remoteRevision(new UrlArgument(urlForCommandLine()));
+            return remoteRevision.isPresent() && remoteRevision.get().equals(revision.getRevision());
+        } catch (Exception e) {
+            LOG.debug("Could not probe the upstream ref of {}, falling back to a fetch.", getUriForDisplay(), e);
+            return false;
+        }
+    }
+
     private boolean isSubmoduleFolder() {
         return getSubmoduleFolder() != null;
     }
@@ -93,8 +93,14 @@ public class GitCommand extends SCMCommand {
     }
 
     public int cloneWithNoCheckout(ConsoleOutputStreamConsumer outputStreamConsumer, String url) {
+        return cloneWithNoCheckout(outputStreamConsumer, url, Integer.MAX_VALUE);
+    }
+
+    // Special depth 2147483647 (Integer.MAX_VALUE) is treated as full clone
+    public int cloneWithNoCheckout(ConsoleOutputStreamConsumer outputStreamConsumer, String url, Integer depth) {
         CommandLine gitClone = cloneCommand().
                 when(!hasRefSpec(), git -> git.withArgs("--branch", branch)).
+                when(depth < Integer.MAX_VALUE, git -> git.withArg(format("--depth=%s", depth))).
                 withArg("--no-checkout").
                 withArg(new UrlArgument(url)).
                 withArg(workingDir.getAbsolutePath());
@@ -223,6 +229,23 @@ public class GitCommand extends SCMCommand {
         }
     }
 
+    /**
+     * Asks the remote for the revision its upstream ref points at, without touching the working copy.
+     *
+     * @return the revision of the upstream ref, or empty if the remote does not have exactly that ref
+     */
+    public Optional<String> remoteRevision(UrlArgument repoUrl) {
+        final String ref = fullUpstreamRef();
+        final CommandLine commandLine = git().withArgs("ls-remote", "--").withArg(repoUrl).withArg(ref);
+        final ConsoleResult result = commandLine.runOrBomb(new NamedProcessTag(repoUrl.forDisplay()));
+
+        return result.output().stream()
+                .map(line -> line.split("\\s+"))
+                .filter(columns -> columns.length == 2 && columns[1].equals(ref))
+                .map(columns -> columns[0])
+                .findFirst();
+    }
+
     public GitVersion version() {
         CommandLine gitVersion = git().withArgs("version");
 
@@ -174,6 +174,41 @@ class GitMaterialShallowCloneTest {
         assertThat(localRepoFor(material).isShallow()).isTrue();
     }
 
+    @Test
+    void shouldCloneShallowOnTheServerWhenBootstrappingAndDeepenToFullHistory() {
+        GitMaterial material = new GitMaterial(repo.projectRepositoryUrl());
+        TestSubprocessExecutionContext bootstrapContext = new TestSubprocessExecutionContext(new SystemEnvironment(), true) {
+            @Override
+            public Boolean isGitShallowClone() {
+                return true;
+            }
+
+            @Override
+            public boolean isBootstrapCheckout() {
+                return true;
+            }
+        };
+
+        material.latestModification(workingDir, bootstrapContext);
+        assertThat(localRepoFor(material).isShallow()).isTrue();
+
+        material.deepen(workingDir, bootstrapContext);
+        assertThat(localRepoFor(material).isShallow()).isFalse();
+        assertThat(localRepoFor(material).containsRevisionInBranch(REVISION_0)).isTrue();
+    }
+
+    @Test
+    void shouldCloneFullHistoryOnTheServerOutsideOfBootstrapping() {
+        SystemEnvironment mockSystemEnvironment = mock(SystemEnvironment.class);
+        GitMaterial material = new GitMaterial(repo.projectRepositoryUrl(), true);
+        when(mockSystemEnvironment.get(SystemEnvironment.GO_SERVER_SHALLOW_CLONE)).thenReturn(true);
+
+        material.latestModification(workingDir, new TestSubprocessExecutionContext(mockSystemEnvironment, true));
+
+        assertThat(localRepoFor(material).isShallow()).isFalse();
+        assertThat(localRepoFor(material).containsRevisionInBranch(REVISION_0)).isTrue();
+    }
+
     private TestSubprocessExecutionContext context() {
         return new TestSubprocessExecutionContext();
     }
@@ -110,12 +110,13 @@ public class GitMaterialTest {
         private File workingDir;
         private String repositoryUrl;
         private GitTestRepo gitFooBranchBundle;
+        private GitTestRepo gitRepo;
 
         @BeforeEach
         void setup() throws IOException {
             workingDir = randomDirectory();
 
-            GitTestRepo gitRepo = new GitTestRepo(tempDir);
+            gitRepo = new GitTestRepo(tempDir);
 
             repositoryUrl = gitRepo.projectRepositoryUrl();
             git = new GitMaterial(repositoryUrl);
@@ -196,6 +197,31 @@ public class GitMaterialTest {
             assertWorkingCopyNotCheckedOut(workingDir);
         }
 
+        @Test
+        void shouldNotFetchOnServerWhenTheRemoteRefIsStillAtTheGivenRevision() {
+            TestSubprocessExecutionContext serverContext = new TestSubprocessExecutionContext(new SystemEnvironment(), true);
+            Revision latestRevision = new StringRevision(git.latestModification(workingDir, serverContext).get(0).getRevision());
+            File fetchHead = new File(workingDir, ".git/FETCH_HEAD");
+            assertThat(fetchHead.setLastModified(0)).isTrue();
+
+            List<Modification> modifications = git.modificationsSince(workingDir, latestRevision, serverContext);
+
+            assertThat(modifications).isEmpty();
+            assertThat(fetchHead.lastModified()).isEqualTo(0);
+        }
+
+        @Test
+        void shouldFetchOnServerWhenTheRemoteRefHasMovedFromTheGivenRevision() throws IOException {
+            TestSubprocessExecutionContext serverContext = new TestSubprocessExecutionContext(new SystemEnvironment(), true);
+            Revision latestRevision = new StringRevision(git.latestModification(workingDir, serverContext).get(0).getRevision());
+            gitRepo.checkInOneFile("new-file.txt", "Added a new file");
+
+            List<Modification> modifications = git.modificationsSince(workingDir, latestRevision, serverContext);
+
+            assertThat(modifications).hasSize(1);
+            assertThat(modifications.get(0).getComment()).isEqualTo("Added a new file");
+        }
+
         @Test
         void shouldRetrieveModifiedFiles() {
             List<Modification> mods = git.modificationsSince(workingDir, GitTestRepo.REVISION_0, new TestSubprocessExecutionContext());
@@ -54,6 +54,17 @@ public class TestSubprocessExecutionContext implements SubprocessExecutionContex
         return systemEnvironment.get(SystemEnvironment.GO_SERVER_SHALLOW_CLONE);
     }
 
+    @Override
+    public boolean shouldProbeGitRemoteRef() {
+        // A mocked system environment leaves this unset, which should behave like the default of probing
+        return !Boolean.FALSE.equals(systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_PROBE_REMOTE_REF));
+    }
+
+    @Override
+    public boolean isBootstrapCheckout() {
+        return false;
+    }
+
     @Override
     public boolean isServer() {
         return isServer;
@@ -32,19 +32,23 @@ import com.thoughtworks.go.plugin.domain.configrepo.Capabilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.StringReader;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 
 public class JsonMessageHandler3_0 implements JsonMessageHandler {
     public static final int CURRENT_CONTRACT_VERSION = 11;
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonMessageHandler3_0.class);
     private final GsonCodec codec;
     private final ConfigRepoMigrator migrator;
+    private final ParseDirectoryResponseReader parseDirectoryResponseReader;
 
     public JsonMessageHandler3_0(GsonCodec gsonCodec, ConfigRepoMigrator configRepoMigrator) {
         codec = gsonCodec;
         migrator = configRepoMigrator;
+        parseDirectoryResponseReader = new ParseDirectoryResponseReader(gsonCodec.getGson());
     }
 
     @Override
@@ -111,6 +115,11 @@ public class JsonMessageHandler3_0 implements JsonMessageHandler {
     public CRParseResult responseMessageForParseDirectory(String responseBody) {
         ErrorCollection errors = new ErrorCollection();
         try {
+            Optional<ParseDirectoryResponseMessage> streamedResponse = readCurrentVersionResponse(responseBody);
+            if (streamedResponse.isPresent()) {
+                return toParseResult(streamedResponse.get(), errors);
+            }
+
             ResponseScratch responseMap = parseResponseForMigration(responseBody);
             ParseDirectoryResponseMessage parseDirectoryResponseMessage;
 
@@ -131,11 +140,7 @@ public class JsonMessageHandler3_0 implements JsonMessageHandler {
                 }
                 // after migration, json should match contract
                 parseDirectoryResponseMessage = codec.getGson().fromJson(responseBody, ParseDirectoryResponseMessage.class);
-                parseDirectoryResponseMessage.validateResponse(errors);
-
-                errors.addErrors(parseDirectoryResponseMessage.getPluginErrors());
-
-                return new CRParseResult(parseDirectoryResponseMessage.getEnvironments(), parseDirectoryResponseMessage.getPipelines(), errors);
+                return toParseResult(parseDirectoryResponseMessage, errors);
             }
         } catch (Exception ex) {
             StringBuilder builder = new StringBuilder();
@@ -148,6 +153,24 @@ public class JsonMessageHandler3_0 implements JsonMessageHandler {
         }
     }
 
+    private Optional<ParseDirectoryResponseMessage> readCurrentVersionResponse(String responseBody) {
+        if (responseBody == null) {
+            return Optional.empty();
+        }
+        try {
+            return parseDirectoryResponseReader.read(new StringReader(responseBody), CURRENT_CONTRACT_VERSION);
+        } catch (Exception e) {
+            LOGGER.debug("Could not read plugin response incrementally, reading it as a whole instead.", e);
+            return Optional.empty();
+        }
+    }
+
+    private CRParseResult toParseResult(ParseDirectoryResponseMessage parseDirectoryResponseMessage, ErrorCollection errors) {
+        parseDirectoryResponseMessage.validateResponse(errors);
+        errors.addErrors(parseDirectoryResponseMessage.getPluginErrors());
+        return new CRParseResult(parseDirectoryResponseMessage.getEnvironments(), parseDirectoryResponseMessage.getPipelines(), errors);
+    }
+
     @Override
     public CRParseResult responseMessageForParseContent(String responseBody) {
         return responseMessageForParseDirectory(responseBody);
@@ -84,4 +84,8 @@ public class ParseDirectoryResponseMessage {
     public List<CRError> getPluginErrors() {
         return errors;
     }
+
+    public void setPluginErrors(List<CRError> errors) {
+        this.errors = errors;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.configrepo.v3.messages;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.thoughtworks.go.plugin.configrepo.contract.CREnvironment;
+import com.thoughtworks.go.plugin.configrepo.contract.CRError;
+import com.thoughtworks.go.plugin.configrepo.contract.CRPipeline;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @understands reading a parse-directory response one pipeline at a time, instead of first building the whole document
+ * <p>
+ * Only responses which declare the expected <code>target_version</code> before their pipelines and environments can be
+ * read this way, since older responses have to be migrated as a whole. For anything else this gives up as early as
+ * it can and returns nothing, so that the caller can fall back to reading the complete document.
+ */
+public class ParseDirectoryResponseReader {
+    private final Gson gson;
+
+    public ParseDirectoryResponseReader(Gson gson) {
+        this.gson = gson;
+    }
+
+    public Optional<ParseDirectoryResponseMessage> read(Reader body, int expectedTargetVersion) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        reader.setLenient(true);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return Optional.empty();
+        }
+
+        ParseDirectoryResponseMessage message = new ParseDirectoryResponseMessage();
+        Integer targetVersion = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "target_version":
+                    targetVersion = readTargetVersion(reader);
+                    if (targetVersion == null || targetVersion != expectedTargetVersion) {
+                        return Optional.empty();
+                    }
+                    message.setTargetVersion(String.valueOf(targetVersion));
+                    break;
+                case "pipelines":
+                case "environments":
+                    if (targetVersion == null || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        return Optional.empty();
+                    }
+                    if (name.equals("pipelines")) {
+                        message.setPipelines(readArray(reader, CRPipeline.class));
+                    } else {
+                        message.setEnvironments(readArray(reader, CREnvironment.class));
+                    }
+                    break;
+                case "errors":
+                    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        return Optional.empty();
+                    }
+                    message.setPluginErrors(readArray(reader, CRError.class));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (targetVersion == null || reader.peek() != JsonToken.END_DOCUMENT) {
+            return Optional.empty();
+        }
+        return Optional.of(message);
+    }
+
+    private static Integer readTargetVersion(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            try {
+                return Integer.valueOf(reader.nextString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private <T> List<T> readArray(JsonReader reader, Type elementType) throws IOException {
+        List<T> elements = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            elements.add(gson.fromJson(reader, elementType));
+        }
+        reader.endArray();
+        return elements;
+    }
+}
@@ -25,6 +25,7 @@ import com.thoughtworks.go.plugin.access.elastic.models.AgentMetadata;
 import com.thoughtworks.go.plugin.access.elastic.models.ElasticAgentInformation;
 import com.thoughtworks.go.plugin.access.elastic.v4.ElasticAgentExtensionV4;
 import com.thoughtworks.go.plugin.access.elastic.v5.ElasticAgentExtensionV5;
+import com.thoughtworks.go.plugin.access.elastic.v6.ElasticAgentExtensionV6;
 import com.thoughtworks.go.plugin.api.response.validation.ValidationResult;
 import com.thoughtworks.go.plugin.domain.common.PluginConfiguration;
 import com.thoughtworks.go.plugin.domain.elastic.Capabilities;
@@ -41,7 +42,7 @@ import static com.thoughtworks.go.plugin.domain.common.PluginConstants.ELASTIC_A
 
 @Component
 public class ElasticAgentExtension extends AbstractExtension {
-    public static final List<String> SUPPORTED_VERSIONS = Arrays.asList(ElasticAgentExtensionV4.VERSION, ElasticAgentExtensionV5.VERSION);
+    public static final List<String> SUPPORTED_VERSIONS = Arrays.asList(ElasticAgentExtensionV4.VERSION, ElasticAgentExtensionV5.VERSION, ElasticAgentExtensionV6.VERSION);
     private final Map<String, VersionedElasticAgentExtension> elasticAgentExtensionMap = new HashMap<>();
 
     @Autowired
@@ -49,9 +50,11 @@ public class ElasticAgentExtension extends AbstractExtension {
         super(pluginManager, extensionsRegistry, new PluginRequestHelper(pluginManager, SUPPORTED_VERSIONS, ELASTIC_AGENT_EXTENSION), ELASTIC_AGENT_EXTENSION);
         elasticAgentExtensionMap.put(ElasticAgentExtensionV4.VERSION, new ElasticAgentExtensionV4(pluginRequestHelper));
         elasticAgentExtensionMap.put(ElasticAgentExtensionV5.VERSION, new ElasticAgentExtensionV5(pluginRequestHelper));
+        elasticAgentExtensionMap.put(ElasticAgentExtensionV6.VERSION, new ElasticAgentExtensionV6(pluginRequestHelper));
 
         registerHandler(ElasticAgentExtensionV4.VERSION, new PluginSettingsJsonMessageHandler1_0());
         registerHandler(ElasticAgentExtensionV5.VERSION, new PluginSettingsJsonMessageHandler1_0());
+        registerHandler(ElasticAgentExtensionV6.VERSION, new PluginSettingsJsonMessageHandler1_0());
     }
 
 
@@ -59,6 +62,14 @@ public class ElasticAgentExtension extends AbstractExtension {
         getVersionedElasticAgentExtension(pluginId).createAgent(pluginId, autoRegisterKey, environment, configuration, clusterProfileConfiguration, jobIdentifier);
     }
 
+    public boolean supportsBatchedAgentCreation(String pluginId) {
+        return getVersionedElasticAgentExtension(pluginId).supportsBatchedAgentCreation();
+    }
+
+    public void createAgents(String pluginId, final String environment, final Map<String, String> configuration, final Map<String, String> clusterProfileConfiguration, Map<JobIdentifier, String> autoRegisterKeys) {
+        getVersionedElasticAgentExtension(pluginId).createAgents(pluginId, environment, configuration, clusterProfileConfiguration, autoRegisterKeys);
+    }
+
     public void serverPing(final String pluginId, List<Map<String, String>> clusterProfiles) {
         getVersionedElasticAgentExtension(pluginId).serverPing(pluginId, clusterProfiles);
     }
@@ -46,6 +46,21 @@ public class ElasticAgentPluginRegistry extends AbstractPluginRegistry<ElasticAg
         }
     }
 
+    public void createAgents(final String pluginId, String environment, Map<String, String> configuration, Map<String, String> clusterProfileConfiguration, Map<JobIdentifier, String> autoRegisterKeys) {
+        PluginDescriptor plugin = findPlugin(pluginId);
+        if (plugin != null) {
+            LOGGER.debug("Processing create agents for {} jobs for plugin: {} with environment: {} with elastic agent configuration: {} in cluster: {}", autoRegisterKeys.size(), pluginId, environment, configuration, clusterProfileConfiguration);
+            extension.createAgents(pluginId, environment, configuration, clusterProfileConfiguration, autoRegisterKeys);
+            LOGGER.debug("Done processing create agents for {} jobs for plugin: {} with environment: {} with elastic agent configuration: {} in cluster: {}", autoRegisterKeys.size(), pluginId, environment, configuration, clusterProfileConfiguration);
+        } else {
+            LOGGER.warn("Could not find plugin with id: {}", pluginId);
+        }
+    }
+
+    public boolean supportsBatchedAgentCreation(String pluginId) {
+        return findPlugin(pluginId) != null && extension.supportsBatchedAgentCreation(pluginId);
+    }
+
     public void serverPing(String pluginId, List<Map<String, String>> clusterProfiles) {
         LOGGER.debug("Processing server ping for plugin {} with clusters {}", pluginId, clusterProfiles);
         extension.serverPing(pluginId, clusterProfiles);
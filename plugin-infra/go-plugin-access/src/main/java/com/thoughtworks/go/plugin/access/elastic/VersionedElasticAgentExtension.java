@@ -47,6 +47,17 @@ public interface VersionedElasticAgentExtension {
 
     void createAgent(String pluginId, String autoRegisterKey, String environment, Map<String, String> configuration, Map<String, String> clusterProfileConfiguration, JobIdentifier jobIdentifier);
 
+    default boolean supportsBatchedAgentCreation() {
+        return false;
+    }
+
+    /**
+     * @param autoRegisterKeys the jobs to create agents for, each with the single-use key its agent registers with
+     */
+    default void createAgents(String pluginId, String environment, Map<String, String> configuration, Map<String, String> clusterProfileConfiguration, Map<JobIdentifier, String> autoRegisterKeys) {
+        autoRegisterKeys.forEach((jobIdentifier, autoRegisterKey) -> createAgent(pluginId, autoRegisterKey, environment, configuration, clusterProfileConfiguration, jobIdentifier));
+    }
+
     void serverPing(String pluginId, List<Map<String, String>> clusterProfileConfigurations);
 
     boolean shouldAssignWork(String pluginId, AgentMetadata agent, String environment, Map<String, String> configuration, Map<String, String> clusterProfileProperties, JobIdentifier identifier);
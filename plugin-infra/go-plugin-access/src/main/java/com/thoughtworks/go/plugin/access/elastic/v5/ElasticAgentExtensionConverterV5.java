@@ -34,7 +34,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.List;
 import java.util.Map;
 
-class ElasticAgentExtensionConverterV5 {
+public class ElasticAgentExtensionConverterV5 {
     private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
     private ElasticAgentInformationConverterV5 elasticAgentInformationConverterV5 = new ElasticAgentInformationConverterV5();
     private CapabilitiesConverterV5 capabilitiesConverterV5 = new CapabilitiesConverterV5();
@@ -124,7 +124,7 @@ class ElasticAgentExtensionConverterV5 {
         return elasticAgentInformationConverterV5.fromDTO(elasticAgentInformationDTO);
     }
 
-    private JsonObject mapToJsonObject(Map<String, String> configuration) {
+    protected JsonObject mapToJsonObject(Map<String, String> configuration) {
         final JsonObject properties = new JsonObject();
         for (Map.Entry<String, String> entry : configuration.entrySet()) {
             properties.addProperty(entry.getKey(), entry.getValue());
@@ -142,7 +142,7 @@ class ElasticAgentExtensionConverterV5 {
         return jsonArray;
     }
 
-    private JsonObject jobIdentifierJson(JobIdentifier jobIdentifier) {
+    protected JsonObject jobIdentifierJson(JobIdentifier jobIdentifier) {
         JsonObject jobIdentifierJson = new JsonObject();
         jobIdentifierJson.addProperty("pipeline_name", jobIdentifier.getPipelineName());
         jobIdentifierJson.addProperty("pipeline_label", jobIdentifier.getPipelineLabel());
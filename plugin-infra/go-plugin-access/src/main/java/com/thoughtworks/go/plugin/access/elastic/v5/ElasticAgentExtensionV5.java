@@ -33,7 +33,7 @@ import static com.thoughtworks.go.plugin.access.elastic.v5.ElasticAgentPluginCon
 
 public class ElasticAgentExtensionV5 implements VersionedElasticAgentExtension {
     public static final String VERSION = "5.0";
-    private final PluginRequestHelper pluginRequestHelper;
+    protected final PluginRequestHelper pluginRequestHelper;
     private final ElasticAgentExtensionConverterV5 elasticAgentExtensionConverterV5;
 
     public ElasticAgentExtensionV5(PluginRequestHelper pluginRequestHelper) {
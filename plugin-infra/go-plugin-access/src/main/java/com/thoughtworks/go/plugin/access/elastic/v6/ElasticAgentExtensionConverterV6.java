@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.elastic.v6;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.plugin.access.elastic.v5.ElasticAgentExtensionConverterV5;
+
+import java.util.Map;
+
+class ElasticAgentExtensionConverterV6 extends ElasticAgentExtensionConverterV5 {
+    private static final Gson GSON = new Gson();
+
+    String createAgentsRequestBody(String environment, Map<String, String> configuration, Map<String, String> clusterProfileProperties, Map<JobIdentifier, String> autoRegisterKeys) {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.add("elastic_agent_profile_properties", mapToJsonObject(configuration));
+        jsonObject.add("cluster_profile_properties", mapToJsonObject(clusterProfileProperties));
+        jsonObject.addProperty("environment", environment);
+
+        JsonArray agentsJson = new JsonArray();
+        autoRegisterKeys.forEach((jobIdentifier, autoRegisterKey) -> {
+            JsonObject agentJson = new JsonObject();
+            agentJson.addProperty("auto_register_key", autoRegisterKey);
+            agentJson.add("job_identifier", jobIdentifierJson(jobIdentifier));
+            agentsJson.add(agentJson);
+        });
+        jsonObject.add("agents", agentsJson);
+
+        return GSON.toJson(jsonObject);
+    }
+}
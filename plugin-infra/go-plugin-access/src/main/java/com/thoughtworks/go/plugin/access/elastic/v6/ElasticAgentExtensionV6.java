@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.elastic.v6;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.plugin.access.DefaultPluginInteractionCallback;
+import com.thoughtworks.go.plugin.access.PluginRequestHelper;
+import com.thoughtworks.go.plugin.access.elastic.v5.ElasticAgentExtensionV5;
+
+import java.util.Map;
+
+import static com.thoughtworks.go.plugin.access.elastic.v6.ElasticAgentPluginConstantsV6.REQUEST_CREATE_AGENTS;
+
+/**
+ * Version 6.0 is version 5.0 plus a create-agents call, which asks the plugin to create agents for several jobs
+ * sharing the same elastic profile, cluster profile and environment in one request.
+ */
+public class ElasticAgentExtensionV6 extends ElasticAgentExtensionV5 {
+    public static final String VERSION = "6.0";
+    private final ElasticAgentExtensionConverterV6 elasticAgentExtensionConverterV6;
+
+    public ElasticAgentExtensionV6(PluginRequestHelper pluginRequestHelper) {
+        super(pluginRequestHelper);
+        this.elasticAgentExtensionConverterV6 = new ElasticAgentExtensionConverterV6();
+    }
+
+    @Override
+    public boolean supportsBatchedAgentCreation() {
+        return true;
+    }
+
+    @Override
+    public void createAgents(String pluginId, String environment, Map<String, String> configuration, Map<String, String> clusterProfileConfiguration, Map<JobIdentifier, String> autoRegisterKeys) {
+        pluginRequestHelper.submitRequest(pluginId, REQUEST_CREATE_AGENTS, new DefaultPluginInteractionCallback<Void>() {
+            @Override
+            public String requestBody(String resolvedExtensionVersion) {
+                return elasticAgentExtensionConverterV6.createAgentsRequestBody(environment, configuration, clusterProfileConfiguration, autoRegisterKeys);
+            }
+        });
+    }
+}
@@ -18,11 +18,24 @@ package com.thoughtworks.go.plugin.access.notification;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import java.util.List;
+
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
+
 public abstract class DataConverter<T> {
     protected abstract T transformData();
 
     public String createRequest() {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().serializeNulls().create();
-        return gson.toJson(this.transformData());
+        return gson().toJson(this.transformData());
+    }
+
+    public static String createBatchRequest(List<DataConverter<?>> converters) {
+        List<Object> notifications = converters.stream().map(converter -> (Object) converter.transformData()).collect(toList());
+        return gson().toJson(singletonMap("notifications", notifications));
+    }
+
+    private static Gson gson() {
+        return new GsonBuilder().excludeFieldsWithoutExposeAnnotation().serializeNulls().create();
     }
 }
@@ -26,6 +26,7 @@ import com.thoughtworks.go.plugin.access.notification.v1.JsonMessageHandler1_0;
 import com.thoughtworks.go.plugin.access.notification.v2.JsonMessageHandler2_0;
 import com.thoughtworks.go.plugin.access.notification.v3.JsonMessageHandler3_0;
 import com.thoughtworks.go.plugin.access.notification.v4.JsonMessageHandler4_0;
+import com.thoughtworks.go.plugin.access.notification.v5.JsonMessageHandler5_0;
 import com.thoughtworks.go.plugin.api.response.Result;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,15 +41,17 @@ import static java.util.Arrays.asList;
 
 @Component
 public class NotificationExtension extends AbstractExtension {
-    static final List<String> goSupportedVersions = asList("1.0", "2.0", "3.0", "4.0");
+    static final List<String> goSupportedVersions = asList("1.0", "2.0", "3.0", "4.0", "5.0");
 
     static final String REQUEST_NOTIFICATIONS_INTERESTED_IN = "notifications-interested-in";
     public static final String STAGE_STATUS_CHANGE_NOTIFICATION = "stage-status";
     public static final String AGENT_STATUS_CHANGE_NOTIFICATION = "agent-status";
+    static final String BATCH_REQUEST_SUFFIX = "-batch";
 
     static final List<String> VALID_NOTIFICATION_TYPES = asList(STAGE_STATUS_CHANGE_NOTIFICATION, AGENT_STATUS_CHANGE_NOTIFICATION);
 
     private Map<String, JsonMessageHandler> messageHandlerMap = new HashMap<>();
+    private Map<String, BatchJsonMessageHandler> batchMessageHandlerMap = new HashMap<>();
 
     @Autowired
     public NotificationExtension(PluginManager pluginManager, ExtensionsRegistry extensionsRegistry) {
@@ -61,11 +64,16 @@ public class NotificationExtension extends AbstractExtension {
         registerHandlers("3.0", new PluginSettingsJsonMessageHandler2_0(), new JsonMessageHandler3_0());
 
         registerHandlers("4.0", new PluginSettingsJsonMessageHandler2_0(), new JsonMessageHandler4_0());
+
+        registerHandlers("5.0", new PluginSettingsJsonMessageHandler2_0(), new JsonMessageHandler5_0());
     }
 
     private void registerHandlers(String version, PluginSettingsJsonMessageHandler pluginSettingsJsonMessageHandler, JsonMessageHandler jsonMessageHandler) {
         registerHandler(version, pluginSettingsJsonMessageHandler);
         messageHandlerMap.put(version, jsonMessageHandler);
+        if (jsonMessageHandler instanceof BatchJsonMessageHandler) {
+            batchMessageHandlerMap.put(version, (BatchJsonMessageHandler) jsonMessageHandler);
+        }
     }
 
     public List<String> getNotificationsOfInterestFor(String pluginId) {
@@ -93,6 +101,40 @@ public class NotificationExtension extends AbstractExtension {
         });
     }
 
+    public boolean supportsBatchedNotifications(String pluginId) {
+        String resolvedExtensionVersion = pluginManager.resolveExtensionVersion(pluginId, NOTIFICATION_EXTENSION, goSupportedVersions);
+        return batchMessageHandlerMap.containsKey(resolvedExtensionVersion);
+    }
+
+    public <T> Result notifyBatch(String pluginId, final String requestName, final List<T> data) {
+        if (!supportsBatchedNotifications(pluginId)) {
+            return notifyOneAtATime(pluginId, requestName, data);
+        }
+        return pluginRequestHelper.submitRequest(pluginId, requestName + BATCH_REQUEST_SUFFIX, new DefaultPluginInteractionCallback<Result>() {
+            @Override
+            public String requestBody(String resolvedExtensionVersion) {
+                return batchMessageHandlerMap.get(resolvedExtensionVersion).requestMessageForNotifyBatch(data);
+            }
+
+            @Override
+            public Result onSuccess(String responseBody, Map<String, String> responseHeaders, String resolvedExtensionVersion) {
+                return messageHandlerMap.get(resolvedExtensionVersion).responseMessageForNotify(responseBody);
+            }
+        });
+    }
+
+    // A batch can outlive the extension version it was queued for, e.g. when the plugin is replaced by an older one.
+    private <T> Result notifyOneAtATime(String pluginId, String requestName, List<T> data) {
+        Result result = new Result();
+        for (T notification : data) {
+            Result notificationResult = notify(pluginId, requestName, notification);
+            if (!notificationResult.isSuccessful()) {
+                result = notificationResult;
+            }
+        }
+        return result;
+    }
+
     Map<String, PluginSettingsJsonMessageHandler> getPluginSettingsMessageHandlerMap() {
         return pluginSettingsMessageHandlerMap;
     }
@@ -72,7 +72,7 @@ public class JsonMessageHandler4_0 implements JsonMessageHandler {
         return getConverter(data).createRequest();
     }
 
-    private <T> DataConverter getConverter(T data) {
+    protected <T> DataConverter getConverter(T data) {
         if (data instanceof StageNotificationData) {
             return new StageConverter((StageNotificationData) data);
         }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.notification.v5;
+
+import com.thoughtworks.go.plugin.access.notification.BatchJsonMessageHandler;
+import com.thoughtworks.go.plugin.access.notification.DataConverter;
+import com.thoughtworks.go.plugin.access.notification.v4.JsonMessageHandler4_0;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Same message format as 4.0 for single notifications, with an additional batched request carrying
+ * a list of notifications of the same type under a single <code>notifications</code> key.
+ */
+public class JsonMessageHandler5_0 extends JsonMessageHandler4_0 implements BatchJsonMessageHandler {
+    @Override
+    public <T> String requestMessageForNotifyBatch(List<T> data) {
+        List<DataConverter<?>> converters = new ArrayList<>();
+        for (T notification : data) {
+            converters.add(getConverter(notification));
+        }
+        return DataConverter.createBatchRequest(converters);
+    }
+}
@@ -17,17 +17,28 @@ package com.thoughtworks.go.plugin.access.configrepo.v3;
 
 import com.thoughtworks.go.plugin.access.configrepo.ConfigRepoMigrator;
 import com.thoughtworks.go.plugin.configrepo.codec.GsonCodec;
+import com.thoughtworks.go.plugin.configrepo.contract.CREnvironment;
+import com.thoughtworks.go.plugin.configrepo.contract.CRParseResult;
+import com.thoughtworks.go.plugin.configrepo.contract.CRPipeline;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.thoughtworks.go.plugin.access.configrepo.v3.JsonMessageHandler3_0.CURRENT_CONTRACT_VERSION;
+import static com.thoughtworks.go.util.TestUtils.contains;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 public class JsonMessageHandler3_0Test {
     private final JsonMessageHandler3_0 handler;
+    private final ConfigRepoMigrator configRepoMigrator;
 
     public JsonMessageHandler3_0Test() {
-        ConfigRepoMigrator configRepoMigrator = mock(ConfigRepoMigrator.class);
+        configRepoMigrator = mock(ConfigRepoMigrator.class);
         handler = new JsonMessageHandler3_0(new GsonCodec(), configRepoMigrator);
     }
 
@@ -42,4 +53,79 @@ public class JsonMessageHandler3_0Test {
         assertTrue(handler.responseMessageForConfigFiles("{\"blah\": [\"file\"]}").hasErrors());
         assertTrue(handler.responseMessageForConfigFiles("{}").hasErrors());
     }
+
+    @Test
+    public void shouldReadPipelinesAndEnvironmentsOfCurrentVersionResponsesWithoutMigratingThem() {
+        String json = "{\n" +
+                "  \"target_version\" : " + CURRENT_CONTRACT_VERSION + ",\n" +
+                "  \"pipelines\" : [{\"name\" : \"up42\", \"group\" : \"first\"}, {\"name\" : \"down42\", \"group\" : \"first\"}],\n" +
+                "  \"environments\" : [{\"name\" : \"dev\"}],\n" +
+                "  \"some_future_field\" : {\"ignored\" : [1, 2, 3]},\n" +
+                "  \"errors\" : []\n" +
+                "}";
+
+        CRParseResult result = handler.responseMessageForParseDirectory(json);
+
+        assertEquals(List.of("up42", "down42"), pipelineNames(result));
+        assertEquals(List.of("dev"), result.getEnvironments().stream().map(CREnvironment::getName).collect(Collectors.toList()));
+        verifyNoInteractions(configRepoMigrator);
+    }
+
+    @Test
+    public void shouldReadResponsesWhichDeclareTheirTargetVersionAfterTheirPipelines() {
+        String json = "{\n" +
+                "  \"pipelines\" : [{\"name\" : \"up42\", \"group\" : \"first\"}],\n" +
+                "  \"target_version\" : \"" + CURRENT_CONTRACT_VERSION + "\"\n" +
+                "}";
+
+        CRParseResult result = handler.responseMessageForParseDirectory(json);
+
+        assertEquals(List.of("up42"), pipelineNames(result));
+        verifyNoInteractions(configRepoMigrator);
+    }
+
+    @Test
+    public void shouldAppendPluginErrorsOfCurrentVersionResponses() {
+        String json = "{\n" +
+                "  \"target_version\" : " + CURRENT_CONTRACT_VERSION + ",\n" +
+                "  \"pipelines\" : [],\n" +
+                "  \"errors\" : [{\"location\" : \"somewhere\", \"message\" : \"failed to parse pipeline.json\"}]\n" +
+                "}";
+
+        CRParseResult result = handler.responseMessageForParseDirectory(json);
+
+        assertThat(result.getErrors().getErrorsAsText(), contains("failed to parse pipeline.json"));
+    }
+
+    @Test
+    public void shouldStillMigrateResponsesOfOlderVersions() {
+        String json = "{ \"target_version\" : " + (CURRENT_CONTRACT_VERSION - 1) + ", \"pipelines\" : [{\"name\" : \"up42\", \"group\" : \"first\"}] }";
+        when(configRepoMigrator.migrate(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CRParseResult result = handler.responseMessageForParseDirectory(json);
+
+        verify(configRepoMigrator).migrate(json, CURRENT_CONTRACT_VERSION);
+        assertEquals(List.of("up42"), pipelineNames(result));
+    }
+
+    @Test
+    public void shouldErrorWhenTargetVersionIsMissingOrHigherThanSupported() {
+        CRParseResult missingVersion = handler.responseMessageForParseDirectory("{ \"pipelines\" : [] }");
+        CRParseResult higherVersion = handler.responseMessageForParseDirectory("{ \"target_version\" : " + (CURRENT_CONTRACT_VERSION + 1) + ", \"pipelines\" : [] }");
+
+        assertThat(missingVersion.getErrors().getErrorsAsText(), contains("missing 'target_version' field"));
+        assertThat(higherVersion.getErrors().getErrorsAsText(), contains(String.format("'target_version' is %s but the GoCD Server supports %s", CURRENT_CONTRACT_VERSION + 1, CURRENT_CONTRACT_VERSION)));
+    }
+
+    @Test
+    public void shouldReportMalformedResponsesAsRuntimeErrors() {
+        CRParseResult result = handler.responseMessageForParseDirectory("{ \"target_version\" : " + CURRENT_CONTRACT_VERSION + ", \"pipelines\" : [ }");
+
+        assertTrue(result.hasErrors());
+        assertThat(result.getErrors().getErrorsAsText(), contains("Unexpected error when handling plugin response"));
+    }
+
+    private static List<String> pipelineNames(CRParseResult result) {
+        return result.getPipelines().stream().map(CRPipeline::getName).collect(Collectors.toList());
+    }
 }
@@ -223,6 +223,28 @@ public class ElasticAgentExtensionV5Test {
         assertExtensionRequest("5.0", REQUEST_CREATE_AGENT, expectedRequestBody);
     }
 
+    @Test
+    public void shouldCreateAgentsOneRequestPerJobSinceBatchedCreationIsNotSupported() {
+        final JobIdentifier job1 = new JobIdentifier("up42", 2, "Test", "up42_stage", "10", "job1");
+        final JobIdentifier job2 = new JobIdentifier("up42", 2, "Test", "up42_stage", "10", "job2");
+        when(pluginManager.submitTo(eq(PLUGIN_ID), eq(ELASTIC_AGENT_EXTENSION), requestArgumentCaptor.capture())).thenReturn(DefaultGoPluginApiResponse.success(null));
+        Map<JobIdentifier, String> autoRegisterKeys = new LinkedHashMap<>();
+        autoRegisterKeys.put(job1, "key-1");
+        autoRegisterKeys.put(job2, "key-2");
+
+        assertThat(extensionV5.supportsBatchedAgentCreation(), is(false));
+        extensionV5.createAgents(PLUGIN_ID, "test-env", Collections.emptyMap(), Collections.emptyMap(), autoRegisterKeys);
+
+        List<GoPluginApiRequest> requests = requestArgumentCaptor.getAllValues();
+        assertThat(requests.size(), is(2));
+        assertThat(requests.get(0).requestName(), is(REQUEST_CREATE_AGENT));
+        assertThatJson(requests.get(0).requestBody()).node("auto_register_key").isEqualTo("key-1");
+        assertThatJson(requests.get(0).requestBody()).node("job_identifier.job_name").isEqualTo("job1");
+        assertThat(requests.get(1).requestName(), is(REQUEST_CREATE_AGENT));
+        assertThatJson(requests.get(1).requestBody()).node("auto_register_key").isEqualTo("key-2");
+        assertThatJson(requests.get(1).requestBody()).node("job_identifier.job_name").isEqualTo("job2");
+    }
+
     @Test
     public void shouldMakeJobCompletionCall() {
         final String elasticAgentId = "ea1";
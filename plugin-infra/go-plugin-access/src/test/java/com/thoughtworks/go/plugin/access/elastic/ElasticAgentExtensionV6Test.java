@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.elastic;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.plugin.access.PluginRequestHelper;
+import com.thoughtworks.go.plugin.access.elastic.v6.ElasticAgentExtensionV6;
+import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
+import com.thoughtworks.go.plugin.domain.common.PluginConstants;
+import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.thoughtworks.go.plugin.access.elastic.v6.ElasticAgentPluginConstantsV6.REQUEST_CREATE_AGENTS;
+import static com.thoughtworks.go.plugin.domain.common.PluginConstants.ELASTIC_AGENT_EXTENSION;
+import static net.javacrumbs.jsonunit.fluent.JsonFluentAssert.assertThatJson;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ElasticAgentExtensionV6Test {
+    private static final String PLUGIN_ID = "cd.go.example.plugin";
+    @Mock(lenient = true)
+    private PluginManager pluginManager;
+    @Mock(lenient = true)
+    private GoPluginDescriptor descriptor;
+    private ArgumentCaptor<GoPluginApiRequest> requestArgumentCaptor;
+    private ElasticAgentExtensionV6 extensionV6;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        requestArgumentCaptor = ArgumentCaptor.forClass(GoPluginApiRequest.class);
+        final List<String> goSupportedVersions = Arrays.asList("4.0", "5.0", "6.0");
+
+        when(descriptor.id()).thenReturn(PLUGIN_ID);
+
+        when(pluginManager.getPluginDescriptorFor(PLUGIN_ID)).thenReturn(descriptor);
+        when(pluginManager.isPluginOfType(ELASTIC_AGENT_EXTENSION, PLUGIN_ID)).thenReturn(true);
+        when(pluginManager.resolveExtensionVersion(PLUGIN_ID, ELASTIC_AGENT_EXTENSION, goSupportedVersions)).thenReturn("6.0");
+
+        final PluginRequestHelper pluginRequestHelper = new PluginRequestHelper(pluginManager, goSupportedVersions, ELASTIC_AGENT_EXTENSION);
+        extensionV6 = new ElasticAgentExtensionV6(pluginRequestHelper);
+    }
+
+    @Test
+    public void shouldSupportBatchedAgentCreation() {
+        assertThat(extensionV6.supportsBatchedAgentCreation(), is(true));
+    }
+
+    @Test
+    public void shouldMakeCreateAgentsCall() {
+        final Map<String, String> profile = Collections.singletonMap("Image", "alpine:latest");
+        final Map<String, String> clusterProfile = Collections.singletonMap("ServerURL", "https://example.com/go");
+        final JobIdentifier job1 = new JobIdentifier("up42", 2, "Test", "up42_stage", "10", "job1");
+        final JobIdentifier job2 = new JobIdentifier("up42", 2, "Test", "up42_stage", "10", "job2");
+        when(pluginManager.submitTo(eq(PLUGIN_ID), eq(ELASTIC_AGENT_EXTENSION), requestArgumentCaptor.capture())).thenReturn(DefaultGoPluginApiResponse.success(null));
+
+        Map<JobIdentifier, String> autoRegisterKeys = new LinkedHashMap<>();
+        autoRegisterKeys.put(job1, "key-1");
+        autoRegisterKeys.put(job2, "key-2");
+
+        extensionV6.createAgents(PLUGIN_ID, "test-env", profile, clusterProfile, autoRegisterKeys);
+
+        String expectedRequestBody = "{\n" +
+                "  \"elastic_agent_profile_properties\": {\n" +
+                "    \"Image\": \"alpine:latest\"\n" +
+                "  },\n" +
+                "  \"cluster_profile_properties\": {\n" +
+                "    \"ServerURL\": \"https://example.com/go\"\n" +
+                "  },\n" +
+                "  \"environment\": \"test-env\",\n" +
+                "  \"agents\": [\n" +
+                "    {\n" +
+                "      \"auto_register_key\": \"key-1\",\n" +
+                "      \"job_identifier\": {\n" +
+                "        \"pipeline_name\": \"up42\",\n" +
+                "        \"pipeline_label\": \"Test\",\n" +
+                "        \"pipeline_counter\": 2,\n" +
+                "        \"stage_name\": \"up42_stage\",\n" +
+                "        \"stage_counter\": \"10\",\n" +
+                "        \"job_name\": \"job1\",\n" +
+                "        \"job_id\": -1\n" +
+                "      }\n" +
+                "    },\n" +
+                "    {\n" +
+                "      \"auto_register_key\": \"key-2\",\n" +
+                "      \"job_identifier\": {\n" +
+                "        \"pipeline_name\": \"up42\",\n" +
+                "        \"pipeline_label\": \"Test\",\n" +
+                "        \"pipeline_counter\": 2,\n" +
+                "        \"stage_name\": \"up42_stage\",\n" +
+                "        \"stage_counter\": \"10\",\n" +
+                "        \"job_name\": \"job2\",\n" +
+                "        \"job_id\": -1\n" +
+                "      }\n" +
+                "    }\n" +
+                "  ]\n" +
+                "}";
+        final GoPluginApiRequest request = requestArgumentCaptor.getValue();
+        assertThat(request.requestName(), is(REQUEST_CREATE_AGENTS));
+        assertThat(request.extensionVersion(), is("6.0"));
+        assertThat(request.extension(), is(PluginConstants.ELASTIC_AGENT_EXTENSION));
+        assertThatJson(expectedRequestBody).isEqualTo(request.requestBody());
+    }
+}
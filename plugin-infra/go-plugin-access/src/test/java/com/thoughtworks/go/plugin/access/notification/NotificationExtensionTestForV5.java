@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.notification;
+
+import com.thoughtworks.go.domain.notificationdata.AgentNotificationData;
+import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler;
+import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler2_0;
+import com.thoughtworks.go.plugin.access.notification.v5.JsonMessageHandler5_0;
+import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
+import com.thoughtworks.go.plugin.api.response.Result;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Date;
+import java.util.List;
+
+import static com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse.SUCCESS_RESPONSE_CODE;
+import static com.thoughtworks.go.plugin.domain.common.PluginConstants.NOTIFICATION_EXTENSION;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+public class NotificationExtensionTestForV5 extends NotificationExtensionTestBase {
+    @Mock
+    private PluginSettingsJsonMessageHandler2_0 pluginSettingsJSONMessageHandlerv2;
+
+    @Mock
+    private JsonMessageHandler5_0 jsonMessageHandlerv5;
+
+    @Override
+    protected String apiVersion() {
+        return "5.0";
+    }
+
+    @Override
+    protected PluginSettingsJsonMessageHandler pluginSettingsJSONMessageHandler() {
+        return pluginSettingsJSONMessageHandlerv2;
+    }
+
+    @Override
+    protected JsonMessageHandler jsonMessageHandler() {
+        return jsonMessageHandlerv5;
+    }
+
+    @Test
+    public void shouldSendBatchedNotificationsUsingTheBatchRequestName() {
+        ArgumentCaptor<GoPluginApiRequest> requestArgumentCaptor = ArgumentCaptor.forClass(GoPluginApiRequest.class);
+        when(pluginManager.resolveExtensionVersion(eq("pluginId"), eq(NOTIFICATION_EXTENSION), anyList())).thenReturn("5.0");
+        when(pluginManager.isPluginOfType(NOTIFICATION_EXTENSION, "pluginId")).thenReturn(true);
+        when(pluginManager.submitTo(eq("pluginId"), eq(NOTIFICATION_EXTENSION), requestArgumentCaptor.capture())).thenReturn(new DefaultGoPluginApiResponse(SUCCESS_RESPONSE_CODE, "{\"status\":\"success\"}"));
+
+        NotificationExtension extension = new NotificationExtension(pluginManager, extensionsRegistry);
+        List<AgentNotificationData> notifications = asList(agentNotification("uuid-1"), agentNotification("uuid-2"));
+        Result result = extension.notifyBatch("pluginId", NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION, notifications);
+
+        GoPluginApiRequest request = requestArgumentCaptor.getValue();
+        assertTrue(result.isSuccessful());
+        assertThat(request.extensionVersion(), is("5.0"));
+        assertThat(request.requestName(), is("agent-status-batch"));
+        assertThat(request.requestBody(), is(new JsonMessageHandler5_0().requestMessageForNotifyBatch(notifications)));
+    }
+
+    @Test
+    public void shouldSupportBatchedNotificationsOnlyFromVersion5() {
+        when(pluginManager.resolveExtensionVersion("v5-plugin", NOTIFICATION_EXTENSION, NotificationExtension.goSupportedVersions)).thenReturn("5.0");
+        when(pluginManager.resolveExtensionVersion("v4-plugin", NOTIFICATION_EXTENSION, NotificationExtension.goSupportedVersions)).thenReturn("4.0");
+
+        NotificationExtension extension = new NotificationExtension(pluginManager, extensionsRegistry);
+
+        assertTrue(extension.supportsBatchedNotifications("v5-plugin"));
+        assertFalse(extension.supportsBatchedNotifications("v4-plugin"));
+    }
+
+    @Test
+    public void shouldSendBatchedNotificationsOneAtATimeToPluginsOnOlderVersions() {
+        ArgumentCaptor<GoPluginApiRequest> requestArgumentCaptor = ArgumentCaptor.forClass(GoPluginApiRequest.class);
+        when(pluginManager.resolveExtensionVersion(eq("pluginId"), eq(NOTIFICATION_EXTENSION), anyList())).thenReturn("4.0");
+        when(pluginManager.isPluginOfType(NOTIFICATION_EXTENSION, "pluginId")).thenReturn(true);
+        when(pluginManager.submitTo(eq("pluginId"), eq(NOTIFICATION_EXTENSION), requestArgumentCaptor.capture())).thenReturn(new DefaultGoPluginApiResponse(SUCCESS_RESPONSE_CODE, "{\"status\":\"success\"}"));
+
+        NotificationExtension extension = new NotificationExtension(pluginManager, extensionsRegistry);
+        Result result = extension.notifyBatch("pluginId", NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION, asList(agentNotification("uuid-1"), agentNotification("uuid-2")));
+
+        assertTrue(result.isSuccessful());
+        List<GoPluginApiRequest> requests = requestArgumentCaptor.getAllValues();
+        assertThat(requests.size(), is(2));
+        assertThat(requests.get(0).requestName(), is("agent-status"));
+        assertThat(requests.get(1).requestName(), is("agent-status"));
+    }
+
+    private AgentNotificationData agentNotification(String uuid) {
+        return new AgentNotificationData(uuid, "host", false, "127.0.0.1", "linux", "100", "enabled", "idle", "idle", new Date());
+    }
+}
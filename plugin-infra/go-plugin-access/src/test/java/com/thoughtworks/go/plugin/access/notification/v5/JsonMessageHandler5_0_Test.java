@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access.notification.v5;
+
+import com.thoughtworks.go.domain.notificationdata.AgentNotificationData;
+import com.thoughtworks.go.plugin.api.response.Result;
+import net.javacrumbs.jsonunit.fluent.JsonFluentAssert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class JsonMessageHandler5_0_Test {
+    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private JsonMessageHandler5_0 messageHandler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        messageHandler = new JsonMessageHandler5_0();
+    }
+
+    @Test
+    public void shouldConstructBatchedAgentNotificationRequestMessage() {
+        Date transitionTime = new Date();
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATE_PATTERN);
+        simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String time = simpleDateFormat.format(transitionTime);
+
+        AgentNotificationData first = new AgentNotificationData("uuid-1", "host-1", true, "127.0.0.1", "rh", "100", "enabled", "building", "building", transitionTime);
+        AgentNotificationData second = new AgentNotificationData("uuid-2", "host-2", false, "127.0.0.2", "rh", "200", "enabled", "idle", "idle", transitionTime);
+
+        String expected = "{\n" +
+                "  \"notifications\": [{\n" +
+                "    \"agent_config_state\": \"enabled\",\n" +
+                "    \"agent_state\": \"building\",\n" +
+                "    \"build_state\": \"building\",\n" +
+                "    \"is_elastic\": true,\n" +
+                "    \"free_space\": \"100\",\n" +
+                "    \"host_name\": \"host-1\",\n" +
+                "    \"ip_address\": \"127.0.0.1\",\n" +
+                "    \"operating_system\": \"rh\",\n" +
+                "    \"uuid\": \"uuid-1\",\n" +
+                "    \"transition_time\": \"" + time + "\"\n" +
+                "  }, {\n" +
+                "    \"agent_config_state\": \"enabled\",\n" +
+                "    \"agent_state\": \"idle\",\n" +
+                "    \"build_state\": \"idle\",\n" +
+                "    \"is_elastic\": false,\n" +
+                "    \"free_space\": \"200\",\n" +
+                "    \"host_name\": \"host-2\",\n" +
+                "    \"ip_address\": \"127.0.0.2\",\n" +
+                "    \"operating_system\": \"rh\",\n" +
+                "    \"uuid\": \"uuid-2\",\n" +
+                "    \"transition_time\": \"" + time + "\"\n" +
+                "  }]\n" +
+                "}";
+
+        String message = messageHandler.requestMessageForNotifyBatch(asList(first, second));
+
+        JsonFluentAssert.assertThatJson(expected).isEqualTo(message);
+    }
+
+    @Test
+    public void shouldBuildResultFromBatchedNotifyResponse() {
+        Result result = messageHandler.responseMessageForNotify("{\"status\":\"failure\",messages=[\"message-one\"]}");
+
+        assertThat(result.isSuccessful(), is(false));
+        assertThat(result.getMessages(), is(asList("message-one")));
+    }
+}
@@ -36,7 +36,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
-import static com.thoughtworks.go.util.SystemEnvironment.PLUGIN_WORK_DIR;
+import static com.thoughtworks.go.util.SystemEnvironment.*;
 import static java.lang.Double.parseDouble;
 
 @Service
@@ -51,17 +51,19 @@ public class DefaultPluginManager implements PluginManager {
     private GoPluginOSGiFramework goPluginOSGiFramework;
     private final Map<PluginDescriptor, Set<String>> initializedPluginsWithTheirExtensionTypes = new HashMap<>();
     private PluginRequestProcessorRegistry requestProcessRegistry;
+    private final PluginRequestGovernor pluginRequestGovernor;
 
     @Autowired
     public DefaultPluginManager(DefaultPluginJarLocationMonitor monitor, DefaultPluginRegistry registry, GoPluginOSGiFramework goPluginOSGiFramework,
                                 DefaultPluginJarChangeListener defaultPluginJarChangeListener, PluginRequestProcessorRegistry requestProcessRegistry,
-                                SystemEnvironment systemEnvironment, PluginLoader pluginLoader) {
+                                SystemEnvironment systemEnvironment, PluginLoader pluginLoader, PluginRequestGovernor pluginRequestGovernor) {
         this.monitor = monitor;
         this.registry = registry;
         this.defaultPluginJarChangeListener = defaultPluginJarChangeListener;
         this.requestProcessRegistry = requestProcessRegistry;
         this.systemEnvironment = systemEnvironment;
         this.pluginLoader = pluginLoader;
+        this.pluginRequestGovernor = pluginRequestGovernor;
         bundleLocation = bundlePath();
         this.goPluginOSGiFramework = goPluginOSGiFramework;
     }
@@ -130,13 +132,15 @@ public class DefaultPluginManager implements PluginManager {
     public GoPluginApiResponse submitTo(final String pluginId, String extensionType, final GoPluginApiRequest apiRequest) {
         return goPluginOSGiFramework.doOn(GoPlugin.class, pluginId, extensionType, (plugin, pluginDescriptor) -> {
             ensureInitializerInvoked(pluginDescriptor, plugin, extensionType);
-            try {
-                return plugin.handle(apiRequest);
-            } catch (UnhandledRequestTypeException e) {
-                LOGGER.error(e.getMessage());
-                LOGGER.debug(e.getMessage(), e);
-                throw new RuntimeException(e);
-            }
+            return pluginRequestGovernor.submit(pluginId, apiRequest, () -> {
+                try {
+                    return plugin.handle(apiRequest);
+                } catch (UnhandledRequestTypeException e) {
+                    LOGGER.error(e.getMessage());
+                    LOGGER.debug(e.getMessage(), e);
+                    throw new RuntimeException(e);
+                }
+            });
         });
     }
 
@@ -185,6 +189,10 @@ public class DefaultPluginManager implements PluginManager {
     }
 
     private void removeBundleDirectory() {
+        if (systemEnvironment.shouldReuseExplodedPluginBundles()) {
+            removeBundleDirectoriesOfMissingPluginJars();
+            return;
+        }
         try {
             FileUtils.deleteDirectory(bundleLocation);
         } catch (IOException e) {
@@ -192,6 +200,26 @@ public class DefaultPluginManager implements PluginManager {
         }
     }
 
+    private void removeBundleDirectoriesOfMissingPluginJars() {
+        Set<String> pluginJarNames = new HashSet<>();
+        for (String pluginDirectory : List.of(systemEnvironment.get(PLUGIN_GO_PROVIDED_PATH), systemEnvironment.get(PLUGIN_EXTERNAL_PROVIDED_PATH))) {
+            String[] jars = new File(pluginDirectory).list((dir, name) -> name.endsWith(".jar"));
+            if (jars != null) {
+                pluginJarNames.addAll(Arrays.asList(jars));
+            }
+        }
+
+        File[] explodedBundles = bundleLocation.listFiles();
+        if (explodedBundles == null) {
+            return;
+        }
+        for (File explodedBundle : explodedBundles) {
+            if (!pluginJarNames.contains(explodedBundle.getName())) {
+                FileUtils.deleteQuietly(explodedBundle);
+            }
+        }
+    }
+
     private File bundlePath() {
         File bundleDir = new File(systemEnvironment.get(PLUGIN_WORK_DIR));
         FileUtil.validateAndCreateDirectory(bundleDir);
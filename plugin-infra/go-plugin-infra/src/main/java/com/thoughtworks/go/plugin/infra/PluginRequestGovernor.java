@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.infra;
+
+import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * @understands keeping a slow or misbehaving plugin from tying up every server thread that talks to plugins
+ * <p>
+ * Requests to a plugin wait in a fair queue once the plugin has as many requests in flight as it is allowed to, and
+ * fail if they wait longer than the queue timeout. Optionally, callers stop waiting for a plugin's response after a
+ * timeout; the request keeps holding its slot until the plugin actually returns, so a hung plugin ends up rejecting
+ * its own requests instead of consuming threads meant for other plugins. Requests with a timeout run on a bounded
+ * pool of threads of their own plugin, and wait for one of them within that same timeout, so a hung plugin only
+ * ever holds up its own requests.
+ */
+@Component
+public class PluginRequestGovernor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PluginRequestGovernor.class);
+    private final SystemEnvironment systemEnvironment;
+    private final PluginRequestMetrics metrics;
+    private final ConcurrentMap<String, Optional<Semaphore>> permitsByPlugin = new ConcurrentHashMap<>();
+    private final Map<String, Integer> maxConcurrentRequestsOverrides;
+    private final ConcurrentMap<String, ThreadPoolExecutor> executorsByPlugin = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PluginRequestGovernor(SystemEnvironment systemEnvironment, PluginRequestMetrics metrics) {
+        this.systemEnvironment = systemEnvironment;
+        this.metrics = metrics;
+        this.maxConcurrentRequestsOverrides = parseOverrides(systemEnvironment.getMaxConcurrentRequestsPerPluginOverrides());
+    }
+
+    public GoPluginApiResponse submit(String pluginId, GoPluginApiRequest request, Supplier<GoPluginApiResponse> pluginCall) {
+        String requestName = request.requestName();
+        Semaphore permits = permitsFor(pluginId).orElse(null);
+        if (permits != null) {
+            acquire(permits, pluginId, requestName);
+        }
+
+        int timeout = systemEnvironment.getPluginRequestTimeoutInSeconds();
+        if (timeout <= 0) {
+            return measure(pluginId, request, pluginCall, permits);
+        }
+
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<GoPluginApiResponse> response = executorFor(pluginId).submit(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            Thread thread = Thread.currentThread();
+            ClassLoader previousClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                return measure(pluginId, request, pluginCall, permits);
+            } finally {
+                thread.setContextClassLoader(previousClassLoader);
+            }
+        });
+
+        try {
+            return response.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            giveUpIfNotStarted(response, claimed, permits);
+            metrics.timedOut(pluginId, requestName);
+            throw new RuntimeException(format("Plugin '%s' did not respond to request '%s' within %d seconds.", pluginId, requestName, timeout), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.cancel(true);
+            giveUpIfNotStarted(response, claimed, permits);
+            throw new RuntimeException(format("Interrupted while waiting for plugin '%s' to respond to request '%s'.", pluginId, requestName), e);
+        }
+    }
+
+    /**
+     * A request still waiting for a thread never runs {@link #measure}, so the caller has to hand its slot back.
+     */
+    private void giveUpIfNotStarted(Future<GoPluginApiResponse> response, AtomicBoolean claimed, Semaphore permits) {
+        if (claimed.compareAndSet(false, true)) {
+            response.cancel(false);
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private GoPluginApiResponse measure(String pluginId, GoPluginApiRequest request, Supplier<GoPluginApiResponse> pluginCall, Semaphore permits) {
+        long startedAt = System.nanoTime();
+        int requestSize = sizeOf(request.requestBody());
+        metrics.started(pluginId, request.requestName());
+        GoPluginApiResponse response = null;
+        try {
+            response = pluginCall.get();
+            return response;
+        } finally {
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            boolean failed = response == null || response.responseCode() >= 400;
+            metrics.finished(pluginId, request.requestName(), duration, requestSize, response == null ? 0 : sizeOf(response.responseBody()), failed);
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private void acquire(Semaphore permits, String pluginId, String requestName) {
+        int queueTimeout = systemEnvironment.getPluginRequestQueueTimeoutInSeconds();
+        try {
+            if (!permits.tryAcquire(queueTimeout, TimeUnit.SECONDS)) {
+                metrics.rejected(pluginId, requestName);
+                throw new RuntimeException(format("Plugin '%s' is busy with %d requests, request '%s' could not be sent within %d seconds.", pluginId, metrics.inFlight(pluginId), requestName, queueTimeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metrics.rejected(pluginId, requestName);
+            throw new RuntimeException(format("Interrupted while waiting to send request '%s' to plugin '%s'.", requestName, pluginId), e);
+        }
+    }
+
+    private ThreadPoolExecutor executorFor(String pluginId) {
+        return executorsByPlugin.computeIfAbsent(pluginId, id -> {
+            int threads = Math.max(1, systemEnvironment.getPluginRequestTimeoutThreads());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new PluginRequestThreadFactory(id));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    private Optional<Semaphore> permitsFor(String pluginId) {
+        return permitsByPlugin.computeIfAbsent(pluginId, id -> {
+            int limit = maxConcurrentRequestsOverrides.getOrDefault(id, systemEnvironment.getMaxConcurrentRequestsPerPlugin());
+            return limit > 0 ? Optional.of(new Semaphore(limit, true)) : Optional.empty();
+        });
+    }
+
+    private static int sizeOf(String body) {
+        return body == null ? 0 : body.length();
+    }
+
+    static Map<String, Integer> parseOverrides(String overrides) {
+        Map<String, Integer> limits = new HashMap<>();
+        if (isBlank(overrides)) {
+            return limits;
+        }
+        for (String override : overrides.split(",")) {
+            String[] pluginAndLimit = override.trim().split("=");
+            try {
+                limits.put(pluginAndLimit[0].trim(), Integer.parseInt(pluginAndLimit[1].trim()));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Ignoring invalid plugin request limit '{}'. Expected format is '<plugin-id>=<max concurrent requests>'.", override);
+            }
+        }
+        return limits;
+    }
+
+    private static class PluginRequestThreadFactory implements ThreadFactory {
+        private final String pluginId;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        private PluginRequestThreadFactory(String pluginId) {
+            this.pluginId = pluginId;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "plugin-request-" + pluginId + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.infra;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @understands how long requests to each plugin take, how often they fail and how much data goes back and forth
+ */
+@Component
+public class PluginRequestMetrics {
+    static final long[] LATENCY_BUCKETS_IN_MILLIS = {10, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+    private final ConcurrentMap<String, ConcurrentMap<String, RequestStats>> statsByPlugin = new ConcurrentHashMap<>();
+
+    public void started(String pluginId, String requestName) {
+        stats(pluginId, requestName).started();
+    }
+
+    public void finished(String pluginId, String requestName, long durationInMillis, int requestSize, int responseSize, boolean failed) {
+        stats(pluginId, requestName).finished(durationInMillis, requestSize, responseSize, failed);
+    }
+
+    public void rejected(String pluginId, String requestName) {
+        stats(pluginId, requestName).rejected();
+    }
+
+    public void timedOut(String pluginId, String requestName) {
+        stats(pluginId, requestName).timedOut();
+    }
+
+    public int inFlight(String pluginId) {
+        Map<String, RequestStats> stats = statsByPlugin.get(pluginId);
+        return stats == null ? 0 : stats.values().stream().mapToInt(RequestStats::inFlight).sum();
+    }
+
+    public Map<String, Map<String, Object>> asJson() {
+        Map<String, Map<String, Object>> json = new TreeMap<>();
+        statsByPlugin.forEach((pluginId, statsByRequest) -> {
+            Map<String, Object> requests = new TreeMap<>();
+            statsByRequest.forEach((requestName, stats) -> requests.put(requestName, stats.asJson()));
+            json.put(pluginId, requests);
+        });
+        return json;
+    }
+
+    private RequestStats stats(String pluginId, String requestName) {
+        return statsByPlugin.computeIfAbsent(pluginId, id -> new ConcurrentHashMap<>()).computeIfAbsent(Objects.toString(requestName, "unknown"), name -> new RequestStats());
+    }
+
+    private static class RequestStats {
+        private final long[] latencyHistogram = new long[LATENCY_BUCKETS_IN_MILLIS.length + 1];
+        private int inFlight;
+        private long requests;
+        private long failures;
+        private long rejections;
+        private long timeouts;
+        private long totalLatency;
+        private long maxLatency;
+        private long requestBytes;
+        private long responseBytes;
+
+        synchronized void started() {
+            inFlight++;
+        }
+
+        synchronized void finished(long durationInMillis, int requestSize, int responseSize, boolean failed) {
+            inFlight--;
+            requests++;
+            if (failed) {
+                failures++;
+            }
+            totalLatency += durationInMillis;
+            maxLatency = Math.max(maxLatency, durationInMillis);
+            requestBytes += requestSize;
+            responseBytes += responseSize;
+            latencyHistogram[bucketOf(durationInMillis)]++;
+        }
+
+        synchronized void rejected() {
+            rejections++;
+        }
+
+        synchronized void timedOut() {
+            timeouts++;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized Map<String, Object> asJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("In flight", inFlight);
+            json.put("Requests", requests);
+            json.put("Failures", failures);
+            json.put("Timeouts", timeouts);
+            json.put("Rejected while waiting to be sent", rejections);
+            json.put("Average latency in milliseconds", requests == 0 ? 0 : totalLatency / requests);
+            json.put("Max latency in milliseconds", maxLatency);
+            json.put("Request body characters", requestBytes);
+            json.put("Response body characters", responseBytes);
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS_IN_MILLIS.length; i++) {
+                histogram.put("<= " + LATENCY_BUCKETS_IN_MILLIS[i] + "ms", latencyHistogram[i]);
+            }
+            histogram.put("> " + LATENCY_BUCKETS_IN_MILLIS[LATENCY_BUCKETS_IN_MILLIS.length - 1] + "ms", latencyHistogram[LATENCY_BUCKETS_IN_MILLIS.length]);
+            json.put("Latency histogram", histogram);
+            return json;
+        }
+
+        private static int bucketOf(long durationInMillis) {
+            for (int i = 0; i < LATENCY_BUCKETS_IN_MILLIS.length; i++) {
+                if (durationInMillis <= LATENCY_BUCKETS_IN_MILLIS[i]) {
+                    return i;
+                }
+            }
+            return LATENCY_BUCKETS_IN_MILLIS.length;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.plugin.infra.monitor.PluginJarChangeListener;
 import com.thoughtworks.go.plugin.infra.plugininfo.*;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,16 +30,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
 
 import static com.thoughtworks.go.util.SystemEnvironment.PLUGIN_ACTIVATOR_JAR_PATH;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
 
 @Component
 public class DefaultPluginJarChangeListener implements PluginJarChangeListener {
     private static final String ACTIVATOR_JAR_NAME = GoPluginOSGiManifest.ACTIVATOR_JAR_NAME;
+    static final String EXPLODED_BUNDLE_CHECKSUM_FILE = ".gocd-plugin-jar.sha256";
     private static Logger LOGGER = LoggerFactory.getLogger(DefaultPluginJarChangeListener.class);
     private final DefaultPluginRegistry registry;
     private final GoPluginOSGiManifestGenerator osgiManifestGenerator;
@@ -61,17 +73,60 @@ public class DefaultPluginJarChangeListener implements PluginJarChangeListener {
 
     @Override
     public void pluginJarAdded(BundleOrPluginFileDetails bundleOrPluginFileDetails) {
-        final GoPluginBundleDescriptor bundleDescriptor = goPluginBundleDescriptorBuilder.build(bundleOrPluginFileDetails);
-
+        long startedAt = System.currentTimeMillis();
         try {
             LOGGER.info("Plugin load starting: {}", bundleOrPluginFileDetails.file());
 
-            validateIfExternalPluginRemovingBundledPlugin(bundleDescriptor);
-            validatePluginCompatibilityWithCurrentOS(bundleDescriptor);
-            validatePluginCompatibilityWithGoCD(bundleDescriptor);
-            addPlugin(bundleOrPluginFileDetails, bundleDescriptor);
+            GoPluginBundleDescriptor bundleDescriptor = prepareBundle(bundleOrPluginFileDetails);
+            startBundle(bundleDescriptor);
         } finally {
-            LOGGER.info("Plugin load finished: {}", bundleOrPluginFileDetails.file());
+            LOGGER.info("Plugin load finished: {} (took {}ms)", bundleOrPluginFileDetails.file(), System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    /**
+     * Loads plugin jars found together, e.g. the contents of a plugin directory at startup. Reading the descriptor,
+     * validating it and exploding the jar happen in parallel, while registering and starting the bundles in the OSGi
+     * framework stays on the calling thread and in the order the jars were given.
+     */
+    @Override
+    public void pluginJarsAdded(Collection<BundleOrPluginFileDetails> bundleOrPluginFileDetails) {
+        int threads = Math.min(systemEnvironment.getNumberOfPluginLoadThreads(), bundleOrPluginFileDetails.size());
+        if (threads <= 1) {
+            PluginJarChangeListener.super.pluginJarsAdded(bundleOrPluginFileDetails);
+            return;
+        }
+
+        long batchStartedAt = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new PluginLoadThreadFactory());
+        try {
+            Map<BundleOrPluginFileDetails, Future<PreparedBundle>> preparedBundles = new LinkedHashMap<>();
+            for (BundleOrPluginFileDetails details : bundleOrPluginFileDetails) {
+                preparedBundles.put(details, executor.submit(() -> {
+                    long startedAt = System.currentTimeMillis();
+                    LOGGER.info("Plugin load starting: {}", details.file());
+                    return new PreparedBundle(prepareBundle(details), System.currentTimeMillis() - startedAt);
+                }));
+            }
+
+            preparedBundles.forEach((details, future) -> {
+                try {
+                    PreparedBundle preparedBundle = future.get();
+                    long startedAt = System.currentTimeMillis();
+                    startBundle(preparedBundle.descriptor);
+                    LOGGER.info("Plugin load finished: {} (prepared in {}ms, started in {}ms)", details.file(), preparedBundle.preparationTimeInMillis, System.currentTimeMillis() - startedAt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(String.format("Interrupted while loading plugin %s", details.file()), e);
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Plugin load failed: {}", details.file(), e.getCause());
+                } catch (Exception e) {
+                    LOGGER.warn("Plugin load failed: {}", details.file(), e);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+            LOGGER.info("Loaded {} plugin jars using {} threads in {}ms", bundleOrPluginFileDetails.size(), threads, System.currentTimeMillis() - batchStartedAt);
         }
     }
 
@@ -119,6 +174,21 @@ public class DefaultPluginJarChangeListener implements PluginJarChangeListener {
                            GoPluginBundleDescriptor bundleDescriptor) {
         explodePluginJarToBundleDir(bundleOrPluginFileDetails.file(), bundleDescriptor.bundleLocation());
         installActivatorJarToBundleDir(bundleDescriptor.bundleLocation());
+        startBundle(bundleDescriptor);
+    }
+
+    private GoPluginBundleDescriptor prepareBundle(BundleOrPluginFileDetails bundleOrPluginFileDetails) {
+        final GoPluginBundleDescriptor bundleDescriptor = goPluginBundleDescriptorBuilder.build(bundleOrPluginFileDetails);
+
+        validateIfExternalPluginRemovingBundledPlugin(bundleDescriptor);
+        validatePluginCompatibilityWithCurrentOS(bundleDescriptor);
+        validatePluginCompatibilityWithGoCD(bundleDescriptor);
+        explodePluginJarToBundleDir(bundleOrPluginFileDetails.file(), bundleDescriptor.bundleLocation());
+        installActivatorJarToBundleDir(bundleDescriptor.bundleLocation());
+        return bundleDescriptor;
+    }
+
+    private void startBundle(GoPluginBundleDescriptor bundleDescriptor) {
         registry.loadPlugin(bundleDescriptor);
         refreshBundle(bundleDescriptor);
     }
@@ -183,9 +253,20 @@ public class DefaultPluginJarChangeListener implements PluginJarChangeListener {
 
     void explodePluginJarToBundleDir(File file, File location) {
         try {
+            String checksum = systemEnvironment.shouldReuseExplodedPluginBundles() ? checksumOf(file) : null;
+            if (checksum != null && checksum.equals(checksumOfExplodedBundle(location))) {
+                LOGGER.debug("Reusing exploded bundle {} for plugin jar {}", location, file);
+                restoreOriginalManifest(file, location);
+                return;
+            }
+
             wipePluginBundleDirectory(location);
             ZipUtil zipUtil = new ZipUtil();
             zipUtil.unzip(file, location);
+
+            if (checksum != null) {
+                FileUtils.writeStringToFile(new File(location, EXPLODED_BUNDLE_CHECKSUM_FILE), checksum, UTF_8);
+            }
         } catch (IOException e) {
             throw new RuntimeException(String.format("Failed to copy plugin jar %s to bundle location %s", file, location), e);
         }
@@ -202,6 +283,35 @@ public class DefaultPluginJarChangeListener implements PluginJarChangeListener {
         }
     }
 
+    private String checksumOf(File pluginJar) throws IOException {
+        try (InputStream inputStream = new FileInputStream(pluginJar)) {
+            return DigestUtils.sha256Hex(inputStream);
+        }
+    }
+
+    private String checksumOfExplodedBundle(File location) throws IOException {
+        File checksumFile = new File(location, EXPLODED_BUNDLE_CHECKSUM_FILE);
+        return checksumFile.exists() ? FileUtils.readFileToString(checksumFile, UTF_8).trim() : null;
+    }
+
+    /**
+     * The manifest of an exploded bundle is rewritten with OSGi headers when the bundle is started, so it has to be
+     * put back to what the plugin jar ships with before a previously exploded bundle can be started again.
+     */
+    private void restoreOriginalManifest(File pluginJar, File location) throws IOException {
+        File manifest = new File(location, JarFile.MANIFEST_NAME);
+        FileUtils.deleteQuietly(manifest);
+
+        try (JarFile jarFile = new JarFile(pluginJar)) {
+            ZipEntry entry = jarFile.getEntry(JarFile.MANIFEST_NAME);
+            if (entry != null) {
+                try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                    FileUtils.copyInputStreamToFile(inputStream, manifest);
+                }
+            }
+        }
+    }
+
     private void wipePluginBundleDirectory(File pluginBundleDirectory) {
         if (pluginBundleDirectory.exists() && !FileUtils.deleteQuietly(pluginBundleDirectory)) {
             throw new RuntimeException(String.format("Failed to delete bundle directory %s", pluginBundleDirectory));
@@ -223,4 +333,25 @@ public class DefaultPluginJarChangeListener implements PluginJarChangeListener {
         String prefix = String.format(bundleDescriptor.descriptors().size() > 1 ? "Plugins with IDs (%s) are not valid: " : "Plugin with ID (%s) is not valid: ", bundleDescriptor.pluginIDs());
         bundleDescriptor.markAsInvalid(singletonList(String.format(prefix + format, values)), null);
     }
+
+    private static class PreparedBundle {
+        private final GoPluginBundleDescriptor descriptor;
+        private final long preparationTimeInMillis;
+
+        private PreparedBundle(GoPluginBundleDescriptor descriptor, long preparationTimeInMillis) {
+            this.descriptor = descriptor;
+            this.preparationTimeInMillis = preparationTimeInMillis;
+        }
+    }
+
+    private static class PluginLoadThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "plugin-load-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
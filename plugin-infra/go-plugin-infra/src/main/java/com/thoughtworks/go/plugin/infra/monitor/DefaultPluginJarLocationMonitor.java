@@ -27,6 +27,7 @@ import org.springframework.stereotype.Component;
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -154,7 +155,7 @@ public class DefaultPluginJarLocationMonitor implements PluginJarLocationMonitor
     private static class PluginLocationMonitorThread extends Thread {
         private Set<BundleOrPluginFileDetails> knownBundledBundleOrPluginFileDetails = new HashSet<>();
         private Set<BundleOrPluginFileDetails> knownExternalBundleOrPluginFileDetails = new HashSet<>();
-        private final PluginChangeNotifier pluginChangeNotifier = new PluginChangeNotifier();
+        private final PluginChangeNotifier pluginChangeNotifier;
         private File bundledPluginDirectory;
         private File externalPluginDirectory;
         private List<WeakReference<PluginJarChangeListener>> pluginJarChangeListener;
@@ -169,6 +170,7 @@ public class DefaultPluginJarLocationMonitor implements PluginJarLocationMonitor
             this.externalPluginDirectory = externalPluginDirectory;
             this.pluginJarChangeListener = pluginJarChangeListener;
             this.systemEnvironment = systemEnvironment;
+            this.pluginChangeNotifier = new PluginChangeNotifier(systemEnvironment.getNumberOfPluginLoadThreads() > 1);
         }
 
         @Override
@@ -247,6 +249,11 @@ public class DefaultPluginJarLocationMonitor implements PluginJarLocationMonitor
                 doOnAllPluginJarChangeListener(o -> o.pluginJarRemoved(bundleOrPluginFileDetails));
             }
 
+            @Override
+            public void pluginJarsAdded(final Collection<BundleOrPluginFileDetails> bundleOrPluginFileDetails) {
+                doOnAllPluginJarChangeListener(o -> o.pluginJarsAdded(bundleOrPluginFileDetails));
+            }
+
             private void doOnAllPluginJarChangeListener(Closure<PluginJarChangeListener> closure) {
                 for (WeakReference<PluginJarChangeListener> listener : listeners) {
                     PluginJarChangeListener changeListener = listener.get();
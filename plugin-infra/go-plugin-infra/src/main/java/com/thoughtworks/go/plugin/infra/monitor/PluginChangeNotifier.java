@@ -22,18 +22,37 @@ import java.util.List;
 import static org.apache.commons.collections4.CollectionUtils.subtract;
 
 public class PluginChangeNotifier {
+    private final boolean notifyAdditionsTogether;
+
+    public PluginChangeNotifier() {
+        this(false);
+    }
+
+    public PluginChangeNotifier(boolean notifyAdditionsTogether) {
+        this.notifyAdditionsTogether = notifyAdditionsTogether;
+    }
+
     public void notify(PluginJarChangeListener listener, Collection<BundleOrPluginFileDetails> knowPluginFiles, Collection<BundleOrPluginFileDetails> currentPluginFiles) {
         List<BundleOrPluginFileDetails> oldPlugins = new ArrayList<>(knowPluginFiles);
 
         subtract(oldPlugins, currentPluginFiles).forEach(listener::pluginJarRemoved);
 
+        List<BundleOrPluginFileDetails> addedPlugins = new ArrayList<>();
         currentPluginFiles.forEach(newPlugin -> {
             int index = oldPlugins.indexOf(newPlugin);
             if (index < 0) {
-                listener.pluginJarAdded(newPlugin);
+                if (notifyAdditionsTogether) {
+                    addedPlugins.add(newPlugin);
+                } else {
+                    listener.pluginJarAdded(newPlugin);
+                }
             } else if (newPlugin.doesTimeStampDiffer(oldPlugins.get(index))) {
                 listener.pluginJarUpdated(newPlugin);
             }
         });
+
+        if (!addedPlugins.isEmpty()) {
+            listener.pluginJarsAdded(addedPlugins);
+        }
     }
 }
@@ -15,6 +15,8 @@
  */
 package com.thoughtworks.go.plugin.infra.monitor;
 
+import java.util.Collection;
+
 public interface PluginJarChangeListener {
 
     void pluginJarAdded(BundleOrPluginFileDetails bundleOrPluginFileDetails);
@@ -22,4 +24,12 @@ public interface PluginJarChangeListener {
     void pluginJarUpdated(BundleOrPluginFileDetails bundleOrPluginFileDetails);
 
     void pluginJarRemoved(BundleOrPluginFileDetails bundleOrPluginFileDetails);
+
+    /**
+     * Notifies about several plugin jars which were found together, typically during the first scan of a plugin directory.
+     * Implementations are free to load these in parallel; the default loads them one after the other.
+     */
+    default void pluginJarsAdded(Collection<BundleOrPluginFileDetails> bundleOrPluginFileDetails) {
+        bundleOrPluginFileDetails.forEach(this::pluginJarAdded);
+    }
 }
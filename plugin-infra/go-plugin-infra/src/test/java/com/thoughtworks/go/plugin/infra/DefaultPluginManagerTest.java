@@ -86,14 +86,14 @@ class DefaultPluginManagerTest {
         String pluginJarFile = "descriptor-aware-test-plugin.should.be.deleted.jar";
         copyPluginToTheDirectory(bundleDir, pluginJarFile);
 
-        new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader).startInfrastructure(true);
+        new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics())).startInfrastructure(true);
 
         assertThat(bundleDir.exists()).isFalse();
     }
 
     @Test
     void shouldStartOSGiFrameworkBeforeStartingMonitor() {
-        new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader).startInfrastructure(true);
+        new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics())).startInfrastructure(true);
         InOrder inOrder = inOrder(goPluginOSGiFramework, monitor);
 
         inOrder.verify(goPluginOSGiFramework).start();
@@ -102,7 +102,7 @@ class DefaultPluginManagerTest {
 
     @Test
     void shouldAllowRegistrationOfPluginChangeListeners() {
-        PluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader);
+        PluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
 
         final PluginChangeListener pluginChangeListener = mock(PluginChangeListener.class);
         pluginManager.addPluginChangeListener(pluginChangeListener);
@@ -112,7 +112,7 @@ class DefaultPluginManagerTest {
 
     @Test
     void shouldAllowRegistrationOfPluginPostLoadHooks() {
-        PluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader);
+        PluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
 
         final PluginPostLoadHook pluginPostLoadHook = mock(PluginPostLoadHook.class);
         pluginManager.addPluginPostLoadHook(pluginPostLoadHook);
@@ -122,7 +122,7 @@ class DefaultPluginManagerTest {
 
     @Test
     void shouldGetPluginDescriptorForGivenPluginIdCorrectly() {
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, null, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         GoPluginDescriptor pluginDescriptorForP1 = GoPluginDescriptor.builder().id("p1").version("1.0").build();
         when(registry.getPlugin("valid-plugin")).thenReturn(pluginDescriptorForP1);
         when(registry.getPlugin("invalid-plugin")).thenReturn(null);
@@ -150,7 +150,7 @@ class DefaultPluginManagerTest {
             }
         }).when(goPluginOSGiFramework).doOn(eq(GoPlugin.class), eq("plugin-id"), eq(extensionType), any(ActionWithReturn.class));
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         GoPluginApiResponse actualResponse = pluginManager.submitTo("plugin-id", extensionType, request);
 
         assertThat(actualResponse).isEqualTo(expectedResponse);
@@ -173,7 +173,7 @@ class DefaultPluginManagerTest {
         }).when(goPluginOSGiFramework).doOn(eq(GoPlugin.class), eq(pluginId), eq(extensionType), any(ActionWithReturn.class));
         lenient().when(goPlugin.pluginIdentifier()).thenReturn(pluginIdentifier);
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         assertThat(pluginManager.isPluginOfType(extensionType, pluginId)).isTrue();
     }
 
@@ -183,7 +183,7 @@ class DefaultPluginManagerTest {
         String extensionType = "extension-type";
         when(goPluginOSGiFramework.hasReferenceFor(GoPlugin.class, pluginThatDoesNotImplement, extensionType)).thenReturn(false);
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, goPluginOSGiFramework, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         boolean pluginIsOfExtensionType = pluginManager.isPluginOfType(extensionType, pluginThatDoesNotImplement);
 
         assertThat(pluginIsOfExtensionType).isFalse();
@@ -200,7 +200,7 @@ class DefaultPluginManagerTest {
         osGiFrameworkStub.addHasReferenceFor(GoPlugin.class, pluginId, extensionType, true);
         when(goPlugin.pluginIdentifier()).thenReturn(new GoPluginIdentifier(extensionType, asList("1.0", "2.0")));
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, osGiFrameworkStub, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, osGiFrameworkStub, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         assertThat(pluginManager.resolveExtensionVersion(pluginId, extensionType, asList("1.0", "2.0", "3.0"))).isEqualTo("2.0");
     }
 
@@ -213,7 +213,7 @@ class DefaultPluginManagerTest {
         osGiFrameworkStub.addHasReferenceFor(GoPlugin.class, pluginId, extensionType, true);
         when(goPlugin.pluginIdentifier()).thenReturn(new GoPluginIdentifier(extensionType, asList("1.0", "2.0")));
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, osGiFrameworkStub, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, osGiFrameworkStub, jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         try {
             pluginManager.resolveExtensionVersion(pluginId, extensionType, asList("3.0", "4.0"));
             fail("should have thrown exception for not finding matching extension version");
@@ -224,7 +224,7 @@ class DefaultPluginManagerTest {
 
     @Test
     void shouldAddPluginChangeListener() {
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
         pluginManager.startInfrastructure(true);
 
         InOrder inOrder = inOrder(monitor);
@@ -239,7 +239,7 @@ class DefaultPluginManagerTest {
         when(dockerPluginDescriptor.isInvalid()).thenReturn(false);
         when(registry.getPlugin("cd.go.elastic-agent.docker")).thenReturn(dockerPluginDescriptor);
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
 
         assertThat(pluginManager.isPluginLoaded("cd.go.elastic-agent.docker")).isTrue();
     }
@@ -251,7 +251,7 @@ class DefaultPluginManagerTest {
         when(dockerPluginDescriptor.isInvalid()).thenReturn(true);
         when(registry.getPlugin("cd.go.elastic-agent.docker")).thenReturn(dockerPluginDescriptor);
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
 
         assertThat(pluginManager.isPluginLoaded("cd.go.elastic-agent.docker")).isFalse();
     }
@@ -260,7 +260,7 @@ class DefaultPluginManagerTest {
     void isPluginLoaded_shouldReturnFalseWhenPluginIsNotLoaded() {
         when(registry.getPlugin("cd.go.elastic-agent.docker")).thenReturn(null);
 
-        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader);
+        DefaultPluginManager pluginManager = new DefaultPluginManager(monitor, registry, mock(GoPluginOSGiFramework.class), jarChangeListener, pluginRequestProcessorRegistry, systemEnvironment, pluginLoader, new PluginRequestGovernor(systemEnvironment, new PluginRequestMetrics()));
 
         assertThat(pluginManager.isPluginLoaded("cd.go.elastic-agent.docker")).isFalse();
     }
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.infra;
+
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PluginRequestGovernorTest {
+    @Mock(lenient = true)
+    private SystemEnvironment systemEnvironment;
+    private PluginRequestMetrics metrics;
+    private DefaultGoPluginApiRequest request;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new PluginRequestMetrics();
+        request = new DefaultGoPluginApiRequest("elastic-agent", "5.0", "go.cd.elastic-agent.create-agent");
+        request.setRequestBody("{\"id\":1}");
+        when(systemEnvironment.getMaxConcurrentRequestsPerPluginOverrides()).thenReturn("");
+    }
+
+    @Test
+    void shouldRecordMetricsForEachRequestSentToAPlugin() {
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+
+        GoPluginApiResponse response = governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.success("{}"));
+        governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.error("boom"));
+
+        assertThat(response.responseBody()).isEqualTo("{}");
+        Map<String, Object> stats = statsFor("plugin-1", "go.cd.elastic-agent.create-agent");
+        assertThat(stats)
+                .containsEntry("In flight", 0)
+                .containsEntry("Requests", 2L)
+                .containsEntry("Failures", 1L)
+                .containsEntry("Request body characters", 16L)
+                .containsEntry("Response body characters", 6L);
+    }
+
+    @Test
+    void shouldRecordRequestsWhichThrowAsFailures() {
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+
+        assertThatThrownBy(() -> governor.submit("plugin-1", request, () -> {
+            throw new RuntimeException("plugin blew up");
+        })).hasMessage("plugin blew up");
+
+        assertThat(statsFor("plugin-1", "go.cd.elastic-agent.create-agent"))
+                .containsEntry("In flight", 0)
+                .containsEntry("Failures", 1L);
+    }
+
+    @Test
+    void shouldRejectRequestsWhenThePluginHasTooManyRequestsInFlight() throws Exception {
+        when(systemEnvironment.getMaxConcurrentRequestsPerPlugin()).thenReturn(1);
+        when(systemEnvironment.getPluginRequestQueueTimeoutInSeconds()).thenReturn(0);
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+        CountDownLatch pluginCalled = new CountDownLatch(1);
+        CountDownLatch releasePlugin = new CountDownLatch(1);
+
+        CompletableFuture<GoPluginApiResponse> slowRequest = CompletableFuture.supplyAsync(() -> governor.submit("plugin-1", request, () -> {
+            pluginCalled.countDown();
+            await(releasePlugin);
+            return DefaultGoPluginApiResponse.success("{}");
+        }));
+        assertThat(pluginCalled.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.success("{}")))
+                .hasMessageContaining("Plugin 'plugin-1' is busy with 1 requests");
+        assertThat(governor.submit("plugin-2", request, () -> DefaultGoPluginApiResponse.success("{}")).responseCode()).isEqualTo(200);
+
+        releasePlugin.countDown();
+        slowRequest.get(10, TimeUnit.SECONDS);
+        assertThat(governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.success("{}")).responseCode()).isEqualTo(200);
+        assertThat(statsFor("plugin-1", "go.cd.elastic-agent.create-agent"))
+                .containsEntry("Requests", 2L)
+                .containsEntry("Rejected while waiting to be sent", 1L);
+    }
+
+    @Test
+    void shouldAllowOverridingTheConcurrencyLimitForAPlugin() throws Exception {
+        when(systemEnvironment.getMaxConcurrentRequestsPerPlugin()).thenReturn(1);
+        when(systemEnvironment.getMaxConcurrentRequestsPerPluginOverrides()).thenReturn("plugin-1=2");
+        when(systemEnvironment.getPluginRequestQueueTimeoutInSeconds()).thenReturn(0);
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+        CountDownLatch pluginCalled = new CountDownLatch(1);
+        CountDownLatch releasePlugin = new CountDownLatch(1);
+
+        CompletableFuture<GoPluginApiResponse> slowRequest = CompletableFuture.supplyAsync(() -> governor.submit("plugin-1", request, () -> {
+            pluginCalled.countDown();
+            await(releasePlugin);
+            return DefaultGoPluginApiResponse.success("{}");
+        }));
+        assertThat(pluginCalled.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.success("{}")).responseCode()).isEqualTo(200);
+        releasePlugin.countDown();
+        slowRequest.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldStopWaitingForAPluginWhichDoesNotRespondInTime() {
+        when(systemEnvironment.getPluginRequestTimeoutInSeconds()).thenReturn(1);
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+        CountDownLatch releasePlugin = new CountDownLatch(1);
+
+        try {
+            assertThatThrownBy(() -> governor.submit("plugin-1", request, () -> {
+                await(releasePlugin);
+                return DefaultGoPluginApiResponse.success("{}");
+            })).hasMessage("Plugin 'plugin-1' did not respond to request 'go.cd.elastic-agent.create-agent' within 1 seconds.");
+        } finally {
+            releasePlugin.countDown();
+        }
+
+        assertThat(statsFor("plugin-1", "go.cd.elastic-agent.create-agent")).containsEntry("Timeouts", 1L);
+    }
+
+    @Test
+    void shouldRunPluginCallsWithTheCallersContextClassLoaderWhenTimingOutRequests() {
+        when(systemEnvironment.getPluginRequestTimeoutInSeconds()).thenReturn(10);
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+        ClassLoader callerClassLoader = Thread.currentThread().getContextClassLoader();
+
+        GoPluginApiResponse response = governor.submit("plugin-1", request, () -> {
+            assertThat(Thread.currentThread().getContextClassLoader()).isSameAs(callerClassLoader);
+            return DefaultGoPluginApiResponse.success("{}");
+        });
+
+        assertThat(response.responseCode()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldGiveBackTheSlotOfARequestInterruptedWhileWaitingForAThread() throws Exception {
+        when(systemEnvironment.getMaxConcurrentRequestsPerPlugin()).thenReturn(2);
+        when(systemEnvironment.getPluginRequestQueueTimeoutInSeconds()).thenReturn(0);
+        when(systemEnvironment.getPluginRequestTimeoutInSeconds()).thenReturn(10);
+        when(systemEnvironment.getPluginRequestTimeoutThreads()).thenReturn(1);
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+        CountDownLatch pluginCalled = new CountDownLatch(1);
+        CountDownLatch releasePlugin = new CountDownLatch(1);
+
+        CompletableFuture<GoPluginApiResponse> requestHoldingTheOnlyThread = CompletableFuture.supplyAsync(() -> governor.submit("plugin-1", request, () -> {
+            pluginCalled.countDown();
+            await(releasePlugin);
+            return DefaultGoPluginApiResponse.success("{}");
+        }));
+        assertThat(pluginCalled.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Throwable> interruptedRequestFailure = new CompletableFuture<>();
+        Thread waitingForAThread = new Thread(() -> {
+            try {
+                governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.success("{}"));
+                interruptedRequestFailure.complete(null);
+            } catch (RuntimeException e) {
+                interruptedRequestFailure.complete(e);
+            }
+        });
+        waitingForAThread.start();
+        while (waitingForAThread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(10);
+        }
+        waitingForAThread.interrupt();
+        assertThat(interruptedRequestFailure.get(10, TimeUnit.SECONDS)).hasMessageStartingWith("Interrupted while waiting for plugin 'plugin-1'");
+
+        CompletableFuture<GoPluginApiResponse> nextRequest = CompletableFuture.supplyAsync(() -> governor.submit("plugin-1", request, () -> DefaultGoPluginApiResponse.success("{}")));
+        releasePlugin.countDown();
+        requestHoldingTheOnlyThread.get(10, TimeUnit.SECONDS);
+        assertThat(nextRequest.get(10, TimeUnit.SECONDS).responseCode()).isEqualTo(200);
+        assertThat(statsFor("plugin-1", "go.cd.elastic-agent.create-agent"))
+                .containsEntry("Requests", 2L)
+                .containsEntry("In flight", 0);
+    }
+
+    @Test
+    void shouldKeepAnsweringRequestsToOtherPluginsWhileOnePluginHangsOnAllOfItsThreads() throws Exception {
+        when(systemEnvironment.getPluginRequestTimeoutInSeconds()).thenReturn(10);
+        when(systemEnvironment.getPluginRequestTimeoutThreads()).thenReturn(2);
+        PluginRequestGovernor governor = new PluginRequestGovernor(systemEnvironment, metrics);
+        CountDownLatch pluginCalled = new CountDownLatch(2);
+        CountDownLatch releasePlugin = new CountDownLatch(1);
+
+        List<CompletableFuture<GoPluginApiResponse>> hungRequests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            hungRequests.add(CompletableFuture.supplyAsync(() -> governor.submit("hung-plugin", request, () -> {
+                pluginCalled.countDown();
+                await(releasePlugin);
+                return DefaultGoPluginApiResponse.success("{}");
+            })));
+        }
+        try {
+            assertThat(pluginCalled.await(10, TimeUnit.SECONDS)).isTrue();
+
+            GoPluginApiResponse response = governor.submit("healthy-plugin", request, () -> DefaultGoPluginApiResponse.success("{}"));
+
+            assertThat(response.responseCode()).isEqualTo(200);
+        } finally {
+            releasePlugin.countDown();
+        }
+        for (CompletableFuture<GoPluginApiResponse> hungRequest : hungRequests) {
+            hungRequest.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void shouldParseConcurrencyLimitOverridesAndIgnoreInvalidEntries() {
+        assertThat(PluginRequestGovernor.parseOverrides(null)).isEmpty();
+        assertThat(PluginRequestGovernor.parseOverrides(" plugin-1 = 2, plugin-2=bad, plugin-3, plugin-4=5"))
+                .hasSize(2)
+                .containsEntry("plugin-1", 2)
+                .containsEntry("plugin-4", 5);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statsFor(String pluginId, String requestName) {
+        return (Map<String, Object>) metrics.asJson().get(pluginId).get(requestName);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.osgi.framework.Bundle;
 
 import java.io.File;
@@ -602,6 +603,95 @@ class DefaultPluginJarChangeListenerTest {
         when(goPluginBundleDescriptorBuilder.build(new BundleOrPluginFileDetails(pluginJarFile, true, pluginWorkDir))).thenReturn(new GoPluginBundleDescriptor(descriptor));
     }
 
+    @Test
+    void shouldReuseAPreviouslyExplodedBundleWhenThePluginJarHasNotChanged() throws Exception {
+        when(systemEnvironment.shouldReuseExplodedPluginBundles()).thenReturn(true);
+        File pluginJarFile = new File(pluginWorkDir, PLUGIN_JAR_FILE_NAME);
+        File bundleDirectory = new File(bundleDir, PLUGIN_JAR_FILE_NAME);
+        copyPluginToTheDirectory(pluginWorkDir, PLUGIN_JAR_FILE_NAME);
+
+        listener.explodePluginJarToBundleDir(pluginJarFile, bundleDirectory);
+        File manifest = new File(bundleDirectory, "META-INF/MANIFEST.MF");
+        String originalManifest = FileUtils.readFileToString(manifest, UTF_8);
+        FileUtils.writeStringToFile(manifest, "Bundle-SymbolicName: updated-on-start", UTF_8);
+        File marker = new File(bundleDirectory, "file-written-after-explode");
+        FileUtils.writeStringToFile(marker, "marker", UTF_8);
+
+        listener.explodePluginJarToBundleDir(pluginJarFile, bundleDirectory);
+
+        assertThat(marker).exists();
+        assertThat(FileUtils.readFileToString(manifest, UTF_8)).isEqualTo(originalManifest);
+    }
+
+    @Test
+    void shouldExplodeThePluginJarAgainWhenItHasChangedSinceItWasLastExploded() throws Exception {
+        when(systemEnvironment.shouldReuseExplodedPluginBundles()).thenReturn(true);
+        File pluginJarFile = new File(pluginWorkDir, PLUGIN_JAR_FILE_NAME);
+        File bundleDirectory = new File(bundleDir, PLUGIN_JAR_FILE_NAME);
+        copyPluginToTheDirectory(pluginWorkDir, PLUGIN_JAR_FILE_NAME);
+
+        listener.explodePluginJarToBundleDir(pluginJarFile, bundleDirectory);
+        File marker = new File(bundleDirectory, "file-written-after-explode");
+        FileUtils.writeStringToFile(marker, "marker", UTF_8);
+        FileUtils.copyFile(pathOfFileInDefaultFiles("valid-plugin-with-multiple-extensions.jar"), pluginJarFile);
+
+        listener.explodePluginJarToBundleDir(pluginJarFile, bundleDirectory);
+
+        assertThat(marker).doesNotExist();
+        assertThat(new File(bundleDirectory, DefaultPluginJarChangeListener.EXPLODED_BUNDLE_CHECKSUM_FILE)).exists();
+    }
+
+    @Test
+    void shouldLoadPluginJarsAddedTogetherInParallelAndStartThemInOrder() throws Exception {
+        when(systemEnvironment.getNumberOfPluginLoadThreads()).thenReturn(2);
+        BundleOrPluginFileDetails first = pluginJarWithDescriptor("plugin-1.jar", "plugin.1");
+        BundleOrPluginFileDetails second = pluginJarWithDescriptor("plugin-2.jar", "plugin.2");
+        BundleOrPluginFileDetails third = pluginJarWithDescriptor("plugin-3.jar", "plugin.3");
+        GoPluginBundleDescriptor firstDescriptor = goPluginBundleDescriptorBuilder.build(first);
+        GoPluginBundleDescriptor secondDescriptor = goPluginBundleDescriptorBuilder.build(second);
+        GoPluginBundleDescriptor thirdDescriptor = goPluginBundleDescriptorBuilder.build(third);
+
+        listener.pluginJarsAdded(List.of(first, second, third));
+
+        InOrder inOrder = inOrder(registry, pluginLoader);
+        inOrder.verify(registry).loadPlugin(firstDescriptor);
+        inOrder.verify(pluginLoader).loadPlugin(firstDescriptor);
+        inOrder.verify(registry).loadPlugin(secondDescriptor);
+        inOrder.verify(pluginLoader).loadPlugin(secondDescriptor);
+        inOrder.verify(registry).loadPlugin(thirdDescriptor);
+        inOrder.verify(pluginLoader).loadPlugin(thirdDescriptor);
+        assertThat(new File(bundleDir, "plugin-2.jar/lib/go-plugin-activator.jar")).exists();
+    }
+
+    @Test
+    void shouldContinueLoadingOtherPluginJarsAddedTogetherWhenOneOfThemFails() throws Exception {
+        when(systemEnvironment.getNumberOfPluginLoadThreads()).thenReturn(2);
+        BundleOrPluginFileDetails first = pluginJarWithDescriptor("plugin-1.jar", "plugin.1");
+        BundleOrPluginFileDetails second = pluginJarWithDescriptor("plugin-2.jar", "plugin.2");
+        GoPluginBundleDescriptor secondDescriptor = goPluginBundleDescriptorBuilder.build(second);
+        when(goPluginBundleDescriptorBuilder.build(first)).thenThrow(new RuntimeException("corrupt plugin jar"));
+
+        listener.pluginJarsAdded(List.of(first, second));
+
+        verify(registry).loadPlugin(secondDescriptor);
+        verify(pluginLoader).loadPlugin(secondDescriptor);
+        verifyNoMoreInteractions(pluginLoader);
+    }
+
+    private BundleOrPluginFileDetails pluginJarWithDescriptor(String jarName, String pluginId) throws IOException {
+        copyPluginToTheDirectory(pluginWorkDir, jarName);
+        File pluginJarFile = new File(pluginWorkDir, jarName);
+        BundleOrPluginFileDetails details = new BundleOrPluginFileDetails(pluginJarFile, true, pluginWorkDir);
+        GoPluginBundleDescriptor descriptor = new GoPluginBundleDescriptor(GoPluginDescriptor.builder()
+                .id(pluginId)
+                .bundleLocation(new File(bundleDir, jarName))
+                .pluginJarFileLocation(pluginJarFile.getAbsolutePath())
+                .isBundledPlugin(true)
+                .build());
+        when(goPluginBundleDescriptorBuilder.build(details)).thenReturn(descriptor);
+        return details;
+    }
+
     private void copyPluginToTheDirectory(File destinationDir, String destinationFilenameOfPlugin) throws IOException {
         FileUtils.copyFile(pathOfFileInDefaultFiles("descriptor-aware-test-plugin.jar"), new File(destinationDir, destinationFilenameOfPlugin));
     }
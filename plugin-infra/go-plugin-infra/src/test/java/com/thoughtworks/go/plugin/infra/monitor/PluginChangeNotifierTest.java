@@ -106,4 +106,20 @@ class PluginChangeNotifierTest {
         inOrder.verify(listener).pluginJarAdded(pluginTwo);
         verify(listener, never()).pluginJarUpdated(any());
     }
+
+    @Test
+    void shouldNotifyNewlyAddedPluginsTogetherWhenAsked() {
+        final PluginJarChangeListener listener = mock(PluginJarChangeListener.class);
+        BundleOrPluginFileDetails pluginOne = mock(BundleOrPluginFileDetails.class);
+        BundleOrPluginFileDetails pluginTwo = mock(BundleOrPluginFileDetails.class);
+        BundleOrPluginFileDetails pluginThree = mock(BundleOrPluginFileDetails.class);
+        when(pluginOne.doesTimeStampDiffer(pluginOne)).thenReturn(true);
+
+        new PluginChangeNotifier(true).notify(listener, List.of(pluginOne), List.of(pluginOne, pluginTwo, pluginThree));
+
+        verify(listener).pluginJarUpdated(pluginOne);
+        verify(listener).pluginJarsAdded(List.of(pluginTwo, pluginThree));
+        verify(listener, never()).pluginJarAdded(any());
+        verify(listener, never()).pluginJarRemoved(any());
+    }
 }
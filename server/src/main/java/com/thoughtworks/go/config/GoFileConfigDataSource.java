@@ -17,6 +17,7 @@ package com.thoughtworks.go.config;
 
 import com.thoughtworks.go.CurrentGoCDVersion;
 import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
+import com.thoughtworks.go.config.commands.PipelineScopedEntityConfigUpdateCommand;
 import com.thoughtworks.go.config.exceptions.*;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.config.remote.PartialConfig;
@@ -288,7 +289,7 @@ public class GoFileConfigDataSource {
     }
 
     public synchronized EntityConfigSaveResult writeEntityWithLock(EntityConfigUpdateCommand updatingCommand, GoConfigHolder configHolder, Username currentUser) {
-        CruiseConfig modifiedConfig = cloner.deepClone(configHolder.configForEdit);
+        CruiseConfig modifiedConfig = cloneForEdit(updatingCommand, configHolder.configForEdit);
         try {
             updatingCommand.update(modifiedConfig);
         } catch (Exception e) {
@@ -310,8 +311,10 @@ public class GoFileConfigDataSource {
                 errorMessageBuilder.append(message);
                 LOGGER.warn(message, e);
                 updatingCommand.clearErrors();
-                modifiedConfig.setPartials(lastKnownPartials);
-                String configAsXml = configAsXml(modifiedConfig, false);
+                // Validating encrypts secure properties in place, so it must not see pipelines shared with the live config
+                CruiseConfig fallbackConfig = cloner.deepClone(modifiedConfig);
+                fallbackConfig.setPartials(lastKnownPartials);
+                String configAsXml = configAsXml(fallbackConfig, false);
                 GoConfigHolder holder = internalLoad(configAsXml, new ConfigModifyingUser(currentUser.getUsername().toString()), lastKnownPartials);
                 LOGGER.info("Update operation on merged configuration succeeded with {} KNOWN partials. Now there are {} LAST KNOWN partials",
                         lastKnownPartials.size(), cachedGoPartials.lastKnownPartials().size());
@@ -512,6 +515,13 @@ public class GoFileConfigDataSource {
         }
     }
 
+    private CruiseConfig cloneForEdit(EntityConfigUpdateCommand updatingCommand, CruiseConfig configForEdit) {
+        if (updatingCommand instanceof PipelineScopedEntityConfigUpdateCommand) {
+            return cloner.deepCloneForPipelineEdit(configForEdit, ((PipelineScopedEntityConfigUpdateCommand) updatingCommand).pipelineName());
+        }
+        return cloner.deepClone(configForEdit);
+    }
+
     private GoConfigHolder trySavingConfigWithLastKnownPartials(FullConfigUpdateCommand updateCommand, GoConfigHolder configHolder) throws Exception {
         LOGGER.debug("[Config Save] Trying to save config with Last Known Partials");
         return trySavingFullConfig(updateCommand, configHolder, cachedGoPartials.lastKnownPartials());
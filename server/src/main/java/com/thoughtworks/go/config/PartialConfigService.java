@@ -25,16 +25,24 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static java.lang.String.format;
 
 @Component
 public class PartialConfigService implements PartialConfigUpdateCompletedListener, ChangedRepoConfigWatchListListener {
     public static final String INVALID_CRUISE_CONFIG_MERGE = "Invalid Merged Configuration";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartialConfigService.class);
 
     private final GoConfigService goConfigService;
     private final CachedGoPartials cachedGoPartials;
@@ -42,6 +50,8 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
     private final PartialConfigHelper partialConfigHelper;
     private final GoConfigRepoConfigDataSource repoConfigDataSource;
     private final GoConfigWatchList configWatchList;
+    private final ConcurrentLinkedQueue<PendingMerge> pendingMerges = new ConcurrentLinkedQueue<>();
+    private final Object mergeMutex = new Object();
 
     @Autowired
     public PartialConfigService(GoConfigRepoConfigDataSource repoConfigDataSource,
@@ -84,7 +94,12 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
                 UpdateConfig will fail to update the configuration if there are validation errors.
                 Even in case of rules violation, the updateConfig method is required to populate a server health message
                 of rule violation, which also will be shown on the config repo spa.*/
-                if (updateConfig(incoming, fingerprint, repoConfig)) {
+                PendingMerge merge = updateConfigInBatch(incoming, fingerprint, repoConfig);
+                if (merge.superseded) {
+                    // a newer revision of the same repo was merged along with this one, and takes care of caching
+                    return;
+                }
+                if (merge.merged) {
                     // mark the partial as valid when config is updated successfully for it.
                     cachedGoPartials.markAsValid(fingerprint, incoming);
                 } else {
@@ -168,6 +183,65 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
         }
     }
 
+    /**
+     * Partials from several config repos which arrive while a merge is in progress are merged together, so that the
+     * full config is validated once for the whole batch instead of once per repo. The calling thread returns only once
+     * its own partial has been merged, either by itself or as part of a batch merged by another thread. If the batch
+     * as a whole is invalid, each partial is merged on its own so that errors are reported against the right repo.
+     */
+    private PendingMerge updateConfigInBatch(final PartialConfig newPart, final String fingerprint, ConfigRepoConfig repoConfig) {
+        PendingMerge merge = new PendingMerge(newPart, fingerprint, repoConfig);
+        pendingMerges.add(merge);
+        synchronized (mergeMutex) {
+            if (!merge.done) {
+                mergeBatch(drainPendingMerges());
+            }
+        }
+        return merge;
+    }
+
+    private List<PendingMerge> drainPendingMerges() {
+        Map<String, PendingMerge> latestByFingerprint = new LinkedHashMap<>();
+        PendingMerge merge;
+        while ((merge = pendingMerges.poll()) != null) {
+            PendingMerge previous = latestByFingerprint.remove(merge.fingerprint);
+            if (previous != null) {
+                previous.superseded = true;
+                previous.done = true;
+            }
+            latestByFingerprint.put(merge.fingerprint, merge);
+        }
+        return new ArrayList<>(latestByFingerprint.values());
+    }
+
+    private void mergeBatch(List<PendingMerge> batch) {
+        if (batch.size() > 1) {
+            List<PartialConfigUpdateCommand> commands = new ArrayList<>();
+            for (PendingMerge merge : batch) {
+                commands.add(buildUpdateCommand(merge.partial, merge.fingerprint));
+            }
+            try {
+                goConfigService.updateConfig(cruiseConfig -> {
+                    for (PartialConfigUpdateCommand command : commands) {
+                        cruiseConfig = command.update(cruiseConfig);
+                    }
+                    return cruiseConfig;
+                });
+                for (PendingMerge merge : batch) {
+                    merge.merged = true;
+                    merge.done = true;
+                }
+                return;
+            } catch (Exception e) {
+                LOGGER.warn("Failed to merge {} config repo partials together, merging them one at a time. Error was: {}", batch.size(), e.getMessage());
+            }
+        }
+        for (PendingMerge merge : batch) {
+            merge.merged = updateConfig(merge.partial, merge.fingerprint, merge.repoConfig);
+            merge.done = true;
+        }
+    }
+
     private boolean shouldMergePartial(PartialConfig partial, String fingerprint, ConfigRepoConfig repoConfig) {
         return isPartialDifferentFromLastKnown(partial, fingerprint) ||
                 repoConfigDataSource.hasConfigRepoConfigChangedSinceLastUpdate(repoConfig.getRepo());
@@ -194,4 +268,19 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
         partial.validatePermissionsOnSubtree();
         return partial.hasErrors();
     }
+
+    private static class PendingMerge {
+        private final PartialConfig partial;
+        private final String fingerprint;
+        private final ConfigRepoConfig repoConfig;
+        private boolean done;
+        private boolean merged;
+        private boolean superseded;
+
+        private PendingMerge(PartialConfig partial, String fingerprint, ConfigRepoConfig repoConfig) {
+            this.partial = partial;
+            this.fingerprint = fingerprint;
+            this.repoConfig = repoConfig;
+        }
+    }
 }
@@ -16,11 +16,11 @@
 package com.thoughtworks.go.config.update;
 
 import com.thoughtworks.go.config.*;
-import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
+import com.thoughtworks.go.config.commands.PipelineScopedEntityConfigUpdateCommand;
 import com.thoughtworks.go.server.service.ExternalArtifactsService;
 import com.thoughtworks.go.server.service.GoConfigService;
 
-public abstract class PipelineConfigCommand implements EntityConfigUpdateCommand<PipelineConfig> {
+public abstract class PipelineConfigCommand implements PipelineScopedEntityConfigUpdateCommand<PipelineConfig> {
 
     protected PipelineConfig pipelineConfig;
     protected GoConfigService goConfigService;
@@ -33,6 +33,11 @@ public abstract class PipelineConfigCommand implements EntityConfigUpdateCommand
         this.externalArtifactsService = externalArtifactsService;
     }
 
+    @Override
+    public CaseInsensitiveString pipelineName() {
+        return pipelineConfig.name();
+    }
+
     @Override
     public void clearErrors() {
         BasicCruiseConfig.clearErrors(pipelineConfig);
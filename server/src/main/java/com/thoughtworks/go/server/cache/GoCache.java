@@ -202,6 +202,11 @@ public class GoCache {
         put(compositeKey(key, subKey), value);
     }
 
+    public int subKeyCount(String key) {
+        KeyList subKeys = subKeyFamily(key);
+        return subKeys == null ? 0 : subKeys.size();
+    }
+
     public void removeAll(List<String> keys) {
         for (String key : keys) {
             remove(key);
@@ -187,6 +187,8 @@ public class ArtifactsController {
                 return FileModelAndView.errorSavingChecksumFile(filePath);
             }
 
+            artifactsService.ingestTestResults(jobIdentifier, filePath, artifact);
+
             return FileModelAndView.fileCreated(filePath);
 
         } catch (IllegalArtifactLocationException e) {
@@ -79,6 +79,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
     @Autowired private GoDashboardActivityListener dashboardActivityListener;
     @Autowired private ServerVersionInfoManager serverVersionInfoManager;
     @Autowired private EntityHashingService entityHashingService;
+    @Autowired private ResolvedSecretsCache resolvedSecretsCache;
     @Autowired private DependencyMaterialUpdateNotifier dependencyMaterialUpdateNotifier;
     @Autowired private SCMMaterialSource scmMaterialSource;
     @Autowired private ResourceMonitoring resourceMonitoring;
@@ -113,6 +114,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
             cachedGoConfig.loadConfigIfNull();
             goConfigService.initialize();
             entityHashingService.initialize();
+            resolvedSecretsCache.initialize();
 
             //artifacts
             artifactsDirHolder.initialize();
@@ -41,17 +41,20 @@ public class ConfigMaterialUpdateListener implements GoMessageListener<MaterialU
     private final MaterialUpdateCompletedTopic topic;
     private final MaterialService materialService;
     private final SubprocessExecutionContext subprocessExecutionContext;
+    private final ConfigRepoParseScheduler parseScheduler;
 
     public ConfigMaterialUpdateListener(GoConfigRepoConfigDataSource repoConfigDataSource,
                                         MaterialRepository materialRepository,
                                         MaterialUpdateCompletedTopic topic,
                                         MaterialService materialService,
-                                        SubprocessExecutionContext subprocessExecutionContext) {
+                                        SubprocessExecutionContext subprocessExecutionContext,
+                                        ConfigRepoParseScheduler parseScheduler) {
         this.repoConfigDataSource = repoConfigDataSource;
         this.materialRepository = materialRepository;
         this.topic = topic;
         this.materialService = materialService;
         this.subprocessExecutionContext = subprocessExecutionContext;
+        this.parseScheduler = parseScheduler;
     }
 
     @Override
@@ -60,29 +63,35 @@ public class ConfigMaterialUpdateListener implements GoMessageListener<MaterialU
         // MDU is done using the checkout, it has done db update and stored latest changes
         // but MUS is still waiting for material updated message on MaterialUpdateCompletedTopic
         LOGGER.debug("[Config Material Update] Config material update completed for material {}. Starting parse process", material);
+        if (message instanceof MaterialUpdateFailedMessage) {
+            MaterialUpdateFailedMessage failure = (MaterialUpdateFailedMessage) message;
+            LOGGER.warn("[Config Material Update] Cannot update configuration part because material update has failed. Reason: {}", failure.getReason());
+            topic.post(message);
+            return;
+        }
+        parseScheduler.schedule(material.config(), () -> checkoutAndParse(message));
+    }
+
+    private void checkoutAndParse(MaterialUpdateCompletedMessage message) {
+        Material material = message.getMaterial();
         try {
-            if (message instanceof MaterialUpdateFailedMessage) {
-                MaterialUpdateFailedMessage failure = (MaterialUpdateFailedMessage) message;
-                LOGGER.warn("[Config Material Update] Cannot update configuration part because material update has failed. Reason: {}", failure.getReason());
-            } else {
-                File folder = materialRepository.folderFor(material);
-                MaterialRevisions latestModification = materialRepository.findLatestModification(material);
-                Modification modification = latestModification.firstModifiedMaterialRevision().getLatestModification();
+            File folder = materialRepository.folderFor(material);
+            MaterialRevisions latestModification = materialRepository.findLatestModification(material);
+            Modification modification = latestModification.firstModifiedMaterialRevision().getLatestModification();
 
-                // Previously, we only forced a parse when the repo had never been parsed before and if a new revision
-                // was pushed to the material; if no new revisions existed, we did a no-op.
-                //
-                // Now, we need to reparse every time to support ref/branch scanning; even if there are no changes to
-                // the current material, new branches/refs could have been created that might change the output of
-                // templated config repo definitions that use this feature.
-                //
-                // In theory, this should be inexpensive, as the working copies of materials are cached on disk. This
-                // will cause more frequent `parse-directory` messages, however. Generally (crosses fingers), evaluating
-                // this is fast, but we may need to consider only merging into the main config if different?
-                //
-                // Open to any better ideas :).
-                updateConfigurationFromCheckout(folder, modification, material);
-            }
+            // Previously, we only forced a parse when the repo had never been parsed before and if a new revision
+            // was pushed to the material; if no new revisions existed, we did a no-op.
+            //
+            // Now, we need to reparse every time to support ref/branch scanning; even if there are no changes to
+            // the current material, new branches/refs could have been created that might change the output of
+            // templated config repo definitions that use this feature.
+            //
+            // In theory, this should be inexpensive, as the working copies of materials are cached on disk. This
+            // will cause more frequent `parse-directory` messages, however. Generally (crosses fingers), evaluating
+            // this is fast, but we may need to consider only merging into the main config if different?
+            //
+            // Open to any better ideas :).
+            updateConfigurationFromCheckout(folder, modification, material);
             LOGGER.debug("[Config Material Update] Completed parsing of Config material {}.", material);
         } catch (Exception ex) {
             LOGGER.error("[Config Material Update] Error updating config material: {} . Reason: {}", material, ex.getMessage());
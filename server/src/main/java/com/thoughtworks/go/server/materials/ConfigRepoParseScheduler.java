@@ -0,0 +1,194 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.config.GoConfigRepoConfigDataSource;
+import com.thoughtworks.go.config.GoConfigWatchList;
+import com.thoughtworks.go.config.PartialConfigParseResult;
+import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.serverhealth.HealthStateScope;
+import com.thoughtworks.go.serverhealth.HealthStateType;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Runs checkout and parse of config repos on a bounded pool, so that parsing is not limited to the config material
+ * post update listener threads. Parse calls to a single plugin are limited to a configurable number at a time.
+ * Repos which do not have a last known good partial are parsed ahead of the ones which do, since those are the ones
+ * missing from the merged config. Progress is reported as a server health warning while there is a backlog.
+ */
+@Component
+public class ConfigRepoParseScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigRepoParseScheduler.class);
+    static final HealthStateScope PROGRESS_SCOPE = HealthStateScope.forConfigRepo("parse-scheduler");
+
+    private final GoConfigWatchList configWatchList;
+    private final GoConfigRepoConfigDataSource repoConfigDataSource;
+    private final ServerHealthService serverHealthService;
+    private final int threadsPerPlugin;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, PluginLane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int pending;
+    private int completed;
+
+    @Autowired
+    public ConfigRepoParseScheduler(GoConfigWatchList configWatchList, GoConfigRepoConfigDataSource repoConfigDataSource,
+                                    ServerHealthService serverHealthService, SystemEnvironment systemEnvironment) {
+        this.configWatchList = configWatchList;
+        this.repoConfigDataSource = repoConfigDataSource;
+        this.serverHealthService = serverHealthService;
+        this.threadsPerPlugin = Math.max(1, systemEnvironment.getNumberOfConfigRepoParseThreadsPerPlugin());
+        this.executor = createExecutor(systemEnvironment.getNumberOfConfigRepoParseThreads());
+    }
+
+    /**
+     * Schedules the checkout and parse of a config repo material. When no parse threads are configured, the work is
+     * done on the calling thread.
+     */
+    public void schedule(MaterialConfig material, Runnable checkoutAndParse) {
+        if (executor == null) {
+            checkoutAndParse.run();
+            return;
+        }
+        ConfigRepoConfig repoConfig = configWatchList.getConfigRepoForMaterial(material);
+        String pluginId = repoConfig == null ? null : repoConfig.getPluginId();
+        ParseTask task = new ParseTask(sequence.incrementAndGet(), !hasLastGoodPartial(material), String.valueOf(pluginId), checkoutAndParse);
+        started();
+        executor.execute(task);
+    }
+
+    private boolean hasLastGoodPartial(MaterialConfig material) {
+        PartialConfigParseResult result = repoConfigDataSource.getLastParseResult(material);
+        return result != null && result.lastGoodPartialConfig() != null;
+    }
+
+    private void run(ParseTask task) {
+        PluginLane lane = lanes.computeIfAbsent(task.pluginId, pluginId -> new PluginLane());
+        if (!lane.tryStart(task)) {
+            return;
+        }
+        try {
+            task.checkoutAndParse.run();
+        } catch (Exception e) {
+            LOGGER.error("[Config Repo Parse] Failed to checkout and parse config repo using plugin {}", task.pluginId, e);
+        } finally {
+            finished();
+            ParseTask next = lane.finish();
+            if (next != null) {
+                executor.execute(next);
+            }
+        }
+    }
+
+    private synchronized void started() {
+        pending++;
+        reportProgress();
+    }
+
+    private synchronized void finished() {
+        pending--;
+        completed++;
+        if (pending == 0) {
+            completed = 0;
+            serverHealthService.removeByScope(PROGRESS_SCOPE);
+        } else {
+            reportProgress();
+        }
+    }
+
+    private void reportProgress() {
+        if (pending > 1) {
+            String description = format("%d of %d configuration repositories have been parsed.", completed, completed + pending);
+            serverHealthService.update(ServerHealthState.warning("Parsing configuration repositories", description, HealthStateType.general(PROGRESS_SCOPE)));
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads) {
+        if (threads <= 0) {
+            return null;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "config-repo-parse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private class PluginLane {
+        private final Deque<ParseTask> waiting = new ArrayDeque<>();
+        private int running;
+
+        private synchronized boolean tryStart(ParseTask task) {
+            if (running < threadsPerPlugin) {
+                running++;
+                return true;
+            }
+            waiting.add(task);
+            return false;
+        }
+
+        private synchronized ParseTask finish() {
+            running--;
+            return waiting.poll();
+        }
+    }
+
+    private class ParseTask implements Runnable, Comparable<ParseTask> {
+        private final long sequence;
+        private final boolean withoutLastGoodPartial;
+        private final String pluginId;
+        private final Runnable checkoutAndParse;
+
+        private ParseTask(long sequence, boolean withoutLastGoodPartial, String pluginId, Runnable checkoutAndParse) {
+            this.sequence = sequence;
+            this.withoutLastGoodPartial = withoutLastGoodPartial;
+            this.pluginId = pluginId;
+            this.checkoutAndParse = checkoutAndParse;
+        }
+
+        @Override
+        public void run() {
+            ConfigRepoParseScheduler.this.run(this);
+        }
+
+        @Override
+        public int compareTo(ParseTask other) {
+            if (withoutLastGoodPartial != other.withoutLastGoodPartial) {
+                return withoutLastGoodPartial ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.domain.materials.Material;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.joda.time.DateTimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @understands how long a polled material can be left alone before it is worth updating again
+ * <p>
+ * A material which has not changed for a while is polled less often, up to the maximum idle interval: the interval
+ * grows with the time since its last change and with how long its last update took. A material which recently
+ * received a post-commit notification is polled at the maximum interval, since the notifications cover it. Every
+ * interval is spread by some random jitter so that materials configured together do not keep polling together.
+ * <p>
+ * Only the polled materials passed to {@link #track(Set)} are scheduled, keyed by fingerprint, so that a notification
+ * for a material configured not to poll applies to the polled material with the same fingerprint.
+ */
+@Component
+public class MaterialPollingSchedule {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialPollingSchedule.class);
+    static final int QUIET_PERIOD_DIVISOR = 10;
+    static final int LAST_DURATION_MULTIPLIER = 10;
+    static final double JITTER = 0.1;
+
+    private final MaterialRepository materialRepository;
+    private final long minimumInterval;
+    private final long maximumInterval;
+    private final Random random;
+    private final ConcurrentMap<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MaterialPollingSchedule(SystemEnvironment systemEnvironment, MaterialRepository materialRepository) {
+        this(systemEnvironment, materialRepository, new Random());
+    }
+
+    MaterialPollingSchedule(SystemEnvironment systemEnvironment, MaterialRepository materialRepository, Random random) {
+        this.materialRepository = materialRepository;
+        this.minimumInterval = systemEnvironment.getMaterialUpdateIdleInterval();
+        this.maximumInterval = systemEnvironment.getMaterialUpdateMaxIdleInterval();
+        this.random = random;
+    }
+
+    public boolean isEnabled() {
+        return maximumInterval > minimumInterval;
+    }
+
+    public boolean isDue(Material material) {
+        Schedule schedule = schedules.get(material.getFingerprint());
+        return schedule == null || schedule.nextDueAt <= DateTimeUtils.currentTimeMillis();
+    }
+
+    public void updateQueued(Material material) {
+        Schedule schedule = schedules.get(material.getFingerprint());
+        if (schedule == null) {
+            return;
+        }
+        synchronized (schedule) {
+            if (schedule.requestedAt == 0) {
+                schedule.requestedAt = DateTimeUtils.currentTimeMillis();
+            }
+        }
+    }
+
+    public void updateCompleted(Material material) {
+        Schedule schedule = schedules.get(material.getFingerprint());
+        if (schedule == null) {
+            return;
+        }
+        long now = DateTimeUtils.currentTimeMillis();
+        MaterialRevisions latestRevisions = latestRevisionsOf(material);
+        synchronized (schedule) {
+            if (latestRevisions != null && !latestRevisions.isEmpty()) {
+                String latestRevision = latestRevisions.latestRevision();
+                if (!latestRevision.equals(schedule.latestRevision)) {
+                    schedule.lastChangedAt = schedule.latestRevision == null ? modifiedAt(latestRevisions, now) : now;
+                    schedule.latestRevision = latestRevision;
+                }
+            }
+            if (schedule.lastChangedAt == 0) {
+                schedule.lastChangedAt = now;
+            }
+            schedule.lastDuration = schedule.requestedAt == 0 ? 0 : now - schedule.requestedAt;
+            schedule.requestedAt = 0;
+            schedule.interval = intervalFor(schedule, now);
+            schedule.nextDueAt = now + withJitter(schedule.interval);
+        }
+    }
+
+    public void postCommitNotificationReceived(Material material) {
+        Schedule schedule = schedules.get(material.getFingerprint());
+        if (schedule == null) {
+            return;
+        }
+        synchronized (schedule) {
+            schedule.lastNotifiedAt = DateTimeUtils.currentTimeMillis();
+        }
+    }
+
+    public void track(Set<Material> polledMaterials) {
+        Map<String, Material> materialsByFingerprint = new HashMap<>();
+        for (Material material : polledMaterials) {
+            materialsByFingerprint.put(material.getFingerprint(), material);
+        }
+        schedules.keySet().retainAll(materialsByFingerprint.keySet());
+        materialsByFingerprint.forEach((fingerprint, material) -> schedules.putIfAbsent(fingerprint, new Schedule(material)));
+    }
+
+    public Map<String, Object> asJson() {
+        List<Map<String, Object>> materials = new ArrayList<>();
+        schedules.values().stream()
+                .sorted(Comparator.comparingLong(schedule -> schedule.nextDueAt))
+                .forEach(schedule -> materials.add(schedule.asJson()));
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Minimum interval in milliseconds", minimumInterval);
+        json.put("Maximum interval in milliseconds", maximumInterval);
+        json.put("Materials", materials);
+        return json;
+    }
+
+    private long intervalFor(Schedule schedule, long now) {
+        if (schedule.lastNotifiedAt > 0 && now - schedule.lastNotifiedAt < maximumInterval) {
+            return maximumInterval;
+        }
+        long interval = Math.max(minimumInterval, (now - schedule.lastChangedAt) / QUIET_PERIOD_DIVISOR);
+        interval = Math.max(interval, schedule.lastDuration * LAST_DURATION_MULTIPLIER);
+        return Math.min(interval, maximumInterval);
+    }
+
+    private long withJitter(long interval) {
+        long jitter = (long) (interval * JITTER * (2 * random.nextDouble() - 1));
+        return Math.max(minimumInterval, interval + jitter);
+    }
+
+    private MaterialRevisions latestRevisionsOf(Material material) {
+        try {
+            return materialRepository.findLatestModification(material);
+        } catch (Exception e) {
+            LOGGER.warn("[Material Update] Could not find the latest modification of {} to schedule its next update.", material, e);
+            return null;
+        }
+    }
+
+    private static long modifiedAt(MaterialRevisions latestRevisions, long now) {
+        Date modifiedAt = latestRevisions.getDateOfLatestModification();
+        return modifiedAt == null ? now : Math.min(modifiedAt.getTime(), now);
+    }
+
+    private static class Schedule {
+        private final Material material;
+        private String latestRevision;
+        private long lastChangedAt;
+        private long lastNotifiedAt;
+        private long requestedAt;
+        private long lastDuration;
+        private long interval;
+        private volatile long nextDueAt;
+
+        private Schedule(Material material) {
+            this.material = material;
+        }
+
+        synchronized Map<String, Object> asJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Material", material.getUriForDisplay());
+            json.put("Fingerprint", material.getFingerprint());
+            json.put("Next update due at", nextDueAt == 0 ? null : new Date(nextDueAt).toString());
+            json.put("Interval in milliseconds", interval);
+            json.put("Last change seen at", lastChangedAt == 0 ? null : new Date(lastChangedAt).toString());
+            json.put("Last post-commit notification at", lastNotifiedAt == 0 ? null : new Date(lastNotifiedAt).toString());
+            json.put("Last update took milliseconds", lastDuration);
+            return json;
+        }
+    }
+}
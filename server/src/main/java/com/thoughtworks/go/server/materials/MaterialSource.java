@@ -21,4 +21,10 @@ import java.util.Set;
 
 public interface MaterialSource {
     Set<Material> materialsForUpdate();
+
+    default void updateQueuedFor(Material material) {
+    }
+
+    default void postCommitNotificationReceivedFor(Material material) {
+    }
 }
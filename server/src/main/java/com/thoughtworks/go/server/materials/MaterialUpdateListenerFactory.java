@@ -23,6 +23,7 @@ import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.server.service.MaterialExpansionService;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -36,6 +37,7 @@ public class MaterialUpdateListenerFactory {
     private MaterialUpdateQueue queue;
     private ConfigMaterialUpdateQueue configQueue;
     private DependencyMaterialUpdateQueue dependencyMaterialQueue;
+    private MaterialBootstrapQueue bootstrapQueue;
     private MaintenanceModeService maintenanceModeService;
     private ConfigMaterialPostUpdateQueue configMaterialPostUpdateQueue;
     private GoConfigService goConfigService;
@@ -43,6 +45,7 @@ public class MaterialUpdateListenerFactory {
     private final ServerHealthService serverHealthService;
     private final GoDiskSpaceMonitor diskSpaceMonitor;
     private TransactionTemplate transactionTemplate;
+    private final TransactionSynchronizationManager transactionSynchronizationManager;
     private final DependencyMaterialUpdater dependencyMaterialUpdater;
     private final ScmMaterialUpdater scmMaterialUpdater;
     private final PackageMaterialUpdater packageMaterialUpdater;
@@ -59,6 +62,7 @@ public class MaterialUpdateListenerFactory {
                                          ServerHealthService serverHealthService,
                                          GoDiskSpaceMonitor diskSpaceMonitor,
                                          TransactionTemplate transactionTemplate,
+                                         TransactionSynchronizationManager transactionSynchronizationManager,
                                          DependencyMaterialUpdater dependencyMaterialUpdater,
                                          ScmMaterialUpdater scmMaterialUpdater,
                                          PackageMaterialUpdater packageMaterialUpdater,
@@ -68,7 +72,8 @@ public class MaterialUpdateListenerFactory {
                                          DependencyMaterialUpdateQueue dependencyMaterialQueue,
                                          MaintenanceModeService maintenanceModeService,
                                          ConfigMaterialPostUpdateQueue configMaterialPostUpdateQueue,
-                                         GoConfigService goConfigService) {
+                                         GoConfigService goConfigService,
+                                         MaterialBootstrapQueue bootstrapQueue) {
         this.topic = topic;
         this.queue = queue;
         this.configQueue = configQueue;
@@ -77,6 +82,7 @@ public class MaterialUpdateListenerFactory {
         this.serverHealthService = serverHealthService;
         this.diskSpaceMonitor = diskSpaceMonitor;
         this.transactionTemplate = transactionTemplate;
+        this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.dependencyMaterialUpdater = dependencyMaterialUpdater;
         this.scmMaterialUpdater = scmMaterialUpdater;
         this.packageMaterialUpdater = packageMaterialUpdater;
@@ -87,12 +93,14 @@ public class MaterialUpdateListenerFactory {
         this.maintenanceModeService = maintenanceModeService;
         this.configMaterialPostUpdateQueue = configMaterialPostUpdateQueue;
         this.goConfigService = goConfigService;
+        this.bootstrapQueue = bootstrapQueue;
     }
 
     public void init() {
         int numberOfStandardMaterialListeners = systemEnvironment.getNumberOfMaterialCheckListener();
         int numberOfConfigListeners = systemEnvironment.getNumberOfConfigMaterialCheckListener();
         int numberOfDependencyMaterialCheckListeners = systemEnvironment.getNumberOfDependencyMaterialUpdateListeners();
+        int numberOfBootstrapListeners = systemEnvironment.getNumberOfMaterialBootstrapListeners();
 
         for (int i = 0; i < numberOfStandardMaterialListeners; i++) {
             createWorker(this.queue, this.topic);
@@ -105,9 +113,18 @@ public class MaterialUpdateListenerFactory {
         for (int i = 0; i < numberOfDependencyMaterialCheckListeners; i++) {
             createWorker(this.dependencyMaterialQueue, this.topic);
         }
+
+        ScmMaterialUpdater firstCheckoutUpdater = scmMaterialUpdater.forFirstCheckout(transactionSynchronizationManager);
+        for (int i = 0; i < numberOfBootstrapListeners; i++) {
+            createWorker(this.bootstrapQueue, this.topic, firstCheckoutUpdater);
+        }
     }
 
     private void createWorker(GoMessageQueue<MaterialUpdateMessage> queue, GoMessageChannel<MaterialUpdateCompletedMessage> topic) {
+        createWorker(queue, topic, scmMaterialUpdater);
+    }
+
+    private void createWorker(GoMessageQueue<MaterialUpdateMessage> queue, GoMessageChannel<MaterialUpdateCompletedMessage> topic, ScmMaterialUpdater scmMaterialUpdater) {
         MaterialDatabaseUpdater updater = new MaterialDatabaseUpdater(materialRepository, serverHealthService, transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, goConfigService);
         queue.addListener(new MaterialUpdateListener(topic, updater, mduPerformanceLogger, diskSpaceMonitor, maintenanceModeService));
@@ -18,12 +18,11 @@ package com.thoughtworks.go.server.materials;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.GoConfigWatchList;
 import com.thoughtworks.go.config.PipelineConfig;
-import com.thoughtworks.go.config.materials.PluggableSCMMaterial;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
-import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.config.materials.svn.SvnMaterial;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
@@ -33,6 +32,7 @@ import com.thoughtworks.go.server.materials.postcommit.PostCommitHookMaterialTyp
 import com.thoughtworks.go.server.messaging.GoMessageListener;
 import com.thoughtworks.go.server.messaging.GoMessageQueue;
 import com.thoughtworks.go.server.perf.MDUPerformanceLogger;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
@@ -53,8 +53,6 @@ import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 import static com.thoughtworks.go.serverhealth.ServerHealthState.warning;
@@ -69,6 +67,8 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     private final MaterialUpdateQueue updateQueue;
     private final ConfigMaterialUpdateQueue configUpdateQueue;
     private final DependencyMaterialUpdateQueue dependencyMaterialUpdateQueue;
+    private final MaterialBootstrapQueue bootstrapQueue;
+    private final MaterialRepository materialRepository;
     private final MaintenanceModeService maintenanceModeService;
     private final SecretParamResolver secretParamResolver;
     private final ExponentialBackoffService exponentialBackoffService;
@@ -78,6 +78,8 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     private ServerHealthService serverHealthService;
 
     private ConcurrentMap<Material, Date> inProgress = new ConcurrentHashMap<>();
+    private final Set<Material> updateRequestedWhileInProgress = ConcurrentHashMap.newKeySet();
+    private volatile WebhookMaterialIndex webhookMaterialIndex;
 
     private final PostCommitHookMaterialTypeResolver postCommitHookMaterialType;
     private final MDUPerformanceLogger mduPerformanceLogger;
@@ -93,7 +95,8 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
                                  ServerHealthService serverHealthService, PostCommitHookMaterialTypeResolver postCommitHookMaterialType,
                                  MDUPerformanceLogger mduPerformanceLogger, MaterialConfigConverter materialConfigConverter,
                                  DependencyMaterialUpdateQueue dependencyMaterialUpdateQueue, MaintenanceModeService maintenanceModeService,
-                                 SecretParamResolver secretParamResolver, ExponentialBackoffService exponentialBackoffService) {
+                                 SecretParamResolver secretParamResolver, ExponentialBackoffService exponentialBackoffService,
+                                 MaterialBootstrapQueue bootstrapQueue, MaterialRepository materialRepository) {
         this.watchList = watchList;
         this.goConfigService = goConfigService;
         this.systemEnvironment = systemEnvironment;
@@ -107,12 +110,15 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         this.maintenanceModeService = maintenanceModeService;
         this.secretParamResolver = secretParamResolver;
         this.exponentialBackoffService = exponentialBackoffService;
+        this.bootstrapQueue = bootstrapQueue;
+        this.materialRepository = materialRepository;
         completed.addListener(this);
     }
 
     public void initialize() {
         goConfigService.register(this);
         goConfigService.register(pipelineConfigChangedListener());
+        goConfigService.register(scmConfigChangedListener());
     }
 
     public void onTimer() {
@@ -133,7 +139,9 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
                     continue;
                 }
 
-                updateMaterial(material);
+                if (updateMaterial(material)) {
+                    materialSource.updateQueuedFor(material);
+                }
             }
         }
     }
@@ -172,17 +180,54 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     }
 
     public boolean updateGitMaterial(String branchName, Collection<String> possibleUrls, List<String> scmNames) {
-        final CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
-        Set<Material> allUniquePostCommitSchedulableMaterials = materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials());
-
-        Predicate<Material> predicate = scmNames.isEmpty() ? new MaterialPredicate(branchName, possibleUrls) : new PluggableScmPredicate(scmNames);
-        Set<Material> allGitMaterials = allUniquePostCommitSchedulableMaterials.stream().filter(predicate).collect(Collectors.toSet());
+        WebhookMaterialIndex index = webhookMaterialIndex();
+        Set<Material> allGitMaterials = scmNames.isEmpty() ? index.gitMaterials(branchName, possibleUrls) : index.pluggableScmMaterials(scmNames);
 
-        allGitMaterials.forEach(MaterialUpdateService.this::updateMaterial);
+        allGitMaterials.forEach(MaterialUpdateService.this::updateMaterialOnceInProgressUpdateCompletes);
+        allGitMaterials.forEach(material -> materialSources.forEach(source -> source.postCommitNotificationReceivedFor(material)));
 
         return !allGitMaterials.isEmpty();
     }
 
+    private WebhookMaterialIndex webhookMaterialIndex() {
+        WebhookMaterialIndex index = this.webhookMaterialIndex;
+        if (index == null) {
+            index = webhookMaterialIndexFor(goConfigService.currentCruiseConfig());
+            this.webhookMaterialIndex = index;
+        }
+        return index;
+    }
+
+    private WebhookMaterialIndex webhookMaterialIndexFor(CruiseConfig cruiseConfig) {
+        return new WebhookMaterialIndex(materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials()));
+    }
+
+    /*
+     * A burst of pushes to one repository only needs the update already in progress plus, at most, one more which
+     * starts after it completes and so is sure to see every pushed commit.
+     */
+    private void updateMaterialOnceInProgressUpdateCompletes(Material material) {
+        if (isRecentlyInProgress(material)) {
+            updateRequestedWhileInProgress.add(material);
+            if (isRecentlyInProgress(material)) {
+                return;
+            }
+            updateRequestedWhileInProgress.remove(material);
+        }
+        updateMaterial(material);
+    }
+
+    private boolean isRecentlyInProgress(Material material) {
+        Date inProgressSince = inProgress.get(material);
+        return inProgressSince != null && System.currentTimeMillis() - inProgressSince.getTime() < getMaterialUpdateInActiveTimeoutInMillis();
+    }
+
+    private void updateIfRequestedWhileInProgress(Material material) {
+        if (updateRequestedWhileInProgress.remove(material)) {
+            updateMaterial(material);
+        }
+    }
+
     public boolean updateMaterial(MaterialConfig config) {
         return updateMaterial(materialConfigConverter.toMaterial(config));
     }
@@ -230,6 +275,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     public void onMessage(MaterialUpdateCompletedMessage message) {
         if (message instanceof MaterialUpdateSkippedMessage) {
             inProgress.remove(message.getMaterial());
+            updateIfRequestedWhileInProgress(message.getMaterial());
             return;
         }
 
@@ -245,6 +291,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             for (MaterialUpdateCompleteListener listener : materialUpdateCompleteListeners) {
                 listener.onMaterialUpdate(message.getMaterial());
             }
+            updateIfRequestedWhileInProgress(message.getMaterial());
         } finally {
             mduPerformanceLogger.completionMessageForMaterialReceived(message.trackingId(), message.getMaterial());
         }
@@ -259,6 +306,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
                 serverHealthService.removeByScope(currentScope);
             }
         }
+        webhookMaterialIndex = webhookMaterialIndexFor(newCruiseConfig);
     }
 
     protected EntityConfigChangedListener<PipelineConfig> pipelineConfigChangedListener() {
@@ -271,6 +319,15 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         };
     }
 
+    protected EntityConfigChangedListener<SCM> scmConfigChangedListener() {
+        return new EntityConfigChangedListener<SCM>() {
+            @Override
+            public void onEntityConfigChange(SCM scm) {
+                webhookMaterialIndex = webhookMaterialIndexFor(goConfigService.getCurrentConfig());
+            }
+        };
+    }
+
     private Set<HealthStateScope> toHealthStateScopes(Set<MaterialConfig> materialConfigs) {
         Set<HealthStateScope> scopes = new HashSet<>();
         for (MaterialConfig materialConfig : materialConfigs) {
@@ -292,7 +349,12 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             return configUpdateQueue;
         }
 
-        return (material instanceof DependencyMaterial) ? dependencyMaterialUpdateQueue : updateQueue;
+        if (material instanceof DependencyMaterial) {
+            return dependencyMaterialUpdateQueue;
+        }
+
+        // First checkouts of large repositories take long; keeping them off the update queue lets routine polling carry on.
+        return materialRepository.needsFirstCheckout(material) ? bootstrapQueue : updateQueue;
     }
 
     ProcessManager getProcessManager() {
@@ -310,35 +372,4 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     public void registerMaterialUpdateCompleteListener(MaterialUpdateCompleteListener materialUpdateCompleteListener) {
         this.materialUpdateCompleteListeners.add(materialUpdateCompleteListener);
     }
-
-    private static class MaterialPredicate implements Predicate<Material> {
-        private final String branchName;
-        private final Set<String> possibleUrls;
-
-        public MaterialPredicate(String branchName, Collection<String> possibleUrls) {
-            this.branchName = branchName;
-            this.possibleUrls = new HashSet<>(possibleUrls);
-        }
-
-        @Override
-        public boolean test(Material material) {
-            return material instanceof GitMaterial &&
-                    ((GitMaterial) material).getBranch().equals(branchName) &&
-                    possibleUrls.contains(((GitMaterial) material).getUrlArgument().withoutCredentials());
-        }
-    }
-
-    private static class PluggableScmPredicate implements Predicate<Material> {
-        private final List<String> scmNames;
-
-        public PluggableScmPredicate(List<String> scmNames) {
-            this.scmNames = scmNames;
-        }
-
-        @Override
-        public boolean test(Material material) {
-            return material instanceof PluggableSCMMaterial &&
-                    scmNames.contains(((PluggableSCMMaterial) material).getScmConfig().getName());
-        }
-    }
 }
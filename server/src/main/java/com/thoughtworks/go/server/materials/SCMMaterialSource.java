@@ -51,15 +51,18 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     private final MaterialConfigConverter materialConfigConverter;
     private final MaterialUpdateService materialUpdateService;
     private final long materialUpdateInterval;
+    private final MaterialPollingSchedule pollingSchedule;
     private Set<Material> schedulableMaterials;
 
     @Autowired
     public SCMMaterialSource(GoConfigService goConfigService, SystemEnvironment systemEnvironment,
-                             MaterialConfigConverter materialConfigConverter, MaterialUpdateService materialUpdateService) {
+                             MaterialConfigConverter materialConfigConverter, MaterialUpdateService materialUpdateService,
+                             MaterialPollingSchedule pollingSchedule) {
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateService = materialUpdateService;
         this.materialUpdateInterval = systemEnvironment.getMaterialUpdateIdleInterval();
+        this.pollingSchedule = pollingSchedule;
     }
 
     public void initialize() {
@@ -85,6 +88,23 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     public void onMaterialUpdate(Material material) {
         if (!(material instanceof DependencyMaterial)) {
             updateLastUpdateTimeForScmMaterial(material);
+            if (pollingSchedule.isEnabled()) {
+                pollingSchedule.updateCompleted(material);
+            }
+        }
+    }
+
+    @Override
+    public void updateQueuedFor(Material material) {
+        if (pollingSchedule.isEnabled()) {
+            pollingSchedule.updateQueued(material);
+        }
+    }
+
+    @Override
+    public void postCommitNotificationReceivedFor(Material material) {
+        if (pollingSchedule.isEnabled()) {
+            pollingSchedule.postCommitNotificationReceived(material);
         }
     }
 
@@ -111,7 +131,7 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     private Set<Material> materialsWithUpdateIntervalElapsed() {
         Set<Material> materialsForUpdate = new HashSet<>();
         for (Material material : schedulableMaterials) {
-            if (hasUpdateIntervalElapsedForScmMaterial(material)) {
+            if (pollingSchedule.isEnabled() ? pollingSchedule.isDue(material) : hasUpdateIntervalElapsedForScmMaterial(material)) {
                 materialsForUpdate.add(material);
             }
         }
@@ -138,6 +158,9 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     private void updateSchedulableMaterials(boolean forceLoad) {
         if (forceLoad || schedulableMaterials == null) {
             schedulableMaterials = materialConfigConverter.toMaterials(goConfigService.getSchedulableSCMMaterials());
+            if (pollingSchedule.isEnabled()) {
+                pollingSchedule.track(schedulableMaterials);
+            }
         }
     }
 
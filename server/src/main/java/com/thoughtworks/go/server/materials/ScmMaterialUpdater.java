@@ -16,6 +16,7 @@
 package com.thoughtworks.go.server.materials;
 
 import com.thoughtworks.go.config.materials.SubprocessExecutionContext;
+import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.MaterialRevisions;
 import com.thoughtworks.go.domain.materials.Material;
@@ -23,13 +24,16 @@ import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.domain.materials.Modifications;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.MaterialService;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 @Component
 class ScmMaterialUpdater implements MaterialUpdater {
@@ -39,14 +43,31 @@ class ScmMaterialUpdater implements MaterialUpdater {
     private LegacyMaterialChecker materialChecker;
     private final SubprocessExecutionContext subprocessExecutionContext;
     private final MaterialService materialService;
+    private final TransactionSynchronizationManager deepenAfterCommit;
 
     @Autowired
     ScmMaterialUpdater(MaterialRepository materialRepository, LegacyMaterialChecker materialChecker,
                        SubprocessExecutionContext subprocessExecutionContext, MaterialService materialService) {
+        this(materialRepository, materialChecker, subprocessExecutionContext, materialService, null);
+    }
+
+    private ScmMaterialUpdater(MaterialRepository materialRepository, LegacyMaterialChecker materialChecker,
+                               SubprocessExecutionContext subprocessExecutionContext, MaterialService materialService,
+                               TransactionSynchronizationManager deepenAfterCommit) {
         this.materialRepository = materialRepository;
         this.materialChecker = materialChecker;
         this.subprocessExecutionContext = subprocessExecutionContext;
         this.materialService = materialService;
+        this.deepenAfterCommit = deepenAfterCommit;
+    }
+
+    /*
+     * Updater for materials being checked out on the server for the first time. Git materials are cloned shallow, so that
+     * their latest revision is saved as soon as possible, and are then fetched to their full history once that is committed.
+     */
+    ScmMaterialUpdater forFirstCheckout(TransactionSynchronizationManager transactionSynchronizationManager) {
+        return new ScmMaterialUpdater(materialRepository, materialChecker, new ShallowCloneExecutionContext(subprocessExecutionContext),
+                materialService, transactionSynchronizationManager);
     }
 
     @Override
@@ -61,6 +82,30 @@ class ScmMaterialUpdater implements MaterialUpdater {
 
             materialRepository.saveModifications(materialInstance, newChanges);
         }
+        if (deepenAfterCommit != null && material instanceof GitMaterial) {
+            deepenAfterCommit((GitMaterial) material, folder);
+        }
+    }
+
+    private void deepenAfterCommit(GitMaterial material, File folder) {
+        if (!deepenAfterCommit.isActualTransactionActive()) {
+            deepen(material, folder);
+            return;
+        }
+        deepenAfterCommit.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                deepen(material, folder);
+            }
+        });
+    }
+
+    private void deepen(GitMaterial material, File folder) {
+        try {
+            material.deepen(folder, subprocessExecutionContext);
+        } catch (Exception e) {
+            LOGGER.warn("[Material Update] Could not fetch the full history of material '{}' into '{}'", material, folder.getAbsolutePath(), e);
+        }
     }
 
     @Override
@@ -69,4 +114,47 @@ class ScmMaterialUpdater implements MaterialUpdater {
         Modifications list = materialRevisions.getModifications(material);
         insertLatestOrNewModifications(material, materialRepository.findOrCreateFrom(material), folder, list);
     }
+
+    private static class ShallowCloneExecutionContext implements SubprocessExecutionContext {
+        private final SubprocessExecutionContext delegate;
+
+        private ShallowCloneExecutionContext(SubprocessExecutionContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getProcessNamespace(String fingerprint) {
+            return delegate.getProcessNamespace(fingerprint);
+        }
+
+        @Override
+        public Map<String, String> getDefaultEnvironmentVariables() {
+            return delegate.getDefaultEnvironmentVariables();
+        }
+
+        @Override
+        public Boolean isGitShallowClone() {
+            return true;
+        }
+
+        @Override
+        public boolean shouldProbeGitRemoteRef() {
+            return delegate.shouldProbeGitRemoteRef();
+        }
+
+        @Override
+        public boolean isBootstrapCheckout() {
+            return true;
+        }
+
+        @Override
+        public boolean isServer() {
+            return delegate.isServer();
+        }
+
+        @Override
+        public void setGitShallowClone(boolean value) {
+            delegate.setGitShallowClone(value);
+        }
+    }
 }
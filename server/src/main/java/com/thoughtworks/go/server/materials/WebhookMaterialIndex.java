@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.config.materials.PluggableSCMMaterial;
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.domain.materials.Material;
+
+import java.util.*;
+
+/**
+ * @understands looking up the post-commit materials of a config which a webhook push could be about
+ */
+class WebhookMaterialIndex {
+    private final Map<String, Map<String, Set<Material>>> gitMaterialsByUrlAndBranch = new HashMap<>();
+    private final Map<String, Set<Material>> pluggableScmMaterialsByName = new HashMap<>();
+
+    WebhookMaterialIndex(Set<Material> postCommitSchedulableMaterials) {
+        for (Material material : postCommitSchedulableMaterials) {
+            if (material instanceof GitMaterial) {
+                GitMaterial gitMaterial = (GitMaterial) material;
+                gitMaterialsByUrlAndBranch
+                        .computeIfAbsent(gitMaterial.getUrlArgument().withoutCredentials(), url -> new HashMap<>())
+                        .computeIfAbsent(gitMaterial.getBranch(), branch -> new HashSet<>())
+                        .add(material);
+            } else if (material instanceof PluggableSCMMaterial) {
+                pluggableScmMaterialsByName
+                        .computeIfAbsent(((PluggableSCMMaterial) material).getScmConfig().getName(), name -> new HashSet<>())
+                        .add(material);
+            }
+        }
+    }
+
+    Set<Material> gitMaterials(String branchName, Collection<String> possibleUrls) {
+        Set<Material> materials = new HashSet<>();
+        for (String url : new HashSet<>(possibleUrls)) {
+            materials.addAll(gitMaterialsByUrlAndBranch.getOrDefault(url, Collections.emptyMap()).getOrDefault(branchName, Collections.emptySet()));
+        }
+        return materials;
+    }
+
+    Set<Material> pluggableScmMaterials(Collection<String> scmNames) {
+        Set<Material> materials = new HashSet<>();
+        for (String scmName : scmNames) {
+            materials.addAll(pluggableScmMaterialsByName.getOrDefault(scmName, Collections.emptySet()));
+        }
+        return materials;
+    }
+}
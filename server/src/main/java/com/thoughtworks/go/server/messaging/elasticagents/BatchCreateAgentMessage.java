@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.elasticagents;
+
+import com.thoughtworks.go.config.elastic.ClusterProfile;
+import com.thoughtworks.go.config.elastic.ElasticProfile;
+import com.thoughtworks.go.domain.JobIdentifier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creation of agents for several jobs which share the same elastic profile, cluster profile and environment,
+ * for plugins which can create agents in a batch. Auto register keys are single use, so each job carries its own.
+ */
+public class BatchCreateAgentMessage extends CreateAgentMessage {
+    private final Map<JobIdentifier, String> autoRegisterKeys;
+
+    public BatchCreateAgentMessage(String environment, ElasticProfile elasticProfile, ClusterProfile clusterProfile, Map<JobIdentifier, String> autoRegisterKeys) {
+        super(autoRegisterKeys.values().iterator().next(), environment, elasticProfile, clusterProfile, autoRegisterKeys.keySet().iterator().next());
+        this.autoRegisterKeys = new LinkedHashMap<>(autoRegisterKeys);
+    }
+
+    public Map<JobIdentifier, String> autoRegisterKeys() {
+        return autoRegisterKeys;
+    }
+
+    public List<JobIdentifier> jobIdentifiers() {
+        return new ArrayList<>(autoRegisterKeys.keySet());
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCreateAgentMessage{" +
+                "environment='" + environment() + '\'' +
+                ", configuration=" + configuration() +
+                ", clusterProfile=" + getClusterProfileConfiguration() +
+                ", jobIdentifiers=" + autoRegisterKeys.keySet() +
+                ", pluginId='" + pluginId() + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!super.equals(o)) return false;
+        BatchCreateAgentMessage that = (BatchCreateAgentMessage) o;
+        return Objects.equals(autoRegisterKeys, that.autoRegisterKeys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), autoRegisterKeys);
+    }
+}
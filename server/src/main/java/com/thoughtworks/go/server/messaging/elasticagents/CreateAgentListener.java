@@ -28,6 +28,10 @@ public class CreateAgentListener implements GoMessageListener<CreateAgentMessage
 
     @Override
     public void onMessage(CreateAgentMessage message) {
+        if (message instanceof BatchCreateAgentMessage) {
+            elasticAgentPluginRegistry.createAgents(message.pluginId(), message.environment(), message.configuration(), message.getClusterProfileConfiguration(), ((BatchCreateAgentMessage) message).autoRegisterKeys());
+            return;
+        }
         elasticAgentPluginRegistry.createAgent(message.pluginId(), message.autoregisterKey(), message.environment(), message.configuration(), message.getClusterProfileConfiguration(), message.jobIdentifier());
     }
 }
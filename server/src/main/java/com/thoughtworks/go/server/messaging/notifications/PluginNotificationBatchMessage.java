@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.notifications;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carries several notifications of the same type for a single plugin, to be sent in one plugin request.
+ * The creation time is that of the oldest notification in the batch, so that the measured lag reflects
+ * the longest wait of any notification in it.
+ */
+public class PluginNotificationBatchMessage<T extends Serializable> extends PluginNotificationMessage<ArrayList<T>> {
+    public PluginNotificationBatchMessage(String pluginId, String requestName, List<PluginNotificationMessage<T>> messages) {
+        super(pluginId, requestName, dataOf(messages), oldest(messages));
+    }
+
+    @Override
+    public int size() {
+        return getData().size();
+    }
+
+    private static <T extends Serializable> ArrayList<T> dataOf(List<PluginNotificationMessage<T>> messages) {
+        ArrayList<T> data = new ArrayList<>();
+        for (PluginNotificationMessage<T> message : messages) {
+            data.add(message.getData());
+        }
+        return data;
+    }
+
+    private static <T extends Serializable> long oldest(List<PluginNotificationMessage<T>> messages) {
+        long oldest = Long.MAX_VALUE;
+        for (PluginNotificationMessage<T> message : messages) {
+            oldest = Math.min(oldest, message.getCreatedAt());
+        }
+        return messages.isEmpty() ? System.currentTimeMillis() : oldest;
+    }
+}
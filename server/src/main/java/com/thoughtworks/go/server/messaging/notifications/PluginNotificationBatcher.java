@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.notifications;
+
+import com.thoughtworks.go.plugin.access.notification.NotificationExtension;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TimeProvider;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static com.thoughtworks.go.util.SystemEnvironment.*;
+
+/**
+ * @understands coalescing notifications meant for plugins which accept batched notifications, so that a burst of
+ * events costs such a plugin one request per batch window (or per batch size) instead of one request per event
+ */
+@Component
+public class PluginNotificationBatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PluginNotificationBatcher.class);
+
+    private final NotificationExtension notificationExtension;
+    private final PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
+    private final SystemEnvironment systemEnvironment;
+    private final TimeProvider timeProvider;
+    private final Map<Pair<String, String>, PendingBatch> pendingBatches = new LinkedHashMap<>();
+
+    @Autowired
+    public PluginNotificationBatcher(NotificationExtension notificationExtension,
+                                     PluginNotificationsQueueHandler pluginNotificationsQueueHandler,
+                                     SystemEnvironment systemEnvironment, TimeProvider timeProvider) {
+        this.notificationExtension = notificationExtension;
+        this.pluginNotificationsQueueHandler = pluginNotificationsQueueHandler;
+        this.systemEnvironment = systemEnvironment;
+        this.timeProvider = timeProvider;
+    }
+
+    public boolean canBatch(String pluginId) {
+        if (!systemEnvironment.get(NOTIFICATION_PLUGIN_BATCHING_ENABLED)) {
+            return false;
+        }
+        try {
+            return notificationExtension.supportsBatchedNotifications(pluginId);
+        } catch (Exception e) {
+            LOGGER.debug("Could not determine whether plugin {} supports batched notifications, will notify it one event at a time.", pluginId, e);
+            return false;
+        }
+    }
+
+    public void add(PluginNotificationMessage message) {
+        PendingBatch fullBatch = null;
+        Pair<String, String> key = Pair.of(message.pluginId(), message.getRequestName());
+        synchronized (pendingBatches) {
+            PendingBatch batch = pendingBatches.computeIfAbsent(key, k -> new PendingBatch(timeProvider.currentTimeMillis()));
+            batch.add(message);
+            if (batch.size() >= systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_SIZE)) {
+                fullBatch = pendingBatches.remove(key);
+            }
+        }
+        if (fullBatch != null) {
+            post(key, fullBatch);
+        }
+    }
+
+    public void onTimer() {
+        long now = timeProvider.currentTimeMillis();
+        long window = systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_WINDOW);
+        Map<Pair<String, String>, PendingBatch> dueBatches = new LinkedHashMap<>();
+        synchronized (pendingBatches) {
+            Iterator<Map.Entry<Pair<String, String>, PendingBatch>> iterator = pendingBatches.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Pair<String, String>, PendingBatch> entry = iterator.next();
+                if (now - entry.getValue().startedAt >= window) {
+                    dueBatches.put(entry.getKey(), entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        dueBatches.forEach(this::post);
+    }
+
+    public Map<String, Integer> pendingNotificationCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        synchronized (pendingBatches) {
+            pendingBatches.forEach((key, batch) -> counts.merge(key.getLeft(), batch.size(), Integer::sum));
+        }
+        return counts;
+    }
+
+    private void post(Pair<String, String> key, PendingBatch batch) {
+        PluginNotificationBatchMessage message = new PluginNotificationBatchMessage(key.getLeft(), key.getRight(), batch.messages);
+        pluginNotificationsQueueHandler.post(message, systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL));
+    }
+
+    private static class PendingBatch {
+        private final long startedAt;
+        private final List<PluginNotificationMessage> messages = new ArrayList<>();
+
+        private PendingBatch(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        void add(PluginNotificationMessage message) {
+            messages.add(message);
+        }
+
+        int size() {
+            return messages.size();
+        }
+    }
+}
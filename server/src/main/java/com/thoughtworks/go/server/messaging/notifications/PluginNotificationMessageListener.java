@@ -29,11 +29,13 @@ import org.slf4j.LoggerFactory;
 public class PluginNotificationMessageListener implements GoMessageListener<PluginNotificationMessage> {
     private NotificationExtension notificationExtension;
     private ServerHealthService serverHealthService;
+    private PluginNotificationQueueMetrics queueMetrics;
     private static final Logger LOGGER = LoggerFactory.getLogger(PluginNotificationMessageListener.class);
 
-    public PluginNotificationMessageListener(NotificationExtension notificationExtension, ServerHealthService serverHealthService) {
+    public PluginNotificationMessageListener(NotificationExtension notificationExtension, ServerHealthService serverHealthService, PluginNotificationQueueMetrics queueMetrics) {
         this.notificationExtension = notificationExtension;
         this.serverHealthService = serverHealthService;
+        this.queueMetrics = queueMetrics;
     }
 
     @Override
@@ -41,7 +43,8 @@ public class PluginNotificationMessageListener implements GoMessageListener<Plug
         HealthStateScope scope = HealthStateScope.aboutPlugin(message.pluginId());
         try {
             LOGGER.debug("Sending {} notification message {} for plugin {}", message.getRequestName(), message, message.pluginId());
-            Result result = notificationExtension.notify(message.pluginId(), message.getRequestName(), message.getData());
+            queueMetrics.delivered(message);
+            Result result = send(message);
 
             if (result.isSuccessful()) {
                 serverHealthService.removeByScope(scope);
@@ -56,6 +59,13 @@ public class PluginNotificationMessageListener implements GoMessageListener<Plug
         }
     }
 
+    private Result send(PluginNotificationMessage message) {
+        if (message instanceof PluginNotificationBatchMessage) {
+            return notificationExtension.notifyBatch(message.pluginId(), message.getRequestName(), ((PluginNotificationBatchMessage<?>) message).getData());
+        }
+        return notificationExtension.notify(message.pluginId(), message.getRequestName(), message.getData());
+    }
+
     private void handlePluginNotifyError(String pluginId, HealthStateScope scope, String errorDescription, Exception e) {
         String message = "Notification update failed for plugin: " + pluginId;
         serverHealthService.update(ServerHealthState.error(message, errorDescription, HealthStateType.general(scope)));
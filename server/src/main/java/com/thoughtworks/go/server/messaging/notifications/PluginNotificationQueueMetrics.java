@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.notifications;
+
+import com.thoughtworks.go.util.TimeProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @understands how far behind each notification plugin is in processing the notifications sent to it
+ */
+@Component
+public class PluginNotificationQueueMetrics {
+    private final ConcurrentMap<String, QueueLag> lagByPlugin = new ConcurrentHashMap<>();
+    private final TimeProvider timeProvider;
+
+    @Autowired
+    public PluginNotificationQueueMetrics(TimeProvider timeProvider) {
+        this.timeProvider = timeProvider;
+    }
+
+    public void delivered(PluginNotificationMessage message) {
+        long lag = Math.max(0, timeProvider.currentTimeMillis() - message.getCreatedAt());
+        lagByPlugin.computeIfAbsent(message.pluginId(), pluginId -> new QueueLag()).record(lag, message.size());
+    }
+
+    public long lastLagInMillis(String pluginId) {
+        QueueLag lag = lagByPlugin.get(pluginId);
+        return lag == null ? 0 : lag.last;
+    }
+
+    public void clear(String pluginId) {
+        lagByPlugin.remove(pluginId);
+    }
+
+    public Map<String, Map<String, Object>> asJson() {
+        Map<String, Map<String, Object>> json = new TreeMap<>();
+        lagByPlugin.forEach((pluginId, lag) -> json.put(pluginId, lag.asJson()));
+        return json;
+    }
+
+    private static class QueueLag {
+        private long last;
+        private long max;
+        private long requests;
+        private long notifications;
+
+        synchronized void record(long lag, int notificationCount) {
+            last = lag;
+            max = Math.max(max, lag);
+            requests++;
+            notifications += notificationCount;
+        }
+
+        synchronized Map<String, Object> asJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Last lag in milliseconds", last);
+            json.put("Max lag in milliseconds", max);
+            json.put("Plugin requests sent", requests);
+            json.put("Notifications delivered", notifications);
+            return json;
+        }
+    }
+}
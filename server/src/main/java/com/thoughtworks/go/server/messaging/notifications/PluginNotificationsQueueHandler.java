@@ -29,10 +29,12 @@ import java.util.Map;
 @Component
 public class PluginNotificationsQueueHandler extends PluginMessageQueueHandler<PluginNotificationMessage> {
     private final static String QUEUE_NAME_PREFIX = PluginNotificationsQueueHandler.class.getSimpleName() + ".";
+    private final PluginNotificationQueueMetrics queueMetrics;
 
     @Autowired
     public PluginNotificationsQueueHandler(final MessagingService messaging, NotificationExtension notificationExtension,
-        PluginManager pluginManager, final SystemEnvironment systemEnvironment, ServerHealthService serverHealthService) {
+        PluginManager pluginManager, final SystemEnvironment systemEnvironment, ServerHealthService serverHealthService,
+        PluginNotificationQueueMetrics queueMetrics) {
         super(notificationExtension, messaging, pluginManager, new QueueFactory() {
             @Override
             public PluginAwareMessageQueue create(GoPluginDescriptor pluginDescriptor) {
@@ -42,9 +44,19 @@ public class PluginNotificationsQueueHandler extends PluginMessageQueueHandler<P
             }
 
             public ListenerFactory listener() {
-                return () -> new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+                return () -> new PluginNotificationMessageListener(notificationExtension, serverHealthService, queueMetrics);
             }
         });
+        this.queueMetrics = queueMetrics;
+    }
+
+    @Override
+    public void pluginUnLoaded(GoPluginDescriptor pluginDescriptor) {
+        try {
+            super.pluginUnLoaded(pluginDescriptor);
+        } finally {
+            queueMetrics.clear(pluginDescriptor.id());
+        }
     }
 
     Map<String, PluginAwareMessageQueue> getQueues() {
@@ -19,6 +19,7 @@ import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.materials.AbstractMaterial;
 import com.thoughtworks.go.config.materials.MaterialConfigs;
 import com.thoughtworks.go.config.materials.Materials;
+import com.thoughtworks.go.config.materials.ScmMaterial;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.materials.*;
 import com.thoughtworks.go.domain.materials.dependency.DependencyMaterialInstance;
@@ -51,11 +52,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.io.File;
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.server.persistence.MaterialQueries.loadModificationQuery;
+import static com.thoughtworks.go.server.persistence.ModificationSearchIndex.Query.modificationsMatching;
+import static com.thoughtworks.go.server.persistence.ModificationSearchIndex.Query.revisionsMatching;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.hibernate.criterion.Restrictions.eq;
@@ -75,6 +79,8 @@ public class MaterialRepository extends HibernateDaoSupport {
     private final CacheKeyGenerator cacheKeyGenerator;
     private int latestModificationsCacheLimit;
     private MaterialExpansionService materialExpansionService;
+    private final ModificationSearchIndex modificationSearchIndex;
+    private final ModificationSearchIndex.ModificationLoader modificationSearchIndexLoader = new ModificationSearchIndexLoader();
 
     @Autowired
     public MaterialRepository(SessionFactory sessionFactory,
@@ -83,13 +89,15 @@ public class MaterialRepository extends HibernateDaoSupport {
                               TransactionSynchronizationManager transactionSynchronizationManager,
                               MaterialConfigConverter materialConfigConverter,
                               MaterialExpansionService materialExpansionService,
-                              Database databaseStrategy) {
+                              Database databaseStrategy,
+                              ModificationSearchIndex modificationSearchIndex) {
         this.goCache = goCache;
         this.latestModificationsCacheLimit = latestModificationsCacheLimit;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.materialConfigConverter = materialConfigConverter;
         this.materialExpansionService = materialExpansionService;
         this.queryExtensions = databaseStrategy.getQueryExtensions();
+        this.modificationSearchIndex = modificationSearchIndex;
         setSessionFactory(sessionFactory);
         this.cacheKeyGenerator = new CacheKeyGenerator(getClass());
     }
@@ -405,8 +413,12 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     String materialModificationCountKey(MaterialInstance materialInstance) {
+        return materialModificationCountKey(materialInstance.getId());
+    }
+
+    private String materialModificationCountKey(long materialId) {
         // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_materialModificationCount_" + materialInstance.getId()).intern();
+        return (MaterialRepository.class.getName() + "_materialModificationCount_" + materialId).intern();
     }
 
     String materialModificationsWithPaginationKey(MaterialInstance materialInstance) {
@@ -443,8 +455,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         modification.setMaterialInstance(materialInstance);
         try {
             getHibernateTemplate().saveOrUpdate(modification);
-            removeLatestCachedModification(materialInstance, modification);
-            removeCachedModificationCountFor(materialInstance);
+            addToCachedModifications(materialInstance, List.of(modification));
             removeCachedModificationsFor(materialInstance);
         } catch (Exception e) {
             String message = "Cannot save modification " + modification;
@@ -475,6 +486,10 @@ public class MaterialRepository extends HibernateDaoSupport {
         return (MaterialRepository.class.getName() + "_materialInstance_" + fingerprint).intern();
     }
 
+    public boolean needsFirstCheckout(Material material) {
+        return material instanceof ScmMaterial && findMaterialInstance(material) == null;
+    }
+
     public MaterialInstance findMaterialInstance(Material material) {
         String cacheKey = materialKey(material);
         MaterialInstance materialInstance = (MaterialInstance) goCache.get(cacheKey);
@@ -676,23 +691,67 @@ public class MaterialRepository extends HibernateDaoSupport {
                 (List<Modification>) getHibernateTemplate().find("FROM Modification WHERE materialId = ? AND id >= ? ORDER BY id DESC", new Object[]{materialInstance.getId(), sinceModificationId}));
     }
 
-    private void removeLatestCachedModification(final MaterialInstance materialInstance, Modification latest) {
+    /*
+     * The latest modifications and the modification count of a material are brought up to date with the
+     * modifications saved in a transaction once it commits, rather than being dropped and recomputed by the next
+     * reader. Both remember the latest modification id they account for, so modifications that a concurrent reader
+     * already loaded from the database are not added twice.
+     */
+    private void addToCachedModifications(final MaterialInstance materialInstance, final List<Modification> saved) {
         transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
             @Override
             public void afterCommit() {
-                String cacheKey = latestMaterialModificationsKey(materialInstance);
-                synchronized (cacheKey) {
-                    goCache.remove(cacheKey);
-                }
+                addToLatestCachedModifications(materialInstance, saved);
+                addToCachedModificationCount(materialInstance, saved);
             }
         });
     }
 
-    private void removeCachedModificationCountFor(final MaterialInstance materialInstance) {
+    private void addToLatestCachedModifications(MaterialInstance materialInstance, List<Modification> saved) {
+        String cacheKey = latestMaterialModificationsKey(materialInstance);
+        synchronized (cacheKey) {
+            Modifications cached = cachedModifications(materialInstance);
+            if (cached == null) {
+                return;
+            }
+            if (cached.isEmpty()) {
+                goCache.remove(cacheKey);
+                return;
+            }
+            Modification latest = cached.get(0);
+            long latestId = latest == null ? 0 : latest.getId();
+            Modifications updated = new Modifications(saved.stream()
+                    .filter(modification -> modification.getId() > latestId)
+                    .sorted(Comparator.comparingLong(Modification::getId).reversed())
+                    .collect(Collectors.toList()));
+            if (updated.isEmpty()) {
+                return;
+            }
+            if (latest != null) {
+                updated.addAll(cached);
+            }
+            while (updated.size() > Math.max(latestModificationsCacheLimit, 1)) {
+                updated.remove(updated.size() - 1);
+            }
+            goCache.putInAfterCommit(cacheKey, updated);
+        }
+    }
+
+    private void addToCachedModificationCount(MaterialInstance materialInstance, List<Modification> saved) {
+        String key = materialModificationCountKey(materialInstance);
+        synchronized (key) {
+            ModificationCount cached = (ModificationCount) goCache.get(key);
+            if (cached != null) {
+                goCache.putInAfterCommit(key, cached.add(saved));
+            }
+        }
+    }
+
+    private void removeCachedModificationsFor(final MaterialInstance materialInstance) {
         transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
             @Override
             public void afterCommit() {
-                String key = materialModificationCountKey(materialInstance);
+                String key = materialModificationsWithPaginationKey(materialInstance);
                 synchronized (key) {
                     goCache.remove(key);
                 }
@@ -700,14 +759,11 @@ public class MaterialRepository extends HibernateDaoSupport {
         });
     }
 
-    private void removeCachedModificationsFor(final MaterialInstance materialInstance) {
+    private void addToSearchIndex(final MaterialInstance materialInstance, final List<Modification> saved) {
         transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
             @Override
             public void afterCommit() {
-                String key = materialModificationsWithPaginationKey(materialInstance);
-                synchronized (key) {
-                    goCache.remove(key);
-                }
+                modificationSearchIndex.modificationsSaved(materialInstance.getId(), saved);
             }
         });
     }
@@ -772,11 +828,9 @@ public class MaterialRepository extends HibernateDaoSupport {
             LOGGER.error(message, e);
             throw new RuntimeException(message + e.getMessage(), e);
         }
-        for (Modification modification : list) {
-            removeLatestCachedModification(materialInstance, modification);
-        }
-        removeCachedModificationCountFor(materialInstance);
+        addToCachedModifications(materialInstance, list);
         removeCachedModificationsFor(materialInstance);
+        addToSearchIndex(materialInstance, list);
     }
 
     private void checkAndRemoveDuplicates(MaterialInstance materialInstance,
@@ -894,6 +948,16 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     public List<MatchedRevision> findRevisionsMatching(final MaterialConfig materialConfig, final String searchString) {
+        Material material = materialConfigConverter.toMaterial(materialConfig);
+        MaterialInstance materialInstance = findMaterialInstance(material);
+        ModificationSearchIndex.MaterialIndex index = materialInstance == null ? null : searchIndexFor(materialInstance.getId(), searchString);
+        if (index != null) {
+            List<MatchedRevision> list = new ArrayList<>();
+            for (Modification mod : modificationsWithIds(index.latestMatching(revisionsMatching(searchString), 0, Long.MAX_VALUE, 5))) {
+                list.add(material.createMatchedRevision(mod, searchString));
+            }
+            return list;
+        }
         return (List<MatchedRevision>) getHibernateTemplate().execute((HibernateCallback) session -> {
             String sql = "SELECT m.*"
                     + " FROM modifications AS m"
@@ -904,7 +968,6 @@ public class MaterialRepository extends HibernateDaoSupport {
                     + " LIMIT 5";
             SQLQuery query = session.createSQLQuery(sql);
             query.addEntity("m", Modification.class);
-            Material material = materialConfigConverter.toMaterial(materialConfig);
             query.setString("finger_print", material.getFingerprint());
             query.setString("search_string", "%" + searchString + "%");
             final List<MatchedRevision> list = new ArrayList<>();
@@ -940,28 +1003,38 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     public Long getTotalModificationsFor(final MaterialInstance materialInstance) {
-        String key = materialModificationCountKey(materialInstance);
-        Long totalCount = (Long) goCache.get(key);
-        if (totalCount == null || totalCount == 0) {
+        return modificationCountFor(materialInstance.getId()).total;
+    }
+
+    private ModificationCount modificationCountFor(long materialId) {
+        String key = materialModificationCountKey(materialId);
+        ModificationCount modificationCount = (ModificationCount) goCache.get(key);
+        if (modificationCount == null) {
             synchronized (key) {
-                totalCount = (Long) goCache.get(key);
-                if (totalCount == null || totalCount == 0) {
-                    totalCount = (Long) getHibernateTemplate().execute((HibernateCallback) session -> {
-                        Query q = session.createQuery("select count(*) FROM Modification WHERE materialId = ?");
-                        q.setLong(0, materialInstance.getId());
+                modificationCount = (ModificationCount) goCache.get(key);
+                if (modificationCount == null) {
+                    Object[] summary = (Object[]) getHibernateTemplate().execute((HibernateCallback) session -> {
+                        Query q = session.createQuery("select count(*), max(id) FROM Modification WHERE materialId = ?");
+                        q.setLong(0, materialId);
                         return q.uniqueResult();
                     });
-                    goCache.put(key, totalCount);
+                    long total = summary[0] == null ? 0 : ((Number) summary[0]).longValue();
+                    long latestId = summary[1] == null ? 0 : ((Number) summary[1]).longValue();
+                    modificationCount = new ModificationCount(total, latestId);
+                    goCache.put(key, modificationCount);
                 }
             }
         }
-        return totalCount;
+        return modificationCount;
     }
 
     public Modifications getModificationsFor(final MaterialInstance materialInstance, final Pagination pagination) {
         String key = materialModificationsWithPaginationKey(materialInstance);
         String subKey = materialModificationsWithPaginationSubKey(pagination);
         Modifications modifications = (Modifications) goCache.get(key, subKey);
+        if (modifications == null) {
+            modifications = latestCachedModificationsFor(materialInstance, pagination);
+        }
         if (modifications == null) {
             synchronized (key) {
                 modifications = (Modifications) goCache.get(key, subKey);
@@ -983,6 +1056,15 @@ public class MaterialRepository extends HibernateDaoSupport {
         return modifications;
     }
 
+    private Modifications latestCachedModificationsFor(MaterialInstance materialInstance, Pagination pagination) {
+        Modifications latest = cachedModifications(materialInstance);
+        int end = pagination.getOffset() + pagination.getPageSize();
+        if (latest == null || latest.size() < end || latest.get(0) == null) {
+            return null;
+        }
+        return new Modifications(latest.subList(pagination.getOffset(), end));
+    }
+
     public Long latestModificationRunByPipeline(final CaseInsensitiveString pipelineName, final Material material) {
         final long materialId = findMaterialInstance(material).getId();
         String key = cacheKeyForLatestPmrForPipelineKey(materialId, pipelineName.toLower());
@@ -1067,6 +1149,11 @@ public class MaterialRepository extends HibernateDaoSupport {
         Map<String, Object> params = new HashMap<>();
         params.put("materialId", materialId);
         if (isNotBlank(pattern)) {
+            ModificationSearchIndex.MaterialIndex index = searchIndexFor(materialId, pattern);
+            if (index != null) {
+                return index.oldestAndLatestMatching(modificationsMatching(pattern));
+            }
+
             queryString = queryString +
                     "  AND (LOWER(modifications.comment) LIKE :pattern " +
                     "  OR LOWER(modifications.userName) LIKE :pattern " +
@@ -1089,6 +1176,12 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     public List<Modification> findMatchingModifications(long materialId, String pattern, FeedModifier modifier, long cursor, Integer pageSize) {
+        ModificationSearchIndex.MaterialIndex index = searchIndexFor(materialId, pattern);
+        if (index != null) {
+            long idsAbove = modifier == FeedModifier.Before ? cursor : 0;
+            long idsBelow = modifier == FeedModifier.After ? cursor : Long.MAX_VALUE;
+            return modificationsWithIds(index.latestMatching(modificationsMatching(pattern), idsAbove, idsBelow, pageSize));
+        }
         Map<String, Object> params = Map.of(
                 "materialId", materialId,
                 "pattern", "%" + pattern.toLowerCase() + "%",
@@ -1105,4 +1198,68 @@ public class MaterialRepository extends HibernateDaoSupport {
                     .list();
         });
     }
+
+    private ModificationSearchIndex.MaterialIndex searchIndexFor(long materialId, String term) {
+        return modificationSearchIndex.indexFor(materialId, term, modificationSearchIndexLoader);
+    }
+
+    private List<Modification> modificationsWithIds(final List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return (List<Modification>) getHibernateTemplate().execute((HibernateCallback) session -> {
+            Query query = session.createQuery("FROM Modification WHERE id IN (:ids) ORDER BY id DESC");
+            query.setParameterList("ids", ids);
+            return query.list();
+        });
+    }
+
+    private static class ModificationCount implements Serializable {
+        private final long total;
+        private final long latestModificationId;
+
+        private ModificationCount(long total, long latestModificationId) {
+            this.total = total;
+            this.latestModificationId = latestModificationId;
+        }
+
+        private ModificationCount add(List<Modification> saved) {
+            long total = this.total;
+            long latestModificationId = this.latestModificationId;
+            for (Modification modification : saved) {
+                if (modification.getId() > this.latestModificationId) {
+                    total++;
+                    latestModificationId = Math.max(latestModificationId, modification.getId());
+                }
+            }
+            return new ModificationCount(total, latestModificationId);
+        }
+    }
+
+    private class ModificationSearchIndexLoader implements ModificationSearchIndex.ModificationLoader {
+        @Override
+        public ModificationSearchIndex.ModificationsSummary summaryOf(long materialId) {
+            ModificationCount modificationCount = modificationCountFor(materialId);
+            return new ModificationSearchIndex.ModificationsSummary(modificationCount.total, modificationCount.latestModificationId);
+        }
+
+        @Override
+        public List<ModificationSearchIndex.IndexedModification> modificationsAfter(long materialId, long modificationId, int limit) {
+            List<Object[]> rows = (List<Object[]>) getHibernateTemplate().execute((HibernateCallback) session -> session
+                    .createSQLQuery("SELECT id, revision, userName, comment, pipelineLabel FROM modifications"
+                            + " WHERE materialId = :materialId AND id > :modificationId ORDER BY id LIMIT :size")
+                    .addScalar("id", new LongType())
+                    .addScalar("revision", new StringType())
+                    .addScalar("userName", new StringType())
+                    .addScalar("comment", new StringType())
+                    .addScalar("pipelineLabel", new StringType())
+                    .setLong("materialId", materialId)
+                    .setLong("modificationId", modificationId)
+                    .setInteger("size", limit)
+                    .list());
+            return rows.stream()
+                    .map(row -> new ModificationSearchIndex.IndexedModification((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4]))
+                    .collect(Collectors.toList());
+        }
+    }
 }
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.domain.PipelineRunIdInfo;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.apache.commons.lang3.StringUtils.containsAny;
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+/**
+ * @understands finding the modifications of a material which contain a search term without scanning the modifications table
+ * <p>
+ * Keeps an in-memory trigram index over the revision, author, comment and pipeline label of the modifications of
+ * recently searched materials. A search only checks the modifications which contain every trigram of the term, and
+ * checks them the way the database query would. A material is indexed from the database on its first search and
+ * topped up as its modifications are saved. Before every search its index is checked against the number of
+ * modifications and the latest modification of the material, as cached by the material repository, so that it never
+ * answers from stale data. Materials with more modifications than the index can hold are left to the database.
+ * <p>
+ * The index is off unless turned on, since it trades heap for search speed.
+ */
+@Component
+public class ModificationSearchIndex {
+    static final int GRAM_LENGTH = 3;
+    static final int LOAD_BATCH_SIZE = 10000;
+    private static final String LIKE_WILDCARDS = "%_\\";
+
+    private final boolean enabled;
+    private final int maxModifications;
+    private final LinkedHashMap<Long, MaterialIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public ModificationSearchIndex(SystemEnvironment systemEnvironment) {
+        this(systemEnvironment.isModificationSearchIndexEnabled(), systemEnvironment.getModificationSearchIndexMaxModifications());
+    }
+
+    ModificationSearchIndex(boolean enabled, int maxModifications) {
+        this.enabled = enabled;
+        this.maxModifications = maxModifications;
+    }
+
+    /**
+     * @return the up-to-date index of the material, or null if the search has to go to the database
+     */
+    public MaterialIndex indexFor(long materialId, String term, ModificationLoader loader) {
+        // The database treats these as wildcards; the index only knows about plain substrings
+        if (!enabled || term == null || containsAny(term, LIKE_WILDCARDS)) {
+            return null;
+        }
+        MaterialIndex index;
+        synchronized (indexes) {
+            index = indexes.computeIfAbsent(materialId, id -> new MaterialIndex(id));
+        }
+        boolean usable = index.refresh(loader, maxModifications);
+        evictLeastRecentlySearched(index);
+        return usable ? index : null;
+    }
+
+    public void modificationsSaved(long materialId, List<Modification> modifications) {
+        MaterialIndex index;
+        synchronized (indexes) {
+            index = indexes.get(materialId);
+        }
+        if (index != null) {
+            index.append(modifications);
+        }
+    }
+
+    /**
+     * Drops every index; each material is indexed again from the database on its next search.
+     */
+    public void clear() {
+        synchronized (indexes) {
+            indexes.clear();
+        }
+    }
+
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Enabled", enabled);
+        json.put("Maximum indexed modifications", maxModifications);
+        synchronized (indexes) {
+            json.put("Indexed materials", indexes.values().stream().filter(index -> index.size() > 0).count());
+            json.put("Indexed modifications", indexes.values().stream().mapToLong(MaterialIndex::size).sum());
+        }
+        return json;
+    }
+
+    private void evictLeastRecentlySearched(MaterialIndex searched) {
+        synchronized (indexes) {
+            long total = indexes.values().stream().mapToLong(MaterialIndex::size).sum();
+            Iterator<MaterialIndex> leastRecentlySearchedFirst = indexes.values().iterator();
+            while (total > maxModifications && leastRecentlySearchedFirst.hasNext()) {
+                MaterialIndex index = leastRecentlySearchedFirst.next();
+                if (index != searched) {
+                    total -= index.size();
+                    leastRecentlySearchedFirst.remove();
+                }
+            }
+        }
+    }
+
+    static String lowerCase(String text) {
+        // Character by character, so that the text of a field and of a term are lowered the same way wherever they appear
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    public interface ModificationLoader {
+        ModificationsSummary summaryOf(long materialId);
+
+        List<IndexedModification> modificationsAfter(long materialId, long modificationId, int limit);
+    }
+
+    public static class ModificationsSummary {
+        private final long count;
+        private final long latestId;
+
+        public ModificationsSummary(long count, long latestId) {
+            this.count = count;
+            this.latestId = latestId;
+        }
+    }
+
+    public static class IndexedModification {
+        private final long id;
+        private final String revision;
+        private final String userName;
+        private final String comment;
+        private final String pipelineLabel;
+
+        public IndexedModification(long id, String revision, String userName, String comment, String pipelineLabel) {
+            this.id = id;
+            this.revision = defaultString(revision);
+            this.userName = userName;
+            this.comment = comment;
+            this.pipelineLabel = pipelineLabel;
+        }
+
+        IndexedModification(Modification modification) {
+            this(modification.getId(), modification.getRevision(), modification.getUserName(), modification.getComment(), modification.getPipelineLabel());
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        private String revisionUserNameAndComment() {
+            return revision + " " + defaultString(userName) + " " + defaultString(comment);
+        }
+
+        private String searchableText() {
+            return lowerCase(revisionUserNameAndComment()) + "\n" + lowerCase(defaultString(pipelineLabel));
+        }
+    }
+
+    public static class Query {
+        private final String term;
+        private final Predicate<IndexedModification> matcher;
+
+        private Query(String term, Predicate<IndexedModification> matcher) {
+            this.term = lowerCase(term);
+            this.matcher = matcher;
+        }
+
+        /**
+         * Matches the way material search does: case-sensitively, across revision, user name and comment, or in the pipeline label.
+         */
+        public static Query revisionsMatching(String searchString) {
+            return new Query(searchString, modification -> modification.revisionUserNameAndComment().contains(searchString)
+                    || (modification.pipelineLabel != null && modification.pipelineLabel.contains(searchString)));
+        }
+
+        /**
+         * Matches the way modification history search does: case-insensitively, within the comment, user name or revision.
+         */
+        public static Query modificationsMatching(String pattern) {
+            String lowerCasePattern = lowerCase(pattern);
+            return new Query(pattern, modification -> containsLowerCase(modification.comment, lowerCasePattern)
+                    || containsLowerCase(modification.userName, lowerCasePattern)
+                    || containsLowerCase(modification.revision, lowerCasePattern));
+        }
+
+        private static boolean containsLowerCase(String text, String lowerCaseTerm) {
+            return text != null && lowerCase(text).contains(lowerCaseTerm);
+        }
+    }
+
+    public static class MaterialIndex {
+        private final long materialId;
+        private final List<IndexedModification> modifications = new ArrayList<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private volatile int size;
+
+        private MaterialIndex(long materialId) {
+            this.materialId = materialId;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the ids of the latest modifications matching the query, with ids between the given exclusive bounds
+         */
+        public synchronized List<Long> latestMatching(Query query, long idsAbove, long idsBelow, int limit) {
+            int[] candidates = candidatesFor(query.term);
+            int count = candidates == null ? modifications.size() : candidates.length;
+            List<Long> ids = new ArrayList<>();
+            for (int i = count - 1; i >= 0 && ids.size() < limit; i--) {
+                IndexedModification modification = modifications.get(candidates == null ? i : candidates[i]);
+                if (modification.id <= idsAbove) {
+                    break;
+                }
+                if (modification.id < idsBelow && query.matcher.test(modification)) {
+                    ids.add(modification.id);
+                }
+            }
+            return ids;
+        }
+
+        public synchronized PipelineRunIdInfo oldestAndLatestMatching(Query query) {
+            int[] candidates = candidatesFor(query.term);
+            int count = candidates == null ? modifications.size() : candidates.length;
+            Long oldest = null;
+            for (int i = 0; i < count && oldest == null; i++) {
+                IndexedModification modification = modifications.get(candidates == null ? i : candidates[i]);
+                if (query.matcher.test(modification)) {
+                    oldest = modification.id;
+                }
+            }
+            if (oldest == null) {
+                return null;
+            }
+            for (int i = count - 1; ; i--) {
+                IndexedModification modification = modifications.get(candidates == null ? i : candidates[i]);
+                if (query.matcher.test(modification)) {
+                    return new PipelineRunIdInfo(modification.id, oldest);
+                }
+            }
+        }
+
+        synchronized boolean refresh(ModificationLoader loader, int maxModifications) {
+            ModificationsSummary summary = loader.summaryOf(materialId);
+            if (summary.count > maxModifications) {
+                clear();
+                return false;
+            }
+            if (summary.count == modifications.size() && summary.latestId == latestId()) {
+                return true;
+            }
+            if (summary.latestId < latestId()) {
+                clear();
+            }
+            if (!load(loader, maxModifications)) {
+                return false;
+            }
+            if (modifications.size() != summary.count) {
+                // Modifications which were never seen by the index, or are gone from the database
+                clear();
+                return load(loader, maxModifications);
+            }
+            return true;
+        }
+
+        synchronized void append(List<Modification> saved) {
+            saved.stream()
+                    .sorted(Comparator.comparingLong(Modification::getId))
+                    .forEach(modification -> add(new IndexedModification(modification)));
+        }
+
+        private boolean load(ModificationLoader loader, int maxModifications) {
+            while (true) {
+                List<IndexedModification> batch = loader.modificationsAfter(materialId, latestId(), LOAD_BATCH_SIZE);
+                batch.forEach(this::add);
+                if (modifications.size() > maxModifications) {
+                    clear();
+                    return false;
+                }
+                if (batch.size() < LOAD_BATCH_SIZE) {
+                    return true;
+                }
+            }
+        }
+
+        private void add(IndexedModification modification) {
+            if (modification.id <= latestId()) {
+                return;
+            }
+            int position = modifications.size();
+            modifications.add(modification);
+            String text = modification.searchableText();
+            for (int start = 0; start + GRAM_LENGTH <= text.length(); start++) {
+                postings.computeIfAbsent(gram(text, start), gram -> new Postings()).add(position);
+            }
+            size = modifications.size();
+        }
+
+        private void clear() {
+            modifications.clear();
+            postings.clear();
+            size = 0;
+        }
+
+        private long latestId() {
+            return modifications.isEmpty() ? 0 : modifications.get(modifications.size() - 1).id;
+        }
+
+        private int[] candidatesFor(String term) {
+            if (term.length() < GRAM_LENGTH) {
+                return null;
+            }
+            List<Postings> lists = new ArrayList<>();
+            for (int start = 0; start + GRAM_LENGTH <= term.length(); start++) {
+                Postings list = postings.get(gram(term, start));
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings shortest = lists.get(0);
+            int[] candidates = new int[shortest.size];
+            int count = 0;
+            for (int i = 0; i < shortest.size; i++) {
+                int position = shortest.positions[i];
+                if (lists.stream().allMatch(list -> list.contains(position))) {
+                    candidates[count++] = position;
+                }
+            }
+            return Arrays.copyOf(candidates, count);
+        }
+    }
+
+    private static class Postings {
+        private int[] positions = new int[2];
+        private int size;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        boolean contains(int position) {
+            return Arrays.binarySearch(positions, 0, size, position) >= 0;
+        }
+    }
+}
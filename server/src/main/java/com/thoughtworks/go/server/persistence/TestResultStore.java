@@ -0,0 +1,587 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.TestCaseResult;
+import com.thoughtworks.go.server.service.ArtifactsDirHolder;
+import com.thoughtworks.go.server.util.Pagination;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Understands how to keep the outcome and duration of every test case of every run of a job, compactly enough to
+ * keep months of history on the server. The results of a job are stored column by column in a folder of its own
+ * under the artifacts directory:
+ * <ul>
+ * <li><code>tests</code> - the suite and name of every test the job has ever run, one per line; the line number is the id of the test</li>
+ * <li><code>runs</code> - a fixed size record per run of the job, pointing into the columns below</li>
+ * <li><code>ids</code> - the ids of the tests of each run in ascending order, as varint encoded deltas</li>
+ * <li><code>outcomes</code> - one byte per test of each run</li>
+ * <li><code>durations</code> - the varint encoded duration in milliseconds of each test of each run</li>
+ * </ul>
+ * Columns are appended to before the run record pointing into them, so a failure halfway through leaves bytes that
+ * nothing refers to rather than a broken run. Only the latest runs are kept, as configured through
+ * {@link SystemEnvironment#TEST_RESULT_STORE_MAX_RUNS_PER_JOB}. Dropping runs swaps a compacted copy of the folder in
+ * with two renames; if the server stops in between, the swap is completed the next time the job's results are used.
+ * The copies live next to the folder under names starting with a dot, which no job name can.
+ */
+@Component
+public class TestResultStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestResultStore.class);
+    public static final String TEST_RESULTS_FOLDER = "testResults";
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z0-9_\\-][a-zA-Z0-9_\\-.]*");
+    private static final TestCaseResult.Outcome[] OUTCOMES = TestCaseResult.Outcome.values();
+    private static final String TESTS = "tests";
+    private static final String RUNS = "runs";
+    private static final String IDS = "ids";
+    private static final String OUTCOMES_COLUMN = "outcomes";
+    private static final String DURATIONS = "durations";
+    private static final String COMPACTING_PREFIX = ".compacting-";
+    private static final String REPLACED_PREFIX = ".replaced-";
+
+    private final ArtifactsDirHolder artifactsDirHolder;
+    private final SystemEnvironment systemEnvironment;
+    private final Executor ingestExecutor;
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TestResultStore(ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment) {
+        this(artifactsDirHolder, systemEnvironment, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-result-store");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    TestResultStore(ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment, Executor ingestExecutor) {
+        this.artifactsDirHolder = artifactsDirHolder;
+        this.systemEnvironment = systemEnvironment;
+        this.ingestExecutor = ingestExecutor;
+    }
+
+    /**
+     * Stores the results of a job on a background thread, so that neither reading them nor dropping old runs holds
+     * up the agent uploading them. Failing to store them is only logged.
+     */
+    public void ingestInBackground(JobIdentifier jobIdentifier, File testCasesFile) {
+        if (!systemEnvironment.isTestResultStoreEnabled()) {
+            return;
+        }
+        ingestExecutor.execute(() -> {
+            try {
+                ingest(jobIdentifier, testCasesFile);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to store the test results of [{}] from [{}]", jobIdentifier, testCasesFile, e);
+            }
+        });
+    }
+
+    /**
+     * @return false if the results were not stored, because the store is disabled or already has results for the job
+     */
+    public boolean ingest(JobIdentifier jobIdentifier, File testCasesFile) throws IOException {
+        File folder = folderFor(jobIdentifier.getPipelineName(), jobIdentifier.getStageName(), jobIdentifier.getBuildName());
+        if (!systemEnvironment.isTestResultStoreEnabled() || folder == null || jobIdentifier.getBuildId() == null) {
+            return false;
+        }
+
+        synchronized (lockFor(folder)) {
+            recoverInterruptedCompaction(folder);
+            FileUtils.forceMkdir(folder);
+            List<Run> runs = readRuns(folder);
+            if (runs.stream().anyMatch(run -> run.buildId == jobIdentifier.getBuildId())) {
+                return false;
+            }
+
+            Map<String, Integer> testIds = readTestIds(folder);
+            List<long[]> results = new ArrayList<>();
+            try (BufferedReader lines = Files.newBufferedReader(testCasesFile.toPath(), UTF_8);
+                 Writer newTests = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(folder, TESTS), true), UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    TestCaseResult result = TestCaseResult.fromLine(line);
+                    String test = testLine(result);
+                    Integer id = testIds.get(test);
+                    if (id == null) {
+                        id = testIds.size();
+                        testIds.put(test, id);
+                        newTests.write(test);
+                        newTests.write('\n');
+                    }
+                    results.add(new long[]{id, result.getOutcome().ordinal(), Math.max(0, result.getDurationMillis())});
+                }
+            }
+            results.sort(Comparator.comparingLong(result -> result[0]));
+
+            Run run = new Run(jobIdentifier.getBuildId(), jobIdentifier.getPipelineCounter() == null ? 0 : jobIdentifier.getPipelineCounter(),
+                    Integer.parseInt(jobIdentifier.getStageCounter()), results.size(),
+                    length(folder, IDS), length(folder, OUTCOMES_COLUMN), length(folder, DURATIONS));
+            try (OutputStream ids = append(folder, IDS); OutputStream outcomes = append(folder, OUTCOMES_COLUMN); OutputStream durations = append(folder, DURATIONS)) {
+                long previousId = 0;
+                for (long[] result : results) {
+                    writeVarint(ids, result[0] - previousId);
+                    previousId = result[0];
+                    outcomes.write((int) result[1]);
+                    writeVarint(durations, result[2]);
+                }
+            }
+            try (OutputStream runsFile = append(folder, RUNS)) {
+                runsFile.write(run.toBytes());
+            }
+            runs.add(run);
+
+            int maxRuns = Math.max(1, systemEnvironment.getTestResultStoreMaxRunsPerJob());
+            if (runs.size() > maxRuns + maxRuns / 4) {
+                dropOldestRuns(folder, runs, runs.size() - maxRuns);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the results of the given run of a job, in the order its tests were first seen, or null if there are none
+     */
+    public TestResults resultsOf(JobIdentifier jobIdentifier, int offset, int pageSize) throws IOException {
+        File folder = folderFor(jobIdentifier.getPipelineName(), jobIdentifier.getStageName(), jobIdentifier.getBuildName());
+        if (folder == null || jobIdentifier.getBuildId() == null) {
+            return null;
+        }
+        synchronized (lockFor(folder)) {
+            recoverInterruptedCompaction(folder);
+            Run run = readRuns(folder).stream().filter(candidate -> candidate.buildId == jobIdentifier.getBuildId()).findFirst().orElse(null);
+            if (run == null) {
+                return null;
+            }
+            long[] ids = readIds(folder, run);
+            byte[] outcomes = readBytes(folder, OUTCOMES_COLUMN, run.outcomesOffset, run.count);
+            long[] durations = readVarints(folder, DURATIONS, run.durationsOffset, run.count);
+
+            int from = Math.min(offset, run.count);
+            int to = Math.min(from + pageSize, run.count);
+            Map<Long, String[]> tests = readTests(folder, idsBetween(ids, from, to));
+            List<TestCaseResult> results = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                String[] suiteAndName = tests.get(ids[i]);
+                results.add(new TestCaseResult(suiteAndName[0], suiteAndName[1], OUTCOMES[outcomes[i]], durations[i]));
+            }
+            return new TestResults(Pagination.pageStartingAt(offset, run.count, pageSize), results);
+        }
+    }
+
+    /**
+     * @return the tests which both passed and failed within the latest runs of a job, those whose outcome changed most often first
+     */
+    public FlakyTests flakyTests(String pipelineName, String stageName, String jobName, int latestRuns, int offset, int pageSize) throws IOException {
+        File folder = folderFor(pipelineName, stageName, jobName);
+        if (folder == null) {
+            return new FlakyTests(Pagination.pageStartingAt(offset, 0, pageSize), 0, Collections.emptyList());
+        }
+        synchronized (lockFor(folder)) {
+            recoverInterruptedCompaction(folder);
+            List<Run> runs = readRuns(folder);
+            List<Run> window = runs.subList(Math.max(0, runs.size() - latestRuns), runs.size());
+
+            Map<Long, FlakyTest> history = new HashMap<>();
+            Map<Long, TestCaseResult.Outcome> previousOutcomes = new HashMap<>();
+            for (Run run : window) {
+                long[] ids = readIds(folder, run);
+                byte[] outcomes = readBytes(folder, OUTCOMES_COLUMN, run.outcomesOffset, run.count);
+                for (int i = 0; i < run.count; i++) {
+                    TestCaseResult.Outcome outcome = OUTCOMES[outcomes[i]];
+                    if (outcome == TestCaseResult.Outcome.SKIPPED) {
+                        continue;
+                    }
+                    FlakyTest test = history.computeIfAbsent(ids[i], FlakyTest::new);
+                    test.runs++;
+                    if (outcome.isFailure()) {
+                        test.failures++;
+                    }
+                    TestCaseResult.Outcome previous = previousOutcomes.put(ids[i], outcome);
+                    if (previous != null && previous.isFailure() != outcome.isFailure()) {
+                        test.flips++;
+                    }
+                }
+            }
+
+            List<FlakyTest> flakyTests = new ArrayList<>();
+            for (FlakyTest test : history.values()) {
+                if (test.failures > 0 && test.failures < test.runs) {
+                    flakyTests.add(test);
+                }
+            }
+            flakyTests.sort(Comparator.comparingInt((FlakyTest test) -> test.flips).reversed()
+                    .thenComparing(Comparator.comparingInt((FlakyTest test) -> test.failures).reversed())
+                    .thenComparingLong(test -> test.id));
+
+            List<FlakyTest> page = flakyTests.subList(Math.min(offset, flakyTests.size()), Math.min(offset + pageSize, flakyTests.size()));
+            Map<Long, String[]> tests = readTests(folder, page.stream().map(test -> test.id).collect(Collectors.toSet()));
+            for (FlakyTest test : page) {
+                test.suite = tests.get(test.id)[0];
+                test.name = tests.get(test.id)[1];
+            }
+            return new FlakyTests(Pagination.pageStartingAt(offset, flakyTests.size(), pageSize), window.size(), new ArrayList<>(page));
+        }
+    }
+
+    private File folderFor(String pipelineName, String stageName, String jobName) {
+        if (!isValidName(pipelineName) || !isValidName(stageName) || !isValidName(jobName)) {
+            return null;
+        }
+        File root = new File(artifactsDirHolder.getArtifactsDir(), TEST_RESULTS_FOLDER);
+        return new File(new File(new File(root, pipelineName.toLowerCase()), stageName.toLowerCase()), jobName.toLowerCase());
+    }
+
+    private boolean isValidName(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    private Object lockFor(File folder) {
+        return locks.computeIfAbsent(folder.getPath(), path -> new Object());
+    }
+
+    private void dropOldestRuns(File folder, List<Run> runs, int runsToDrop) throws IOException {
+        List<Run> kept = runs.subList(runsToDrop, runs.size());
+        Run oldestKept = kept.get(0);
+        File compacted = scratchFolder(folder, COMPACTING_PREFIX);
+        FileUtils.deleteDirectory(compacted);
+        FileUtils.forceMkdir(compacted);
+
+        FileUtils.copyFile(new File(folder, TESTS), new File(compacted, TESTS));
+        copyFrom(new File(folder, IDS), oldestKept.idsOffset, new File(compacted, IDS));
+        copyFrom(new File(folder, OUTCOMES_COLUMN), oldestKept.outcomesOffset, new File(compacted, OUTCOMES_COLUMN));
+        copyFrom(new File(folder, DURATIONS), oldestKept.durationsOffset, new File(compacted, DURATIONS));
+        try (OutputStream runsFile = new BufferedOutputStream(new FileOutputStream(new File(compacted, RUNS)))) {
+            for (Run run : kept) {
+                runsFile.write(new Run(run.buildId, run.pipelineCounter, run.stageCounter, run.count,
+                        run.idsOffset - oldestKept.idsOffset, run.outcomesOffset - oldestKept.outcomesOffset, run.durationsOffset - oldestKept.durationsOffset).toBytes());
+            }
+        }
+
+        File old = scratchFolder(folder, REPLACED_PREFIX);
+        FileUtils.deleteDirectory(old);
+        if (!folder.renameTo(old) || !compacted.renameTo(folder)) {
+            throw new IOException("Could not replace " + folder + " with its compacted copy");
+        }
+        FileUtils.deleteDirectory(old);
+        LOGGER.debug("Dropped the results of the {} oldest runs from {}", runsToDrop, folder);
+    }
+
+    /*
+     * The compacted copy is complete before the folder is renamed away, so a missing folder next to a replaced one
+     * means the server stopped between the two renames of dropOldestRuns.
+     */
+    private static void recoverInterruptedCompaction(File folder) throws IOException {
+        File compacted = scratchFolder(folder, COMPACTING_PREFIX);
+        File old = scratchFolder(folder, REPLACED_PREFIX);
+        if (!folder.exists() && old.exists()) {
+            File latest = compacted.exists() ? compacted : old;
+            if (!latest.renameTo(folder)) {
+                throw new IOException("Could not restore " + folder + " from " + latest);
+            }
+            LOGGER.info("Restored {} from {} after an interrupted compaction", folder, latest);
+        }
+        if (compacted.exists()) {
+            FileUtils.deleteDirectory(compacted);
+        }
+        if (old.exists()) {
+            FileUtils.deleteDirectory(old);
+        }
+    }
+
+    private static File scratchFolder(File folder, String prefix) {
+        return new File(folder.getParentFile(), prefix + folder.getName());
+    }
+
+    private static void copyFrom(File source, long offset, File target) throws IOException {
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = offset;
+            long size = in.size();
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private static List<Run> readRuns(File folder) throws IOException {
+        File file = new File(folder, RUNS);
+        List<Run> runs = new ArrayList<>();
+        if (!file.exists()) {
+            return runs;
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.remaining() >= Run.SIZE) {
+            runs.add(Run.from(buffer));
+        }
+        return runs;
+    }
+
+    private static Map<String, Integer> readTestIds(File folder) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        File file = new File(folder, TESTS);
+        if (file.exists()) {
+            try (BufferedReader lines = Files.newBufferedReader(file.toPath(), UTF_8)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    ids.put(line, ids.size());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Map<Long, String[]> readTests(File folder, Set<Long> ids) throws IOException {
+        Map<Long, String[]> tests = new HashMap<>();
+        if (ids.isEmpty()) {
+            return tests;
+        }
+        try (BufferedReader lines = Files.newBufferedReader(new File(folder, TESTS).toPath(), UTF_8)) {
+            String line;
+            long id = 0;
+            while ((line = lines.readLine()) != null && tests.size() < ids.size()) {
+                if (ids.contains(id)) {
+                    int separator = line.indexOf('\t');
+                    tests.put(id, new String[]{TestCaseResult.unescape(line.substring(0, separator)), TestCaseResult.unescape(line.substring(separator + 1))});
+                }
+                id++;
+            }
+        }
+        return tests;
+    }
+
+    private static Set<Long> idsBetween(long[] ids, int from, int to) {
+        Set<Long> selected = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            selected.add(ids[i]);
+        }
+        return selected;
+    }
+
+    private static String testLine(TestCaseResult result) {
+        return TestCaseResult.escape(result.getSuite()) + "\t" + TestCaseResult.escape(result.getName());
+    }
+
+    private static long[] readIds(File folder, Run run) throws IOException {
+        long[] ids = readVarints(folder, IDS, run.idsOffset, run.count);
+        for (int i = 1; i < ids.length; i++) {
+            ids[i] += ids[i - 1];
+        }
+        return ids;
+    }
+
+    private static long[] readVarints(File folder, String column, long offset, int count) throws IOException {
+        long[] values = new long[count];
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(new File(folder, column).toPath()))) {
+            skipFully(in, offset);
+            for (int i = 0; i < count; i++) {
+                values[i] = readVarint(in);
+            }
+        }
+        return values;
+    }
+
+    private static byte[] readBytes(File folder, String column, long offset, int count) throws IOException {
+        byte[] values = new byte[count];
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(new File(folder, column).toPath()))) {
+            skipFully(in, offset);
+            if (in.readNBytes(values, 0, count) != count) {
+                throw new EOFException("The " + column + " of " + folder + " end before the run they belong to");
+            }
+        }
+        return values;
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static long length(File folder, String column) {
+        return new File(folder, column).length();
+    }
+
+    private static OutputStream append(File folder, String column) throws IOException {
+        return new BufferedOutputStream(new FileOutputStream(new File(folder, column), true));
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static class Run {
+        private static final int SIZE = 8 + 4 + 4 + 4 + 8 + 8 + 8;
+        private final long buildId;
+        private final int pipelineCounter;
+        private final int stageCounter;
+        private final int count;
+        private final long idsOffset;
+        private final long outcomesOffset;
+        private final long durationsOffset;
+
+        private Run(long buildId, int pipelineCounter, int stageCounter, int count, long idsOffset, long outcomesOffset, long durationsOffset) {
+            this.buildId = buildId;
+            this.pipelineCounter = pipelineCounter;
+            this.stageCounter = stageCounter;
+            this.count = count;
+            this.idsOffset = idsOffset;
+            this.outcomesOffset = outcomesOffset;
+            this.durationsOffset = durationsOffset;
+        }
+
+        private static Run from(ByteBuffer buffer) {
+            return new Run(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+
+        private byte[] toBytes() {
+            return ByteBuffer.allocate(SIZE).putLong(buildId).putInt(pipelineCounter).putInt(stageCounter).putInt(count)
+                    .putLong(idsOffset).putLong(outcomesOffset).putLong(durationsOffset).array();
+        }
+    }
+
+    public static class TestResults {
+        private final Pagination pagination;
+        private final List<TestCaseResult> results;
+
+        public TestResults(Pagination pagination, List<TestCaseResult> results) {
+            this.pagination = pagination;
+            this.results = results;
+        }
+
+        public Pagination getPagination() {
+            return pagination;
+        }
+
+        public List<TestCaseResult> getResults() {
+            return results;
+        }
+    }
+
+    public static class FlakyTests {
+        private final Pagination pagination;
+        private final int runs;
+        private final List<FlakyTest> tests;
+
+        public FlakyTests(Pagination pagination, int runs, List<FlakyTest> tests) {
+            this.pagination = pagination;
+            this.runs = runs;
+            this.tests = tests;
+        }
+
+        public Pagination getPagination() {
+            return pagination;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public List<FlakyTest> getTests() {
+            return tests;
+        }
+    }
+
+    public static class FlakyTest {
+        private final long id;
+        private String suite;
+        private String name;
+        private int runs;
+        private int failures;
+        private int flips;
+
+        FlakyTest(long id) {
+            this.id = id;
+        }
+
+        public FlakyTest(String suite, String name, int runs, int failures, int flips) {
+            this(-1);
+            this.suite = suite;
+            this.name = name;
+            this.runs = runs;
+            this.failures = failures;
+            this.flips = flips;
+        }
+
+        public String getSuite() {
+            return suite;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public int getFlips() {
+            return flips;
+        }
+    }
+}
@@ -19,14 +19,19 @@ import com.thoughtworks.go.domain.ArtifactUrlReader;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.domain.TestReportGenerator;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.server.dao.StageDao;
+import com.thoughtworks.go.server.persistence.TestResultStore;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
 import com.thoughtworks.go.server.view.artifacts.BuildIdArtifactLocator;
 import com.thoughtworks.go.server.view.artifacts.PathBasedArtifactsLocator;
 import com.thoughtworks.go.util.*;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.filefilter.NameFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,8 +41,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.zip.ZipInputStream;
 
+import static com.thoughtworks.go.config.TestArtifactConfig.TEST_OUTPUT_FOLDER;
 import static java.lang.String.format;
 
 @Service
@@ -46,22 +53,24 @@ public class ArtifactsService implements ArtifactUrlReader {
     private final ZipUtil zipUtil;
     private final JobResolverService jobResolverService;
     private final StageDao stageDao;
+    private final TestResultStore testResultStore;
     public static final Logger LOGGER = LoggerFactory.getLogger(ArtifactsService.class);
     public static final String LOG_XML_NAME = "log.xml";
     private ArtifactDirectoryChooser chooser;
 
     @Autowired
     public ArtifactsService(JobResolverService jobResolverService, StageDao stageDao,
-                            ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil) {
-        this(jobResolverService, stageDao, artifactsDirHolder, zipUtil, new ArtifactDirectoryChooser());
+                            ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, TestResultStore testResultStore) {
+        this(jobResolverService, stageDao, artifactsDirHolder, zipUtil, testResultStore, new ArtifactDirectoryChooser());
     }
 
     protected ArtifactsService(JobResolverService jobResolverService, StageDao stageDao,
-                               ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, ArtifactDirectoryChooser chooser) {
+                               ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, TestResultStore testResultStore, ArtifactDirectoryChooser chooser) {
         this.artifactsDirHolder = artifactsDirHolder;
         this.zipUtil = zipUtil;
         this.jobResolverService = jobResolverService;
         this.stageDao = stageDao;
+        this.testResultStore = testResultStore;
 
         //This is a Chain of Responsibility to decide which view should be shown for a particular artifact URL
         this.chooser = chooser;
@@ -101,6 +110,20 @@ public class ArtifactsService implements ArtifactUrlReader {
         }
     }
 
+    /**
+     * Keeps the outcome of each test case of a job once the agent has uploaded its merged test results. This happens
+     * in the background and failing to do so is only logged, as the results are still available as an artifact.
+     */
+    public void ingestTestResults(JobIdentifier jobIdentifier, String filePath, File artifact) {
+        if (!TEST_OUTPUT_FOLDER.equals(FilenameUtils.separatorsToUnix(filePath)) || !artifact.isDirectory()) {
+            return;
+        }
+        Collection<File> testCasesFiles = FileUtils.listFiles(artifact, new NameFileFilter(TestReportGenerator.TEST_CASES_FILE), TrueFileFilter.TRUE);
+        for (File testCasesFile : testCasesFiles) {
+            testResultStore.ingestInBackground(jobIdentifier, testCasesFile);
+        }
+    }
+
     public boolean saveOrAppendFile(File dest, InputStream stream) {
         String destPath = dest.getAbsolutePath();
         try {
@@ -48,6 +48,11 @@ import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -91,6 +96,11 @@ public class BackupService implements BackupStatusProvider {
     private static final String VERSION_BACKUP_FILE = "version.txt";
 
     private static final Object BACKUP_MUTEX = new Object();
+    private final ExecutorService databaseBackupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "backup-database");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Autowired
     public BackupService(ArtifactsDirHolder artifactsDirHolder,
@@ -172,10 +182,21 @@ public class BackupService implements BackupStatusProvider {
                     return backup;
                 }
                 backupVersion(destDir, backupUpdateListeners);
-                backupConfig(destDir, backupUpdateListeners);
-                boolean backedUpWrapperConfig = backupWrapperConfig(destDir, backupUpdateListeners);
-                backupConfigRepo(backupUpdateListeners, destDir);
-                backupDb(destDir, backupUpdateListeners);
+                Future<?> databaseBackup = systemEnvironment.shouldBackupDatabaseInParallel() ? backupDbInParallel(destDir, backupUpdateListeners) : null;
+                boolean backedUpWrapperConfig;
+                try {
+                    backupConfig(destDir, backupUpdateListeners);
+                    backedUpWrapperConfig = backupWrapperConfig(destDir, backupUpdateListeners);
+                    backupConfigRepo(backupUpdateListeners, destDir);
+                } catch (Exception e) {
+                    waitForDbBackupQuietly(databaseBackup);
+                    throw e;
+                }
+                if (databaseBackup == null) {
+                    backupDb(destDir, backupUpdateListeners);
+                } else {
+                    waitForDbBackup(databaseBackup);
+                }
                 boolean passed = executePostBackupScript(backup.getUsername(), initiatedBy, backup, backupUpdateListeners);
                 if (passed) {
                     sendBackupSuccessEmail(backup.getUsername(), mailSender, destDir);
@@ -216,12 +237,16 @@ public class BackupService implements BackupStatusProvider {
 
     private void notifyUpdateToListeners(List<BackupUpdateListener> listeners, BackupProgressStatus status) {
         LOGGER.debug(status.getMessage());
-        listeners.forEach(backupUpdateListener -> backupUpdateListener.updateStep(status));
+        synchronized (listeners) {
+            listeners.forEach(backupUpdateListener -> backupUpdateListener.updateStep(status));
+        }
     }
 
     private void notifyErrorToListeners(List<BackupUpdateListener> listeners, String message) {
         LOGGER.debug(message);
-        listeners.forEach(backupUpdateListener -> backupUpdateListener.error(message));
+        synchronized (listeners) {
+            listeners.forEach(backupUpdateListener -> backupUpdateListener.error(message));
+        }
     }
 
     private void notifyCompletionToListeners(List<BackupUpdateListener> listeners, boolean backedupWrapperConfig) {
@@ -339,6 +364,32 @@ public class BackupService implements BackupStatusProvider {
         databaseStrategy.backup(backupDir);
     }
 
+    private Future<?> backupDbInParallel(File backupDir, List<BackupUpdateListener> backupUpdateListeners) {
+        return CompletableFuture.runAsync(() -> backupDb(backupDir, backupUpdateListeners), databaseBackupExecutor);
+    }
+
+    private void waitForDbBackup(Future<?> databaseBackup) throws Exception {
+        try {
+            databaseBackup.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void waitForDbBackupQuietly(Future<?> databaseBackup) {
+        if (databaseBackup == null) {
+            return;
+        }
+        try {
+            databaseBackup.get();
+        } catch (Exception e) {
+            LOGGER.error("[Backup] Failed to backup the database.", e);
+        }
+    }
+
     public String backupLocation() {
         return artifactsDirHolder.getBackupsDir().getAbsolutePath();
     }
@@ -46,11 +46,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.util.command.EnvironmentVariableContext.GO_ENVIRONMENT_NAME;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static java.util.stream.StreamSupport.stream;
 import static org.apache.commons.collections4.CollectionUtils.forAllDo;
 
@@ -64,6 +67,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
     public static final NoWork NO_WORK = new NoWork();
     public static final String GO_PIPELINE_GROUP_NAME = "GO_PIPELINE_GROUP_NAME";
     public static final String GO_AGENT_RESOURCES = "GO_AGENT_RESOURCES";
+    private static final int MAX_ELASTIC_ASSIGNMENT_ATTEMPTS = 3;
 
     private GoConfigService goConfigService;
     private JobInstanceService jobInstanceService;
@@ -74,6 +78,9 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private final ScheduledPipelineLoader scheduledPipelineLoader;
 
     private List<JobPlan> jobPlans = new ArrayList<>();
+    // job id -> agent uuid -> when the elastic agent plugin declined the job for that agent; only used when assigning
+    // outside the lock. A decline is only trusted for a while, since the plugin may well accept the job later on.
+    private final ConcurrentHashMap<Long, Map<String, Long>> declinedElasticAssignments = new ConcurrentHashMap<>();
     private final UpstreamPipelineResolver resolver;
     private final BuilderFactory builderFactory;
     private MaintenanceModeService maintenanceModeService;
@@ -174,6 +181,10 @@ public class BuildAssignmentService implements ConfigChangedListener {
             return new DeniedAgentWork(agent.getUuid());
         }
 
+        if (agent.isElastic() && systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGN_WORK_OUTSIDE_LOCK)) {
+            return assignWorkToElasticAgent(agent);
+        }
+
         synchronized (this) {
 //          check to ensure agent is not disabled after entering the synchronized block
             if (agent.isDisabled()) {
@@ -183,18 +194,88 @@ public class BuildAssignmentService implements ConfigChangedListener {
             scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
             final JobPlan job = findMatchingJob(agent);
             if (job != null) {
-                Work buildWork = createWork(agent, job);
-                AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(),
-                        job.getIdentifier().buildLocator());
-                agentService.building(agent.getUuid(), buildingInfo);
-                LOGGER.info("[Agent Assignment] Assigned job [{}] to agent [{}]", job.getIdentifier(), agent.getAgent().getAgentIdentifier());
+                return assign(agent, job);
+            }
+        }
+        return NO_WORK;
+    }
+
+    /*
+     * Asks the elastic agent plugin whether it should assign work without holding the assignment lock, so that a slow
+     * plugin only delays its own agents. The lock is held just to pick the candidate jobs and to claim the chosen one;
+     * if another agent claimed it in the meantime, the remaining candidates are tried again.
+     */
+    private Work assignWorkToElasticAgent(AgentInstance agent) {
+        for (int attempt = 0; attempt < MAX_ELASTIC_ASSIGNMENT_ATTEMPTS; attempt++) {
+            List<JobPlan> candidates;
+            synchronized (this) {
+                if (agent.isDisabled()) {
+                    return new DeniedAgentWork(agent.getUuid());
+                }
+                if (attempt == 0) {
+                    scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
+                }
+                candidates = environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid());
+            }
 
-                return buildWork;
+            JobPlan chosen = firstElasticJobAcceptedByPlugin(agent, candidates);
+            if (chosen == null) {
+                return NO_WORK;
+            }
+
+            synchronized (this) {
+                if (agent.isDisabled()) {
+                    return new DeniedAgentWork(agent.getUuid());
+                }
+                if (jobPlans.remove(chosen)) {
+                    declinedElasticAssignments.remove(chosen.getJobId());
+                    return assign(agent, chosen);
+                }
             }
         }
         return NO_WORK;
     }
 
+    private JobPlan firstElasticJobAcceptedByPlugin(AgentInstance agent, List<JobPlan> candidates) {
+        for (JobPlan jobPlan : candidates) {
+            if (!jobPlan.requiresElasticAgent() || hasDeclined(jobPlan, agent)) {
+                continue;
+            }
+            try {
+                if (elasticAgentPluginService.shouldAssignWork(agent.elasticAgentMetadata(), environmentConfigService.envForPipeline(jobPlan.getPipelineName()), jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())) {
+                    return jobPlan;
+                }
+                declinedElasticAssignments.computeIfAbsent(jobPlan.getJobId(), jobId -> new ConcurrentHashMap<>()).put(agent.getUuid(), System.currentTimeMillis());
+            } catch (RulesViolationException | SecretResolutionFailureException e) {
+                failJobWithElasticConfigErrors(agent, jobPlan, e);
+            }
+        }
+        return null;
+    }
+
+    private boolean hasDeclined(JobPlan jobPlan, AgentInstance agent) {
+        Map<String, Long> agents = declinedElasticAssignments.get(jobPlan.getJobId());
+        Long declinedAt = agents == null ? null : agents.get(agent.getUuid());
+        if (declinedAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - declinedAt < systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_DECLINED_ASSIGNMENT_TTL)) {
+            return true;
+        }
+        agents.remove(agent.getUuid(), declinedAt);
+        return false;
+    }
+
+    private Work assign(AgentInstance agent, JobPlan job) {
+        Work buildWork = createWork(agent, job);
+        AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(),
+                job.getIdentifier().buildLocator());
+        agentService.building(agent.getUuid(), buildingInfo);
+        LOGGER.info("[Agent Assignment] Assigned job [{}] to agent [{}]", job.getIdentifier(), agent.getAgent().getAgentIdentifier());
+
+        return buildWork;
+    }
+
     JobPlan findMatchingJob(AgentInstance agent) {
         List<JobPlan> filteredJobPlans = environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid());
         JobPlan match = null;
@@ -208,12 +289,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
                         break;
                     }
                 } catch (RulesViolationException | SecretResolutionFailureException e) {
-                    JobInstance instance = jobInstanceService.buildById(jobPlan.getJobId());
-                    JobIdentifier jobIdentifier = jobPlan.getIdentifier();
-                    String failureMessage = format("\nThis job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.\nReasons: %s", e.getMessage());
-                    logToJobConsole(jobIdentifier, failureMessage);
-                    scheduleService.failJob(instance);
-                    jobStatusTopic.post(new JobStatusMessage(jobIdentifier, instance.getState(), agent.getUuid()));
+                    failJobWithElasticConfigErrors(agent, jobPlan, e);
                 }
             }
         }
@@ -223,6 +299,15 @@ public class BuildAssignmentService implements ConfigChangedListener {
         return match;
     }
 
+    private void failJobWithElasticConfigErrors(AgentInstance agent, JobPlan jobPlan, RuntimeException e) {
+        JobInstance instance = jobInstanceService.buildById(jobPlan.getJobId());
+        JobIdentifier jobIdentifier = jobPlan.getIdentifier();
+        String failureMessage = format("\nThis job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.\nReasons: %s", e.getMessage());
+        logToJobConsole(jobIdentifier, failureMessage);
+        scheduleService.failJob(instance);
+        jobStatusTopic.post(new JobStatusMessage(jobIdentifier, instance.getState(), agent.getUuid()));
+    }
+
     public void onTimer() {
         if (maintenanceModeService.isMaintenanceMode()) {
             LOGGER.debug("[Maintenance Mode] GoCD server is in 'maintenance' mode, skip checking build assignments");
@@ -242,10 +327,19 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 List<JobPlan> newPlan = jobInstanceService.orderedScheduledBuilds();
                 jobPlans = newPlan;
                 elasticAgentPluginService.createAgentsFor(old, newPlan);
+                forgetDeclinedElasticAssignmentsOfFinishedPlans();
             }
         }
     }
 
+    private void forgetDeclinedElasticAssignmentsOfFinishedPlans() {
+        if (declinedElasticAssignments.isEmpty()) {
+            return;
+        }
+        Set<Long> scheduledJobIds = jobPlans.stream().map(JobPlan::getJobId).collect(toSet());
+        declinedElasticAssignments.keySet().retainAll(scheduledJobIds);
+    }
+
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         LOGGER.info("[Configuration Changed] Removing jobs for pipelines that no longer exist in configuration.");
@@ -258,6 +352,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
             }
             forAllDo(jobsToRemove, o -> removeJob((JobPlan) o));
         }
+        // elastic or cluster profiles may have changed, so the plugin gets to decide afresh
+        declinedElasticAssignments.clear();
     }
 
     private void removeJobIfNotPresentInCruiseConfig(CruiseConfig newCruiseConfig, JobPlan jobPlan) {
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.exceptions.EntityType;
@@ -22,9 +23,12 @@ import com.thoughtworks.go.domain.MaterialRevision;
 import com.thoughtworks.go.domain.Pipeline;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.materials.MaterialInstance;
 import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.domain.materials.Modifications;
 import com.thoughtworks.go.domain.materials.dependency.DependencyMaterialRevision;
+import com.thoughtworks.go.server.cache.CacheKeyGenerator;
+import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.dao.PipelineSqlMapDao;
 import com.thoughtworks.go.server.domain.PipelineConfigDependencyGraph;
 import com.thoughtworks.go.server.domain.Username;
@@ -34,6 +38,7 @@ import com.thoughtworks.go.server.ui.ModificationForPipeline;
 import com.thoughtworks.go.server.web.PipelineRevisionRange;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
+import com.thoughtworks.go.util.ClonerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -44,17 +49,24 @@ import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 
 @Service
 public class ChangesetService {
+    static final int MAX_CACHED_RANGES_PER_PIPELINE = 10;
+
     private PipelineSqlMapDao pipelineDao;
     private MaterialRepository materialRepository;
     private final GoConfigService goConfigService;
     private SecurityService securityService;
+    private final GoCache goCache;
+    private final CacheKeyGenerator cacheKeyGenerator;
+    private final Cloner cloner = ClonerFactory.instance();
 
     @Autowired
-    public ChangesetService(SecurityService securityService, PipelineSqlMapDao pipelineDao, MaterialRepository materialRepository, GoConfigService goConfigService) {
+    public ChangesetService(SecurityService securityService, PipelineSqlMapDao pipelineDao, MaterialRepository materialRepository, GoConfigService goConfigService, GoCache goCache) {
         this.securityService = securityService;
         this.pipelineDao = pipelineDao;
         this.materialRepository = materialRepository;
         this.goConfigService = goConfigService;
+        this.goCache = goCache;
+        this.cacheKeyGenerator = new CacheKeyGenerator(getClass());
     }
 
     public List<MaterialRevision> revisionsBetween(List<PipelineRevisionRange> pipelineRevisionRanges, Username username, HttpLocalizedOperationResult result) {
@@ -154,19 +166,43 @@ public class ChangesetService {
     }
 
     private List<MaterialRevision> modificationsPerMaterialBetween(String pipelineName, Integer fromCounter, Integer toCounter) {
-        List<Modification> modifications = materialRepository.getModificationsForPipelineRange(pipelineName, fromCounter, toCounter);
-        return deduplicateRevisionsForMaterial(modifications);
+        // The revisions between two runs that have both happened never change, so they are cached until evicted.
+        // A range that reaches beyond the latest run is not cached, since later runs would still add to it.
+        // Ranges are kept per pipeline, and a pipeline's ranges are dropped together once it has too many of them.
+        String key = cacheKeyForRevisionsBetween(pipelineName);
+        String subKey = cacheSubKeyForRevisionsBetween(fromCounter, toCounter);
+        List<MaterialRevision> revisions = (List<MaterialRevision>) goCache.get(key, subKey);
+        if (revisions == null) {
+            synchronized (key) {
+                revisions = (List<MaterialRevision>) goCache.get(key, subKey);
+                if (revisions == null) {
+                    List<Modification> modifications = materialRepository.getModificationsForPipelineRange(pipelineName, fromCounter, toCounter);
+                    revisions = deduplicateRevisionsForMaterial(modifications);
+                    if (toCounter <= pipelineDao.getCounterForPipeline(pipelineName)) {
+                        if (goCache.subKeyCount(key) >= MAX_CACHED_RANGES_PER_PIPELINE) {
+                            goCache.remove(key);
+                        }
+                        goCache.put(key, subKey, cloner.deepClone(revisions));
+                    }
+                    return revisions;
+                }
+            }
+        }
+        return cloner.deepClone(revisions);
+    }
+
+    String cacheKeyForRevisionsBetween(String pipelineName) {
+        return cacheKeyGenerator.generate("revisionsBetween", new CaseInsensitiveString(pipelineName));
+    }
+
+    String cacheSubKeyForRevisionsBetween(Integer fromCounter, Integer toCounter) {
+        return fromCounter + "-" + toCounter;
     }
 
     private List<MaterialRevision> deduplicateMaterialRevisionsForCommonMaterials(List<MaterialRevision> materialRevisions) {
-        List<Modification> modificationsWithDuplicates = new ArrayList<>();
+        Set<Modification> modificationsWithDuplicates = new LinkedHashSet<>();
         for (MaterialRevision revision : materialRevisions) {
-            for (Modification modification : revision.getModifications()) {
-                if (!modificationsWithDuplicates.contains(modification)) {//change this with a better data-structure so lookup is not O(n)
-                    modificationsWithDuplicates.add(modification);
-                }
-            }
-
+            modificationsWithDuplicates.addAll(revision.getModifications());
         }
         return deduplicateRevisionsForMaterial(modificationsWithDuplicates);
     }
@@ -177,12 +213,15 @@ public class ChangesetService {
     }
 
     Map<Material, Modifications> groupModsByMaterial(Collection<Modification> modifications) {
+        Map<MaterialInstance, Material> materials = new IdentityHashMap<>();
+        Map<String, Modifications> modificationsByFingerprint = new HashMap<>();
         Map<Material, Modifications> grouped = new LinkedHashMap<>();
         for (Modification modification : modifications) {
-            Material material = modification.getMaterialInstance().toOldMaterial(null, null, null);
-            Modifications mods = mapContainsMaterialWithFingerprint(grouped, material.getFingerprint());
+            Material material = materials.computeIfAbsent(modification.getMaterialInstance(), materialInstance -> materialInstance.toOldMaterial(null, null, null));
+            Modifications mods = modificationsByFingerprint.get(material.getFingerprint());
             if (mods == null) {
                 mods = new Modifications();
+                modificationsByFingerprint.put(material.getFingerprint(), mods);
                 grouped.put(material, mods);
             }
             mods.add(modification);
@@ -190,15 +229,6 @@ public class ChangesetService {
         return grouped;
     }
 
-    private Modifications mapContainsMaterialWithFingerprint(Map<Material, Modifications> grouped, String fingerPrint) {
-        for (Material material : grouped.keySet()) {
-            if (material.getFingerprint().equals(fingerPrint)) {
-                return grouped.get(material);
-            }
-        }
-        return null;
-    }
-
     private List<MaterialRevision> toMaterialRevisionList(Map<Material, Modifications> map) {
         List<MaterialRevision> materialRevisionsAcrossPipelines = new ArrayList<>();
         for (Map.Entry<Material, Modifications> materialToModifications : map.entrySet()) {
@@ -43,6 +43,16 @@ public class CheckConnectionSubprocessExecutionContext implements SubprocessExec
         throw new UnsupportedOperationException(" This is an unexpected call. Perform this action only on the server.");
     }
 
+    @Override
+    public boolean shouldProbeGitRemoteRef() {
+        throw new UnsupportedOperationException(" This is an unexpected call. Perform this action only on the server.");
+    }
+
+    @Override
+    public boolean isBootstrapCheckout() {
+        return false;
+    }
+
     @Override
     public boolean isServer() {
         throw new UnsupportedOperationException("This is an unexpected call.");
@@ -29,9 +29,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
 
 import static com.thoughtworks.go.serverhealth.HealthStateScope.forJob;
 import static java.lang.String.format;
@@ -46,8 +49,8 @@ public class ConsoleActivityMonitor {
     private final ServerHealthService serverHealthService;
     private final GoConfigService goConfigService;
     private ConsoleService consoleService;
-    private final ConcurrentMap<JobIdentifier, Long> jobLastActivityMap;
-    private final ConcurrentMap<JobIdentifier, Long> jobScheduledMap;
+    private final TrackedJobs jobLastActivityMap;
+    private final TrackedJobs jobScheduledMap;
     private final long warningThreshold;
 
     @Autowired
@@ -58,8 +61,8 @@ public class ConsoleActivityMonitor {
         this.serverHealthService = serverHealthService;
         this.goConfigService = goConfigService;
         this.consoleService = consoleService;
-        this.jobLastActivityMap = new ConcurrentHashMap<>();
-        this.jobScheduledMap = new ConcurrentHashMap<>();
+        this.jobLastActivityMap = new TrackedJobs();
+        this.jobScheduledMap = new TrackedJobs();
         this.warningThreshold = systemEnvironment.getUnresponsiveJobWarningThreshold();
         jobInstanceService.registerJobStateChangeListener(new ActiveJobListener(this));
         jobInstanceService.registerJobStateChangeListener(new ScheduledJobListener(this));
@@ -70,9 +73,9 @@ public class ConsoleActivityMonitor {
         for (JobInstance jobInstance : jobInstanceService.allRunningJobs()) {
             JobIdentifier jobIdentifier = jobInstance.getIdentifier();
             if (jobInstance.getState().isScheduled()) {
-                jobScheduledMap.put(jobIdentifier, now);
+                jobScheduledMap.track(jobIdentifier, now);
             } else if (jobInstance.getState().isActiveOnAgent()) {
-                jobLastActivityMap.put(jobIdentifier, now);
+                jobLastActivityMap.track(jobIdentifier, now);
             }
         }
         LOGGER.info("Found '{}' building jobs. Added them with '{}' as the last heard time", jobLastActivityMap.size(), new DateTime(now));
@@ -80,9 +83,14 @@ public class ConsoleActivityMonitor {
     }
 
     public void consoleUpdatedFor(JobIdentifier jobIdentifier) {
+        TrackedJob trackedJob = jobLastActivityMap.get(jobIdentifier);
+        if (trackedJob == null) {
+            return;
+        }
         long now = timeProvider.currentTimeMillis();
-        Long previously = jobLastActivityMap.replace(jobIdentifier, now);
-        if (previously != null && now - previously > warningThreshold) {
+        long previously = trackedJob.lastActivity;
+        trackedJob.lastActivity = now;
+        if (now - previously > warningThreshold) {
             removeHungJobWarning(jobIdentifier);
         }
     }
@@ -93,10 +101,10 @@ public class ConsoleActivityMonitor {
         checkForHungJobs(scheduleService, this.jobScheduledMap, currentTime, scheduledJobMessages());
     }
 
-    private void checkForHungJobs(ScheduleService scheduleService, ConcurrentMap<JobIdentifier, Long> jobActivityMap, long currentTime, LogMessages messages) {
-        for (Map.Entry<JobIdentifier, Long> jobTimeEntry : jobActivityMap.entrySet()) {
-            long difference = currentTime - jobTimeEntry.getValue();
-            JobIdentifier jobIdentifier = jobTimeEntry.getKey();
+    private void checkForHungJobs(ScheduleService scheduleService, TrackedJobs trackedJobs, long currentTime, LogMessages messages) {
+        for (TrackedJob trackedJob : trackedJobs.dueBy(currentTime)) {
+            long difference = currentTime - trackedJob.lastActivity;
+            JobIdentifier jobIdentifier = trackedJob.jobIdentifier;
             if (shouldCancelHungJob(jobIdentifier, difference)) {
                 scheduleService.cancelJob(jobIdentifier);
                 try {
@@ -104,17 +112,27 @@ public class ConsoleActivityMonitor {
                 } catch (Exception e) {
                     LOGGER.error("Failed to update console log with reason for cancelling hung job '{}'", jobIdentifier.buildLocator(), e);
                 }
-                jobActivityMap.remove(jobIdentifier);
+                trackedJobs.remove(trackedJob);
                 removeHungJobWarning(jobIdentifier);
                 LOGGER.info("Cancelled hung job '{}' as it was hung for more than '{}' minutes", jobIdentifier.buildLocator(), inMinutes(difference));
             } else if (difference > warningThreshold) {
                 LOGGER.info("Job '{}' hung for more than '{}' minutes", jobIdentifier.buildLocator(), inMinutes(difference));
                 removeHungJobWarning(jobIdentifier);
                 addJobHungWarning(jobIdentifier, difference, messages);
+                trackedJobs.checkAgainAt(trackedJob, currentTime);
+            } else {
+                trackedJobs.checkAgainAt(trackedJob, trackedJob.lastActivity + thresholdToCheckAgainAfter(jobIdentifier) + 1);
             }
         }
     }
 
+    private long thresholdToCheckAgainAfter(JobIdentifier jobIdentifier) {
+        if (goConfigService.canCancelJobIfHung(jobIdentifier)) {
+            return Math.min(warningThreshold, jobTerminationThreshold(jobIdentifier));
+        }
+        return warningThreshold;
+    }
+
     private void addJobHungWarning(JobIdentifier jobIdentifier, long difference, LogMessages messages) {
         String namespacedJob = format("%s/%s/%s", jobIdentifier.getPipelineName(), jobIdentifier.getStageName(), jobIdentifier.getBuildName());
         serverHealthService.update(ServerHealthState.warningWithHtml(
@@ -184,10 +202,9 @@ public class ConsoleActivityMonitor {
         public void jobStatusChanged(JobInstance job) {
             JobIdentifier identifier = job.getIdentifier();
             if (job.getState().isScheduled()) {
-                consoleActivityMonitor.jobScheduledMap.putIfAbsent(identifier, consoleActivityMonitor.timeProvider.currentTimeMillis());
+                consoleActivityMonitor.jobScheduledMap.track(identifier, consoleActivityMonitor.timeProvider.currentTimeMillis());
             } else if (job.getState().isActiveOnAgent() || job.isCompleted()) {
-                Long timestamp = consoleActivityMonitor.jobScheduledMap.remove(identifier);
-                if (timestamp != null) {
+                if (consoleActivityMonitor.jobScheduledMap.remove(identifier)) {
                     consoleActivityMonitor.removeHungJobWarning(identifier);
                 }
             }
@@ -205,11 +222,80 @@ public class ConsoleActivityMonitor {
         public void jobStatusChanged(JobInstance job) {
             JobIdentifier identifier = job.getIdentifier();
             if (job.getState().isBuilding()) {
-                consoleActivityMonitor.jobLastActivityMap.putIfAbsent(identifier, consoleActivityMonitor.timeProvider.currentTimeMillis());
+                consoleActivityMonitor.jobLastActivityMap.track(identifier, consoleActivityMonitor.timeProvider.currentTimeMillis());
             } else if (job.isCompleted() || job.isRescheduled()) {
                 consoleActivityMonitor.jobLastActivityMap.remove(identifier);
                 consoleActivityMonitor.removeHungJobWarning(identifier);
             }
         }
     }
+
+    private static final class TrackedJob {
+        private final JobIdentifier jobIdentifier;
+        private volatile long lastActivity;
+
+        private TrackedJob(JobIdentifier jobIdentifier, long lastActivity) {
+            this.jobIdentifier = jobIdentifier;
+            this.lastActivity = lastActivity;
+        }
+    }
+
+    private static final class Deadline {
+        private final TrackedJob trackedJob;
+        private final long checkAt;
+
+        private Deadline(TrackedJob trackedJob, long checkAt) {
+            this.trackedJob = trackedJob;
+            this.checkAt = checkAt;
+        }
+    }
+
+    /**
+     * Keeps every tracked job in a queue ordered by the earliest time it could need a warning or be cancelled, so that
+     * a timer tick only looks at jobs which are due. Console activity only moves a job's last activity time forward,
+     * so a due job is simply checked against its latest activity and put back in the queue if it is not overdue.
+     */
+    private static final class TrackedJobs {
+        private final ConcurrentMap<JobIdentifier, TrackedJob> jobs = new ConcurrentHashMap<>();
+        private final PriorityBlockingQueue<Deadline> deadlines = new PriorityBlockingQueue<>(64, Comparator.comparingLong(deadline -> deadline.checkAt));
+
+        void track(JobIdentifier jobIdentifier, long now) {
+            TrackedJob trackedJob = new TrackedJob(jobIdentifier, now);
+            if (jobs.putIfAbsent(jobIdentifier, trackedJob) == null) {
+                deadlines.add(new Deadline(trackedJob, now));
+            }
+        }
+
+        TrackedJob get(JobIdentifier jobIdentifier) {
+            return jobs.get(jobIdentifier);
+        }
+
+        boolean remove(JobIdentifier jobIdentifier) {
+            return jobs.remove(jobIdentifier) != null;
+        }
+
+        void remove(TrackedJob trackedJob) {
+            jobs.remove(trackedJob.jobIdentifier, trackedJob);
+        }
+
+        void checkAgainAt(TrackedJob trackedJob, long checkAt) {
+            deadlines.add(new Deadline(trackedJob, checkAt));
+        }
+
+        synchronized List<TrackedJob> dueBy(long now) {
+            List<TrackedJob> due = new ArrayList<>();
+            Deadline deadline;
+            while ((deadline = deadlines.peek()) != null && deadline.checkAt <= now) {
+                deadlines.poll();
+                if (jobs.get(deadline.trackedJob.jobIdentifier) == deadline.trackedJob) {
+                    due.add(deadline.trackedJob);
+                }
+            }
+            return due;
+        }
+
+        int size() {
+            return jobs.size();
+        }
+    }
 }
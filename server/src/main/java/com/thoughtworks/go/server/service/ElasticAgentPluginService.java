@@ -37,6 +37,7 @@ import com.thoughtworks.go.server.domain.ElasticAgentMetadata;
 import com.thoughtworks.go.server.exceptions.RulesViolationException;
 import com.thoughtworks.go.server.messaging.JobStatusMessage;
 import com.thoughtworks.go.server.messaging.JobStatusTopic;
+import com.thoughtworks.go.server.messaging.elasticagents.BatchCreateAgentMessage;
 import com.thoughtworks.go.server.messaging.elasticagents.CreateAgentMessage;
 import com.thoughtworks.go.server.messaging.elasticagents.CreateAgentQueueHandler;
 import com.thoughtworks.go.server.messaging.elasticagents.ServerPingMessage;
@@ -46,6 +47,7 @@ import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
 import com.thoughtworks.go.util.TimeProvider;
 import com.thoughtworks.go.utils.Timeout;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -70,6 +72,7 @@ import static java.util.stream.Collectors.toList;
 @Service
 public class ElasticAgentPluginService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ElasticAgentPluginService.class);
+    private static final int MAX_JOBS_PER_CREATE_AGENTS_REQUEST = 50;
 
     private final PluginManager pluginManager;
     private ElasticAgentPluginRegistry elasticAgentPluginRegistry;
@@ -210,6 +213,8 @@ public class ElasticAgentPluginService {
 //      messageTimeToLive is lesser than the starvation threshold to ensure there are no duplicate create agent message
         long messageTimeToLive = goConfigService.elasticJobStarvationThreshold() - 10000;
 
+        // plans of plugins which can create agents in a batch, grouped by cluster profile, elastic profile and environment
+        Map<List<Object>, List<JobPlan>> batchedPlans = new LinkedHashMap<>();
         for (JobPlan plan : plansThatRequireElasticAgent) {
             jobCreationTimeMap.put(plan.getJobId(), timeProvider.currentTimeMillis());
             ElasticProfile elasticProfile = plan.getElasticProfile();
@@ -226,8 +231,12 @@ public class ElasticAgentPluginService {
                 String environment = environmentConfigService.envForPipeline(plan.getPipelineName());
                 try {
                     resolveSecrets(clusterProfile, elasticProfile);
-                    createAgentQueue.post(new CreateAgentMessage(ephemeralAutoRegisterKeyService.autoRegisterKey(), environment, elasticProfile, clusterProfile, jobIdentifier), messageTimeToLive);
-                    serverHealthService.removeByScope(scopeForJob(jobIdentifier));
+                    if (elasticAgentPluginRegistry.supportsBatchedAgentCreation(clusterProfile.getPluginId())) {
+                        batchedPlans.computeIfAbsent(Arrays.asList(clusterProfile, elasticProfile, environment), key -> new ArrayList<>()).add(plan);
+                    } else {
+                        createAgentQueue.post(new CreateAgentMessage(ephemeralAutoRegisterKeyService.autoRegisterKey(), environment, elasticProfile, clusterProfile, jobIdentifier), messageTimeToLive);
+                        serverHealthService.removeByScope(scopeForJob(jobIdentifier));
+                    }
                 } catch (RulesViolationException | SecretResolutionFailureException e) {
                     JobInstance jobInstance = jobInstanceSqlMapDao.buildById(plan.getJobId());
                     String failureMessage = format("\nThis job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.\nReasons: %s", e.getMessage());
@@ -245,6 +254,29 @@ public class ElasticAgentPluginService {
                 LOGGER.error(description);
             }
         }
+
+        for (List<JobPlan> plans : batchedPlans.values()) {
+            for (List<JobPlan> batch : ListUtils.partition(plans, MAX_JOBS_PER_CREATE_AGENTS_REQUEST)) {
+                postCreateAgentMessage(batch, messageTimeToLive);
+            }
+        }
+    }
+
+    private void postCreateAgentMessage(List<JobPlan> batch, long messageTimeToLive) {
+        JobPlan first = batch.get(0);
+        String environment = environmentConfigService.envForPipeline(first.getPipelineName());
+        if (batch.size() == 1) {
+            createAgentQueue.post(new CreateAgentMessage(ephemeralAutoRegisterKeyService.autoRegisterKey(), environment, first.getElasticProfile(), first.getClusterProfile(), first.getIdentifier()), messageTimeToLive);
+        } else {
+            Map<JobIdentifier, String> autoRegisterKeys = new LinkedHashMap<>();
+            for (JobPlan plan : batch) {
+                autoRegisterKeys.put(plan.getIdentifier(), ephemeralAutoRegisterKeyService.autoRegisterKey());
+            }
+            createAgentQueue.post(new BatchCreateAgentMessage(environment, first.getElasticProfile(), first.getClusterProfile(), autoRegisterKeys), messageTimeToLive);
+        }
+        for (JobPlan plan : batch) {
+            serverHealthService.removeByScope(scopeForJob(plan.getIdentifier()));
+        }
     }
 
     public boolean shouldAssignWork(ElasticAgentMetadata metadata, String environment, ElasticProfile elasticProfile, ClusterProfile clusterProfile, JobIdentifier identifier) {
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.NotificationFilter;
+import com.thoughtworks.go.domain.User;
+import com.thoughtworks.go.domain.Users;
+
+import java.util.*;
+
+import static com.thoughtworks.go.util.GoConstants.ANY_PIPELINE;
+import static com.thoughtworks.go.util.GoConstants.ANY_STAGE;
+
+/**
+ * Understands which of the notification subscribing users have a filter for a given pipeline and stage, so that
+ * finding the subscribers of a stage is a lookup rather than a scan over every filter of every user.
+ */
+class NotificationSubscriptions {
+    private final List<User> users;
+    private final Map<String, Map<String, BitSet>> subscribersByPipelineAndStage = new HashMap<>();
+
+    NotificationSubscriptions(Users subscribingUsers) {
+        this.users = new ArrayList<>(subscribingUsers);
+        for (int position = 0; position < users.size(); position++) {
+            for (NotificationFilter filter : users.get(position).getNotificationFilters()) {
+                subscribersByPipelineAndStage
+                        .computeIfAbsent(filter.getPipelineName(), pipeline -> new HashMap<>())
+                        .computeIfAbsent(filter.getStageName(), stage -> new BitSet())
+                        .set(position);
+            }
+        }
+    }
+
+    Users subscribersOf(String pipelineName, String stageName) {
+        BitSet positions = new BitSet();
+        addSubscribers(positions, pipelineName, stageName);
+        addSubscribers(positions, pipelineName, ANY_STAGE);
+        addSubscribers(positions, ANY_PIPELINE, stageName);
+        addSubscribers(positions, ANY_PIPELINE, ANY_STAGE);
+
+        List<User> subscribers = new ArrayList<>(positions.cardinality());
+        positions.stream().forEach(position -> subscribers.add(users.get(position)));
+        return new Users(subscribers);
+    }
+
+    private void addSubscribers(BitSet positions, String pipelineName, String stageName) {
+        BitSet subscribers = subscribersByPipelineAndStage.getOrDefault(pipelineName, Collections.emptyMap()).get(stageName);
+        if (subscribers != null) {
+            positions.or(subscribers);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.SecretConfig;
+import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.plugin.domain.secrets.Secret;
+import com.thoughtworks.go.server.initializers.Initializer;
+import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Keeps secrets looked up from secrets plugins in memory for a short while, so that many jobs (or materials) referring
+ * to the same secrets do not each make a round trip to the plugin and its secret store. Concurrent lookups of the same
+ * key share a single plugin call. Entries are keyed by the secret config itself, so editing a secret config never
+ * serves values resolved with its older version; entries are also dropped as soon as a secret config changes.
+ * <p>
+ * Values are kept for {@code go.secrets.resolved.cache.ttl.seconds}, 5 seconds by default. Setting it to 0 turns
+ * caching off, while concurrent lookups of the same key still share a plugin call.
+ * <p>
+ * Resolved values are never persisted. Rules are checked by callers before secrets are resolved, for every entity, so
+ * a cached value is only ever handed out to entities allowed to refer to the secret config.
+ */
+@Component
+public class ResolvedSecretsCache implements ConfigChangedListener, Initializer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedSecretsCache.class);
+    private final ConcurrentMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final GoConfigService goConfigService;
+    private final SystemEnvironment systemEnvironment;
+    private final Clock clock;
+
+    @Autowired
+    public ResolvedSecretsCache(GoConfigService goConfigService, SystemEnvironment systemEnvironment, Clock clock) {
+        this.goConfigService = goConfigService;
+        this.systemEnvironment = systemEnvironment;
+        this.clock = clock;
+    }
+
+    @Override
+    public void initialize() {
+        goConfigService.register(this);
+        goConfigService.register(new SecretConfigChangedListener());
+    }
+
+    @Override
+    public void startDaemon() {
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig) {
+        entries.clear();
+    }
+
+    /**
+     * @param lookup called with the keys which are neither cached nor being looked up by another thread
+     * @return the resolved value of each key the secrets plugin returned a value for
+     */
+    public Map<String, String> resolve(SecretConfig secretConfig, Set<String> keys, Function<Set<String>, List<Secret>> lookup) {
+        Map<String, CompletableFuture<String>> pending = new LinkedHashMap<>();
+        Map<String, CompletableFuture<String>> ownedByThisThread = new LinkedHashMap<>();
+
+        for (String key : keys) {
+            CacheKey cacheKey = new CacheKey(secretConfig, key);
+            CacheEntry entry = entries.compute(cacheKey, (k, existing) -> existing == null || existing.hasExpired() ? new CacheEntry() : existing);
+            if (entry.claim()) {
+                ownedByThisThread.put(key, entry.value);
+            }
+            pending.put(key, entry.value);
+        }
+
+        if (!ownedByThisThread.isEmpty()) {
+            lookupAndComplete(secretConfig, ownedByThisThread, lookup);
+        }
+
+        Map<String, String> resolved = new HashMap<>();
+        pending.forEach((key, value) -> {
+            String secretValue = await(value);
+            if (secretValue != null) {
+                resolved.put(key, secretValue);
+            }
+        });
+        return resolved;
+    }
+
+    private void lookupAndComplete(SecretConfig secretConfig, Map<String, CompletableFuture<String>> toLookup, Function<Set<String>, List<Secret>> lookup) {
+        try {
+            List<Secret> secrets = lookup.apply(toLookup.keySet());
+            Map<String, String> values = new HashMap<>();
+            secrets.forEach(secret -> values.put(secret.getKey(), secret.getValue()));
+
+            long ttl = systemEnvironment.getResolvedSecretsCacheTtlInSeconds() * 1000L;
+            toLookup.forEach((key, value) -> {
+                CacheKey cacheKey = new CacheKey(secretConfig, key);
+                String secretValue = values.get(key);
+                if (ttl <= 0 || secretValue == null) {
+                    entries.computeIfPresent(cacheKey, (k, entry) -> entry.value == value ? null : entry);
+                } else {
+                    entries.computeIfPresent(cacheKey, (k, entry) -> entry.value == value ? entry.expireAt(clock.currentTimeMillis() + ttl) : entry);
+                }
+                value.complete(secretValue);
+            });
+        } catch (RuntimeException e) {
+            LOGGER.debug("Failed to look up secrets '{}' using secret config '{}'", toLookup.keySet(), secretConfig.getId(), e);
+            toLookup.forEach((key, value) -> {
+                entries.computeIfPresent(new CacheKey(secretConfig, key), (k, entry) -> entry.value == value ? null : entry);
+                value.completeExceptionally(e);
+            });
+            throw e;
+        }
+    }
+
+    private String await(CompletableFuture<String> value) {
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    class SecretConfigChangedListener extends EntityConfigChangedListener<SecretConfig> {
+        @Override
+        public void onEntityConfigChange(SecretConfig secretConfig) {
+            entries.keySet().removeIf(cacheKey -> Objects.equals(cacheKey.secretConfig.getId(), secretConfig.getId()));
+        }
+    }
+
+    private static class CacheKey {
+        private final SecretConfig secretConfig;
+        private final String key;
+
+        private CacheKey(SecretConfig secretConfig, String key) {
+            this.secretConfig = secretConfig;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return Objects.equals(secretConfig, cacheKey.secretConfig) && Objects.equals(key, cacheKey.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(secretConfig, key);
+        }
+    }
+
+    private class CacheEntry {
+        private final CompletableFuture<String> value = new CompletableFuture<>();
+        private volatile boolean claimed;
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private synchronized boolean claim() {
+            if (claimed) {
+                return false;
+            }
+            claimed = true;
+            return true;
+        }
+
+        private CacheEntry expireAt(long expiresAt) {
+            this.expiresAt = expiresAt;
+            return this;
+        }
+
+        private boolean hasExpired() {
+            return value.isDone() && clock.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
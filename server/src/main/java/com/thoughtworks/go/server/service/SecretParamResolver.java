@@ -36,7 +36,6 @@ import org.springframework.stereotype.Component;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -48,12 +47,14 @@ public class SecretParamResolver {
     private SecretsExtension secretsExtension;
     private GoConfigService goConfigService;
     private RulesService rulesService;
+    private ResolvedSecretsCache resolvedSecretsCache;
 
     @Autowired
-    public SecretParamResolver(SecretsExtension secretsExtension, GoConfigService goConfigService, RulesService rulesService) {
+    public SecretParamResolver(SecretsExtension secretsExtension, GoConfigService goConfigService, RulesService rulesService, ResolvedSecretsCache resolvedSecretsCache) {
         this.secretsExtension = secretsExtension;
         this.goConfigService = goConfigService;
         this.rulesService = rulesService;
+        this.resolvedSecretsCache = resolvedSecretsCache;
     }
 
     public void resolve(List<Material> materials) {
@@ -184,7 +185,11 @@ public class SecretParamResolver {
             final SecretConfig secretConfig = goConfigService.cruiseConfig().getSecretConfigs().find(secretConfigId);
 
             LOGGER.debug("Resolving secret params '{}' using secret config '{}'", secretParamMap.keySet(), secretConfig.getId());
-            List<Secret> resolvedSecrets = secretsExtension.lookupSecrets(secretConfig.getPluginId(), secretConfig, secretParamMap.keySet());
+            Map<String, String> resolvedSecrets = resolvedSecretsCache.resolve(secretConfig, secretParamMap.keySet(), keysToLookup -> {
+                List<Secret> secrets = secretsExtension.lookupSecrets(secretConfig.getPluginId(), secretConfig, keysToLookup);
+                LOGGER.debug("Looked up '{}' secrets from plugin for keys '{}'", secrets.size(), keysToLookup);
+                return secrets;
+            });
             LOGGER.debug("Resolved secret size '{}'", resolvedSecrets.size());
 
             LOGGER.debug("Updating secret params '{}' with values.", secretParamMap.keySet());
@@ -193,7 +198,7 @@ public class SecretParamResolver {
         };
     }
 
-    private Consumer<Secret> assignValue(Map<String, List<SecretParam>> secretParamMap) {
-        return secret -> secretParamMap.get(secret.getKey()).forEach(secretParam -> secretParam.setValue(secret.getValue()));
+    private BiConsumer<String, String> assignValue(Map<String, List<SecretParam>> secretParamMap) {
+        return (key, value) -> secretParamMap.get(key).forEach(secretParam -> secretParam.setValue(value));
     }
 }
@@ -49,6 +49,16 @@ public class ServerSubprocessExecutionContext implements SubprocessExecutionCont
         return systemEnvironment.get(SystemEnvironment.GO_SERVER_SHALLOW_CLONE);
     }
 
+    @Override
+    public boolean shouldProbeGitRemoteRef() {
+        return systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_PROBE_REMOTE_REF);
+    }
+
+    @Override
+    public boolean isBootstrapCheckout() {
+        return false;
+    }
+
     @Override
     public boolean isServer() {
         return true;
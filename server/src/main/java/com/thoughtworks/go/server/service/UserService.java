@@ -65,6 +65,9 @@ public class UserService {
 
     private final Object disableUserMutex = new Object();
     private final Object enableUserMutex = new Object();
+    private final Object notificationSubscriptionsMutex = new Object();
+    private volatile NotificationSubscriptions notificationSubscriptions;
+    private long notificationSubscriptionsGeneration;
 
     @Autowired
     public UserService(UserDao userDao,
@@ -91,6 +94,7 @@ public class UserService {
                     userDao.disableUsers(usersToBeDisabled);
                 }
             });
+            notificationSubscriptionsChanged();
         }
     }
 
@@ -169,6 +173,7 @@ public class UserService {
             Set<String> potentialEnabledUsers = new HashSet<>(toUserNames(userDao.enabledUsers()));
             potentialEnabledUsers.addAll(usernames);
             userDao.enableUsers(usernames);
+            notificationSubscriptionsChanged();
         }
     }
 
@@ -268,6 +273,7 @@ public class UserService {
     public void deleteUser(String username, String byWhom, HttpLocalizedOperationResult result) {
         try {
             userDao.deleteUser(username, byWhom);
+            notificationSubscriptionsChanged();
             result.setMessage(EntityType.User.deleteSuccessful(username));
         } catch (RecordNotFoundException e) {
             result.notFound(EntityType.User.notFoundMessage(username), general(GLOBAL));
@@ -281,6 +287,7 @@ public class UserService {
             boolean isValid = performUserDeletionValidation(userNames, result);
             if (isValid) {
                 userDao.deleteUsers(userNames, byWhom);
+                notificationSubscriptionsChanged();
                 result.setMessage(EntityType.User.deleteSuccessful(userNames));
             }
         }
@@ -431,10 +438,12 @@ public class UserService {
                     assertUnknownUsersAreAllowedToLogin(user.getUsername(), authConfig);
                     LOGGER.debug("Adding user [{}] to the DB.", user.getName());
                     userDao.saveOrUpdate(user);
+                    notificationSubscriptionsChanged();
                 } else if (hasUserChanged(user, userFromDB)) {
                     userFromDB.setDisplayName(user.getDisplayName());
                     userFromDB.setEmail(user.getEmail());
                     userDao.saveOrUpdate(userFromDB);
+                    notificationSubscriptionsChanged();
                 }
             }
         }
@@ -456,6 +465,7 @@ public class UserService {
         validate(user);
         synchronized (enableUserMutex) {
             userDao.saveOrUpdate(user);
+            notificationSubscriptionsChanged();
         }
     }
 
@@ -481,6 +491,7 @@ public class UserService {
                 }
             }
         });
+        notificationSubscriptionsChanged();
     }
 
     public void addNotificationFilter(final long userId, final NotificationFilter filter) {
@@ -501,6 +512,7 @@ public class UserService {
                 }
             }
         });
+        notificationSubscriptionsChanged();
     }
 
     public void updateNotificationFilter(final long userId, final NotificationFilter notificationFilter) {
@@ -521,6 +533,7 @@ public class UserService {
                 }
             }
         });
+        notificationSubscriptionsChanged();
     }
 
     public void removeNotificationFilter(final long userId, final long filterId) {
@@ -532,13 +545,38 @@ public class UserService {
                 userDao.saveOrUpdate(user);
             }
         });
-
+        notificationSubscriptionsChanged();
     }
 
     public Users findValidSubscribers(final StageConfigIdentifier identifier) {
-        Users users = userDao.findNotificationSubscribingUsers();
-        return users.filter(user -> user.hasSubscribedFor(identifier.getPipelineName(), identifier.getStageName()) &&
-            securityService.hasViewPermissionForPipeline(user.getUsername(), identifier.getPipelineName()));
+        Users users = notificationSubscriptions().subscribersOf(identifier.getPipelineName(), identifier.getStageName());
+        return users.filter(user -> securityService.hasViewPermissionForPipeline(user.getUsername(), identifier.getPipelineName()));
+    }
+
+    private NotificationSubscriptions notificationSubscriptions() {
+        NotificationSubscriptions subscriptions = notificationSubscriptions;
+        if (subscriptions != null) {
+            return subscriptions;
+        }
+        long generation;
+        synchronized (notificationSubscriptionsMutex) {
+            generation = notificationSubscriptionsGeneration;
+        }
+        subscriptions = new NotificationSubscriptions(userDao.findNotificationSubscribingUsers());
+        synchronized (notificationSubscriptionsMutex) {
+            //a user changed while the subscriptions were being loaded, so they may already be stale
+            if (generation == notificationSubscriptionsGeneration) {
+                notificationSubscriptions = subscriptions;
+            }
+        }
+        return subscriptions;
+    }
+
+    private void notificationSubscriptionsChanged() {
+        synchronized (notificationSubscriptionsMutex) {
+            notificationSubscriptionsGeneration++;
+            notificationSubscriptions = null;
+        }
     }
 
     public void validate(User user) throws ValidationException {
@@ -600,6 +638,7 @@ public class UserService {
                     return;
                 }
                 userDao.saveOrUpdate(user);
+                notificationSubscriptionsChanged();
                 result.setMessage("User '" + user.getName() + "' successfully added.");
             }
         }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.support;
+
+import com.thoughtworks.go.server.messaging.notifications.PluginNotificationBatcher;
+import com.thoughtworks.go.server.messaging.notifications.PluginNotificationQueueMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+public class PluginNotificationQueueInformationProvider implements ServerInfoProvider {
+    private final PluginNotificationQueueMetrics queueMetrics;
+    private final PluginNotificationBatcher batcher;
+
+    @Autowired
+    public PluginNotificationQueueInformationProvider(PluginNotificationQueueMetrics queueMetrics, PluginNotificationBatcher batcher) {
+        this.queueMetrics = queueMetrics;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public double priority() {
+        return 14.5;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        Map<String, Map<String, Object>> plugins = new TreeMap<>(queueMetrics.asJson());
+        batcher.pendingNotificationCounts().forEach((pluginId, count) ->
+                plugins.computeIfAbsent(pluginId, id -> new LinkedHashMap<>()).put("Notifications waiting to be batched", count));
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("plugins", plugins);
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Plugin notification queues";
+    }
+}
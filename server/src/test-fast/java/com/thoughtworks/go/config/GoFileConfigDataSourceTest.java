@@ -16,6 +16,7 @@
 package com.thoughtworks.go.config;
 
 import com.thoughtworks.go.ClearSingleton;
+import com.thoughtworks.go.config.commands.PipelineScopedEntityConfigUpdateCommand;
 import com.thoughtworks.go.config.exceptions.GoConfigInvalidException;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.config.remote.PartialConfig;
@@ -25,6 +26,7 @@ import com.thoughtworks.go.domain.ConfigErrors;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.helper.MaterialConfigsMother;
 import com.thoughtworks.go.helper.PartialConfigMother;
+import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.service.ConfigRepository;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -278,4 +280,26 @@ public class GoFileConfigDataSourceTest {
         assertThat(listArgumentCaptor.getValue(), is(lastValidPartials));
         assertThat(stringArgumentCaptor.getValue(), is("Filesystem"));
     }
+
+    @Test
+    public void shouldNotChangeOtherPipelinesOfTheLiveConfigWhenAPipelineSaveFailsWithLastKnownPartials() throws Exception {
+        BasicCruiseConfig configForEdit = GoConfigMother.configWithPipelines("p1", "p2");
+        PipelineConfig liveP2 = configForEdit.pipelineConfigByName(new CaseInsensitiveString("p2"));
+        String labelTemplate = liveP2.getLabelTemplate();
+        PipelineScopedEntityConfigUpdateCommand<PipelineConfig> updatingCommand = mock(PipelineScopedEntityConfigUpdateCommand.class);
+        when(updatingCommand.pipelineName()).thenReturn(new CaseInsensitiveString("p1"));
+        when(updatingCommand.isValid(any())).thenReturn(false);
+        when(cachedGoPartials.lastValidPartials()).thenReturn(new ArrayList<>());
+        when(cachedGoPartials.lastKnownPartials()).thenReturn(asList(PartialConfigMother.withPipeline("remote")));
+        doAnswer(invocation -> {
+            CruiseConfig validated = invocation.getArgument(0);
+            validated.pipelineConfigByName(new CaseInsensitiveString("p2")).setLabelTemplate("changed-while-validating-${COUNT}");
+            throw new RuntimeException("invalid config");
+        }).when(xmlWriter).write(any(CruiseConfig.class), any(), eq(false));
+
+        assertThatThrownBy(() -> dataSource.writeEntityWithLock(updatingCommand, new GoConfigHolder(configForEdit, configForEdit), new Username("user")))
+                .isInstanceOf(GoConfigInvalidException.class);
+
+        assertThat(liveP2.getLabelTemplate(), is(labelTemplate));
+    }
 }
@@ -27,12 +27,20 @@ import com.thoughtworks.go.config.update.PartialConfigUpdateCommand;
 import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.server.service.ConfigRepoService;
 import com.thoughtworks.go.server.service.GoConfigService;
+import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.serverhealth.ServerHealthState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
 import static com.thoughtworks.go.helper.PartialConfigMother.*;
@@ -241,6 +249,147 @@ public class PartialConfigServiceTest {
         verify(goConfigService).updateConfig(any(UpdateConfigCommand.class));
     }
 
+    @Nested
+    class BatchedMerges {
+        private final GoConfigCloner cloner = new GoConfigCloner();
+        private final CountDownLatch firstSaveStarted = new CountDownLatch(1);
+        private final CountDownLatch releaseFirstSave = new CountDownLatch(1);
+        private final AtomicInteger saves = new AtomicInteger();
+        private volatile CruiseConfig savedConfig = new BasicCruiseConfig();
+        private ConfigRepoConfig repoA;
+        private ConfigRepoConfig repoB;
+        private ConfigRepoConfig repoC;
+
+        @BeforeEach
+        void setup() {
+            repoA = referringToAnyGroup(ConfigRepoConfig.createConfigRepoConfig(git("url-a"), "plugin", "id-a"));
+            repoB = referringToAnyGroup(ConfigRepoConfig.createConfigRepoConfig(git("url-b"), "plugin", "id-b"));
+            repoC = referringToAnyGroup(ConfigRepoConfig.createConfigRepoConfig(git("url-c"), "plugin", "id-c"));
+            cruiseConfig.setConfigRepos(new ConfigReposConfig(repoA, repoB, repoC));
+            configWatchList.onConfigChange(cruiseConfig);
+        }
+
+        @Test
+        void mergesPartialsArrivingDuringAMergeInOneConfigUpdate() throws Exception {
+            stubConfigSave();
+            PartialConfig b = withPipeline("b", new RepoConfigOrigin(repoB, "1"));
+            PartialConfig c = withPipeline("c", new RepoConfigOrigin(repoC, "1"));
+
+            mergeWhileAnotherMergeIsInProgress(b, c);
+
+            verify(goConfigService, times(2)).updateConfig(any(UpdateConfigCommand.class));
+            assertEquals(3, savedConfig.getPartials().size());
+            assertEquals(3, cachedGoPartials.lastValidPartials().size());
+            assertSame(b, cachedGoPartials.getValid(fingerprint(repoB)));
+            assertSame(c, cachedGoPartials.getValid(fingerprint(repoC)));
+            verify(serverHealthService, never()).update(any(ServerHealthState.class));
+        }
+
+        @Test
+        void keepsLastValidPartialOfAnInvalidRepoWhileMergingTheRestOfItsBatch() throws Exception {
+            stubConfigSave();
+            PartialConfig previousC = withPipeline("c", new RepoConfigOrigin(repoC, "1"));
+            cachedGoPartials.cacheAsLastKnown(fingerprint(repoC), previousC);
+            cachedGoPartials.markAllKnownAsValid();
+            PartialConfig b = withPipeline("b", new RepoConfigOrigin(repoB, "1"));
+            PartialConfig invalidC = withPipeline("invalid", new RepoConfigOrigin(repoC, "2"));
+
+            mergeWhileAnotherMergeIsInProgress(b, invalidC);
+
+            // the first merge, the batch, and then each partial of the batch on its own
+            verify(goConfigService, times(4)).updateConfig(any(UpdateConfigCommand.class));
+            assertSame(b, cachedGoPartials.getValid(fingerprint(repoB)));
+            assertSame(previousC, cachedGoPartials.getValid(fingerprint(repoC)));
+            assertSame(invalidC, cachedGoPartials.getKnown(fingerprint(repoC)));
+
+            ArgumentCaptor<ServerHealthState> error = ArgumentCaptor.forClass(ServerHealthState.class);
+            verify(serverHealthService).update(error.capture());
+            assertEquals(HealthStateScope.forPartialConfigRepo(repoC), error.getValue().getType().getScope());
+            assertTrue(error.getValue().getDescription().contains("Pipeline 'invalid' is invalid"));
+        }
+
+        @Test
+        void mergesPartialsOneAtATimeWhenTheBatchCannotBeSaved() throws Exception {
+            stubConfigSave(2);
+            PartialConfig b = withPipeline("b", new RepoConfigOrigin(repoB, "1"));
+            PartialConfig c = withPipeline("c", new RepoConfigOrigin(repoC, "1"));
+
+            mergeWhileAnotherMergeIsInProgress(b, c);
+
+            verify(goConfigService, times(4)).updateConfig(any(UpdateConfigCommand.class));
+            assertEquals(3, savedConfig.getPartials().size());
+            assertSame(b, cachedGoPartials.getValid(fingerprint(repoB)));
+            assertSame(c, cachedGoPartials.getValid(fingerprint(repoC)));
+            verify(serverHealthService, never()).update(any(ServerHealthState.class));
+        }
+
+        private void mergeWhileAnotherMergeIsInProgress(PartialConfig b, PartialConfig c) throws Exception {
+            Thread first = merge(repoA, withPipeline("a", new RepoConfigOrigin(repoA, "1")));
+            assertTrue(firstSaveStarted.await(10, TimeUnit.SECONDS));
+
+            Thread second = merge(repoB, b);
+            Thread third = merge(repoC, c);
+            waitUntilWaitingToMerge(second);
+            waitUntilWaitingToMerge(third);
+            releaseFirstSave.countDown();
+
+            first.join(10000);
+            second.join(10000);
+            third.join(10000);
+        }
+
+        private Thread merge(ConfigRepoConfig repo, PartialConfig partial) {
+            Thread thread = new Thread(() -> service.onSuccessPartialConfig(repo, partial));
+            thread.start();
+            return thread;
+        }
+
+        private void waitUntilWaitingToMerge(Thread thread) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!(thread.getState() == Thread.State.BLOCKED && "updateConfigInBatch".equals(thread.getStackTrace()[0].getMethodName()))) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Timed out waiting for " + thread.getName() + " to wait for the merge in progress");
+                }
+                Thread.sleep(10);
+            }
+        }
+
+        // Saves the way the config dao does: the update is applied to a copy, which replaces the saved config only if it
+        // is valid. The first save waits to be released, so that other partials pile up behind it.
+        private void stubConfigSave(Integer... failingSaves) {
+            List<Integer> failing = Arrays.asList(failingSaves);
+            when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+                int save = saves.incrementAndGet();
+                if (save == 1) {
+                    firstSaveStarted.countDown();
+                    releaseFirstSave.await(10, TimeUnit.SECONDS);
+                }
+                CruiseConfig updated = ((UpdateConfigCommand) invocation.getArgument(0)).update(cloner.deepClone(savedConfig));
+                if (failing.contains(save)) {
+                    throw new RuntimeException("Could not save config");
+                }
+                for (PartialConfig partial : updated.getPartials()) {
+                    if (partial.getGroups().first().hasPipeline(new CaseInsensitiveString("invalid"))) {
+                        throw new RuntimeException("Pipeline 'invalid' is invalid");
+                    }
+                }
+                savedConfig = updated;
+                return ConfigSaveState.UPDATED;
+            });
+        }
+
+        private ConfigRepoConfig referringToAnyGroup(ConfigRepoConfig repo) {
+            Rules rules = new Rules();
+            rules.add(new Allow("refer", SupportedEntity.PIPELINE_GROUP.getType(), "*"));
+            repo.setRules(rules);
+            return repo;
+        }
+
+        private String fingerprint(ConfigRepoConfig repo) {
+            return repo.getRepo().getFingerprint();
+        }
+    }
+
     @Nested
     class WatchList {
         private ScmMaterialConfig material;
@@ -217,6 +217,16 @@ public class GoCacheTest {
         assertThat(goCache.get("foo"), is(nullValue()));
     }
 
+    @Test
+    public void shouldCountTheSubKeysOfAParentKey() {
+        assertThat(goCache.subKeyCount("foo"), is(0));
+        goCache.put("foo", "bar", "baz");
+        goCache.put("foo", "baz", "quux");
+        assertThat(goCache.subKeyCount("foo"), is(2));
+        goCache.remove("foo", "baz");
+        assertThat(goCache.subKeyCount("foo"), is(1));
+    }
+
     @Test
     public void put_shouldNotAllowAdditionOfBaseAndSubKeyPairThatUserInternalDemarkator() {
         try {
@@ -125,6 +125,8 @@ public class ApplicationInitializerTest {
     @Mock
     private EntityHashingService entityHashingService;
     @Mock
+    private ResolvedSecretsCache resolvedSecretsCache;
+    @Mock
     private RevokeStaleAccessTokenService revokeStaleAccessTokenService;
     @Mock
     private DependencyMaterialUpdateNotifier dependencyMaterialUpdateNotifier;
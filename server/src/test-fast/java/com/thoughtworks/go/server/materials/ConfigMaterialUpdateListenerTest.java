@@ -26,6 +26,7 @@ import com.thoughtworks.go.domain.materials.Revision;
 import com.thoughtworks.go.domain.materials.TestSubprocessExecutionContext;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.MaterialService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -62,7 +63,8 @@ public class ConfigMaterialUpdateListenerTest {
         when(materialRepository.findLatestModification(material)).thenReturn(mods);
 
         configUpdater = new ConfigMaterialUpdateListener(repoConfigDataSource, materialRepository,
-                topic, materialService, new TestSubprocessExecutionContext());
+                topic, materialService, new TestSubprocessExecutionContext(),
+                new ConfigRepoParseScheduler(null, null, null, mock(SystemEnvironment.class)));
     }
 
     private MaterialRevisions revisions(Material material, Modification modification) {
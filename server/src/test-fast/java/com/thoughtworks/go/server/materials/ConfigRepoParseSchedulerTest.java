@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.config.GoConfigRepoConfigDataSource;
+import com.thoughtworks.go.config.GoConfigWatchList;
+import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConfigRepoParseSchedulerTest {
+    @Mock(lenient = true)
+    private GoConfigWatchList configWatchList;
+    @Mock(lenient = true)
+    private GoConfigRepoConfigDataSource repoConfigDataSource;
+    @Mock(lenient = true)
+    private ServerHealthService serverHealthService;
+    @Mock(lenient = true)
+    private SystemEnvironment systemEnvironment;
+
+    @BeforeEach
+    void setUp() {
+        when(configWatchList.getConfigRepoForMaterial(any())).thenAnswer(invocation -> ConfigRepoConfig.createConfigRepoConfig(invocation.getArgument(0), "yaml.config.plugin", "repo"));
+    }
+
+    @Test
+    void shouldParseOnCallingThreadWhenNoParseThreadsAreConfigured() {
+        when(systemEnvironment.getNumberOfConfigRepoParseThreads()).thenReturn(0);
+        ConfigRepoParseScheduler scheduler = new ConfigRepoParseScheduler(configWatchList, repoConfigDataSource, serverHealthService, systemEnvironment);
+        Thread caller = Thread.currentThread();
+        AtomicInteger ranOnCaller = new AtomicInteger();
+
+        scheduler.schedule(git("url"), () -> {
+            if (Thread.currentThread() == caller) {
+                ranOnCaller.incrementAndGet();
+            }
+        });
+
+        assertThat(ranOnCaller.get(), is(1));
+        verifyNoInteractions(serverHealthService);
+    }
+
+    @Test
+    void shouldNotParseMoreThanAllowedReposOfAPluginAtATime() throws InterruptedException {
+        when(systemEnvironment.getNumberOfConfigRepoParseThreads()).thenReturn(4);
+        when(systemEnvironment.getNumberOfConfigRepoParseThreadsPerPlugin()).thenReturn(1);
+        ConfigRepoParseScheduler scheduler = new ConfigRepoParseScheduler(configWatchList, repoConfigDataSource, serverHealthService, systemEnvironment);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            MaterialConfig material = git("url-" + i);
+            scheduler.schedule(material, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ignored) {
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(maxRunning.get(), is(1));
+        verify(serverHealthService, timeout(1000).atLeastOnce()).removeByScope(ConfigRepoParseScheduler.PROGRESS_SCOPE);
+    }
+}
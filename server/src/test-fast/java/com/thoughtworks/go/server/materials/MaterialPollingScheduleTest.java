@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.domain.materials.Material;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.helper.MaterialsMother;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.joda.time.DateTimeUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MaterialPollingScheduleTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final long NOW = 1_000 * DAY;
+
+    private MaterialRepository materialRepository;
+    private Random random;
+    private MaterialPollingSchedule schedule;
+    private Material material = MaterialsMother.gitMaterial("https://github.com/gocd/gocd");
+
+    @BeforeEach
+    void setUp() {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.getMaterialUpdateIdleInterval()).thenReturn(MINUTE);
+        when(systemEnvironment.getMaterialUpdateMaxIdleInterval()).thenReturn(60 * MINUTE);
+        materialRepository = mock(MaterialRepository.class);
+        random = mock(Random.class);
+        when(random.nextDouble()).thenReturn(0.5);
+        schedule = new MaterialPollingSchedule(systemEnvironment, materialRepository, random);
+        schedule.track(singleton(material));
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    @Test
+    void shouldOnlyBeEnabledWhenTheMaximumIntervalIsLongerThanTheMinimum() {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.getMaterialUpdateIdleInterval()).thenReturn(MINUTE);
+
+        assertThat(schedule.isEnabled()).isTrue();
+        assertThat(new MaterialPollingSchedule(systemEnvironment, materialRepository).isEnabled()).isFalse();
+    }
+
+    @Test
+    void shouldConsiderMaterialsWhichWereNeverUpdatedDue() {
+        assertThat(schedule.isDue(material)).isTrue();
+    }
+
+    @Test
+    void shouldPollMaterialsWhichHaveNotChangedForLongAtTheMaximumInterval() {
+        latestModificationAt(NOW - 90 * DAY, "rev-1");
+
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(60 * MINUTE);
+    }
+
+    @Test
+    void shouldPollMaterialsWhichChangedRecentlyAtTheMinimumInterval() {
+        latestModificationAt(NOW - 90 * DAY, "rev-1");
+        schedule.updateCompleted(material);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + 60 * MINUTE);
+        latestModificationAt(NOW + 30 * MINUTE, "rev-2");
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(MINUTE);
+    }
+
+    @Test
+    void shouldGrowTheIntervalWithTheTimeSinceTheLastChange() {
+        latestModificationAt(NOW - 100 * MINUTE, "rev-1");
+
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(10 * MINUTE);
+    }
+
+    @Test
+    void shouldPollMaterialsWhoseUpdatesTakeLongLessOften() {
+        latestModificationAt(NOW, "rev-1");
+        schedule.updateQueued(material);
+        DateTimeUtils.setCurrentMillisFixed(NOW + 2 * MINUTE);
+
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(20 * MINUTE);
+    }
+
+    @Test
+    void shouldPollMaterialsWhichRecentlyReceivedAPostCommitNotificationAtTheMaximumInterval() {
+        latestModificationAt(NOW, "rev-1");
+        schedule.postCommitNotificationReceived(material);
+
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(60 * MINUTE);
+    }
+
+    @Test
+    void shouldApplyPostCommitNotificationsForAMaterialWhichIsNotPolledToThePolledMaterialWithTheSameFingerprint() {
+        GitMaterial notifiedMaterial = MaterialsMother.gitMaterial("https://github.com/gocd/gocd");
+        notifiedMaterial.setAutoUpdate(false);
+        latestModificationAt(NOW, "rev-1");
+        schedule.postCommitNotificationReceived(notifiedMaterial);
+
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(60 * MINUTE);
+    }
+
+    @Test
+    void shouldIgnoreMaterialsWhichAreNotPolled() {
+        Material notPolled = MaterialsMother.svnMaterial();
+
+        schedule.updateQueued(notPolled);
+        schedule.postCommitNotificationReceived(notPolled);
+        schedule.updateCompleted(notPolled);
+
+        assertThat((List<?>) schedule.asJson().get("Materials")).hasSize(1);
+    }
+
+    @Test
+    void shouldSpreadIntervalsWithJitter() {
+        latestModificationAt(NOW - 100 * MINUTE, "rev-1");
+        when(random.nextDouble()).thenReturn(1.0);
+
+        schedule.updateCompleted(material);
+
+        assertThat(dueAfter()).isEqualTo(11 * MINUTE);
+    }
+
+    @Test
+    void shouldForgetMaterialsWhichAreNoLongerPolled() {
+        latestModificationAt(NOW - 90 * DAY, "rev-1");
+        schedule.updateCompleted(material);
+        assertThat(schedule.isDue(material)).isFalse();
+
+        schedule.track(singleton(MaterialsMother.svnMaterial()));
+
+        assertThat(schedule.isDue(material)).isTrue();
+        assertThat((List<?>) schedule.asJson().get("Materials")).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldDescribeTheSchedule() {
+        latestModificationAt(NOW - 90 * DAY, "rev-1");
+        schedule.updateCompleted(material);
+
+        List<Map<String, Object>> materials = (List<Map<String, Object>>) schedule.asJson().get("Materials");
+
+        assertThat(materials).hasSize(1);
+        assertThat(materials.get(0))
+                .containsEntry("Material", material.getUriForDisplay())
+                .containsEntry("Fingerprint", material.getFingerprint())
+                .containsEntry("Interval in milliseconds", 60 * MINUTE);
+    }
+
+    private long dueAfter() {
+        long now = DateTimeUtils.currentTimeMillis();
+        long low = now;
+        long high = now + 2 * 60 * MINUTE;
+        while (low < high) {
+            long mid = (low + high) / 2;
+            DateTimeUtils.setCurrentMillisFixed(mid);
+            if (schedule.isDue(material)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        DateTimeUtils.setCurrentMillisFixed(now);
+        return low - now;
+    }
+
+    private void latestModificationAt(long time, String revision) {
+        Modification modification = new Modification("user", "comment", "email", new Date(time), revision);
+        when(materialRepository.findLatestModification(material)).thenReturn(new MaterialRevisions(new MaterialRevision(material, modification)));
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.server.service.MaterialExpansionService;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -50,12 +51,14 @@ public class MaterialUpdateListenerFactoryTest {
     @Mock private PackageMaterialUpdater packageMaterialUpdater;
     @Mock private PluggableSCMMaterialUpdater pluggableSCMMaterialUpdater;
     @Mock private TransactionTemplate transactionTemplate;
+    @Mock private TransactionSynchronizationManager transactionSynchronizationManager;
     @Mock private MaterialExpansionService materialExpansionService;
     @Mock private MDUPerformanceLogger mduPerformanceLogger;
     @Mock private DependencyMaterialUpdateQueue dependencyMaterialQueue;
     @Mock private MaintenanceModeService maintenanceModeService;
     @Mock ConfigMaterialPostUpdateQueue configMaterialPostUpdateQueue;
     @Mock private GoConfigService goConfigService;
+    @Mock private MaterialBootstrapQueue bootstrapQueue;
 
 
     @Test
@@ -64,9 +67,9 @@ public class MaterialUpdateListenerFactoryTest {
 
         MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, configQueue,
                 materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
-                transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
+                transactionTemplate, transactionSynchronizationManager, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
-                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService);
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService, bootstrapQueue);
         factory.init();
 
         verify(queue, times(NUMBER_OF_CONSUMERS)).addListener(any(GoMessageListener.class));
@@ -78,9 +81,9 @@ public class MaterialUpdateListenerFactoryTest {
 
         MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, configQueue,
                 materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
-                transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
+                transactionTemplate, transactionSynchronizationManager, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
-                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService);
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService, bootstrapQueue);
         factory.init();
 
         verify(configQueue, times(NUMBER_OF_CONFIG_CONSUMERS)).addListener(any(GoMessageListener.class));
@@ -94,11 +97,29 @@ public class MaterialUpdateListenerFactoryTest {
 
         MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, configQueue,
                 materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
-                transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
+                transactionTemplate, transactionSynchronizationManager, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
-                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService);
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService, bootstrapQueue);
         factory.init();
 
         verify(dependencyMaterialQueue, times(noOfDependencyMaterialCheckListeners)).addListener(any(GoMessageListener.class));
     }
+
+    @Test
+    public void shouldCreateCompetingConsumersForSuppliedBootstrapQueue() {
+        int noOfBootstrapListeners = 2;
+
+        when(systemEnvironment.getNumberOfMaterialBootstrapListeners()).thenReturn(noOfBootstrapListeners);
+
+        MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, configQueue,
+                materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
+                transactionTemplate, transactionSynchronizationManager, dependencyMaterialUpdater, scmMaterialUpdater,
+                packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService, bootstrapQueue);
+        factory.init();
+
+        verify(bootstrapQueue, times(noOfBootstrapListeners)).addListener(any(GoMessageListener.class));
+        verify(scmMaterialUpdater).forFirstCheckout(transactionSynchronizationManager);
+        verify(queue, never()).addListener(any(GoMessageListener.class));
+    }
 }
@@ -35,6 +35,7 @@ import com.thoughtworks.go.server.materials.postcommit.PostCommitHookImplementer
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookMaterialType;
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookMaterialTypeResolver;
 import com.thoughtworks.go.server.perf.MDUPerformanceLogger;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
@@ -109,6 +110,10 @@ public class MaterialUpdateServiceTest {
     private MDUPerformanceLogger mduPerformanceLogger;
     @Mock
     private ExponentialBackoffService exponentialBackoffService;
+    @Mock
+    private MaterialBootstrapQueue bootstrapQueue;
+    @Mock
+    private MaterialRepository materialRepository;
 
     private static final SvnMaterialConfig MATERIAL_CONFIG = MaterialConfigsMother.svnMaterialConfig();
     private Username username;
@@ -121,7 +126,8 @@ public class MaterialUpdateServiceTest {
     void setUp() {
         service = new MaterialUpdateService(queue, configQueue, completed, watchList, goConfigService, systemEnvironment,
                 serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter,
-                dependencyMaterialUpdateQueue, maintenanceModeService, secretParamResolver, exponentialBackoffService);
+                dependencyMaterialUpdateQueue, maintenanceModeService, secretParamResolver, exponentialBackoffService,
+                bootstrapQueue, materialRepository);
 
         service.registerMaterialSources(scmMaterialSource);
         service.registerMaterialUpdateCompleteListener(scmMaterialSource);
@@ -180,6 +186,24 @@ public class MaterialUpdateServiceTest {
             verify(queue, never()).post(matchMaterialUpdateMessage(svnMaterial));
             verify(queue).post(matchMaterialUpdateMessage(gitMaterial));
         }
+
+        @Test
+        void shouldTellTheMaterialSourceOnlyAboutUpdatesWhichWereQueued() {
+            GitMaterial gitMaterial = gitMaterial("test");
+            GitMaterial inProgressMaterial = gitMaterial("in-progress");
+            service.updateMaterial(inProgressMaterial);
+
+            when(scmMaterialSource.materialsForUpdate()).thenReturn(new HashSet<>(asList(svnMaterial, gitMaterial, inProgressMaterial)));
+            when(exponentialBackoffService.shouldBackOff(svnMaterial)).thenReturn(DENY);
+            when(exponentialBackoffService.shouldBackOff(gitMaterial)).thenReturn(PERMIT);
+            when(exponentialBackoffService.shouldBackOff(inProgressMaterial)).thenReturn(PERMIT);
+
+            service.onTimer();
+
+            verify(scmMaterialSource).updateQueuedFor(gitMaterial);
+            verify(scmMaterialSource, never()).updateQueuedFor(svnMaterial);
+            verify(scmMaterialSource, never()).updateQueuedFor(inProgressMaterial);
+        }
     }
 
     @Nested
@@ -214,6 +238,27 @@ public class MaterialUpdateServiceTest {
             Mockito.verify(configQueue, times(0)).post(any(MaterialUpdateMessage.class));
         }
 
+        @Test
+        void shouldPostUpdateMessageOnBootstrapQueueForMaterialNotYetCheckedOut() {
+            when(materialRepository.needsFirstCheckout(svnMaterial)).thenReturn(true);
+
+            assertThat(service.updateMaterial(svnMaterial)).isTrue();
+
+            Mockito.verify(bootstrapQueue).post(matchMaterialUpdateMessage(svnMaterial));
+            Mockito.verify(queue, times(0)).post(any(MaterialUpdateMessage.class));
+        }
+
+        @Test
+        void shouldPostUpdateMessageOnConfigQueueForConfigMaterialNotYetCheckedOut() {
+            when(watchList.hasConfigRepoWithFingerprint(svnMaterial.getFingerprint())).thenReturn(true);
+            lenient().when(materialRepository.needsFirstCheckout(svnMaterial)).thenReturn(true);
+
+            assertThat(service.updateMaterial(svnMaterial)).isTrue();
+
+            Mockito.verify(configQueue).post(matchMaterialUpdateMessage(svnMaterial));
+            Mockito.verify(bootstrapQueue, times(0)).post(any(MaterialUpdateMessage.class));
+        }
+
         @Test
         void shouldAllowConcurrentUpdatesForNonAutoUpdateMaterials() throws Exception {
             ScmMaterial material = mock(ScmMaterial.class);
@@ -537,5 +582,72 @@ public class MaterialUpdateServiceTest {
             verifyNoMoreInteractions(mduPerformanceLogger);
             verifyNoMoreInteractions(queue);
         }
+
+        @Test
+        void shouldUpdateGitMaterialsMatchingOneOfTheUrlsAndTheBranch() {
+            GitMaterial master = gitMaterial("https://github.com/gocd/gocd", null, "master");
+            GitMaterial release = gitMaterial("https://github.com/gocd/gocd", null, "release");
+            GitMaterial otherRepo = gitMaterial("https://github.com/gocd/other", null, "master");
+            when(goConfigService.currentCruiseConfig()).thenReturn(mock(CruiseConfig.class));
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(Stream.of(master, release, otherRepo).collect(toSet()));
+
+            boolean materialUpdated = service.updateGitMaterial("master", asList("git@github.com:gocd/gocd", "https://github.com/gocd/gocd"), emptyList());
+
+            assertThat(materialUpdated).isTrue();
+            verify(queue).post(matchMaterialUpdateMessage(master));
+            verifyNoMoreInteractions(queue);
+            assertThat(service.updateGitMaterial("feature", singletonList("https://github.com/gocd/gocd"), emptyList())).isFalse();
+        }
+
+        @Test
+        void shouldReuseTheMaterialIndexUntilTheConfigChanges() {
+            GitMaterial material = gitMaterial("https://github.com/gocd/gocd", null, "master");
+            when(goConfigService.currentCruiseConfig()).thenReturn(mock(CruiseConfig.class));
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(new HashSet<>(), Stream.of(material).collect(toSet()));
+
+            assertThat(service.updateGitMaterial("master", singletonList("https://github.com/gocd/gocd"), emptyList())).isFalse();
+            assertThat(service.updateGitMaterial("master", singletonList("https://github.com/gocd/gocd"), emptyList())).isFalse();
+            verify(materialConfigConverter, times(1)).toMaterials(anySet());
+
+            service.onConfigChange(mock(CruiseConfig.class));
+            verify(materialConfigConverter, times(2)).toMaterials(anySet());
+
+            assertThat(service.updateGitMaterial("master", singletonList("https://github.com/gocd/gocd"), emptyList())).isTrue();
+            verify(materialConfigConverter, times(2)).toMaterials(anySet());
+            verify(goConfigService, times(1)).currentCruiseConfig();
+        }
+
+        @Test
+        void shouldRebuildTheMaterialIndexWhenAnScmChanges() {
+            PluggableSCMMaterial pluggableSCMMaterial = MaterialsMother.pluggableSCMMaterial();
+            when(goConfigService.currentCruiseConfig()).thenReturn(mock(CruiseConfig.class));
+            when(goConfigService.getCurrentConfig()).thenReturn(mock(CruiseConfig.class));
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(new HashSet<>(), Stream.of(pluggableSCMMaterial).collect(toSet()));
+
+            assertThat(service.updateGitMaterial("master", emptyList(), singletonList("scm-name"))).isFalse();
+
+            service.scmConfigChangedListener().onEntityConfigChange(pluggableSCMMaterial.getScmConfig());
+
+            assertThat(service.updateGitMaterial("master", emptyList(), singletonList("scm-name"))).isTrue();
+        }
+
+        @Test
+        void shouldCollapsePushesReceivedWhileAnUpdateIsInProgressIntoOneMoreUpdate() {
+            GitMaterial material = gitMaterial("https://github.com/gocd/gocd", null, "master");
+            material.setAutoUpdate(false);
+            when(goConfigService.currentCruiseConfig()).thenReturn(mock(CruiseConfig.class));
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(Stream.of(material).collect(toSet()));
+
+            assertThat(service.updateGitMaterial("master", singletonList("https://github.com/gocd/gocd"), emptyList())).isTrue();
+            assertThat(service.updateGitMaterial("master", singletonList("https://github.com/gocd/gocd"), emptyList())).isTrue();
+            assertThat(service.updateGitMaterial("master", singletonList("https://github.com/gocd/gocd"), emptyList())).isTrue();
+            verify(queue, times(1)).post(matchMaterialUpdateMessage(material));
+
+            service.onMessage(new MaterialUpdateSuccessfulMessage(material, 0));
+            verify(queue, times(2)).post(matchMaterialUpdateMessage(material));
+
+            service.onMessage(new MaterialUpdateSuccessfulMessage(material, 0));
+            verify(queue, times(2)).post(matchMaterialUpdateMessage(material));
+        }
     }
 }
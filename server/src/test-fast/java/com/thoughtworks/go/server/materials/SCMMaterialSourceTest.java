@@ -55,6 +55,7 @@ public class SCMMaterialSourceTest {
     private SystemEnvironment systemEnvironment;
     private MaterialConfigConverter materialConfigConverter;
     private MaterialUpdateService materialUpdateService;
+    private MaterialPollingSchedule pollingSchedule;
     private Material svnMaterial = MaterialsMother.svnMaterial();
     private Material gitMaterial = MaterialsMother.gitMaterial("http://my.repo");
 
@@ -65,8 +66,9 @@ public class SCMMaterialSourceTest {
         serverHealthService = mock(ServerHealthService.class);
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialUpdateService = mock(MaterialUpdateService.class);
+        pollingSchedule = mock(MaterialPollingSchedule.class);
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, pollingSchedule);
     }
 
     @AfterEach
@@ -108,6 +110,32 @@ public class SCMMaterialSourceTest {
         assertTrue(materials.contains(gitMaterial));
     }
 
+    @Test
+    public void shouldListMaterialsWhichAreDueAsPerThePollingSchedule_whenEnabled() {
+        Set<MaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList(svnMaterial.config(), gitMaterial.config()));
+
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(new HashSet<>(Arrays.asList(svnMaterial, gitMaterial)));
+        when(pollingSchedule.isEnabled()).thenReturn(true);
+        when(pollingSchedule.isDue(gitMaterial)).thenReturn(true);
+        when(pollingSchedule.isDue(svnMaterial)).thenReturn(false);
+
+        Set<Material> materials = source.materialsForUpdate();
+
+        assertThat(materials.size(), is(1));
+        assertTrue(materials.contains(gitMaterial));
+        verify(pollingSchedule).track(new HashSet<>(Arrays.asList(svnMaterial, gitMaterial)));
+        verify(pollingSchedule, never()).updateQueued(any());
+
+        source.updateQueuedFor(gitMaterial);
+        source.onMaterialUpdate(gitMaterial);
+        source.postCommitNotificationReceivedFor(svnMaterial);
+
+        verify(pollingSchedule).updateQueued(gitMaterial);
+        verify(pollingSchedule).updateCompleted(gitMaterial);
+        verify(pollingSchedule).postCommitNotificationReceived(svnMaterial);
+    }
+
     @Test
     public void shouldListenToConfigChange() {
         source = spy(source);
@@ -128,7 +156,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(emptySet())
                 .thenReturn(singleton(gitMaterial));
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, pollingSchedule);
         source.initialize();
 
         EntityConfigChangedListener entityConfigChangedListener = captor.getAllValues().get(1);
@@ -155,7 +183,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(singleton(gitMaterial));
 
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, pollingSchedule);
         source.initialize();
 
         EntityConfigChangedListener entityConfigChangedListener = captor.getAllValues().get(1);
@@ -181,7 +209,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(emptySet())
                 .thenReturn(singleton(gitMaterial));
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, pollingSchedule);
         source.initialize();
 
         EntityConfigChangedListener entityConfigChangedListener = captor.getAllValues().get(1);
@@ -207,7 +235,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(emptySet())
                 .thenReturn(singleton(gitMaterial));
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, pollingSchedule);
         source.initialize();
 
         EntityConfigChangedListener entityConfigChangedListener = captor.getAllValues().get(1);
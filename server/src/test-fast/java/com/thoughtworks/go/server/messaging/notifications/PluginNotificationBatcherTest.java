@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.notifications;
+
+import com.thoughtworks.go.plugin.access.notification.NotificationExtension;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.thoughtworks.go.util.SystemEnvironment.*;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PluginNotificationBatcherTest {
+    @Mock
+    private NotificationExtension notificationExtension;
+    @Mock
+    private PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
+    @Mock(lenient = true)
+    private SystemEnvironment systemEnvironment;
+    @Mock(lenient = true)
+    private TimeProvider timeProvider;
+    private PluginNotificationBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCHING_ENABLED)).thenReturn(true);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_SIZE)).thenReturn(3);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCH_WINDOW)).thenReturn(1000L);
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL)).thenReturn(5000L);
+        when(timeProvider.currentTimeMillis()).thenReturn(10000L);
+        batcher = new PluginNotificationBatcher(notificationExtension, pluginNotificationsQueueHandler, systemEnvironment, timeProvider);
+    }
+
+    @Test
+    void shouldBatchOnlyForPluginsSupportingBatchedNotifications() {
+        when(notificationExtension.supportsBatchedNotifications("v5-plugin")).thenReturn(true);
+        when(notificationExtension.supportsBatchedNotifications("v4-plugin")).thenReturn(false);
+
+        assertTrue(batcher.canBatch("v5-plugin"));
+        assertFalse(batcher.canBatch("v4-plugin"));
+    }
+
+    @Test
+    void shouldNotBatchWhenBatchingIsTurnedOff() {
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_BATCHING_ENABLED)).thenReturn(false);
+
+        assertFalse(batcher.canBatch("v5-plugin"));
+        verifyNoInteractions(notificationExtension);
+    }
+
+    @Test
+    void shouldPostABatchAsSoonAsItIsFull() {
+        batcher.add(message("plugin", "data-1"));
+        batcher.add(message("plugin", "data-2"));
+        verify(pluginNotificationsQueueHandler, never()).post(any(), anyLong());
+
+        batcher.add(message("plugin", "data-3"));
+
+        ArgumentCaptor<PluginNotificationMessage> captor = ArgumentCaptor.forClass(PluginNotificationMessage.class);
+        verify(pluginNotificationsQueueHandler).post(captor.capture(), eq(5000L));
+        assertThat(captor.getValue() instanceof PluginNotificationBatchMessage, is(true));
+        assertEquals(asList("data-1", "data-2", "data-3"), captor.getValue().getData());
+        assertThat(batcher.pendingNotificationCounts().isEmpty(), is(true));
+    }
+
+    @Test
+    void shouldPostBatchesOnlyOnceTheirWindowHasElapsed() {
+        batcher.add(message("plugin-1", "data-1"));
+        when(timeProvider.currentTimeMillis()).thenReturn(10500L);
+        batcher.add(message("plugin-2", "data-2"));
+
+        when(timeProvider.currentTimeMillis()).thenReturn(11000L);
+        batcher.onTimer();
+
+        ArgumentCaptor<PluginNotificationMessage> captor = ArgumentCaptor.forClass(PluginNotificationMessage.class);
+        verify(pluginNotificationsQueueHandler).post(captor.capture(), eq(5000L));
+        assertThat(captor.getValue().pluginId(), is("plugin-1"));
+        assertThat(batcher.pendingNotificationCounts().get("plugin-2"), is(1));
+
+        when(timeProvider.currentTimeMillis()).thenReturn(11500L);
+        batcher.onTimer();
+
+        verify(pluginNotificationsQueueHandler, times(2)).post(captor.capture(), eq(5000L));
+        List<PluginNotificationMessage> posted = captor.getAllValues();
+        assertThat(posted.get(posted.size() - 1).pluginId(), is("plugin-2"));
+        assertThat(batcher.pendingNotificationCounts().isEmpty(), is(true));
+    }
+
+    @Test
+    void shouldKeepSeparateBatchesPerRequestName() {
+        batcher.add(new PluginNotificationMessage<>("plugin", NotificationExtension.STAGE_STATUS_CHANGE_NOTIFICATION, "stage"));
+        batcher.add(new PluginNotificationMessage<>("plugin", NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION, "agent"));
+
+        when(timeProvider.currentTimeMillis()).thenReturn(12000L);
+        batcher.onTimer();
+
+        verify(pluginNotificationsQueueHandler, times(2)).post(any(PluginNotificationBatchMessage.class), eq(5000L));
+    }
+
+    private PluginNotificationMessage<String> message(String pluginId, String data) {
+        return new PluginNotificationMessage<>(pluginId, NotificationExtension.STAGE_STATUS_CHANGE_NOTIFICATION, data);
+    }
+}
@@ -23,6 +23,8 @@ import com.thoughtworks.go.serverhealth.ServerHealthState;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
+
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -33,7 +35,7 @@ public class PluginNotificationMessageListenerTest {
     public void shouldNotifyPluginOnMessage() {
         NotificationExtension notificationExtension = mock(NotificationExtension.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, mock(PluginNotificationQueueMetrics.class));
 
         PluginNotificationMessage message = new PluginNotificationMessage("pid", "request-name", "data");
         when(notificationExtension.notify(message.pluginId(), message.getRequestName(), message.getData())).thenReturn(new Result());
@@ -47,7 +49,7 @@ public class PluginNotificationMessageListenerTest {
     public void shouldAddErrorReturnedByPluginToHealthMessage() {
         NotificationExtension notificationExtension = mock(NotificationExtension.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, mock(PluginNotificationQueueMetrics.class));
 
         PluginNotificationMessage message = new PluginNotificationMessage("pid", "request-name", "data");
         Result result = new Result();
@@ -68,7 +70,7 @@ public class PluginNotificationMessageListenerTest {
     public void shouldHandleExceptionDuringPluginNotificationCorrectly() {
         NotificationExtension notificationExtension = mock(NotificationExtension.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, mock(PluginNotificationQueueMetrics.class));
 
         PluginNotificationMessage message = new PluginNotificationMessage("pid", "request-name", "data");
         when(notificationExtension.notify(message.pluginId(), message.getRequestName(), message.getData())).thenThrow(new RuntimeException("error!"));
@@ -83,4 +85,21 @@ public class PluginNotificationMessageListenerTest {
         verify(notificationExtension).notify("pid", "request-name", message.getData());
     }
 
+    @Test
+    public void shouldSendBatchedNotificationsInASingleRequestAndRecordTheirLag() {
+        NotificationExtension notificationExtension = mock(NotificationExtension.class);
+        ServerHealthService serverHealthService = mock(ServerHealthService.class);
+        PluginNotificationQueueMetrics queueMetrics = mock(PluginNotificationQueueMetrics.class);
+        PluginNotificationMessageListener listener = new PluginNotificationMessageListener(notificationExtension, serverHealthService, queueMetrics);
+
+        PluginNotificationBatchMessage<String> message = new PluginNotificationBatchMessage<>("pid", "request-name",
+                asList(new PluginNotificationMessage<>("pid", "request-name", "data-1"), new PluginNotificationMessage<>("pid", "request-name", "data-2")));
+        when(notificationExtension.notifyBatch("pid", "request-name", message.getData())).thenReturn(new Result());
+        listener.onMessage(message);
+
+        verify(notificationExtension).notifyBatch("pid", "request-name", new ArrayList<>(asList("data-1", "data-2")));
+        verify(notificationExtension, never()).notify(anyString(), anyString(), any());
+        verify(queueMetrics).delivered(message);
+        verify(serverHealthService).removeByScope(HealthStateScope.aboutPlugin("pid"));
+    }
 }
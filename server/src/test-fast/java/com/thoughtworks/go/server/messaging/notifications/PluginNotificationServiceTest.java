@@ -65,6 +65,8 @@ public class PluginNotificationServiceTest {
     @Mock
     private PluginNotificationsQueueHandler pluginNotificationsQueueHandler;
     @Mock
+    private PluginNotificationBatcher pluginNotificationBatcher;
+    @Mock
     private GoConfigService goConfigService;
     @Mock
     private PipelineDao pipelineDao;
@@ -76,7 +78,7 @@ public class PluginNotificationServiceTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        pluginNotificationService = new PluginNotificationService(notificationPluginRegistry, pluginNotificationsQueueHandler, goConfigService, pipelineDao, stageDao, systemEnvironment);
+        pluginNotificationService = new PluginNotificationService(notificationPluginRegistry, pluginNotificationsQueueHandler, pluginNotificationBatcher, goConfigService, pipelineDao, stageDao, systemEnvironment);
     }
 
     @Test
@@ -264,6 +266,24 @@ public class PluginNotificationServiceTest {
         assertMessage(messages.get(1), PLUGIN_ID_2, NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION, agentInstance);
     }
 
+    @Test
+    public void shouldHandOverNotificationsToTheBatcherForPluginsSupportingBatchedNotifications() {
+        when(notificationPluginRegistry.getPluginsInterestedIn(NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION)).thenReturn(new LinkedHashSet<>(asList(PLUGIN_ID_1, PLUGIN_ID_2)));
+        when(systemEnvironment.get(NOTIFICATION_PLUGIN_MESSAGES_TTL)).thenReturn(1000L);
+        when(pluginNotificationBatcher.canBatch(PLUGIN_ID_1)).thenReturn(true);
+        when(pluginNotificationBatcher.canBatch(PLUGIN_ID_2)).thenReturn(false);
+
+        AgentInstance agentInstance = AgentInstanceMother.lostContact();
+        pluginNotificationService.notifyAgentStatus(agentInstance);
+
+        ArgumentCaptor<PluginNotificationMessage> batchedCaptor = ArgumentCaptor.forClass(PluginNotificationMessage.class);
+        ArgumentCaptor<PluginNotificationMessage> postedCaptor = ArgumentCaptor.forClass(PluginNotificationMessage.class);
+        verify(pluginNotificationBatcher).add(batchedCaptor.capture());
+        verify(pluginNotificationsQueueHandler).post(postedCaptor.capture(), eq(1000L));
+        assertMessage(batchedCaptor.getValue(), PLUGIN_ID_1, NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION, agentInstance);
+        assertMessage(postedCaptor.getValue(), PLUGIN_ID_2, NotificationExtension.AGENT_STATUS_CHANGE_NOTIFICATION, agentInstance);
+    }
+
     private void assertMessage(PluginNotificationMessage notificationMessage, String pluginId, String requestName, AgentInstance agentInstance) {
         assertThat(notificationMessage.pluginId(), is(pluginId));
         assertThat(notificationMessage.getRequestName(), is(requestName));
@@ -36,6 +36,9 @@ import java.util.HashMap;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,11 +53,13 @@ public class PluginNotificationsQueueHandlerTest {
     private SystemEnvironment systemEnvironment;
     @Mock
     private ServerHealthService serverHealthService;
+    @Mock
+    private PluginNotificationQueueMetrics queueMetrics;
     private PluginNotificationsQueueHandler handler;
 
     @BeforeEach
     public void setUp() throws Exception {
-        handler = new PluginNotificationsQueueHandler(messagingService, notificationExtension, pluginManager, systemEnvironment, serverHealthService);
+        handler = new PluginNotificationsQueueHandler(messagingService, notificationExtension, pluginManager, systemEnvironment, serverHealthService, queueMetrics);
     }
 
     @Test
@@ -80,6 +85,20 @@ public class PluginNotificationsQueueHandlerTest {
         assertThat(listenersForPlugin3.get(pluginId3).size(), is(2));
     }
 
+    @Test
+    public void shouldStopQueueAndForgetDeliveryLagOfUnloadedPlugin() {
+        String pluginId = "plugin-1";
+        when(notificationExtension.canHandlePlugin(pluginId)).thenReturn(true);
+        when(systemEnvironment.getNotificationListenerCountForPlugin(pluginId)).thenReturn(1);
+        when(messagingService.addQueueListener(any(), any())).thenReturn(mock(JMSMessageListenerAdapter.class));
+        handler.pluginLoaded(getPluginDescriptor(pluginId));
+
+        handler.pluginUnLoaded(getPluginDescriptor(pluginId));
+
+        assertFalse(handler.getQueues().containsKey(pluginId));
+        verify(queueMetrics).clear(pluginId);
+    }
+
     private GoPluginDescriptor getPluginDescriptor(String pluginId) {
         return GoPluginDescriptor.builder().id(pluginId).build();
     }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.domain.PipelineRunIdInfo;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.server.persistence.ModificationSearchIndex.IndexedModification;
+import com.thoughtworks.go.server.persistence.ModificationSearchIndex.MaterialIndex;
+import com.thoughtworks.go.server.persistence.ModificationSearchIndex.ModificationsSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.thoughtworks.go.server.persistence.ModificationSearchIndex.Query.modificationsMatching;
+import static com.thoughtworks.go.server.persistence.ModificationSearchIndex.Query.revisionsMatching;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModificationSearchIndexTest {
+    private static final long MATERIAL_ID = 42;
+
+    private FakeLoader loader;
+    private ModificationSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        loader = new FakeLoader();
+        searchIndex = new ModificationSearchIndex(true, 100);
+        loader.add(1, "c0ffee1", "pavan", "Fix the build", null);
+        loader.add(2, "d00dad2", "turn_her", "Add Build Dashboard", "label-12");
+        loader.add(3, "beefed3", null, null, "other-label-13");
+    }
+
+    @Test
+    void shouldFindModificationsLikeMaterialSearch() {
+        MaterialIndex index = searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        assertThat(index.latestMatching(revisionsMatching("build"), 0, Long.MAX_VALUE, 5)).containsExactly(1L);
+        assertThat(index.latestMatching(revisionsMatching("pavan Fix"), 0, Long.MAX_VALUE, 5)).containsExactly(1L);
+        assertThat(index.latestMatching(revisionsMatching("label-1"), 0, Long.MAX_VALUE, 5)).containsExactly(3L, 2L);
+        assertThat(index.latestMatching(revisionsMatching("null"), 0, Long.MAX_VALUE, 5)).isEmpty();
+        assertThat(index.latestMatching(revisionsMatching(""), 0, Long.MAX_VALUE, 2)).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void shouldFindModificationsLikeModificationHistorySearch() {
+        MaterialIndex index = searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        assertThat(index.latestMatching(modificationsMatching("BUILD"), 0, Long.MAX_VALUE, 5)).containsExactly(2L, 1L);
+        assertThat(index.latestMatching(modificationsMatching("BUILD"), 0, 2, 5)).containsExactly(1L);
+        assertThat(index.latestMatching(modificationsMatching("BUILD"), 1, Long.MAX_VALUE, 5)).containsExactly(2L);
+        assertThat(index.latestMatching(modificationsMatching("label"), 0, Long.MAX_VALUE, 5)).isEmpty();
+        assertThat(index.latestMatching(modificationsMatching("Ee"), 0, Long.MAX_VALUE, 5)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void shouldFindTheOldestAndLatestMatchingModifications() {
+        MaterialIndex index = searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        PipelineRunIdInfo info = index.oldestAndLatestMatching(modificationsMatching("build"));
+
+        assertThat(info.getOldestRunId()).isEqualTo(1L);
+        assertThat(info.getLatestRunId()).isEqualTo(2L);
+        assertThat(index.oldestAndLatestMatching(modificationsMatching("nothing like it"))).isNull();
+    }
+
+    @Test
+    void shouldLeaveTermsWithDatabaseWildcardsToTheDatabase() {
+        assertThat(searchIndex.indexFor(MATERIAL_ID, "turn_her", loader)).isNull();
+        assertThat(searchIndex.indexFor(MATERIAL_ID, "100%", loader)).isNull();
+        assertThat(searchIndex.indexFor(MATERIAL_ID, "build", loader)).isNotNull();
+    }
+
+    @Test
+    void shouldLeaveMaterialsWithTooManyModificationsToTheDatabase() {
+        searchIndex = new ModificationSearchIndex(true, 2);
+
+        assertThat(searchIndex.indexFor(MATERIAL_ID, "build", loader)).isNull();
+    }
+
+    @Test
+    void shouldNotSearchWhenDisabled() {
+        searchIndex = new ModificationSearchIndex(false, 100);
+
+        assertThat(searchIndex.indexFor(MATERIAL_ID, "build", loader)).isNull();
+    }
+
+    @Test
+    void shouldIncludeSavedModificationsWithoutLoadingThemAgain() {
+        searchIndex.indexFor(MATERIAL_ID, "build", loader);
+        int loads = loader.loads;
+
+        Modification saved = new Modification("ketan", "Build faster", null, new Date(), "feed4");
+        saved.setId(4);
+        loader.add(4, "feed4", "ketan", "Build faster", null);
+        searchIndex.modificationsSaved(MATERIAL_ID, singletonList(saved));
+        MaterialIndex index = searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        assertThat(loader.loads).isEqualTo(loads);
+        assertThat(index.latestMatching(modificationsMatching("build"), 0, Long.MAX_VALUE, 5)).containsExactly(4L, 2L, 1L);
+    }
+
+    @Test
+    void shouldCatchUpWithModificationsSavedElsewhere() {
+        searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        loader.add(4, "feed4", "ketan", "Build faster", null);
+        MaterialIndex index = searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        assertThat(index.latestMatching(modificationsMatching("faster"), 0, Long.MAX_VALUE, 5)).containsExactly(4L);
+    }
+
+    @Test
+    void shouldReindexWhenModificationsAreGoneFromTheDatabase() {
+        searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        loader.modifications.remove(0);
+        MaterialIndex index = searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        assertThat(index.latestMatching(modificationsMatching("build"), 0, Long.MAX_VALUE, 5)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlySearchedMaterialsToStayWithinTheLimit() {
+        searchIndex = new ModificationSearchIndex(true, 4);
+        searchIndex.indexFor(MATERIAL_ID, "build", loader);
+        searchIndex.indexFor(MATERIAL_ID + 1, "build", loader);
+
+        assertThat(searchIndex.asJson())
+                .containsEntry("Indexed materials", 1L)
+                .containsEntry("Indexed modifications", 3L);
+    }
+
+    @Test
+    void shouldIndexEveryMaterialAgainOnceCleared() {
+        searchIndex.indexFor(MATERIAL_ID, "build", loader);
+        int loads = loader.loads;
+
+        searchIndex.clear();
+        searchIndex.indexFor(MATERIAL_ID, "build", loader);
+
+        assertThat(loader.loads).isGreaterThan(loads);
+    }
+
+    private static class FakeLoader implements ModificationSearchIndex.ModificationLoader {
+        private final List<IndexedModification> modifications = new ArrayList<>();
+        private int loads;
+
+        void add(long id, String revision, String userName, String comment, String pipelineLabel) {
+            modifications.add(new IndexedModification(id, revision, userName, comment, pipelineLabel));
+        }
+
+        @Override
+        public ModificationsSummary summaryOf(long materialId) {
+            long latestId = modifications.isEmpty() ? 0 : modifications.get(modifications.size() - 1).getId();
+            return new ModificationsSummary(modifications.size(), latestId);
+        }
+
+        @Override
+        public List<IndexedModification> modificationsAfter(long materialId, long modificationId, int limit) {
+            loads++;
+            return modifications.stream().filter(modification -> modification.getId() > modificationId).limit(limit).collect(Collectors.toList());
+        }
+    }
+}
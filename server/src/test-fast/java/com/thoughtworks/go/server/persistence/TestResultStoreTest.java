@@ -0,0 +1,222 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.domain.TestCaseResult;
+import com.thoughtworks.go.server.service.ArtifactsDirHolder;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static com.thoughtworks.go.domain.TestCaseResult.Outcome.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TestResultStoreTest {
+    @TempDir
+    Path tempDir;
+
+    private SystemEnvironment systemEnvironment;
+    private TestResultStore store;
+
+    @BeforeEach
+    void setUp() {
+        ArtifactsDirHolder artifactsDirHolder = mock(ArtifactsDirHolder.class);
+        when(artifactsDirHolder.getArtifactsDir()).thenReturn(tempDir.resolve("artifacts").toFile());
+        systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.isTestResultStoreEnabled()).thenReturn(true);
+        when(systemEnvironment.getTestResultStoreMaxRunsPerJob()).thenReturn(100);
+        store = new TestResultStore(artifactsDirHolder, systemEnvironment);
+    }
+
+    @Test
+    void shouldKeepTheResultsOfEachRunInTheOrderTestsWereFirstSeen() throws IOException {
+        store.ingest(run(1), testCases(
+                new TestCaseResult("FooTest", "shouldFoo", PASSED, 10),
+                new TestCaseResult("FooTest", "shouldBar\twith a tab", FAILED, 20)));
+        store.ingest(run(2), testCases(
+                new TestCaseResult("BazTest", "shouldBaz", SKIPPED, 0),
+                new TestCaseResult("FooTest", "shouldBar\twith a tab", ERRORED, 30),
+                new TestCaseResult("FooTest", "shouldFoo", PASSED, 40)));
+
+        TestResultStore.TestResults results = store.resultsOf(run(2), 0, 10);
+
+        assertThat(results.getPagination().getTotal()).isEqualTo(3);
+        assertThat(results.getResults()).containsExactly(
+                new TestCaseResult("FooTest", "shouldFoo", PASSED, 40),
+                new TestCaseResult("FooTest", "shouldBar\twith a tab", ERRORED, 30),
+                new TestCaseResult("BazTest", "shouldBaz", SKIPPED, 0));
+        assertThat(store.resultsOf(run(2), 1, 1).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldBar\twith a tab", ERRORED, 30));
+        assertThat(store.resultsOf(run(1), 0, 10).getResults()).containsExactly(
+                new TestCaseResult("FooTest", "shouldFoo", PASSED, 10),
+                new TestCaseResult("FooTest", "shouldBar\twith a tab", FAILED, 20));
+    }
+
+    @Test
+    void shouldIngestTheResultsOfARunOnlyOnce() throws IOException {
+        assertThat(store.ingest(run(1), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, 10)))).isTrue();
+        assertThat(store.ingest(run(1), testCases(new TestCaseResult("FooTest", "shouldFoo", FAILED, 10)))).isFalse();
+
+        assertThat(store.resultsOf(run(1), 0, 10).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldFoo", PASSED, 10));
+    }
+
+    @Test
+    void shouldNotIngestAnythingWhenDisabled() throws IOException {
+        when(systemEnvironment.isTestResultStoreEnabled()).thenReturn(false);
+
+        assertThat(store.ingest(run(1), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, 10)))).isFalse();
+        assertThat(store.resultsOf(run(1), 0, 10)).isNull();
+    }
+
+    @Test
+    void shouldIngestResultsUsingTheGivenExecutor() throws IOException {
+        ArtifactsDirHolder artifactsDirHolder = mock(ArtifactsDirHolder.class);
+        when(artifactsDirHolder.getArtifactsDir()).thenReturn(tempDir.resolve("artifacts").toFile());
+        TestResultStore storeIngestingRightAway = new TestResultStore(artifactsDirHolder, systemEnvironment, Runnable::run);
+
+        storeIngestingRightAway.ingestInBackground(run(1), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, 10)));
+
+        assertThat(storeIngestingRightAway.resultsOf(run(1), 0, 10).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldFoo", PASSED, 10));
+    }
+
+    @Test
+    void shouldNotQueueResultsForIngestionWhenDisabled() throws IOException {
+        when(systemEnvironment.isTestResultStoreEnabled()).thenReturn(false);
+        Executor executor = mock(Executor.class);
+        TestResultStore disabledStore = new TestResultStore(mock(ArtifactsDirHolder.class), systemEnvironment, executor);
+
+        disabledStore.ingestInBackground(run(1), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, 10)));
+
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void shouldFindTestsWhichBothPassedAndFailedWithinTheLatestRuns() throws IOException {
+        for (int counter = 1; counter <= 6; counter++) {
+            store.ingest(run(counter), testCases(
+                    new TestCaseResult("FooTest", "alwaysPasses", PASSED, 10),
+                    new TestCaseResult("FooTest", "flipsEveryRun", counter % 2 == 0 ? FAILED : PASSED, 10),
+                    new TestCaseResult("FooTest", "failedOnlyInTheFirstRun", counter == 1 ? ERRORED : PASSED, 10),
+                    new TestCaseResult("FooTest", "failsOnceInAWhile", counter % 3 == 0 ? FAILED : PASSED, 10)));
+        }
+
+        TestResultStore.FlakyTests flakyTests = store.flakyTests("pipeline", "stage", "job", 5, 0, 10);
+
+        assertThat(flakyTests.getRuns()).isEqualTo(5);
+        assertThat(flakyTests.getTests().stream().map(test -> test.getName() + ":" + test.getRuns() + ":" + test.getFailures() + ":" + test.getFlips()))
+                .containsExactly("flipsEveryRun:5:3:4", "failsOnceInAWhile:5:2:3");
+        assertThat(store.flakyTests("pipeline", "stage", "job", 6, 0, 10).getTests().stream().map(TestResultStore.FlakyTest::getName))
+                .containsExactly("flipsEveryRun", "failsOnceInAWhile", "failedOnlyInTheFirstRun");
+        assertThat(store.flakyTests("pipeline", "stage", "job", 6, 1, 1).getTests().stream().map(TestResultStore.FlakyTest::getName))
+                .containsExactly("failsOnceInAWhile");
+    }
+
+    @Test
+    void shouldDropTheOldestRunsOnceThereAreTooManyOfThem() throws IOException {
+        when(systemEnvironment.getTestResultStoreMaxRunsPerJob()).thenReturn(4);
+        for (int counter = 1; counter <= 6; counter++) {
+            store.ingest(run(counter), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, counter)));
+        }
+
+        assertThat(store.resultsOf(run(1), 0, 10)).isNull();
+        assertThat(store.resultsOf(run(2), 0, 10)).isNull();
+        for (int counter = 3; counter <= 6; counter++) {
+            assertThat(store.resultsOf(run(counter), 0, 10).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldFoo", PASSED, counter));
+        }
+        assertThat(store.flakyTests("pipeline", "stage", "job", 100, 0, 10).getRuns()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldFinishSwappingInTheCompactedResultsWhenInterruptedBetweenTheRenames() throws IOException {
+        when(systemEnvironment.getTestResultStoreMaxRunsPerJob()).thenReturn(4);
+        for (int counter = 1; counter <= 6; counter++) {
+            store.ingest(run(counter), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, counter)));
+        }
+        File folder = jobFolder();
+        File compacted = new File(folder.getParentFile(), ".compacting-job");
+        FileUtils.copyDirectory(folder, compacted);
+        assertThat(folder.renameTo(new File(folder.getParentFile(), ".replaced-job"))).isTrue();
+
+        assertThat(store.resultsOf(run(6), 0, 10).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldFoo", PASSED, 6));
+        assertThat(store.flakyTests("pipeline", "stage", "job", 100, 0, 10).getRuns()).isEqualTo(4);
+        assertThat(folder.getParentFile().list()).containsExactly("job");
+    }
+
+    @Test
+    void shouldKeepTheCurrentResultsAndDiscardAnUnfinishedCompaction() throws IOException {
+        store.ingest(run(1), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, 1)));
+        File folder = jobFolder();
+        File compacting = new File(folder.getParentFile(), ".compacting-job");
+        FileUtils.writeStringToFile(new File(compacting, "runs"), "partial", UTF_8);
+
+        assertThat(store.ingest(run(2), testCases(new TestCaseResult("FooTest", "shouldFoo", FAILED, 2)))).isTrue();
+
+        assertThat(store.resultsOf(run(1), 0, 10).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldFoo", PASSED, 1));
+        assertThat(compacting).doesNotExist();
+    }
+
+    @Test
+    void shouldNotTouchTheResultsOfJobsNamedLikeTheFoldersUsedWhileDroppingRuns() throws IOException {
+        when(systemEnvironment.getTestResultStoreMaxRunsPerJob()).thenReturn(4);
+        for (String jobName : Arrays.asList("job.old", "job.compacting", "job.replaced")) {
+            store.ingest(run(jobName, 1), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, 1)));
+        }
+        for (int counter = 1; counter <= 6; counter++) {
+            store.ingest(run(counter), testCases(new TestCaseResult("FooTest", "shouldFoo", PASSED, counter)));
+        }
+
+        for (String jobName : Arrays.asList("job.old", "job.compacting", "job.replaced")) {
+            assertThat(store.resultsOf(run(jobName, 1), 0, 10).getResults()).containsExactly(new TestCaseResult("FooTest", "shouldFoo", PASSED, 1));
+        }
+        assertThat(store.flakyTests("pipeline", "stage", "job", 100, 0, 10).getRuns()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotFindResultsForJobsWithInvalidNames() throws IOException {
+        assertThat(store.resultsOf(new JobIdentifier(new StageIdentifier("../pipeline", 1, "stage", "1"), "job", 1L), 0, 10)).isNull();
+        assertThat(store.flakyTests("pipeline", "../stage", "job", 10, 0, 10).getTests()).isEmpty();
+    }
+
+    private File jobFolder() {
+        return tempDir.resolve("artifacts").resolve(TestResultStore.TEST_RESULTS_FOLDER).resolve("pipeline").resolve("stage").resolve("job").toFile();
+    }
+
+    private JobIdentifier run(int counter) {
+        return run("job", counter);
+    }
+
+    private JobIdentifier run(String jobName, int counter) {
+        return new JobIdentifier(new StageIdentifier("pipeline", counter, "stage", "1"), jobName, 100L + counter);
+    }
+
+    private File testCases(TestCaseResult... results) throws IOException {
+        File file = tempDir.resolve("test-cases-" + System.nanoTime() + ".tsv").toFile();
+        FileUtils.writeLines(file, UTF_8.name(), Arrays.stream(results).map(TestCaseResult::toLine).collect(Collectors.toList()));
+        return file;
+    }
+}
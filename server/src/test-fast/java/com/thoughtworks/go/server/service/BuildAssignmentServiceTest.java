@@ -178,6 +178,66 @@ class BuildAssignmentServiceTest {
         assertThat(buildAssignmentService.jobPlans().size()).isEqualTo(1);
     }
 
+    @Test
+    void shouldNotAskPluginAgainForAJobItDeclinedForTheSameElasticAgentWhenAssigningOutsideTheLock() {
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGN_WORK_OUTSIDE_LOCK)).thenReturn(true);
+        PipelineConfig pipelineWithElasticJob = PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1);
+        JobPlan jobPlan = new InstanceFactory().createJobPlan(pipelineWithElasticJob.first().getJobs().first(), schedulingContext);
+        jobPlans.add(jobPlan);
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_DECLINED_ASSIGNMENT_TTL)).thenReturn(60 * 1000L);
+        when(elasticAgentPluginService.shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())).thenReturn(false);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.assignWorkToAgent(elasticAgentInstance)).isEqualTo(BuildAssignmentService.NO_WORK);
+        assertThat(buildAssignmentService.assignWorkToAgent(elasticAgentInstance)).isEqualTo(BuildAssignmentService.NO_WORK);
+
+        verify(elasticAgentPluginService, times(1)).shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier());
+        assertThat(buildAssignmentService.jobPlans()).containsExactly(jobPlan);
+    }
+
+    @Test
+    void shouldAskPluginAgainForAJobItDeclinedOnceTheDeclineHasExpired() {
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGN_WORK_OUTSIDE_LOCK)).thenReturn(true);
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_DECLINED_ASSIGNMENT_TTL)).thenReturn(0L);
+        PipelineConfig pipelineWithElasticJob = PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1);
+        JobPlan jobPlan = new InstanceFactory().createJobPlan(pipelineWithElasticJob.first().getJobs().first(), schedulingContext);
+        jobPlans.add(jobPlan);
+        when(elasticAgentPluginService.shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())).thenReturn(false);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.assignWorkToAgent(elasticAgentInstance)).isEqualTo(BuildAssignmentService.NO_WORK);
+        assertThat(buildAssignmentService.assignWorkToAgent(elasticAgentInstance)).isEqualTo(BuildAssignmentService.NO_WORK);
+
+        verify(elasticAgentPluginService, times(2)).shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier());
+        assertThat(buildAssignmentService.jobPlans()).containsExactly(jobPlan);
+    }
+
+    @Test
+    void shouldAssignAJobToOnlyOneOfTwoElasticAgentsAcceptedByThePluginAtTheSameTimeWhenAssigningOutsideTheLock() {
+        when(systemEnvironment.get(SystemEnvironment.GO_ELASTIC_PLUGIN_ASSIGN_WORK_OUTSIDE_LOCK)).thenReturn(true);
+        AgentInstance otherElasticAgentInstance = AgentInstance.createFromAgent(AgentMother.elasticAgent(), new SystemEnvironment(), null);
+        PipelineConfig pipelineWithElasticJob = PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1);
+        JobPlan jobPlan = new InstanceFactory().createJobPlan(pipelineWithElasticJob.first().getJobs().first(), schedulingContext);
+        jobPlans.add(jobPlan);
+        when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(jobPlan.getJobId())).thenReturn(mock(Pipeline.class));
+        when(scheduleService.updateAssignedInfo(otherElasticAgentInstance.getUuid(), jobPlan)).thenReturn(true);
+        when(elasticAgentPluginService.shouldAssignWork(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            ElasticAgentMetadata metadata = invocation.getArgument(0);
+            if (metadata.uuid().equals(elasticAgentInstance.getUuid())) {
+                // the other agent claims the job while the plugin is still deciding for this one
+                buildAssignmentService.assignWorkToAgent(otherElasticAgentInstance);
+            }
+            return true;
+        });
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.assignWorkToAgent(elasticAgentInstance)).isEqualTo(BuildAssignmentService.NO_WORK);
+
+        verify(agentService).building(eq(otherElasticAgentInstance.getUuid()), any(AgentBuildingInfo.class));
+        verify(agentService, never()).building(eq(elasticAgentInstance.getUuid()), any(AgentBuildingInfo.class));
+        assertThat(buildAssignmentService.jobPlans()).isEmpty();
+    }
+
     @Test
     void shouldMatchNonElasticJobToNonElasticAgentIfResourcesMatch() {
         PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
@@ -264,6 +264,38 @@ class ConsoleActivityMonitorTest {
                 general(forJob("foo", "stage", "job"))));
     }
 
+    @Test
+    void shouldOnlyLookAtJobsWhichCouldHaveBecomeUnresponsiveSinceTheLastCheck() {
+        DateTime now = new DateTime();
+        when(timeProvider.currentTimeMillis()).thenReturn(now.getMillis());
+        JobIdentifier job = new JobIdentifier("foo", 12, "foo-10", "stage", "2", "job", 20l);
+        activeJobListener.jobStatusChanged(buildingInstance(job));
+        consoleActivityMonitor.cancelUnresponsiveJobs(scheduleService);
+
+        clearInvocations(goConfigService);
+        when(timeProvider.currentTimeMillis()).thenReturn(now.plusMinutes(1).getMillis());
+        consoleActivityMonitor.consoleUpdatedFor(job);
+        when(timeProvider.currentTimeMillis()).thenReturn(now.plusMinutes(2).plusSeconds(1).getMillis());
+        consoleActivityMonitor.cancelUnresponsiveJobs(scheduleService);
+
+        verify(goConfigService, atLeastOnce()).canCancelJobIfHung(job);
+        verify(serverHealthService, never()).update(any(ServerHealthState.class));
+
+        clearInvocations(goConfigService);
+        when(timeProvider.currentTimeMillis()).thenReturn(now.plusMinutes(2).plusSeconds(30).getMillis());
+        consoleActivityMonitor.cancelUnresponsiveJobs(scheduleService);
+
+        verifyNoInteractions(goConfigService);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now.plusMinutes(3).plusSeconds(1).getMillis());
+        consoleActivityMonitor.cancelUnresponsiveJobs(scheduleService);
+
+        verify(serverHealthService).update(ServerHealthState.warningWithHtml("Job 'foo/stage/job' is not responding",
+                "Job <a href='/go/tab/build/detail/foo/12/stage/2/job'>foo/stage/job</a> is currently running but has not shown any console activity in the last 2 minute(s). This job may be hung.",
+                general(forJob("foo", "stage", "job"))));
+        verify(scheduleService, never()).cancelJob(job);
+    }
+
     @Test
     void shouldClearServerHealthMessageWhenUnresponsiveJobShowsActivity() {
         DateTime now = new DateTime();
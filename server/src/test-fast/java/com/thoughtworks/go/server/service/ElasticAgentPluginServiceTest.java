@@ -42,6 +42,7 @@ import com.thoughtworks.go.server.dao.JobInstanceSqlMapDao;
 import com.thoughtworks.go.server.domain.ElasticAgentMetadata;
 import com.thoughtworks.go.server.exceptions.RulesViolationException;
 import com.thoughtworks.go.server.messaging.JobStatusTopic;
+import com.thoughtworks.go.server.messaging.elasticagents.BatchCreateAgentMessage;
 import com.thoughtworks.go.server.messaging.elasticagents.CreateAgentMessage;
 import com.thoughtworks.go.server.messaging.elasticagents.CreateAgentQueueHandler;
 import com.thoughtworks.go.server.messaging.elasticagents.ServerPingMessage;
@@ -50,6 +51,7 @@ import com.thoughtworks.go.serverhealth.HealthStateLevel;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -206,6 +208,57 @@ class ElasticAgentPluginServiceTest {
         assertThat(createAgentMessage.jobIdentifier()).isEqualTo(plan2.getIdentifier());
     }
 
+    @Test
+    void shouldPostASingleBatchCreateAgentMessageForJobsWithSameProfilesWhenPluginSupportsBatchedCreation() {
+        JobPlan plan1 = plan(1, "docker");
+        JobPlan plan2 = plan(2, "docker");
+        String ephemeralKey1 = randomUUID().toString();
+        String ephemeralKey2 = randomUUID().toString();
+
+        when(ephemeralAutoRegisterKeyService.autoRegisterKey()).thenReturn(ephemeralKey1, ephemeralKey2);
+        when(goConfigService.elasticJobStarvationThreshold()).thenReturn(10000L);
+        when(registry.supportsBatchedAgentCreation("docker")).thenReturn(true);
+        when(environmentConfigService.envForPipeline(any())).thenReturn("env");
+
+        ArgumentCaptor<CreateAgentMessage> createAgentMessageArgumentCaptor = ArgumentCaptor.forClass(CreateAgentMessage.class);
+        service.createAgentsFor(new ArrayList<>(), asList(plan1, plan2));
+
+        verify(createAgentQueue, times(1)).post(createAgentMessageArgumentCaptor.capture(), anyLong());
+        assertThat(createAgentMessageArgumentCaptor.getValue()).isInstanceOf(BatchCreateAgentMessage.class);
+        BatchCreateAgentMessage message = (BatchCreateAgentMessage) createAgentMessageArgumentCaptor.getValue();
+        assertThat(message.environment()).isEqualTo("env");
+        assertThat(message.jobIdentifiers()).containsExactly(plan1.getIdentifier(), plan2.getIdentifier());
+        assertThat(message.autoRegisterKeys())
+                .containsEntry(plan1.getIdentifier(), ephemeralKey1)
+                .containsEntry(plan2.getIdentifier(), ephemeralKey2);
+    }
+
+    @Test
+    void shouldLetEveryAgentOfABatchRegisterWithItsOwnAutoRegisterKey() {
+        JobPlan plan1 = plan(1, "docker");
+        JobPlan plan2 = plan(2, "docker");
+        EphemeralAutoRegisterKeyService keyService = new EphemeralAutoRegisterKeyService(new SystemEnvironment());
+        service = new ElasticAgentPluginService(pluginManager, registry, agentService, environmentConfigService,
+                createAgentQueue, serverPingQueue, goConfigService, timeProvider, serverHealthService, elasticAgentMetadataStore,
+                clusterProfilesService, jobInstanceSqlMapDao, scheduleService, consoleService, keyService, secretParamResolver, jobStatusTopic);
+
+        when(goConfigService.elasticJobStarvationThreshold()).thenReturn(10000L);
+        when(registry.supportsBatchedAgentCreation("docker")).thenReturn(true);
+        when(environmentConfigService.envForPipeline(any())).thenReturn("env");
+
+        ArgumentCaptor<CreateAgentMessage> createAgentMessageArgumentCaptor = ArgumentCaptor.forClass(CreateAgentMessage.class);
+        service.createAgentsFor(new ArrayList<>(), asList(plan1, plan2));
+
+        verify(createAgentQueue).post(createAgentMessageArgumentCaptor.capture(), anyLong());
+        BatchCreateAgentMessage message = (BatchCreateAgentMessage) createAgentMessageArgumentCaptor.getValue();
+        String keyForJob1 = message.autoRegisterKeys().get(plan1.getIdentifier());
+        String keyForJob2 = message.autoRegisterKeys().get(plan2.getIdentifier());
+
+        assertThat(keyForJob1).isNotEqualTo(keyForJob2);
+        assertThat(keyService.validateAndRevoke(keyForJob1)).isTrue();
+        assertThat(keyService.validateAndRevoke(keyForJob2)).isTrue();
+    }
+
     @Test
     void shouldPostCreateAgentMessageWithTimeToLiveLesserThanJobStarvationThreshold() throws Exception {
         JobPlan plan1 = plan(1, "docker");
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.SecretConfig;
+import com.thoughtworks.go.plugin.domain.secrets.Secret;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TestingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static com.thoughtworks.go.domain.packagerepository.ConfigurationPropertyMother.create;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResolvedSecretsCacheTest {
+    @Mock
+    private GoConfigService goConfigService;
+    @Mock(lenient = true)
+    private SystemEnvironment systemEnvironment;
+    private TestingClock clock;
+    private ResolvedSecretsCache cache;
+    private SecretConfig secretConfig;
+    private List<Set<String>> lookups;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestingClock();
+        cache = new ResolvedSecretsCache(goConfigService, systemEnvironment, clock);
+        secretConfig = new SecretConfig("vault", "cd.go.secrets.vault");
+        lookups = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void shouldLookUpOnlyKeysWhichAreNotCachedYet() {
+        givenCacheTtlOf(30);
+
+        assertThat(cache.resolve(secretConfig, Set.of("username"), lookup())).isEqualTo(Map.of("username", "value-of-username"));
+        assertThat(cache.resolve(secretConfig, Set.of("username", "password"), lookup())).isEqualTo(Map.of("username", "value-of-username", "password", "value-of-password"));
+
+        assertThat(lookups).containsExactly(Set.of("username"), Set.of("password"));
+    }
+
+    @Test
+    void shouldLookUpAgainOnceCachedSecretsExpire() {
+        givenCacheTtlOf(30);
+
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+        clock.addSeconds(31);
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+
+        assertThat(lookups).containsExactly(Set.of("username"), Set.of("username"));
+    }
+
+    @Test
+    void shouldNotCacheSecretsWhenTtlIsNotSet() {
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+
+        assertThat(lookups).hasSize(2);
+    }
+
+    @Test
+    void shouldNotServeSecretsResolvedUsingAnOlderVersionOfTheSecretConfig() {
+        givenCacheTtlOf(30);
+        SecretConfig updatedSecretConfig = new SecretConfig("vault", "cd.go.secrets.vault");
+        updatedSecretConfig.getConfiguration().add(create("VaultUrl", false, "https://new-vault"));
+
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+        cache.resolve(updatedSecretConfig, Set.of("username"), lookup());
+
+        assertThat(lookups).hasSize(2);
+    }
+
+    @Test
+    void shouldDropCachedSecretsWhenSecretConfigChanges() {
+        givenCacheTtlOf(30);
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+
+        cache.new SecretConfigChangedListener().onEntityConfigChange(secretConfig);
+        cache.resolve(secretConfig, Set.of("username"), lookup());
+
+        assertThat(lookups).hasSize(2);
+    }
+
+    @Test
+    void shouldNotCacheFailedLookups() {
+        givenCacheTtlOf(30);
+
+        assertThatThrownBy(() -> cache.resolve(secretConfig, Set.of("username"), keys -> {
+            throw new RuntimeException("secret store is down");
+        })).hasMessage("secret store is down");
+        assertThat(cache.resolve(secretConfig, Set.of("username"), lookup())).containsEntry("username", "value-of-username");
+    }
+
+    @Test
+    void shouldShareAnInFlightLookupWithConcurrentResolutionsOfTheSameKey() throws Exception {
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, String>> first = executor.submit(() -> cache.resolve(secretConfig, Set.of("username"), keys -> {
+                lookupStarted.countDown();
+                await(releaseLookup);
+                return lookup().apply(keys);
+            }));
+            lookupStarted.await();
+
+            CompletableFuture<Map<String, String>> second = CompletableFuture.supplyAsync(() -> cache.resolve(secretConfig, Set.of("username", "password"), lookup()));
+            while (lookups.isEmpty()) {
+                Thread.sleep(10);
+            }
+            releaseLookup.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(Map.of("username", "value-of-username"));
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(Map.of("username", "value-of-username", "password", "value-of-password"));
+            assertThat(lookups).containsExactlyInAnyOrder(Set.of("password"), Set.of("username"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void givenCacheTtlOf(int seconds) {
+        when(systemEnvironment.getResolvedSecretsCacheTtlInSeconds()).thenReturn(seconds);
+    }
+
+    private Function<Set<String>, List<Secret>> lookup() {
+        return keys -> {
+            lookups.add(new HashSet<>(keys));
+            List<Secret> secrets = new ArrayList<>();
+            keys.forEach(key -> secrets.add(new Secret(key, "value-of-" + key)));
+            return secrets;
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -43,6 +43,8 @@ import com.thoughtworks.go.plugin.access.secrets.SecretsExtension;
 import com.thoughtworks.go.plugin.domain.secrets.Secret;
 import com.thoughtworks.go.remote.work.BuildAssignment;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TestingClock;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -71,12 +73,14 @@ class SecretParamResolverTest {
     private GoConfigService goConfigService;
     @Mock
     private RulesService rulesService;
+    @Mock
+    private SystemEnvironment systemEnvironment;
     private SecretParamResolver secretParamResolver;
 
     @BeforeEach
     void setUp() {
 
-        secretParamResolver = new SecretParamResolver(secretsExtension, goConfigService, rulesService);
+        secretParamResolver = new SecretParamResolver(secretsExtension, goConfigService, rulesService, new ResolvedSecretsCache(goConfigService, systemEnvironment, new TestingClock()));
     }
 
     @Nested
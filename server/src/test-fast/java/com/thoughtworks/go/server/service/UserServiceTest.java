@@ -746,6 +746,38 @@ public class UserServiceTest {
         assertThat(userService.findValidSubscribers(new StageConfigIdentifier("p1", "s1"))).containsExactly(foo);
     }
 
+    @Test
+    void shouldLookUpSubscribersWithoutReloadingSubscribingUsersForEveryStage() {
+        User foo = new User("foo", Arrays.asList("fOO", "Foo"), "foo@cruise.com", false);
+        foo.addNotificationFilter(new NotificationFilter("p1", GoConstants.ANY_STAGE, StageEvent.Passes, true));
+        User bar = new User("bar", Arrays.asList("bAR", "Bar"), "bar@go.com", true);
+        bar.addNotificationFilter(new NotificationFilter(GoConstants.ANY_PIPELINE, "s2", StageEvent.Passes, true));
+
+        when(userDao.findNotificationSubscribingUsers()).thenReturn(new Users(Arrays.asList(foo, bar)));
+        when(securityService.hasViewPermissionForPipeline(any(), any())).thenReturn(true);
+
+        assertThat(userService.findValidSubscribers(new StageConfigIdentifier("p1", "s1"))).containsExactly(foo);
+        assertThat(userService.findValidSubscribers(new StageConfigIdentifier("p1", "s2"))).containsExactly(foo, bar);
+        assertThat(userService.findValidSubscribers(new StageConfigIdentifier("p2", "s1"))).isEmpty();
+        verify(userDao, times(1)).findNotificationSubscribingUsers();
+    }
+
+    @Test
+    void shouldReloadSubscribingUsersOnceANotificationFilterIsRemoved() {
+        User foo = new User("foo", Arrays.asList("fOO", "Foo"), "foo@cruise.com", false);
+        foo.addNotificationFilter(new NotificationFilter("p1", "s1", StageEvent.Passes, true));
+
+        when(userDao.findNotificationSubscribingUsers()).thenReturn(new Users(Arrays.asList(foo)), new Users());
+        when(userDao.load(100L)).thenReturn(foo);
+        when(securityService.hasViewPermissionForPipeline(foo.getUsername(), "p1")).thenReturn(true);
+        assertThat(userService.findValidSubscribers(new StageConfigIdentifier("p1", "s1"))).containsExactly(foo);
+
+        userService.removeNotificationFilter(100L, foo.getNotificationFilters().get(0).getId());
+
+        assertThat(userService.findValidSubscribers(new StageConfigIdentifier("p1", "s1"))).isEmpty();
+        verify(userDao, times(2)).findNotificationSubscribingUsers();
+    }
+
     @Test
     void shouldFailWithErrorWhenDeletingAnEnabledUserFails() {
         String username = "username";
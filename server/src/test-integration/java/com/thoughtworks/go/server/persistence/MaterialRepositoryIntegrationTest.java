@@ -129,6 +129,8 @@ public class MaterialRepositoryIntegrationTest {
     private MaterialExpansionService materialExpansionService;
     @Autowired
     private Database databaseStrategy;
+    @Autowired
+    private ModificationSearchIndex modificationSearchIndex;
 
     private HibernateTemplate originalTemplate;
     private String md5 = "md5-test";
@@ -223,7 +225,7 @@ public class MaterialRepositoryIntegrationTest {
         MaterialRevision second = saveOneScmModification(material, "user2", "file2");
 
         goCache.clear();
-        repo = new MaterialRepository(sessionFactory, goCache, 1, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        repo = new MaterialRepository(sessionFactory, goCache, 1, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, modificationSearchIndex);
 
         repo.findModificationsSince(material, first);
         assertThat(repo.cachedModifications(repo.findMaterialInstance(material)), is(nullValue()));
@@ -248,7 +250,7 @@ public class MaterialRepositoryIntegrationTest {
                 TestUtils.sleepQuietly(200); // sleep so we can have multiple threads enter the critical section
                 return value;
             }
-        }, 200, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        }, 200, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, modificationSearchIndex);
 
         Thread thread1 = new Thread(new Runnable() {
             @Override
@@ -362,7 +364,7 @@ public class MaterialRepositoryIntegrationTest {
         final Material svn = MaterialsMother.svnMaterial("url", null, "username", "password", false, null);
 
         HibernateTemplate mockTemplate = mock(HibernateTemplate.class);
-        repo = new MaterialRepository(repo.getSessionFactory(), goCache, 200, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy) {
+        repo = new MaterialRepository(repo.getSessionFactory(), goCache, 200, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, modificationSearchIndex) {
             @Override
             public MaterialInstance findMaterialInstance(Material material) {
                 MaterialInstance result = super.findMaterialInstance(material);
@@ -649,7 +651,7 @@ public class MaterialRepositoryIntegrationTest {
         GoCache spyGoCache = spy(goCache);
         when(spyGoCache.get(any(String.class))).thenCallRealMethod();
         Mockito.doCallRealMethod().when(spyGoCache).put(any(String.class), any(Object.class));
-        repo = new MaterialRepository(sessionFactory, spyGoCache, 2, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        repo = new MaterialRepository(sessionFactory, spyGoCache, 2, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, modificationSearchIndex);
 
         pipelineSqlMapDao.save(pipeline);
 
@@ -1011,7 +1013,7 @@ public class MaterialRepositoryIntegrationTest {
 
         Long totalCount = repo.getTotalModificationsFor(materialInstance);
 
-        totalCount = (Long) goCache.get(repo.materialModificationCountKey(materialInstance));
+        assertThat(totalCount, is(5L));
 
         final Modification modOne = new Modification("user", "comment", "email@gmail.com", new Date(), "123");
         transactionTemplate.execute(new TransactionCallbackWithoutResult() {
@@ -1023,9 +1025,32 @@ public class MaterialRepositoryIntegrationTest {
             }
         });
 
-        totalCount = (Long) goCache.get(repo.materialModificationCountKey(materialInstance));
+        HibernateTemplate mockTemplate = mock(HibernateTemplate.class);
+        repo.setHibernateTemplate(mockTemplate);
+        totalCount = repo.getTotalModificationsFor(materialInstance);
+
+        assertThat(totalCount, is(6L));
+        verifyNoInteractions(mockTemplate);
+    }
+
+    @Test
+    public void shouldAddSavedModificationsToTheCachedLatestModifications() {
+        final ScmMaterial material = material();
+        MaterialInstance materialInstance = material.createMaterialInstance();
+        repo.saveOrUpdate(materialInstance);
+        saveOneScmModification("1", material, "user1", "1.txt", "comment1");
+        saveOneScmModification("2", material, "user2", "2.txt", "comment2");
+        repo.findLatestModification(materialInstance);
+
+        MaterialRevision third = saveOneScmModification("3", material, "user3", "3.txt", "comment3");
+
+        HibernateTemplate mockTemplate = mock(HibernateTemplate.class);
+        repo.setHibernateTemplate(mockTemplate);
+        Modification latest = repo.findLatestModification(materialInstance);
 
-        assertThat(totalCount, is(nullValue()));
+        assertThat(latest.getRevision(), is(third.getLatestRevisionString()));
+        assertThat(repo.cachedModifications(materialInstance).size(), is(2));
+        verifyNoInteractions(mockTemplate);
     }
 
     @Test
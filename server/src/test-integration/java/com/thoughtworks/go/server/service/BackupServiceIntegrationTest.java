@@ -332,6 +332,21 @@ public class BackupServiceIntegrationTest {
         assertThat(FileUtils.listFiles(backupsDirectory, TrueFileFilter.TRUE, TrueFileFilter.TRUE).isEmpty(), is(true));
     }
 
+    @Test
+    public void shouldMarkBackupAsFailedWhenTheDatabaseBackupRunningInParallelFails() {
+        when(systemEnvSpy.shouldBackupDatabaseInParallel()).thenReturn(true);
+        Database databaseStrategyMock = mock(Database.class);
+        doThrow(new RuntimeException("Oh no!")).when(databaseStrategyMock).backup(any(File.class));
+        BackupService service = new BackupService(artifactsDirHolder, goConfigService, timeProvider, backupInfoRepository, systemEnvSpy, configRepository,
+                databaseStrategyMock, null);
+
+        ServerBackup backup = service.startBackup(admin);
+
+        assertThat(backup.isSuccessful(), is(false));
+        assertThat(backup.getMessage(), is("Failed to perform backup. Reason: Oh no!"));
+        assertThat(FileUtils.listFiles(backupsDirectory, TrueFileFilter.TRUE, TrueFileFilter.TRUE).isEmpty(), is(true));
+    }
+
     @Test
     public void shouldNotSendEmailToAdminWhenTheBackupFailsAndEmailConfigIsNotSet() throws Exception {
         GoConfigService configService = mock(GoConfigService.class);
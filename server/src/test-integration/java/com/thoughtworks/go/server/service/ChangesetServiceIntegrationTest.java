@@ -27,6 +27,7 @@ import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.domain.materials.Modifications;
 import com.thoughtworks.go.domain.materials.svn.SvnMaterialInstance;
 import com.thoughtworks.go.helper.MaterialsMother;
+import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.dao.DatabaseAccessHelper;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.materials.DependencyMaterialUpdateNotifier;
@@ -51,6 +52,8 @@ import java.util.*;
 
 import static com.thoughtworks.go.helper.ModificationsMother.checkinWithComment;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -75,6 +78,8 @@ public class ChangesetServiceIntegrationTest {
     private TransactionTemplate transactionTemplate;
     @Autowired
     private DependencyMaterialUpdateNotifier notifier;
+    @Autowired
+    private GoCache goCache;
     private PipelineConfig pipelineConfigWithTwoMaterials;
     private PipelineConfig pipelineConfig;
     private PipelineConfig pipelineConfigWithSvn;
@@ -194,6 +199,79 @@ public class ChangesetServiceIntegrationTest {
         assertThat(result.isSuccessful(), is(true));
     }
 
+    @Test
+    public void shouldCacheModificationsBetweenPipelineInstancesThatHaveRun() {
+        Username loser = new Username(new CaseInsensitiveString("loser"));
+        ManualBuild build = new ManualBuild(loser);
+        Date checkinTime = new Date();
+
+        Modification hgCommit1 = checkinWithComment("abcd", "#4518 - foo", checkinTime);
+        Pipeline pipelineOne = dbHelper.checkinRevisionsToBuild(build, pipelineConfig, dbHelper.addRevisionsWithModifications(hg, hgCommit1));
+        Modification hgCommit2 = checkinWithComment("bcde", "#4520 - foo", checkinTime);
+        Pipeline pipelineTwo = dbHelper.checkinRevisionsToBuild(build, pipelineConfig, dbHelper.addRevisionsWithModifications(hg, hgCommit2));
+
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+        changesetService.revisionsBetween(pipelineConfig.name().toString(), pipelineOne.getCounter(), pipelineTwo.getCounter(), loser, result, false);
+        changesetService.revisionsBetween(pipelineConfig.name().toString(), pipelineOne.getCounter(), pipelineTwo.getCounter() + 1, loser, result, true);
+
+        String pipelineName = pipelineConfig.name().toString();
+        String key = changesetService.cacheKeyForRevisionsBetween(pipelineName);
+        assertThat(goCache.get(key, changesetService.cacheSubKeyForRevisionsBetween(pipelineOne.getCounter(), pipelineTwo.getCounter())), is(notNullValue()));
+        assertThat(goCache.get(key, changesetService.cacheSubKeyForRevisionsBetween(pipelineOne.getCounter(), pipelineTwo.getCounter() + 1)), is(nullValue()));
+
+        List<MaterialRevision> revisions = changesetService.revisionsBetween(pipelineName, pipelineOne.getCounter(), pipelineTwo.getCounter(), loser, result, false);
+        assertMaterialRevisions(Arrays.asList(new MaterialRevision(hg, hgCommit2)), revisions);
+        assertThat(result.isSuccessful(), is(true));
+    }
+
+    @Test
+    public void shouldNotLetCallersChangeTheCachedModificationsBetweenPipelineInstances() {
+        Username loser = new Username(new CaseInsensitiveString("loser"));
+        ManualBuild build = new ManualBuild(loser);
+        Date checkinTime = new Date();
+
+        Modification hgCommit1 = checkinWithComment("abcd", "#4518 - foo", checkinTime);
+        Pipeline pipelineOne = dbHelper.checkinRevisionsToBuild(build, pipelineConfig, dbHelper.addRevisionsWithModifications(hg, hgCommit1));
+        Modification hgCommit2 = checkinWithComment("bcde", "#4520 - foo", checkinTime);
+        Pipeline pipelineTwo = dbHelper.checkinRevisionsToBuild(build, pipelineConfig, dbHelper.addRevisionsWithModifications(hg, hgCommit2));
+
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+        String pipelineName = pipelineConfig.name().toString();
+        List<MaterialRevision> firstCall = changesetService.revisionsBetween(pipelineName, pipelineOne.getCounter(), pipelineTwo.getCounter(), loser, result, false);
+        firstCall.get(0).getModifications().clear();
+        List<MaterialRevision> secondCall = changesetService.revisionsBetween(pipelineName, pipelineOne.getCounter(), pipelineTwo.getCounter(), loser, result, false);
+        secondCall.get(0).getModifications().clear();
+
+        List<MaterialRevision> revisions = changesetService.revisionsBetween(pipelineName, pipelineOne.getCounter(), pipelineTwo.getCounter(), loser, result, false);
+        assertMaterialRevisions(Arrays.asList(new MaterialRevision(hg, hgCommit2)), revisions);
+    }
+
+    @Test
+    public void shouldDropTheCachedRangesOfAPipelineOnceItHasTooManyOfThem() {
+        Username loser = new Username(new CaseInsensitiveString("loser"));
+        ManualBuild build = new ManualBuild(loser);
+        Date checkinTime = new Date();
+
+        Pipeline latest = null;
+        for (int i = 0; i <= ChangesetService.MAX_CACHED_RANGES_PER_PIPELINE; i++) {
+            Modification hgCommit = checkinWithComment("rev-" + i, "#4518 - foo", checkinTime);
+            latest = dbHelper.checkinRevisionsToBuild(build, pipelineConfig, dbHelper.addRevisionsWithModifications(hg, hgCommit));
+        }
+
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+        String pipelineName = pipelineConfig.name().toString();
+        for (int from = 0; from < ChangesetService.MAX_CACHED_RANGES_PER_PIPELINE; from++) {
+            changesetService.revisionsBetween(pipelineName, from, latest.getCounter(), loser, result, true);
+        }
+        String key = changesetService.cacheKeyForRevisionsBetween(pipelineName);
+        assertThat(goCache.subKeyCount(key), is(ChangesetService.MAX_CACHED_RANGES_PER_PIPELINE));
+
+        changesetService.revisionsBetween(pipelineName, ChangesetService.MAX_CACHED_RANGES_PER_PIPELINE, latest.getCounter(), loser, result, true);
+
+        assertThat(goCache.subKeyCount(key), is(1));
+        assertThat(goCache.get(key, changesetService.cacheSubKeyForRevisionsBetween(0, latest.getCounter())), is(nullValue()));
+    }
+
     @Test
     public void shouldNotDuplicateModificationsWhileComputingRevisionsBetweenTwoPipelineInstances() {
         Username loser = new Username(new CaseInsensitiveString("loser"));
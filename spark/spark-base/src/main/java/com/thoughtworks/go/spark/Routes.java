@@ -356,6 +356,8 @@ public class Routes {
         public static final String BASE = "/api/jobs";
         public static final String JOB_HISTORY = "/:pipeline_name/:stage_name/:job_name/history";
         public static final String JOB_INSTANCE = "/:pipeline_name/:pipeline_counter/:stage_name/:stage_counter/:job_name";
+        public static final String JOB_TEST_RESULTS = "/:pipeline_name/:pipeline_counter/:stage_name/:stage_counter/:job_name/test_results";
+        public static final String JOB_FLAKY_TESTS = "/:pipeline_name/:stage_name/:job_name/flaky_tests";
 
         public static String previous(String pipelineName, String stageName, String jobConfigName, long before) {
             return BASE
@@ -722,6 +724,7 @@ public class Routes {
     public class Support {
         public static final String BASE = "/api/support";
         public static final String PROCESS_LIST = "/process_list";
+        public static final String MODIFICATION_SEARCH_INDEX = "/modification_search_index";
     }
 
     public class ClusterProfiles {